@@ -0,0 +1,157 @@
+package com.schools24.bench;
+
+import com.schools24.Schools24Application;
+import com.schools24.domain.FeeHead;
+import com.schools24.domain.FeeInvoice;
+import com.schools24.domain.School;
+import com.schools24.domain.SchoolClass;
+import com.schools24.domain.User;
+import com.schools24.service.BulkInvoiceService;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boots the application against an in-memory H2 database (MySQL mode) without the web server
+ * and seeds a deterministic data set, so database benchmarks are comparable between runs.
+ */
+public final class BenchmarkDatabase {
+    public static final int SCHOOLS = 1_000;
+    public static final int STUDENTS = 5_000;
+    public static final int TEACHERS = 200;
+    public static final int CLASSES = 100;
+    public static final int HEADS = 5;
+    public static final long MAIN_SCHOOL_ID = 1L;
+
+    private BenchmarkDatabase() {
+    }
+
+    public static ConfigurableApplicationContext start() {
+        SpringApplication app = new SpringApplication(Schools24Application.class);
+        Map<String, String> props = Map.ofEntries(
+                Map.entry("spring.datasource.url", "jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1"),
+                Map.entry("spring.datasource.username", "sa"),
+                Map.entry("spring.datasource.password", ""),
+                Map.entry("spring.jpa.hibernate.ddl-auto", "create"),
+                // The migrations are written for MySQL; H2 gets its schema from the entities.
+                Map.entry("spring.flyway.enabled", "false"),
+                // Journals stay with the build output instead of the working directory.
+                Map.entry("schools24.payments.journal.dir", "target/payment-journal"),
+                Map.entry("schools24.quiz.journal.dir", "target/quiz-journal"),
+                // Background recounts and refreshes would land inside measurement iterations.
+                Map.entry("schools24.stats.reconcile-interval-ms", "3600000"),
+                Map.entry("schools24.leaderboard.snapshot-interval-ms", "3600000"),
+                Map.entry("schools24.questions.refresh-interval-ms", "3600000"),
+                Map.entry("spring.jpa.show-sql", "false"),
+                Map.entry("spring.jpa.properties.hibernate.format_sql", "false"),
+                Map.entry("spring.main.web-application-type", "none"),
+                Map.entry("spring.main.banner-mode", "off"),
+                Map.entry("logging.level.root", "WARN"));
+        // System properties win over the application.properties packaged with the backend.
+        props.forEach(System::setProperty);
+        ConfigurableApplicationContext ctx = app.run();
+        seed(ctx);
+        return ctx;
+    }
+
+    private static void seed(ConfigurableApplicationContext ctx) {
+        EntityManager em = ctx.getBean(EntityManager.class);
+        TransactionTemplate tx = new TransactionTemplate(ctx.getBean(PlatformTransactionManager.class));
+        Instant now = Instant.parse("2024-06-01T00:00:00Z");
+
+        List<Long> schoolIds = tx.execute(s -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < SCHOOLS; i++) {
+                School school = new School();
+                school.setName((i % 7 == 0 ? "Green Valley " : i % 7 == 1 ? "St. Mary's " : "Public School ") + i);
+                school.setCode("SC" + i);
+                school.setCity(i % 2 == 0 ? "Pune" : "Jaipur");
+                school.setEmail("office" + i + "@school" + i + ".org");
+                em.persist(school);
+                ids.add(school.getId());
+            }
+            return ids;
+        });
+
+        List<Long> teacherIds = new ArrayList<>();
+        List<Long> studentIds = new ArrayList<>();
+        Long firstSchool = schoolIds.get(0);
+        tx.executeWithoutResult(s -> {
+            for (int i = 0; i < TEACHERS; i++) teacherIds.add(persistUser(em, firstSchool, "teacher", i, now.minusSeconds(i)));
+            for (int i = 0; i < STUDENTS; i++) studentIds.add(persistUser(em, firstSchool, "student", i, now.minusSeconds(i)));
+        });
+
+        tx.executeWithoutResult(s -> {
+            int perClass = STUDENTS / CLASSES;
+            for (int c = 0; c < CLASSES; c++) {
+                SchoolClass sc = new SchoolClass();
+                sc.setName("Class " + (c / 4 + 1));
+                sc.setGrade(String.valueOf(c / 4 + 1));
+                sc.setSection(String.valueOf((char) ('A' + c % 4)));
+                sc.setSchoolId(firstSchool);
+                sc.setClassTeacher(em.getReference(User.class, teacherIds.get(c % TEACHERS)));
+                for (int k = 0; k < perClass; k++) {
+                    sc.getStudents().add(em.getReference(User.class, studentIds.get(c * perClass + k)));
+                }
+                em.persist(sc);
+            }
+        });
+
+        tx.executeWithoutResult(s -> {
+            School school = em.find(School.class, schoolIds.get(0));
+            List<FeeHead> heads = new ArrayList<>();
+            for (int h = 0; h < HEADS; h++) {
+                FeeHead head = new FeeHead();
+                head.setName("Head " + h);
+                head.setAmount(1_000 * (h + 1));
+                head.setSchool(school);
+                em.persist(head);
+                heads.add(head);
+            }
+            for (int i = 0; i < studentIds.size(); i++) {
+                FeeInvoice inv = BulkInvoiceService.buildInvoice(school, em.getReference(User.class, studentIds.get(i)), heads);
+                inv.setCreatedAt(now.minus(Duration.ofDays(i % 120)));
+                switch (i % 3) {
+                    case 0 -> {
+                        inv.setPaidAmount(inv.getTotalAmount());
+                        inv.setStatus("PAID");
+                    }
+                    case 1 -> {
+                        inv.setPaidAmount(inv.getTotalAmount() / 2);
+                        inv.setStatus("PARTIAL");
+                    }
+                    default -> {
+                    }
+                }
+                em.persist(inv);
+                if (i % 500 == 499) {
+                    em.flush();
+                    em.clear();
+                    school = em.find(School.class, schoolIds.get(0));
+                    heads = em.createQuery("select h from FeeHead h order by h.id", FeeHead.class).getResultList();
+                }
+            }
+        });
+    }
+
+    private static Long persistUser(EntityManager em, Long schoolId, String role, int i, Instant createdAt) {
+        User u = new User();
+        u.setSchoolId(schoolId);
+        u.setName(role + " " + i);
+        u.setEmail(role + i + "@bench.local");
+        u.setPassword("x");
+        u.setRole(role);
+        u.setUserId(role.substring(0, 3).toUpperCase() + i);
+        u.setCreatedAt(createdAt);
+        em.persist(u);
+        return u.getId();
+    }
+}
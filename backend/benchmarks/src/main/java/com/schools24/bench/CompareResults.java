@@ -0,0 +1,94 @@
+package com.schools24.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files benchmark by benchmark. A result counts as a regression
+ * when it is worse than the baseline by more than the threshold (percent) and by more than the
+ * two error margins combined. Exits with status 1 if any benchmark regressed; baseline results
+ * whose error margin is as large as the score are marked, since they hide all but the largest changes.
+ * <p>
+ * Usage: {@code CompareResults <baseline.json> <current.json> [thresholdPercent]}
+ */
+public final class CompareResults {
+    private record Score(String mode, double score, double error, String unit) {
+    }
+
+    private CompareResults() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CompareResults <baseline.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Score> baseline = read(new File(args[0]));
+        Map<String, Score> current = read(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-70s %14s %14s %9s  %s%n", "Benchmark", "Baseline", "Current", "Change", "Unit");
+        for (Map.Entry<String, Score> e : current.entrySet()) {
+            Score now = e.getValue();
+            Score base = baseline.get(e.getKey());
+            if (base == null || !base.unit().equals(now.unit())) {
+                System.out.printf("%-70s %14s %14.3f %9s  %s%n", e.getKey(), "-", now.score(), "new", now.unit());
+                continue;
+            }
+            // Throughput is better when higher; every other mode reports time, better when lower.
+            double change = (now.score() - base.score()) / base.score() * 100.0;
+            double worse = "thrpt".equals(now.mode()) ? -change : change;
+            boolean beyondNoise = Math.abs(now.score() - base.score()) > base.error() + now.error();
+            String flag = "";
+            if (worse > threshold && beyondNoise) {
+                flag = "  REGRESSION";
+                regressions++;
+            } else if (-worse > threshold && beyondNoise) {
+                flag = "  improved";
+            } else if (base.error() >= base.score()) {
+                // Only a change larger than the whole score clears an error margin this wide; record it again.
+                flag = "  noisy baseline";
+            }
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%%  %s%s%n",
+                    e.getKey(), base.score(), now.score(), change, now.unit(), flag);
+        }
+        for (String name : baseline.keySet()) {
+            if (!current.containsKey(name)) System.out.printf("%-70s %14s %14s %9s%n", name, "", "-", "missing");
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed by more than " + threshold + "%");
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Score> read(File file) throws IOException {
+        Map<String, Score> res = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            StringBuilder name = new StringBuilder(shortName(run.get("benchmark").asText()));
+            JsonNode params = run.get("params");
+            if (params != null) {
+                for (Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext(); ) {
+                    Map.Entry<String, JsonNode> p = it.next();
+                    name.append(' ').append(p.getKey()).append('=').append(p.getValue().asText());
+                }
+            }
+            JsonNode metric = run.get("primaryMetric");
+            double error = metric.get("scoreError").asDouble();
+            res.put(name.toString(), new Score(run.get("mode").asText(), metric.get("score").asDouble(),
+                    Double.isNaN(error) ? 0.0 : error, metric.get("scoreUnit").asText()));
+        }
+        return res;
+    }
+
+    private static String shortName(String benchmark) {
+        String[] parts = benchmark.split("\\.");
+        return parts.length < 2 ? benchmark : parts[parts.length - 2] + "." + parts[parts.length - 1];
+    }
+}
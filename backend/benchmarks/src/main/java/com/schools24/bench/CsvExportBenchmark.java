@@ -0,0 +1,70 @@
+package com.schools24.bench;
+
+import com.schools24.repository.SchoolExportRow;
+import com.schools24.service.SchoolExportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV cell escaping and building 1000 rows for the school export, written to a discarding writer so
+ * only the formatting cost is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class CsvExportBenchmark {
+    private final Writer sink = Writer.nullWriter();
+
+    @State(Scope.Benchmark)
+    public static class Rows {
+        @Param({"false", "true"})
+        public boolean extended;
+
+        SchoolExportRow[] rows;
+
+        @Setup
+        public void setUp() {
+            rows = new SchoolExportRow[1_000];
+            Instant createdAt = Instant.parse("2024-06-01T00:00:00Z");
+            for (int i = 0; i < rows.length; i++) {
+                String name = i % 10 == 0 ? "St. \"Mary's\" School " + i : "Green Valley Public School " + i;
+                rows[i] = new SchoolExportRow((long) i, "SC" + i, name, "school" + i + ".org", "office@school" + i + ".org",
+                        i % 3 == 0 ? null : "12, MG Road, \"Near Park\"", "Pune", "Maharashtra", "India",
+                        i % 2 == 0, false, createdAt);
+            }
+        }
+    }
+
+    @Benchmark
+    public void escapeQuoted() throws IOException {
+        SchoolExportService.writeEscaped(sink, "St. \"Mary's\" Convent, \"Senior\" Wing");
+    }
+
+    @Benchmark
+    public void escapePlain() throws IOException {
+        SchoolExportService.writeEscaped(sink, "Green Valley Public School");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void writeRows(Rows state) throws IOException {
+        for (SchoolExportRow r : state.rows) SchoolExportService.writeRow(sink, r, state.extended);
+    }
+}
@@ -0,0 +1,54 @@
+package com.schools24.bench;
+
+import com.schools24.web.FeesController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The fee collection endpoints over {@value BenchmarkDatabase#STUDENTS} invoices of one school.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+// Freshly booted, the application keeps getting faster for about 40 s on a single core.
+@Warmup(iterations = 20, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class FeeCollectionsBenchmark {
+    private ConfigurableApplicationContext ctx;
+    private FeesController controller;
+
+    @Setup
+    public void setUp() {
+        ctx = BenchmarkDatabase.start();
+        controller = ctx.getBean(FeesController.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> collections() {
+        return controller.collections(BenchmarkDatabase.MAIN_SCHOOL_ID);
+    }
+
+    @Benchmark
+    public Map<String, Object> collectionsBreakdown() {
+        return controller.collectionsBreakdown(BenchmarkDatabase.MAIN_SCHOOL_ID);
+    }
+}
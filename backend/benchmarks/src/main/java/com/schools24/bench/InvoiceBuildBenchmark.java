@@ -0,0 +1,62 @@
+package com.schools24.bench;
+
+import com.schools24.domain.FeeHead;
+import com.schools24.domain.FeeInvoice;
+import com.schools24.domain.School;
+import com.schools24.domain.User;
+import com.schools24.service.BulkInvoiceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building one invoice (items and total) per student, as bulk billing does before persisting.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class InvoiceBuildBenchmark {
+    @Param({"3", "10", "30"})
+    public int heads;
+
+    private School school;
+    private User student;
+    private List<FeeHead> feeHeads;
+
+    @Setup
+    public void setUp() {
+        school = new School();
+        school.setId(1L);
+        student = new User();
+        student.setId(1L);
+        feeHeads = new ArrayList<>();
+        for (int i = 0; i < heads; i++) {
+            FeeHead h = new FeeHead();
+            h.setId((long) i);
+            h.setName("Head " + i);
+            h.setAmount(i % 4 == 3 ? null : 500 * (i + 1));
+            h.setSchool(school);
+            feeHeads.add(h);
+        }
+    }
+
+    @Benchmark
+    public FeeInvoice buildInvoice() {
+        return BulkInvoiceService.buildInvoice(school, student, feeHeads);
+    }
+}
@@ -0,0 +1,106 @@
+package com.schools24.bench;
+
+import com.schools24.domain.School;
+import com.schools24.domain.SchoolClass;
+import com.schools24.domain.User;
+import com.schools24.repository.SchoolClassRepository;
+import com.schools24.repository.SchoolRepository;
+import com.schools24.repository.UserRepository;
+import com.schools24.repository.UserSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finder methods behind the list, search and billing paths, one page of 100 rows where paged.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+// Freshly booted, the application keeps getting faster for about 40 s on a single core.
+@Warmup(iterations = 20, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class RepositoryBenchmark {
+    private static final Limit PAGE = Limit.of(100);
+
+    private ConfigurableApplicationContext ctx;
+    private SchoolRepository schools;
+    private UserRepository users;
+    private SchoolClassRepository classes;
+    private Instant deepCreatedAt;
+    private long deepId;
+    private Long schoolId;
+
+    @Setup
+    public void setUp() {
+        ctx = BenchmarkDatabase.start();
+        schools = ctx.getBean(SchoolRepository.class);
+        users = ctx.getBean(UserRepository.class);
+        classes = ctx.getBean(SchoolClassRepository.class);
+        UserSummary mid = users.findActiveSummariesByRole("student", Limit.of(BenchmarkDatabase.STUDENTS / 2)).getLast();
+        deepCreatedAt = mid.createdAt();
+        deepId = mid.id();
+        schoolId = mid.schoolId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public List<School> schoolsAfterId() {
+        return schools.findByIdGreaterThanOrderByIdAsc((long) BenchmarkDatabase.SCHOOLS / 2, PAGE);
+    }
+
+    @Benchmark
+    public List<School> schoolsMatching() {
+        return schools.findMatchingAfter(0L, "valley", PAGE);
+    }
+
+    @Benchmark
+    public long schoolsMatchingCount() {
+        return schools.countByNameContainingIgnoreCaseOrCodeContainingIgnoreCase("valley", "valley");
+    }
+
+    @Benchmark
+    public List<UserSummary> studentsFirstPage() {
+        return users.findActiveSummariesByRole("student", PAGE);
+    }
+
+    @Benchmark
+    public List<UserSummary> studentsDeepPage() {
+        return users.findActiveSummariesByRoleBefore("student", deepCreatedAt, deepId, PAGE);
+    }
+
+    @Benchmark
+    public Optional<User> userByEmail() {
+        return users.findByEmail("student2500@bench.local");
+    }
+
+    @Benchmark
+    public List<Long> activeStudentIds() {
+        return users.findActiveIdsBySchoolAndRole(schoolId, "student");
+    }
+
+    @Benchmark
+    public List<SchoolClass> classesWithTeacher() {
+        return classes.findByIdGreaterThanOrderByIdAsc(0L, PAGE);
+    }
+}
@@ -0,0 +1,50 @@
+package com.schools24.load;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A throwaway MariaDB server (MariaDB4j) on a free port with one empty database, so a run can
+ * use the schema the backend's migrations build without an external MySQL.
+ */
+final class EmbeddedMariaDb implements AutoCloseable {
+    private final DB db;
+    private final String url;
+
+    EmbeddedMariaDb(String database) throws ManagedProcessException, SQLException {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        // mariadbd refuses to run as root unless told to; CI containers often run as root.
+        if ("root".equals(System.getProperty("user.name"))) config.addArg("--user=root");
+        db = DB.newEmbeddedDB(config.build());
+        db.start();
+        String server = "jdbc:mysql://localhost:" + config.getPort() + "/";
+        try (Connection c = DriverManager.getConnection(server, "root", "");
+             Statement st = c.createStatement()) {
+            st.execute("create database " + database);
+        } catch (SQLException | RuntimeException e) {
+            close();
+            throw e;
+        }
+        url = server + database + "?useSSL=false&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true";
+    }
+
+    String url() {
+        return url;
+    }
+
+    @Override
+    public void close() {
+        try {
+            db.stop();
+        } catch (ManagedProcessException e) {
+            System.err.println("Could not stop the embedded MariaDB: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.schools24.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies (microseconds, measured from the scheduled send time) and outcomes of one endpoint.
+ */
+public class EndpointStats {
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    final String name;
+    final double targetRate;
+    private volatile Histogram latencies = newHistogram();
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    EndpointStats(String name, double targetRate) {
+        this.name = name;
+        this.targetRate = targetRate;
+    }
+
+    void record(String outcome, boolean success, long latencyNanos) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_TRACKABLE_MICROS));
+        (success ? ok : failed).increment();
+        outcomes.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+    }
+
+    // The request was never sent because too many were already in flight.
+    void drop() {
+        dropped.increment();
+        outcomes.computeIfAbsent("dropped", k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Forgets everything recorded so far; called when the warmup ends.
+     */
+    void reset() {
+        latencies = newHistogram();
+        ok.reset();
+        failed.reset();
+        dropped.reset();
+        outcomes.clear();
+    }
+
+    Histogram latencies() {
+        return latencies;
+    }
+
+    long ok() {
+        return ok.sum();
+    }
+
+    long failed() {
+        return failed.sum();
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    Map<String, Long> outcomes() {
+        Map<String, Long> res = new TreeMap<>();
+        outcomes.forEach((k, v) -> res.put(k, v.sum()));
+        return res;
+    }
+
+    private static Histogram newHistogram() {
+        return new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3);
+    }
+}
@@ -0,0 +1,95 @@
+package com.schools24.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * The term-start traffic mix: admins refreshing dashboards and lists, parents paying fees,
+ * accountants running reports and batch uploads, occasional bulk billing and exports. School
+ * requests are sent as the fee school's admin, developer requests as a platform user.
+ */
+public final class FeeSeasonMix {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final String[] SEARCHES = {"green", "val", "st. m", "model sch", "academy", "sch12", "vidya", "pune"};
+    // Share of single payments sent again with an already used key, as client retries do.
+    private static final double RETRY_SHARE = 0.02;
+
+    private FeeSeasonMix() {
+    }
+
+    public static List<Target> targets(LoadConfig config, String baseUrl, SeedData seed, String token,
+                                       String platformToken) {
+        long school = seed.feeSchoolId();
+        // Recently sent payments, so a retry resends one with its key.
+        String[][] recent = new String[256][];
+        List<Target> targets = new ArrayList<>();
+        add(targets, config, "dashboard", () -> get(baseUrl + "/api/admin/dashboard", token));
+        add(targets, config, "overview", () -> get(baseUrl + "/api/developer/overview", platformToken));
+        add(targets, config, "teachers", () -> get(baseUrl + "/api/admin/teachers?limit=50", token));
+        add(targets, config, "classes", () -> get(baseUrl + "/api/admin/classes?limit=50", token));
+        add(targets, config, "schools", () -> get(baseUrl + "/api/developer/schools?limit=50", platformToken));
+        add(targets, config, "searchSchools", () -> get(baseUrl + "/api/developer/search/schools?limit=10&q="
+                + SEARCHES[ThreadLocalRandom.current().nextInt(SEARCHES.length)].replace(" ", "%20"), platformToken));
+        add(targets, config, "collections", () -> get(baseUrl + "/api/admin/fees/collections?schoolId=" + school, token));
+        add(targets, config, "breakdown", () -> get(baseUrl + "/api/admin/fees/collections/breakdown?schoolId=" + school, token));
+        add(targets, config, "payments", () -> {
+            ThreadLocalRandom r = ThreadLocalRandom.current();
+            int slot = r.nextInt(recent.length);
+            String[] sent = recent[slot];
+            if (sent == null || r.nextDouble() >= RETRY_SHARE) {
+                long invoice = seed.invoiceIds()[r.nextInt(seed.invoiceIds().length)];
+                sent = new String[]{UUID.randomUUID().toString(),
+                        "{\"invoiceId\":" + invoice + ",\"amount\":" + (100 + r.nextInt(900)) + ",\"method\":\"UPI\"}"};
+                recent[slot] = sent;
+            }
+            return post(baseUrl + "/api/admin/fees/payments", sent[1], token)
+                    .header("Idempotency-Key", sent[0])
+                    .build();
+        });
+        add(targets, config, "paymentBatch", () -> {
+            ThreadLocalRandom r = ThreadLocalRandom.current();
+            StringBuilder body = new StringBuilder("{\"payments\":[");
+            for (int i = 0; i < 50; i++) {
+                if (i > 0) body.append(',');
+                body.append("{\"invoiceId\":").append(seed.invoiceIds()[r.nextInt(seed.invoiceIds().length)])
+                        .append(",\"amount\":").append(100 + r.nextInt(900))
+                        .append(",\"method\":\"BANK\",\"idempotencyKey\":\"").append(UUID.randomUUID()).append("\"}");
+            }
+            return post(baseUrl + "/api/admin/fees/payments/batch", body.append("]}").toString(), token).build();
+        });
+        add(targets, config, "bulkInvoice", () -> {
+            long classId = seed.feeClassIds().get(ThreadLocalRandom.current().nextInt(seed.feeClassIds().size()));
+            return post(baseUrl + "/api/admin/fees/invoices/bulk", "{\"schoolId\":" + school + ",\"classId\":" + classId
+                    + ",\"headIds\":[" + seed.headIds().get(seed.headIds().size() - 1) + "]}", token).build();
+        });
+        add(targets, config, "export", () -> get(baseUrl + "/api/developer/schools/export?columns=all", platformToken));
+        return targets;
+    }
+
+    private static void add(List<Target> targets, LoadConfig config, String name,
+                            Supplier<HttpRequest> request) {
+        double rate = config.rate(name);
+        if (rate > 0) targets.add(new Target(name, rate, request));
+    }
+
+    private static HttpRequest get(String url, String token) {
+        return request(url, token).GET().build();
+    }
+
+    private static HttpRequest.Builder post(String url, String json, String token) {
+        return request(url, token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private static HttpRequest.Builder request(String url, String token) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(url)).timeout(TIMEOUT);
+        return token == null ? b : b.header("Authorization", "Bearer " + token);
+    }
+}
@@ -0,0 +1,164 @@
+package com.schools24.load;
+
+import com.schools24.domain.FeeHead;
+import com.schools24.domain.FeeInvoice;
+import com.schools24.domain.School;
+import com.schools24.domain.SchoolClass;
+import com.schools24.domain.User;
+import com.schools24.service.BulkInvoiceService;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * Seeds schools, teachers, students in classes, fee heads and one open invoice per student,
+ * as the database looks at the start of a term, plus the fee school's admin ({@link #ADMIN_EMAIL})
+ * and a platform user ({@link #DEVELOPER_EMAIL}), both with password {@link #PASSWORD}, whom the
+ * workload signs in as. Classes are dealt out to schools in turn and
+ * their students belong to the same school; fees are billed by the first school. The data set
+ * depends only on the sizes given, so runs with the same settings start from the same state.
+ */
+public class FeeSeasonSeeder {
+    public static final String ADMIN_EMAIL = "admin0@load.example.org";
+    public static final String DEVELOPER_EMAIL = "developer0@load.example.org";
+    public static final String PASSWORD = "load";
+    private static final int CHUNK = 1_000;
+    private static final String[] WORDS = {"Green", "Valley", "Public", "Model", "Central", "St. Mary's", "Vidya",
+            "Mandir", "Global", "Modern", "Convent", "International", "Academy", "High"};
+
+    private final LoadConfig config;
+    private final EntityManager em;
+    private final TransactionTemplate tx;
+
+    public FeeSeasonSeeder(LoadConfig config, ConfigurableApplicationContext ctx) {
+        this.config = config;
+        this.em = ctx.getBean(EntityManager.class);
+        this.tx = new TransactionTemplate(ctx.getBean(PlatformTransactionManager.class));
+    }
+
+    public SeedData seed() {
+        Random random = new Random(42);
+        Instant termStart = Instant.now().minus(Duration.ofDays(90));
+
+        List<Long> schoolIds = new ArrayList<>();
+        for (int from = 0; from < config.schools(); from += CHUNK) {
+            int start = from;
+            tx.executeWithoutResult(s -> {
+                for (int i = start; i < Math.min(start + CHUNK, config.schools()); i++) {
+                    School school = new School();
+                    school.setName(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " School " + i);
+                    school.setCode("SCH" + i);
+                    school.setCity(i % 3 == 0 ? "Jaipur" : i % 3 == 1 ? "Pune" : "Mysuru");
+                    school.setEmail("office@sch" + i + ".example.org");
+                    em.persist(school);
+                    schoolIds.add(school.getId());
+                }
+            });
+        }
+
+        long feeSchoolId = schoolIds.get(0);
+        persistUsers("admin", 1, termStart, i -> feeSchoolId);
+        persistUsers("developer", 1, termStart, i -> null);
+        int classes = Math.max(1, config.classes());
+        List<Long> teacherIds = persistUsers("teacher", config.teachers(), termStart,
+                i -> schoolIds.get(i % schoolIds.size()));
+        List<Long> studentIds = persistUsers("student", config.students(), termStart,
+                i -> schoolIds.get(i % classes % schoolIds.size()));
+
+        List<Long> classIds = new ArrayList<>();
+        List<Long> feeClassIds = new ArrayList<>();
+        tx.executeWithoutResult(s -> {
+            for (int c = 0; c < classes; c++) {
+                SchoolClass sc = new SchoolClass();
+                sc.setSchoolId(schoolIds.get(c % schoolIds.size()));
+                sc.setName("Class " + (c / 4 + 1));
+                sc.setGrade(String.valueOf(c / 4 % 12 + 1));
+                sc.setSection(c / 48 + "" + (char) ('A' + c % 4));
+                if (!teacherIds.isEmpty()) sc.setClassTeacher(em.getReference(User.class, teacherIds.get(c % teacherIds.size())));
+                for (int k = c; k < studentIds.size(); k += classes) {
+                    sc.getStudents().add(em.getReference(User.class, studentIds.get(k)));
+                }
+                em.persist(sc);
+                classIds.add(sc.getId());
+                if (c % schoolIds.size() == 0) feeClassIds.add(sc.getId());
+            }
+        });
+
+        List<Long> headIds = tx.execute(s -> {
+            School school = em.find(School.class, feeSchoolId);
+            List<Long> ids = new ArrayList<>();
+            String[] names = {"Tuition", "Transport", "Library", "Lab", "Sports", "Exam"};
+            for (int h = 0; h < config.heads(); h++) {
+                FeeHead head = new FeeHead();
+                head.setName(names[h % names.length] + (h < names.length ? "" : " " + h));
+                head.setAmount(h == 0 ? 25_000 : 500 * (h + 1));
+                head.setSchool(school);
+                em.persist(head);
+                ids.add(head.getId());
+            }
+            return ids;
+        });
+
+        long[] invoiceIds = new long[studentIds.size()];
+        for (int from = 0; from < studentIds.size(); from += CHUNK) {
+            int start = from;
+            tx.executeWithoutResult(s -> {
+                School school = em.find(School.class, feeSchoolId);
+                List<FeeHead> heads = em.createQuery("select h from FeeHead h where h.school.id = :id order by h.id", FeeHead.class)
+                        .setParameter("id", feeSchoolId).getResultList();
+                List<FeeInvoice> chunk = new ArrayList<>();
+                for (int i = start; i < Math.min(start + CHUNK, studentIds.size()); i++) {
+                    FeeInvoice inv = BulkInvoiceService.buildInvoice(school, em.getReference(User.class, studentIds.get(i)), heads);
+                    inv.setCreatedAt(termStart.plus(Duration.ofHours(random.nextInt(90 * 24))));
+                    // A fifth paid up, a fifth part-paid, the rest still open.
+                    int r = random.nextInt(5);
+                    if (r == 0) {
+                        inv.setPaidAmount(inv.getTotalAmount());
+                        inv.setStatus("PAID");
+                    } else if (r == 1) {
+                        inv.setPaidAmount(inv.getTotalAmount() / 3);
+                        inv.setStatus("PARTIAL");
+                    }
+                    em.persist(inv);
+                    chunk.add(inv);
+                }
+                em.flush();
+                for (int k = 0; k < chunk.size(); k++) invoiceIds[start + k] = chunk.get(k).getId();
+                em.clear();
+            });
+        }
+        return new SeedData(feeSchoolId, headIds, classIds, feeClassIds, invoiceIds);
+    }
+
+    private List<Long> persistUsers(String role, int count, Instant termStart, IntFunction<Long> schoolOf) {
+        List<Long> ids = new ArrayList<>(count);
+        for (int from = 0; from < count; from += CHUNK) {
+            int start = from;
+            tx.executeWithoutResult(s -> {
+                for (int i = start; i < Math.min(start + CHUNK, count); i++) {
+                    User u = new User();
+                    u.setName(WORDS[i % WORDS.length] + " " + role + " " + i);
+                    u.setEmail(role + i + "@load.example.org");
+                    u.setPassword(PASSWORD);
+                    u.setRole(role);
+                    u.setUserId(role.substring(0, 3).toUpperCase() + i);
+                    u.setCreatedAt(termStart.plusSeconds(i));
+                    u.setSchoolId(schoolOf.apply(i));
+                    em.persist(u);
+                    ids.add(u.getId());
+                }
+                em.flush();
+                em.clear();
+            });
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,117 @@
+package com.schools24.load;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command-line settings, given as {@code --key=value}. Anything not given uses the defaults
+ * below, which approximate the first week of a fee season for a mid-sized deployment.
+ */
+public final class LoadConfig {
+    // Requests per second for each endpoint mix entry; 0 disables it.
+    static final Map<String, Double> DEFAULT_RATES = new LinkedHashMap<>();
+
+    static {
+        DEFAULT_RATES.put("dashboard", 100.0);
+        DEFAULT_RATES.put("overview", 10.0);
+        DEFAULT_RATES.put("teachers", 10.0);
+        DEFAULT_RATES.put("classes", 10.0);
+        DEFAULT_RATES.put("schools", 20.0);
+        DEFAULT_RATES.put("searchSchools", 50.0);
+        DEFAULT_RATES.put("collections", 20.0);
+        DEFAULT_RATES.put("breakdown", 5.0);
+        DEFAULT_RATES.put("payments", 100.0);
+        DEFAULT_RATES.put("paymentBatch", 1.0);
+        DEFAULT_RATES.put("bulkInvoice", 0.05);
+        DEFAULT_RATES.put("export", 0.2);
+    }
+
+    private final Map<String, String> values;
+
+    private LoadConfig(Map<String, String> values) {
+        this.values = values;
+    }
+
+    public static LoadConfig parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String a : args) {
+            if (!a.startsWith("--")) throw new IllegalArgumentException("Expected --key=value but got " + a);
+            int eq = a.indexOf('=');
+            if (eq < 0) values.put(a.substring(2), "true");
+            else values.put(a.substring(2, eq), a.substring(eq + 1));
+        }
+        return new LoadConfig(values);
+    }
+
+    /**
+     * A copy with one setting replaced.
+     */
+    public LoadConfig with(String key, String value) {
+        Map<String, String> copy = new HashMap<>(values);
+        copy.put(key, value);
+        return new LoadConfig(copy);
+    }
+
+    public String get(String key, String def) {
+        return values.getOrDefault(key, def);
+    }
+
+    public int getInt(String key, int def) {
+        String v = values.get(key);
+        return v == null ? def : Integer.parseInt(v);
+    }
+
+    public double getDouble(String key, double def) {
+        String v = values.get(key);
+        return v == null ? def : Double.parseDouble(v);
+    }
+
+    public boolean has(String key) {
+        return values.containsKey(key);
+    }
+
+    // Database: in-memory H2 unless a JDBC url is given. Other databases are emptied and migrated on start.
+    public String dbUrl() {
+        return get("db.url", "jdbc:h2:mem:load;MODE=MySQL;DB_CLOSE_DELAY=-1");
+    }
+
+    public int schools() {
+        return getInt("schools", 500);
+    }
+
+    public int students() {
+        return getInt("students", 20_000);
+    }
+
+    public int teachers() {
+        return getInt("teachers", 800);
+    }
+
+    public int classes() {
+        return getInt("classes", 400);
+    }
+
+    public int heads() {
+        return getInt("heads", 6);
+    }
+
+    public int warmupSeconds() {
+        return getInt("warmup", 15);
+    }
+
+    public int durationSeconds() {
+        return getInt("duration", 60);
+    }
+
+    public int maxInFlight() {
+        return getInt("max-in-flight", 5_000);
+    }
+
+    /**
+     * Rate for an endpoint in requests per second: {@code --rate.<name>}, scaled by {@code --scale}.
+     */
+    public double rate(String name) {
+        return getDouble("rate." + name, DEFAULT_RATES.get(name)) * getDouble("scale", 1.0);
+    }
+}
@@ -0,0 +1,69 @@
+package com.schools24.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-endpoint throughput and latency percentiles of the measured window, as a console table
+ * and as JSON for comparing runs.
+ */
+public final class LoadReport {
+    private LoadReport() {
+    }
+
+    public static void print(List<EndpointStats> stats, int durationSeconds, PrintStream out) {
+        out.printf("%-14s %8s %9s %8s %8s %8s %9s %9s %9s %9s%n",
+                "endpoint", "target/s", "ok/s", "ok", "failed", "dropped", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (EndpointStats s : stats) {
+            Histogram h = s.latencies();
+            out.printf("%-14s %8.2f %9.2f %8d %8d %8d %9.2f %9.2f %9.2f %9.2f%n",
+                    s.name, s.targetRate, (double) s.ok() / durationSeconds, s.ok(), s.failed(), s.dropped(),
+                    ms(h, 50), ms(h, 99), ms(h, 99.9), h.getTotalCount() == 0 ? 0.0 : h.getMaxValue() / 1000.0);
+        }
+        for (EndpointStats s : stats) {
+            if (s.failed() + s.dropped() > 0) out.println(s.name + " outcomes: " + s.outcomes());
+        }
+    }
+
+    public static void writeJson(List<EndpointStats> stats, LoadConfig config, File file) throws IOException {
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        for (EndpointStats s : stats) {
+            Histogram h = s.latencies();
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("endpoint", s.name);
+            m.put("targetRate", s.targetRate);
+            m.put("throughput", (double) s.ok() / config.durationSeconds());
+            m.put("ok", s.ok());
+            m.put("failed", s.failed());
+            m.put("dropped", s.dropped());
+            m.put("outcomes", s.outcomes());
+            m.put("p50Ms", ms(h, 50));
+            m.put("p99Ms", ms(h, 99));
+            m.put("p999Ms", ms(h, 99.9));
+            m.put("maxMs", h.getTotalCount() == 0 ? 0.0 : h.getMaxValue() / 1000.0);
+            endpoints.add(m);
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("durationSeconds", config.durationSeconds());
+        report.put("warmupSeconds", config.warmupSeconds());
+        report.put("students", config.students());
+        report.put("schools", config.schools());
+        report.put("endpoints", endpoints);
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null) dir.mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+    }
+
+    private static double ms(Histogram h, double percentile) {
+        return h.getTotalCount() == 0 ? 0.0 : h.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
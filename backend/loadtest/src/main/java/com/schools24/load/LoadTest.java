@@ -0,0 +1,126 @@
+package com.schools24.load;
+
+import com.schools24.Schools24Application;
+import com.schools24.auth.AuthService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boots the backend on a random port against a scratch database, seeds a term-start data set
+ * and drives the fee-season mix over HTTP, then prints throughput and latency percentiles per
+ * endpoint and writes them to {@code --report} (default target/load-report.json).
+ * <p>
+ * Example: {@code --students=50000 --duration=120 --rate.payments=300 --scale=1.5}
+ */
+public final class LoadTest {
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config = LoadConfig.parse(args);
+        ConfigurableApplicationContext ctx = start(config);
+        try {
+            long t0 = System.nanoTime();
+            SeedData seed = new FeeSeasonSeeder(config, ctx).seed();
+            System.out.printf("Seeded %d schools, %d students, %d classes, %d invoices in %.1f s%n",
+                    config.schools(), config.students(), seed.classIds().size(), seed.invoiceIds().length,
+                    (System.nanoTime() - t0) / 1e9);
+
+            String baseUrl = "http://localhost:" + ctx.getEnvironment().getProperty("local.server.port");
+            String token = ctx.getBean(AuthService.class).login(FeeSeasonSeeder.ADMIN_EMAIL, FeeSeasonSeeder.PASSWORD)
+                    .orElseThrow().token();
+            String platformToken = ctx.getBean(AuthService.class).login(FeeSeasonSeeder.DEVELOPER_EMAIL, FeeSeasonSeeder.PASSWORD)
+                    .orElseThrow().token();
+            List<Target> targets = FeeSeasonMix.targets(config, baseUrl, seed, token, platformToken);
+            System.out.printf("Running %d endpoints for %d s after %d s warmup%n",
+                    targets.size(), config.durationSeconds(), config.warmupSeconds());
+            List<EndpointStats> stats = new OpenLoopDriver(config.maxInFlight())
+                    .run(targets, config.warmupSeconds(), config.durationSeconds());
+
+            LoadReport.print(stats, config.durationSeconds(), System.out);
+            if (config.has("db.replica.url")) printRoutes(ctx.getBean(MeterRegistry.class));
+            File report = new File(config.get("report", "target/load-report.json"));
+            LoadReport.writeJson(stats, config, report);
+            System.out.println("Report written to " + report.getPath());
+        } finally {
+            ctx.close();
+        }
+    }
+
+    /**
+     * Starts the backend on an emptied database. H2 gets its schema from the entities; any other
+     * database (MySQL) is emptied and built by the backend's migrations, as in production.
+     */
+    static ConfigurableApplicationContext start(LoadConfig config, Class<?>... extraSources) throws SQLException {
+        Map<String, String> props = new LinkedHashMap<>();
+        props.put("spring.datasource.url", config.dbUrl());
+        props.put("spring.datasource.username", config.get("db.user", "sa"));
+        props.put("spring.datasource.password", config.get("db.password", ""));
+        if (config.dbUrl().startsWith("jdbc:h2:")) {
+            // The migrations are written for MySQL (its emulated sequences); H2 uses native ones.
+            props.put("spring.jpa.hibernate.ddl-auto", "create");
+            props.put("spring.flyway.enabled", "false");
+        } else {
+            dropAllTables(config);
+        }
+        if (config.has("db.replica.url")) {
+            // Replicas follow db.url, so they are emptied and migrated along with it.
+            props.put("schools24.datasource.replica.urls", config.get("db.replica.url", ""));
+        }
+        // Each run starts with empty journals, as the database is emptied too.
+        File journal = new File("target", "payment-journal");
+        FileSystemUtils.deleteRecursively(journal);
+        props.put("schools24.payments.journal.dir", journal.getPath());
+        File answers = new File("target", "quiz-journal");
+        FileSystemUtils.deleteRecursively(answers);
+        props.put("schools24.quiz.journal.dir", answers.getPath());
+        props.put("spring.jpa.show-sql", "false");
+        props.put("spring.jpa.properties.hibernate.format_sql", "false");
+        props.put("server.port", "0");
+        // Handlers over their @QueryBudget fail, so N+1 regressions show up as failed requests.
+        props.put("schools24.metrics.enforce-query-budget", "true");
+        props.put("spring.main.banner-mode", "off");
+        props.put("logging.level.root", config.get("log-level", "WARN"));
+        // System properties win over the application.properties packaged with the backend.
+        props.forEach(System::setProperty);
+        Class<?>[] sources = new Class<?>[extraSources.length + 1];
+        sources[0] = Schools24Application.class;
+        System.arraycopy(extraSources, 0, sources, 1, extraSources.length);
+        return new SpringApplication(sources).run();
+    }
+
+    // Counted since startup, so seeding is included.
+    private static void printRoutes(MeterRegistry registry) {
+        System.out.println("connections by route:");
+        for (Counter c : registry.find("schools24.datasource.connections").counters()) {
+            System.out.printf("  %-10s %-17s %10d%n", c.getId().getTag("route"), c.getId().getTag("reason"), (long) c.count());
+        }
+    }
+
+    private static void dropAllTables(LoadConfig config) throws SQLException {
+        try (Connection c = DriverManager.getConnection(config.dbUrl(), config.get("db.user", "sa"), config.get("db.password", ""));
+             Statement st = c.createStatement()) {
+            List<String> tables = new ArrayList<>();
+            try (ResultSet rs = c.getMetaData().getTables(c.getCatalog(), null, "%", new String[]{"TABLE"})) {
+                while (rs.next()) tables.add(rs.getString("TABLE_NAME"));
+            }
+            st.execute("set foreign_key_checks = 0");
+            for (String t : tables) st.execute("drop table `" + t + "`");
+            st.execute("set foreign_key_checks = 1");
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.schools24.load;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends each target's requests on a fixed schedule regardless of how fast the server answers
+ * (an open workload, like real users). Latency is measured from the scheduled send time, so
+ * queueing delay on an overloaded server shows up in the percentiles instead of silently
+ * lowering the offered rate.
+ */
+public class OpenLoopDriver {
+    private final HttpClient http;
+    private final ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor();
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+
+    public OpenLoopDriver(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(requests)
+                .build();
+    }
+
+    /**
+     * Runs the mix for warmup plus measurement time and returns the measured window's stats.
+     */
+    public List<EndpointStats> run(List<Target> targets, int warmupSeconds, int durationSeconds) throws InterruptedException {
+        List<EndpointStats> stats = new ArrayList<>();
+        List<Thread> schedulers = new ArrayList<>();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(warmupSeconds + durationSeconds);
+        for (Target t : targets) {
+            EndpointStats s = new EndpointStats(t.name(), t.ratePerSecond());
+            stats.add(s);
+            schedulers.add(Thread.ofPlatform().name("load-" + t.name()).start(() -> schedule(t, s, start, end)));
+        }
+        Thread.sleep(TimeUnit.SECONDS.toMillis(warmupSeconds));
+        stats.forEach(EndpointStats::reset);
+        for (Thread t : schedulers) t.join();
+        // Let requests sent near the end finish (bounded by the request timeout) before the
+        // client's executor goes away.
+        if (inFlight.tryAcquire(maxInFlight, 35, TimeUnit.SECONDS)) inFlight.release(maxInFlight);
+        requests.shutdown();
+        return stats;
+    }
+
+    private void schedule(Target target, EndpointStats stats, long start, long end) {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / target.ratePerSecond());
+        // Spread first sends so low-rate targets do not all fire at t=0.
+        long next = start + (long) (Math.random() * Math.min(interval, TimeUnit.SECONDS.toNanos(1)));
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            long scheduled = next;
+            next += interval;
+            if (!inFlight.tryAcquire()) {
+                stats.drop();
+                continue;
+            }
+            requests.execute(() -> {
+                try {
+                    send(target.request().get(), stats, scheduled);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    private void send(HttpRequest request, EndpointStats stats, long scheduled) {
+        try {
+            HttpResponse<Void> res = http.send(request, HttpResponse.BodyHandlers.discarding());
+            int code = res.statusCode();
+            stats.record(String.valueOf(code), code < 400, System.nanoTime() - scheduled);
+        } catch (HttpTimeoutException e) {
+            stats.record("timeout", false, System.nanoTime() - scheduled);
+        } catch (IOException e) {
+            stats.record("io-error " + e.getClass().getSimpleName(), false, System.nanoTime() - scheduled);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.schools24.load;
+
+import com.schools24.repository.ClassSubjectTeacherRepository;
+import com.schools24.repository.FeeHeadRepository;
+import com.schools24.repository.FeeInvoiceRepository;
+import com.schools24.repository.PaymentRepository;
+import com.schools24.repository.SchoolClassRepository;
+import com.schools24.repository.SchoolRepository;
+import com.schools24.repository.SubjectRepository;
+import com.schools24.repository.TeacherUnavailableSlotRepository;
+import com.schools24.repository.TimetableSlotRepository;
+import com.schools24.repository.UserRepository;
+import com.schools24.service.PaymentService;
+import com.schools24.service.ReferenceVersions;
+import com.schools24.service.ReferenceVersions.Resource;
+import com.schools24.tenant.TenantContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks that the repository finders on request paths are served by indexes. Seeds the
+ * term-start data set, calls each finder while recording the statements it sends, runs EXPLAIN
+ * on each one and exits with status 1 if any plan reads a whole table. The schema comes from the
+ * backend's migrations, on an embedded MariaDB unless {@code --db.url} names a MySQL database,
+ * so this checks db/migration. It runs in the module's {@code verify} phase.
+ * <p>
+ * Example: {@code --db.url=jdbc:mysql://localhost:3306/s24_plans --db.user=root --students=50000}
+ */
+public final class PlanCheck {
+    // H2 prints each table followed by the index it reads, e.g. "PUBLIC"."USERS" "U" /* PUBLIC.IDX_USERS_NAME: ... */
+    private static final Pattern H2_ACCESS = Pattern.compile("\"PUBLIC\"\\.\"(\\w+)\"(?: \"\\w+\")?\\s*/\\* PUBLIC\\.(\\w+)(\\.tableScan)?");
+    private static final String[] ANALYZED = {"schools", "users", "classes", "class_students", "fee_heads",
+            "fee_invoices", "fee_invoice_items", "payments"};
+
+    private record Finder(String name, Runnable call) {
+    }
+
+    private record Access(String table, String how, boolean fullScan) {
+    }
+
+    private PlanCheck() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config = LoadConfig.parse(args);
+        int failures;
+        if (config.has("db.url")) {
+            failures = run(config);
+        } else {
+            try (EmbeddedMariaDb db = new EmbeddedMariaDb("s24_plans")) {
+                failures = run(config.with("db.url", db.url()).with("db.user", "root"));
+            }
+        }
+        if (failures > 0) {
+            System.out.printf("%d finder(s) planned with a full table scan%n", failures);
+            System.exit(1);
+        }
+        System.out.println("All finders use indexes");
+    }
+
+    private static int run(LoadConfig config) throws Exception {
+        ConfigurableApplicationContext ctx = LoadTest.start(config, StatementCapture.class);
+        int failures;
+        try {
+            SeedData seed = new FeeSeasonSeeder(config, ctx).seed();
+            payHalf(ctx.getBean(PaymentService.class), seed);
+            boolean mysql = !config.dbUrl().startsWith("jdbc:h2:");
+            JdbcTemplate jdbc = ctx.getBean(JdbcTemplate.class);
+            if (mysql) {
+                jdbc.execute("analyze table " + String.join(", ", ANALYZED));
+            } else {
+                jdbc.execute("analyze");
+            }
+            failures = check(ctx.getBean(DataSource.class), finders(ctx, seed), mysql);
+        } finally {
+            ctx.close();
+        }
+        return failures;
+    }
+
+    // The term-start data set has no payments yet; with an empty table the payment finders would
+    // be planned as scans, so every other invoice gets one.
+    private static void payHalf(PaymentService payments, SeedData seed) {
+        List<PaymentService.PaymentRequest> batch = new ArrayList<>();
+        for (int i = 0; i < seed.invoiceIds().length; i += 2) {
+            batch.add(new PaymentService.PaymentRequest(seed.feeSchoolId(), seed.invoiceIds()[i], 100, "cash", null));
+            if (batch.size() == 500 || i + 2 >= seed.invoiceIds().length) {
+                payments.recordBatch(batch, Collections.nCopies(batch.size(), null));
+                batch.clear();
+            }
+        }
+    }
+
+    // Calls run unscoped unless wrapped in TenantContext.run, as on platform and school requests.
+    private static List<Finder> finders(ConfigurableApplicationContext ctx, SeedData seed) {
+        UserRepository users = ctx.getBean(UserRepository.class);
+        SchoolRepository schools = ctx.getBean(SchoolRepository.class);
+        SchoolClassRepository classes = ctx.getBean(SchoolClassRepository.class);
+        SubjectRepository subjects = ctx.getBean(SubjectRepository.class);
+        FeeHeadRepository heads = ctx.getBean(FeeHeadRepository.class);
+        FeeInvoiceRepository invoices = ctx.getBean(FeeInvoiceRepository.class);
+        PaymentRepository payments = ctx.getBean(PaymentRepository.class);
+        ClassSubjectTeacherRepository assignments = ctx.getBean(ClassSubjectTeacherRepository.class);
+        TimetableSlotRepository timetable = ctx.getBean(TimetableSlotRepository.class);
+        TeacherUnavailableSlotRepository unavailable = ctx.getBean(TeacherUnavailableSlotRepository.class);
+        ReferenceVersions versions = ctx.getBean(ReferenceVersions.class);
+        JdbcTemplate jdbc = ctx.getBean(JdbcTemplate.class);
+
+        // A school other than the one fees are billed by, so school filters are selective.
+        long school = jdbc.queryForObject("select min(id) from schools where id <> ?", Long.class, seed.feeSchoolId());
+        long classId = jdbc.queryForObject("select min(id) from classes where school_id = ?", Long.class, school);
+        List<Long> students = classes.findActiveStudentIds(classId);
+        long student = students.get(0);
+        long teacher = jdbc.queryForObject("select min(id) from users where school_id = ? and role = 'teacher'", Long.class, school);
+        long invoice = seed.invoiceIds()[0];
+        List<Long> invoiceIds = Arrays.stream(seed.invoiceIds()).limit(50).boxed().toList();
+        List<Long> billed = jdbc.queryForList("select student_id from fee_invoices where school_id = ? order by student_id limit 50",
+                Long.class, seed.feeSchoolId());
+        Instant now = Instant.now();
+
+        List<Finder> res = new ArrayList<>();
+        res.add(new Finder("users: recent", users::findTop10ByIsActiveTrueOrderByCreatedAtDesc));
+        res.add(new Finder("users: recent in school", () -> users.findTop10BySchoolIdAndIsActiveTrueOrderByCreatedAtDesc(school)));
+        res.add(new Finder("users: teachers page", () -> users.findActiveSummariesByRole("teacher", Limit.of(51))));
+        res.add(new Finder("users: teachers page, school scope",
+                () -> TenantContext.run(school, () -> users.findActiveSummariesByRole("teacher", Limit.of(51)))));
+        res.add(new Finder("users: school page", () -> users.findActiveSummariesBySchool(school, Limit.of(51))));
+        res.add(new Finder("users: school students", () -> users.findActiveIdsBySchoolAndRole(school, "student")));
+        res.add(new Finder("users: by email", () -> users.findByEmail("student1@load.example.org")));
+        res.add(new Finder("users: import duplicates by email",
+                () -> users.findKeysByEmailIn(List.of("student1@load.example.org", "new@load.example.org"))));
+        res.add(new Finder("users: import duplicates by user id", () -> users.findKeysByUserIdIn(List.of("STU1", "NEW1"))));
+        res.add(new Finder("users: by ids", () -> users.findSummariesByIdIn(students)));
+        res.add(new Finder("classes: by name", () -> classes.findByNameAndGradeAndSectionAndIsActiveTrue("Class 1", "1", "0A")));
+        res.add(new Finder("classes: by name, school scope", () -> TenantContext.run(school,
+                () -> classes.findByNameAndGradeAndSectionAndIsActiveTrue("Class 1", "1", "0A"))));
+        res.add(new Finder("classes: students", () -> classes.findActiveStudentIds(classId)));
+        res.add(new Finder("classes: grades of students", () -> classes.findGradesOfStudents(students)));
+        res.add(new Finder("schools: by code", () -> schools.existsByCode("SCH7")));
+        res.add(new Finder("fee heads: by school", () -> heads.findBySchool(schools.getReferenceById(school))));
+        res.add(new Finder("fee invoices: by school", () -> invoices.findBySchool(schools.getReferenceById(school))));
+        res.add(new Finder("fee invoices: by student", () -> invoices.findByStudent(users.getReferenceById(student))));
+        res.add(new Finder("fee invoices: aging", () -> invoices.sumBySchoolAged(school, now.minus(Duration.ofDays(30)),
+                now.minus(Duration.ofDays(60)), now.minus(Duration.ofDays(90)), now)));
+        res.add(new Finder("fee invoices: schools of payments", () -> invoices.findSchools(invoiceIds)));
+        res.add(new Finder("fee statements: invoices", () -> invoices.findStatementRows(seed.feeSchoolId(), billed)));
+        res.add(new Finder("fee statements: items", () -> invoices.findStatementItems(invoiceIds)));
+        res.add(new Finder("fee statements: payments", () -> payments.findStatementRows(invoiceIds)));
+        res.add(new Finder("payments: by invoice", () -> payments.findByInvoice(invoices.getReferenceById(invoice))));
+        res.add(new Finder("payments: by idempotency key", () -> payments.findBySchoolIdAndIdempotencyKey(school, "plan-check")));
+        res.add(new Finder("assignments: index of school", () -> assignments.findIndexRows(school)));
+        res.add(new Finder("assignments: sheet classes", () -> classes.findGrades(school, List.of(classId))));
+        res.add(new Finder("assignments: sheet teachers",
+                () -> users.findActiveIdsBySchoolAndRoleIn(school, "teacher", List.of(teacher))));
+        res.add(new Finder("assignments: sheet subjects", () -> subjects.findIdsInSchool(school, List.of(1L, 2L))));
+        res.add(new Finder("timetable: assignments", () -> assignments.findTimetableAssignments(school)));
+        res.add(new Finder("timetable: class", () -> timetable.findClassTimetable(classId)));
+        res.add(new Finder("timetable: teacher", () -> timetable.findTeacherTimetable(teacher)));
+        res.add(new Finder("timetable: unavailable slots", () -> unavailable.findBySchool(school)));
+        res.add(new Finder("timetable: periods per week", () -> subjects.findPeriodsPerWeek(school)));
+        res.add(new Finder("reference versions: school", () -> versions.version(Resource.CLASSES, school)));
+        res.add(new Finder("reference versions: all schools", () -> versions.version(Resource.CLASSES, null)));
+        return res;
+    }
+
+    private static int check(DataSource dataSource, List<Finder> finders, boolean mysql) throws SQLException {
+        int failures = 0;
+        try (Connection c = dataSource.getConnection()) {
+            for (Finder f : finders) {
+                List<StatementCapture.Captured> statements = StatementCapture.during(f.call());
+                if (statements.isEmpty()) System.out.printf("%-36s (no statements)%n", f.name());
+                boolean failed = false;
+                for (StatementCapture.Captured s : statements) {
+                    if (!s.sql().trim().toLowerCase(Locale.ROOT).startsWith("select")) continue;
+                    for (Access a : explain(c, s, mysql)) {
+                        System.out.printf("%-36s %-24s %s%s%n", f.name(), a.table(), a.how(), a.fullScan() ? "  <-- FULL SCAN" : "");
+                        failed |= a.fullScan();
+                    }
+                }
+                if (failed) failures++;
+            }
+        }
+        return failures;
+    }
+
+    private static List<Access> explain(Connection c, StatementCapture.Captured s, boolean mysql) throws SQLException {
+        List<Access> res = new ArrayList<>();
+        try (PreparedStatement ps = c.prepareStatement("explain " + s.sql())) {
+            s.bind(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (mysql) {
+                        String type = rs.getString("type");
+                        String key = rs.getString("key");
+                        res.add(new Access(rs.getString("table"), type + (key == null ? "" : " " + key) + ", ~" + rs.getLong("rows")
+                                + " rows", "ALL".equals(type)));
+                    } else {
+                        Matcher m = H2_ACCESS.matcher(rs.getString(1));
+                        while (m.find()) {
+                            boolean scan = m.group(3) != null;
+                            res.add(new Access(m.group(1).toLowerCase(Locale.ROOT),
+                                    scan ? "table scan" : m.group(2).toLowerCase(Locale.ROOT), scan));
+                        }
+                    }
+                }
+            }
+        }
+        return res;
+    }
+}
@@ -0,0 +1,11 @@
+package com.schools24.load;
+
+import java.util.List;
+
+/**
+ * Ids of the seeded rows the workload refers to. Fees are billed by {@code feeSchoolId}, whose
+ * classes are {@code feeClassIds}.
+ */
+public record SeedData(long feeSchoolId, List<Long> headIds, List<Long> classIds, List<Long> feeClassIds,
+                       long[] invoiceIds) {
+}
@@ -0,0 +1,134 @@
+package com.schools24.load;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the prepared statements a block of code sends, with their parameter bindings, so they
+ * can be sent again as EXPLAIN. Added to the backend's context by {@link PlanCheck}.
+ */
+@Configuration
+public class StatementCapture {
+    private static final ThreadLocal<List<Captured>> ACTIVE = new ThreadLocal<>();
+
+    /**
+     * A statement and the setter calls that bound its parameters, in order.
+     */
+    public record Captured(String sql, List<Binding> bindings) {
+        public void bind(PreparedStatement ps) throws SQLException {
+            for (Binding b : bindings) {
+                try {
+                    b.setter().invoke(ps, b.args());
+                } catch (ReflectiveOperationException e) {
+                    throw new SQLException("Could not replay " + b.setter().getName(), e);
+                }
+            }
+        }
+    }
+
+    public record Binding(Method setter, Object[] args) {
+    }
+
+    /**
+     * Runs the task and returns the statements it executed on this thread.
+     */
+    public static List<Captured> during(Runnable task) {
+        List<Captured> captured = new ArrayList<>();
+        ACTIVE.set(captured);
+        try {
+            task.run();
+        } finally {
+            ACTIVE.remove();
+        }
+        return captured;
+    }
+
+    @Bean
+    public static BeanPostProcessor statementCaptureWrapper() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource ds && !(bean instanceof CapturingDataSource)) return new CapturingDataSource(ds);
+                return bean;
+            }
+        };
+    }
+
+    static final class CapturingDataSource extends DelegatingDataSource {
+        CapturingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return capturing(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return capturing(super.getConnection(username, password));
+        }
+    }
+
+    private static Connection capturing(Connection target) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (isIdentity(method)) return identity(proxy, method, args);
+                    Object res = invoke(target, method, args);
+                    if (method.getName().equals("prepareStatement") && ACTIVE.get() != null) {
+                        return capturing((PreparedStatement) res, (String) args[0]);
+                    }
+                    return res;
+                });
+    }
+
+    private static PreparedStatement capturing(PreparedStatement target, String sql) {
+        // Keyed by parameter index, so a value bound twice is replayed once.
+        Map<Integer, Binding> bindings = new LinkedHashMap<>();
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    if (isIdentity(method)) return identity(proxy, method, args);
+                    String name = method.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer i) {
+                        bindings.put(i, new Binding(method, args.clone()));
+                    } else if (name.equals("clearParameters")) {
+                        bindings.clear();
+                    } else if ((name.equals("executeQuery") || name.equals("execute")) && (args == null || args.length == 0)) {
+                        List<Captured> captured = ACTIVE.get();
+                        if (captured != null) captured.add(new Captured(sql, List.copyOf(bindings.values())));
+                    }
+                    return invoke(target, method, args);
+                });
+    }
+
+    private static boolean isIdentity(Method method) {
+        return method.getName().equals("equals") && method.getParameterCount() == 1
+                || method.getName().equals("hashCode") && method.getParameterCount() == 0;
+    }
+
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return method.getName().equals("equals") ? proxy == args[0] : System.identityHashCode(proxy);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
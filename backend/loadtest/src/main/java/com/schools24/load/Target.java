@@ -0,0 +1,10 @@
+package com.schools24.load;
+
+import java.net.http.HttpRequest;
+import java.util.function.Supplier;
+
+/**
+ * One entry of the workload mix: an endpoint, its arrival rate and a request factory.
+ */
+public record Target(String name, double ratePerSecond, Supplier<HttpRequest> request) {
+}
@@ -2,8 +2,10 @@ package com.schools24;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class Schools24Application {
     public static void main(String[] args) {
         SpringApplication.run(Schools24Application.class, args);
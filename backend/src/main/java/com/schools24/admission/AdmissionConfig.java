@@ -0,0 +1,91 @@
+package com.schools24.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Wires database admission control: the pooled DataSource is wrapped, each request is tagged
+ * with its handler's {@link Workload}, and the tag follows the request onto the async executor
+ * (see AsyncContextConfig). A request to a {@link Workload} handler holds one slot from
+ * preHandle to completion; an async request gives it up while it runs off the request thread.
+ */
+@Configuration
+public class AdmissionConfig implements WebMvcConfigurer {
+    private static final String HOLD = AdmissionConfig.class.getName() + ".hold";
+
+    private final ObjectProvider<DbAdmission> admission;
+
+    public AdmissionConfig(ObjectProvider<DbAdmission> admission) {
+        this.admission = admission;
+    }
+
+    @Bean
+    public DbAdmission dbAdmission(Environment env) {
+        return new DbAdmission(env);
+    }
+
+    @Bean
+    public static BeanPostProcessor admissionDataSourceWrapper(ObjectProvider<DbAdmission> admission) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource ds && !(bean instanceof AdmissionDataSource)) {
+                    return new AdmissionDataSource(ds, admission.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AsyncHandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (handler instanceof HandlerMethod m) {
+                    Workload w = m.getMethodAnnotation(Workload.class);
+                    if (w == null) w = m.getBeanType().getAnnotation(Workload.class);
+                    if (w != null) {
+                        WorkloadContext.set(w.value());
+                        try {
+                            request.setAttribute(HOLD, admission.getObject().enter(w.value()));
+                        } catch (AdmissionRejectedException e) {
+                            WorkloadContext.clear();
+                            throw e;
+                        }
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+                exit(request);
+            }
+
+            @Override
+            public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                exit(request);
+            }
+
+            private void exit(HttpServletRequest request) {
+                WorkloadContext.clear();
+                if (request.getAttribute(HOLD) instanceof DbAdmission.Hold h) {
+                    request.removeAttribute(HOLD);
+                    admission.getObject().exit(h);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,74 @@
+package com.schools24.admission;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admits the current workload class before a pooled connection is handed out, unless the thread
+ * already holds a slot, and gives up its use of the slot when the connection is closed (returned
+ * to the pool).
+ */
+public class AdmissionDataSource extends DelegatingDataSource {
+    private final DbAdmission admission;
+
+    public AdmissionDataSource(DataSource target, DbAdmission admission) {
+        super(target);
+        this.admission = admission;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DbAdmission.Hold h = admission.enter(WorkloadContext.current());
+        try {
+            return admitted(super.getConnection(), h);
+        } catch (SQLException | RuntimeException e) {
+            admission.exit(h);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        DbAdmission.Hold h = admission.enter(WorkloadContext.current());
+        try {
+            return admitted(super.getConnection(username, password), h);
+        } catch (SQLException | RuntimeException e) {
+            admission.exit(h);
+            throw e;
+        }
+    }
+
+    private Connection admitted(Connection target, DbAdmission.Hold h) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            try {
+                                target.close();
+                            } finally {
+                                if (released.compareAndSet(false, true)) admission.exit(h);
+                            }
+                            return null;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Admitted[" + h.type + "] " + target;
+                        default:
+                            try {
+                                return method.invoke(target, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getTargetException();
+                            }
+                    }
+                });
+    }
+}
@@ -0,0 +1,19 @@
+package com.schools24.admission;
+
+/**
+ * Thrown when a request waited longer than its workload class allows for a database slot.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final WorkloadClass workloadClass;
+
+    public AdmissionRejectedException(WorkloadClass workloadClass, long waitedMs) {
+        super("Database busy: " + workloadClass + " request waited " + waitedMs + " ms");
+        this.workloadClass = workloadClass;
+    }
+
+    public WorkloadClass getWorkloadClass() {
+        return workloadClass;
+    }
+}
@@ -0,0 +1,258 @@
+package com.schools24.admission;
+
+import org.springframework.core.env.Environment;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out database slots to workload classes. A slot belongs to a thread: the request
+ * interceptor and {@link #run} take one for a whole request or job, and a connection opened
+ * outside them takes one until it is closed. A thread that already holds a slot never waits for
+ * another, so a second connection opened while the first is still open (Hibernate fetches
+ * pooled ids on one) cannot deadlock against other holders. There are as many
+ * slots as pooled connections; each class may hold at most its own share, the last
+ * {@code reserved} slots are kept for payments, and waiters are served by class priority and
+ * then arrival. A waiter that is not admitted within its class's queue limit is rejected, so
+ * bulk work sheds load instead of piling up behind the pool.
+ * <p>
+ * Limits come from {@code schools24.admission.*}; see application.properties.
+ */
+public class DbAdmission {
+    private static final Comparator<Waiter> ORDER =
+            Comparator.<Waiter>comparingInt(w -> w.lane.type.priority()).thenComparingLong(w -> w.seq);
+
+    private final int permits;
+    private final int reserved;
+    private final Map<WorkloadClass, Lane> lanes = new EnumMap<>(WorkloadClass.class);
+    private final TreeSet<Waiter> waiters = new TreeSet<>(ORDER);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ThreadLocal<Hold> held = new ThreadLocal<>();
+    private int inUse;
+    private long seq;
+
+    public DbAdmission(Environment env) {
+        this.permits = env.getProperty("schools24.admission.permits", Integer.class,
+                env.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        this.reserved = Math.min(env.getProperty("schools24.admission.reserved-for-payments", Integer.class, 2),
+                permits - 1);
+        for (WorkloadClass c : WorkloadClass.values()) {
+            String prefix = "schools24.admission." + c.name().toLowerCase() + ".";
+            int max = env.getProperty(prefix + "max-concurrent", Integer.class, defaultMaxConcurrent(c));
+            long waitMs = env.getProperty(prefix + "max-wait-ms", Long.class, defaultMaxWaitMs(c));
+            lanes.put(c, new Lane(c, Math.max(1, Math.min(max, permits)), waitMs));
+        }
+    }
+
+    private int defaultMaxConcurrent(WorkloadClass c) {
+        return switch (c) {
+            case PAYMENTS -> permits;
+            case INTERACTIVE -> permits - reserved;
+            case DASHBOARD, REPORTS -> Math.max(1, permits / 3);
+            case EXPORTS, BULK -> Math.max(1, permits / 5);
+        };
+    }
+
+    private static long defaultMaxWaitMs(WorkloadClass c) {
+        return switch (c) {
+            case PAYMENTS -> 5_000;
+            case INTERACTIVE -> 2_000;
+            case DASHBOARD -> 1_000;
+            case REPORTS -> 10_000;
+            case EXPORTS -> 30_000;
+            case BULK -> 120_000;
+        };
+    }
+
+    /**
+     * Runs a job holding one slot of class c throughout; the job's connections share it.
+     */
+    public void run(WorkloadClass c, Runnable job) {
+        WorkloadContext.run(c, () -> {
+            Hold h = enter(c);
+            try {
+                job.run();
+            } finally {
+                exit(h);
+            }
+        });
+    }
+
+    /**
+     * Takes a slot for the current thread unless it already holds one; every call must be paired
+     * with one {@link #exit} of the returned hold, from any thread.
+     */
+    Hold enter(WorkloadClass c) {
+        Hold h = held.get();
+        if (h != null && h.retain()) return h;
+        acquire(c);
+        h = new Hold(c);
+        held.set(h);
+        return h;
+    }
+
+    void exit(Hold h) {
+        if (h.depth.decrementAndGet() > 0) return;
+        if (held.get() == h) held.remove();
+        release(h.type);
+    }
+
+    /**
+     * Blocks until the class is admitted; the caller must {@link #release} exactly once.
+     */
+    public void acquire(WorkloadClass c) {
+        Lane lane = lanes.get(c);
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            Waiter w = new Waiter(lane, seq++, lock.newCondition());
+            waiters.add(w);
+            lane.queued++;
+            dispatch();
+            long remaining = TimeUnit.MILLISECONDS.toNanos(lane.maxWaitMs);
+            try {
+                while (!w.admitted) {
+                    if (remaining <= 0) throw reject(w, start);
+                    remaining = w.ready.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (!w.admitted) throw reject(w, start);
+            }
+            long waited = System.nanoTime() - start;
+            lane.admitted++;
+            lane.totalWaitNanos += waited;
+            lane.maxWaitNanos = Math.max(lane.maxWaitNanos, waited);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(WorkloadClass c) {
+        lock.lock();
+        try {
+            Lane lane = lanes.get(c);
+            lane.active--;
+            inUse--;
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Admits waiters in priority order while slots remain. A class at its own limit is skipped,
+    // so it never blocks a lower-priority class that still has room.
+    private void dispatch() {
+        Iterator<Waiter> it = waiters.iterator();
+        while (it.hasNext() && inUse < permits) {
+            Waiter w = it.next();
+            Lane lane = w.lane;
+            if (lane.active >= lane.maxConcurrent) continue;
+            if (lane.type != WorkloadClass.PAYMENTS && permits - inUse <= reserved) continue;
+            it.remove();
+            lane.queued--;
+            lane.active++;
+            inUse++;
+            w.admitted = true;
+            w.ready.signal();
+        }
+    }
+
+    private AdmissionRejectedException reject(Waiter w, long start) {
+        waiters.remove(w);
+        w.lane.queued--;
+        w.lane.rejected++;
+        return new AdmissionRejectedException(w.lane.type, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Per-class limits and counters since startup.
+     */
+    public Map<String, Object> snapshot() {
+        lock.lock();
+        try {
+            Map<String, Object> classes = new LinkedHashMap<>();
+            for (Lane l : lanes.values()) {
+                Map<String, Object> m = new LinkedHashMap<>();
+                m.put("priority", l.type.priority());
+                m.put("maxConcurrent", l.maxConcurrent);
+                m.put("maxWaitMs", l.maxWaitMs);
+                m.put("active", l.active);
+                m.put("queued", l.queued);
+                m.put("admitted", l.admitted);
+                m.put("rejected", l.rejected);
+                m.put("avgWaitMs", l.admitted == 0 ? 0.0 : l.totalWaitNanos / 1e6 / l.admitted);
+                m.put("maxWaitObservedMs", l.maxWaitNanos / 1e6);
+                classes.put(l.type.name(), m);
+            }
+            Map<String, Object> res = new LinkedHashMap<>();
+            res.put("permits", permits);
+            res.put("reservedForPayments", reserved);
+            res.put("inUse", inUse);
+            res.put("classes", classes);
+            return res;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Lane {
+        final WorkloadClass type;
+        final int maxConcurrent;
+        final long maxWaitMs;
+        int active;
+        int queued;
+        long admitted;
+        long rejected;
+        long totalWaitNanos;
+        long maxWaitNanos;
+
+        Lane(WorkloadClass type, int maxConcurrent, long maxWaitMs) {
+            this.type = type;
+            this.maxConcurrent = maxConcurrent;
+            this.maxWaitMs = maxWaitMs;
+        }
+    }
+
+    /**
+     * A thread's slot and how many requests, jobs and connections are using it. Once the count
+     * reaches zero the slot is released and the hold is never reused, even if the last user
+     * exited on another thread.
+     */
+    static final class Hold {
+        final WorkloadClass type;
+        final AtomicInteger depth = new AtomicInteger(1);
+
+        Hold(WorkloadClass type) {
+            this.type = type;
+        }
+
+        boolean retain() {
+            for (int d = depth.get(); d > 0; d = depth.get()) {
+                if (depth.compareAndSet(d, d + 1)) return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class Waiter {
+        final Lane lane;
+        final long seq;
+        final Condition ready;
+        boolean admitted;
+
+        Waiter(Lane lane, long seq, Condition ready) {
+            this.lane = lane;
+            this.seq = seq;
+            this.ready = ready;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.schools24.admission;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Assigns a controller method (or every method of a controller) to a workload class for
+ * database admission. Unannotated handlers run as {@link WorkloadClass#INTERACTIVE}.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Workload {
+    WorkloadClass value();
+}
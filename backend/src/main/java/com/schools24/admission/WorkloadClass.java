@@ -0,0 +1,24 @@
+package com.schools24.admission;
+
+/**
+ * Endpoint classes that compete for database connections, most important first. Lower
+ * priority numbers are served first when connections are scarce.
+ */
+public enum WorkloadClass {
+    PAYMENTS(0),
+    INTERACTIVE(1),
+    DASHBOARD(2),
+    REPORTS(3),
+    EXPORTS(4),
+    BULK(4);
+
+    private final int priority;
+
+    WorkloadClass(int priority) {
+        this.priority = priority;
+    }
+
+    public int priority() {
+        return priority;
+    }
+}
@@ -0,0 +1,53 @@
+package com.schools24.admission;
+
+import java.util.function.Supplier;
+
+/**
+ * The workload class of the current thread's request or job.
+ */
+public final class WorkloadContext {
+    private static final ThreadLocal<WorkloadClass> CURRENT = new ThreadLocal<>();
+
+    private WorkloadContext() {
+    }
+
+    public static WorkloadClass current() {
+        WorkloadClass c = CURRENT.get();
+        return c == null ? WorkloadClass.INTERACTIVE : c;
+    }
+
+    static void set(WorkloadClass c) {
+        CURRENT.set(c);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    public static void run(WorkloadClass c, Runnable task) {
+        call(c, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public static <T> T call(WorkloadClass c, Supplier<T> task) {
+        WorkloadClass previous = CURRENT.get();
+        CURRENT.set(c);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) CURRENT.remove();
+            else CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Wraps a task so it runs with the submitting thread's workload class.
+     */
+    public static Runnable propagate(Runnable task) {
+        WorkloadClass c = CURRENT.get();
+        if (c == null) return task;
+        return () -> run(c, task);
+    }
+}
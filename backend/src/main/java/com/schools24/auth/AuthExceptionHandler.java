@@ -0,0 +1,31 @@
+package com.schools24.auth;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * A saturated hashing pool surfaces as 503 with a retry hint rather than a slow or failed login;
+ * a request without a valid token gets 401.
+ */
+@RestControllerAdvice
+public class AuthExceptionHandler {
+
+    @ExceptionHandler(HashingBusyException.class)
+    public ResponseEntity<?> busy(HashingBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("message", e.getMessage()));
+    }
+
+    @ExceptionHandler(NotSignedInException.class)
+    public ResponseEntity<?> notSignedIn(NotSignedInException e) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .header(HttpHeaders.WWW_AUTHENTICATE, "Bearer")
+                .body(Map.of("message", e.getMessage()));
+    }
+}
@@ -0,0 +1,44 @@
+package com.schools24.auth;
+
+import com.schools24.domain.User;
+import com.schools24.repository.UserRepository;
+import com.schools24.tenant.TenantContext;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Email and password login. The user is read once per login; the hash check runs on the
+ * {@link PasswordHasher} pool, and a plaintext or weaker stored password is rehashed on the
+ * first successful login. Emails are unique across schools, so the lookup is unscoped.
+ */
+@Service
+public class AuthService {
+    public record Login(String token, AuthSession session) {
+    }
+
+    private final UserRepository userRepository;
+    private final PasswordHasher hasher;
+    private final TokenService tokens;
+
+    public AuthService(UserRepository userRepository, PasswordHasher hasher, TokenService tokens) {
+        this.userRepository = userRepository;
+        this.hasher = hasher;
+        this.tokens = tokens;
+    }
+
+    /**
+     * Empty for an unknown email, a wrong password or an inactive user; the caller cannot tell
+     * which, and all three take about as long.
+     */
+    public Optional<Login> login(String email, String password) {
+        User u = TenantContext.unscoped(() -> userRepository.findByEmail(email)).orElse(null);
+        if (!hasher.matches(password, u == null ? null : u.getPassword())) return Optional.empty();
+        if (!Boolean.TRUE.equals(u.getIsActive())) return Optional.empty();
+        if (hasher.needsRehash(u.getPassword())) {
+            userRepository.updatePassword(u.getId(), hasher.hash(password));
+        }
+        String token = tokens.issue(u);
+        return Optional.of(new Login(token, tokens.authenticate(token).orElseThrow()));
+    }
+}
@@ -0,0 +1,15 @@
+package com.schools24.auth;
+
+import com.schools24.domain.User;
+
+import java.time.Instant;
+
+/**
+ * What a token stands for: the user as of login, and when the token stops being accepted.
+ */
+public record AuthSession(Long id, String name, String email, String role, String userId, Long schoolId,
+                          Instant expiresAt) {
+    static AuthSession of(User u, Instant expiresAt) {
+        return new AuthSession(u.getId(), u.getName(), u.getEmail(), u.getRole(), u.getUserId(), u.getSchoolId(), expiresAt);
+    }
+}
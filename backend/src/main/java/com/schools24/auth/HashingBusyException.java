@@ -0,0 +1,12 @@
+package com.schools24.auth;
+
+/**
+ * Thrown when the password hashing pool is full or a hash did not finish in time.
+ */
+public class HashingBusyException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public HashingBusyException(String message) {
+        super(message);
+    }
+}
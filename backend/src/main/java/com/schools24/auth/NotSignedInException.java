@@ -0,0 +1,12 @@
+package com.schools24.auth;
+
+/**
+ * Thrown when a request needs a signed-in user and has no valid bearer token.
+ */
+public class NotSignedInException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public NotSignedInException() {
+        super("Not signed in");
+    }
+}
@@ -0,0 +1,171 @@
+package com.schools24.auth;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.core.env.Environment;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BCrypt hashing and verification on a small fixed pool with a bounded queue. Request threads
+ * are virtual and unbounded, so without the pool a burst of logins would put a hash on every
+ * core; with it at most {@code schools24.auth.hash-threads} cores hash at once, and requests
+ * beyond the queue get {@link HashingBusyException} (503) instead of waiting. Bulk imports hash
+ * on a second pool of {@code schools24.auth.import-hash-threads}, so they use several cores
+ * without taking slots from logins.
+ * <p>
+ * Passwords stored before hashing was introduced are plaintext; they still verify, and
+ * {@link #needsRehash} tells the caller to replace them.
+ */
+@Component
+public class PasswordHasher {
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService importPool;
+    private final int importThreads;
+    private final long timeoutMs;
+    // Verified against when the user does not exist, so a miss costs as much as a wrong password.
+    private final String dummyHash;
+
+    public PasswordHasher(Environment env) {
+        int strength = env.getProperty("schools24.auth.bcrypt-strength", Integer.class, 10);
+        int threads = env.getProperty("schools24.auth.hash-threads", Integer.class,
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        this.timeoutMs = env.getProperty("schools24.auth.hash-timeout-ms", Long.class, 5_000L);
+        this.encoder = new BCryptPasswordEncoder(strength);
+        encoder.encode(UUID.randomUUID().toString()); // warm-up, so the timing below is representative
+        long started = System.nanoTime();
+        this.dummyHash = encoder.encode(UUID.randomUUID().toString());
+        long hashMs = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        // By default queue no more than the pool can hash within the timeout, so excess logins
+        // are turned away at once instead of after waiting out the timeout.
+        int queue = env.getProperty("schools24.auth.hash-queue", Integer.class,
+                (int) Math.max(threads, Math.min(1024, threads * timeoutMs / hashMs / 2)));
+        AtomicInteger n = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queue),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.importThreads = env.getProperty("schools24.auth.import-hash-threads", Integer.class,
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        AtomicInteger m = new AtomicInteger();
+        this.importPool = Executors.newFixedThreadPool(importThreads, r -> {
+            Thread t = new Thread(r, "import-hash-" + m.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public String hash(String raw) {
+        return onPool(() -> encoder.encode(raw));
+    }
+
+    /**
+     * Hashes a batch on the import pool, split across its threads, and waits for all of them.
+     * For background jobs: it never queues behind or in front of logins.
+     */
+    public String[] hashAll(List<String> raws) {
+        String[] hashes = new String[raws.size()];
+        int slices = Math.min(importThreads, hashes.length);
+        List<Callable<Void>> tasks = new ArrayList<>(slices);
+        for (int s = 0; s < slices; s++) {
+            int first = s;
+            tasks.add(() -> {
+                for (int i = first; i < hashes.length; i += slices) hashes[i] = encoder.encode(raws.get(i));
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> f : importPool.invokeAll(tasks)) f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+        return hashes;
+    }
+
+    /**
+     * Checks a password against a stored value; a null stored value runs a full-cost check
+     * against a dummy hash and fails.
+     */
+    public boolean matches(String raw, String stored) {
+        if (stored == null) {
+            onPool(() -> encoder.matches(raw, dummyHash));
+            return false;
+        }
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(raw.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        return onPool(() -> encoder.matches(raw, stored));
+    }
+
+    /**
+     * True for plaintext values and for hashes made with a lower strength than configured.
+     */
+    public boolean needsRehash(String stored) {
+        return !isHashed(stored) || encoder.upgradeEncoding(stored);
+    }
+
+    public Map<String, Object> snapshot() {
+        return Map.of(
+                "threads", pool.getMaximumPoolSize(),
+                "active", pool.getActiveCount(),
+                "queued", pool.getQueue().size(),
+                "queueCapacity", pool.getQueue().size() + pool.getQueue().remainingCapacity(),
+                "completed", pool.getCompletedTaskCount());
+    }
+
+    private static boolean isHashed(String stored) {
+        return stored.length() == 60 && stored.startsWith("$2");
+    }
+
+    private <T> T onPool(Callable<T> task) {
+        Future<T> f;
+        try {
+            f = pool.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new HashingBusyException("Too many logins in progress, retry shortly");
+        }
+        try {
+            return f.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            f.cancel(false);
+            throw new HashingBusyException("Password check timed out, retry shortly");
+        } catch (InterruptedException e) {
+            f.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new HashingBusyException("Interrupted while checking password");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+        importPool.shutdown();
+    }
+}
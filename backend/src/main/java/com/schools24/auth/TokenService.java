@@ -0,0 +1,74 @@
+package com.schools24.auth;
+
+import com.schools24.domain.User;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues opaque bearer tokens and resolves them from memory, so an authenticated request costs
+ * a map lookup instead of a user query and a hash check. Tokens expire after
+ * {@code schools24.auth.token-ttl-minutes}; expired entries are dropped on lookup and swept
+ * every minute. Tokens live only in this process, so a restart signs everyone out.
+ */
+@Service
+public class TokenService {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, AuthSession> sessions = new ConcurrentHashMap<>();
+    private final Duration ttl;
+
+    public TokenService(Environment env) {
+        this.ttl = Duration.ofMinutes(env.getProperty("schools24.auth.token-ttl-minutes", Long.class, 720L));
+    }
+
+    public String issue(User u) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = ENCODER.encodeToString(bytes);
+        sessions.put(token, AuthSession.of(u, Instant.now().plus(ttl)));
+        return token;
+    }
+
+    public Optional<AuthSession> authenticate(String token) {
+        if (token == null) return Optional.empty();
+        AuthSession s = sessions.get(token);
+        if (s == null) return Optional.empty();
+        if (!s.expiresAt().isAfter(Instant.now())) {
+            sessions.remove(token, s);
+            return Optional.empty();
+        }
+        return Optional.of(s);
+    }
+
+    /**
+     * The token of an {@code Authorization: Bearer} header, or null.
+     */
+    public static String bearer(String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, "Bearer ", 0, 7)) return null;
+        return authorization.substring(7).trim();
+    }
+
+    public void revoke(String token) {
+        if (token != null) sessions.remove(token);
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        Instant now = Instant.now();
+        sessions.values().removeIf(s -> !s.expiresAt().isAfter(now));
+    }
+}
@@ -0,0 +1,23 @@
+package com.schools24.config;
+
+import com.schools24.admission.WorkloadContext;
+import com.schools24.metrics.RequestMetrics;
+import com.schools24.replica.RecentWrites;
+import com.schools24.tenant.TenantContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Carries per-request thread state onto the application task executor (streaming downloads run
+ * there). Spring Boot applies a TaskDecorator only when exactly one is defined, so every
+ * propagation lives here.
+ */
+@Configuration
+public class AsyncContextConfig {
+
+    @Bean
+    public TaskDecorator requestContextTaskDecorator() {
+        return task -> RequestMetrics.propagate(WorkloadContext.propagate(TenantContext.propagate(RecentWrites.propagate(task))));
+    }
+}
@@ -1,14 +1,21 @@
 package com.schools24.domain;
 
+import com.schools24.tenant.SchoolStampListener;
+import com.schools24.tenant.TenantContext;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Filter;
 
 @Getter
 @Setter
 @Entity
-@Table(name = "class_subject_teacher")
-public class ClassSubjectTeacher {
+@Filter(name = TenantContext.FILTER)
+@EntityListeners(SchoolStampListener.class)
+@Table(name = "class_subject_teacher", uniqueConstraints = @UniqueConstraint(name = "uk_cst_class_subject",
+        columnNames = {"class_id", "subject_id"}), indexes = @Index(name = "idx_cst_school_class",
+        columnList = "school_id, class_id"))
+public class ClassSubjectTeacher implements SchoolScoped {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -24,6 +31,9 @@ public class ClassSubjectTeacher {
     @ManyToOne(optional = false)
     @JoinColumn(name = "teacher_id")
     private User teacher;
+
+    @Column(name = "school_id")
+    private Long schoolId;
 }
 
 
@@ -0,0 +1,5 @@
+package com.schools24.domain;
+
+public enum Difficulty {
+    EASY, MEDIUM, HARD
+}
@@ -11,10 +11,12 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
-@Table(name = "fee_invoices")
+@Table(name = "fee_invoices", indexes = @Index(name = "idx_fee_invoices_school_created",
+        columnList = "school_id, created_at"))
 public class FeeInvoice {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fee_invoices_seq")
+    @SequenceGenerator(name = "fee_invoices_seq", sequenceName = "fee_invoices_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
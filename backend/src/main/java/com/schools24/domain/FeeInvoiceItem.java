@@ -10,7 +10,8 @@ import lombok.Setter;
 @Table(name = "fee_invoice_items")
 public class FeeInvoiceItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fee_invoice_items_seq")
+    @SequenceGenerator(name = "fee_invoice_items_seq", sequenceName = "fee_invoice_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
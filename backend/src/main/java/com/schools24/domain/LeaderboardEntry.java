@@ -0,0 +1,36 @@
+package com.schools24.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Persisted snapshot of a student's leaderboard total. The live totals are kept in memory by
+ * LeaderboardService, which writes changed rows here periodically.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "leaderboard")
+public class LeaderboardEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "student_id", unique = true)
+    private User student;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "school_id")
+    private School school; // null until the student is placed in a school
+
+    private Integer classGrade;
+
+    private Integer totalScore = 0;
+
+    // End time of the last finished quiz included in totalScore.
+    private Instant lastUpdated;
+}
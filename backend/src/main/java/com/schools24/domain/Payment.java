@@ -1,20 +1,31 @@
 package com.schools24.domain;
 
+import com.schools24.tenant.SchoolStampListener;
+import com.schools24.tenant.TenantContext;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Filter;
 
 import java.time.Instant;
 
 @Getter
 @Setter
 @Entity
-@Table(name = "payments")
-public class Payment {
+@Filter(name = TenantContext.FILTER)
+@EntityListeners(SchoolStampListener.class)
+@Table(name = "payments", uniqueConstraints = @UniqueConstraint(name = "uk_payments_school_key",
+        columnNames = {"school_id", "idempotency_key"}))
+public class Payment implements SchoolScoped {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+    @SequenceGenerator(name = "payments_seq", sequenceName = "payments_seq", allocationSize = 50)
     private Long id;
 
+    // The invoice's school.
+    @Column(name = "school_id")
+    private Long schoolId;
+
     @ManyToOne(optional = false)
     @JoinColumn(name = "invoice_id")
     private FeeInvoice invoice;
@@ -22,6 +33,11 @@ public class Payment {
     private Integer amount;
     private String method; // CASH, CARD, UPI
     private Instant paidAt = Instant.now();
+
+    // Client-supplied key, unique per school; a retried request with the same key is answered
+    // without posting again.
+    @Column(length = 100)
+    private String idempotencyKey;
 }
 
 
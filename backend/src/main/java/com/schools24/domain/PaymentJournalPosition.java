@@ -0,0 +1,22 @@
+package com.schools24.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * How far a payment journal has been posted: the sequence number of the last journal record
+ * whose payment (or rejection) is committed. Updated in the same transaction as the payments.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "payment_journal")
+public class PaymentJournalPosition {
+    @Id
+    @Column(length = 36)
+    private String journalId;
+
+    @Column(nullable = false)
+    private long appliedSeq;
+}
@@ -0,0 +1,47 @@
+package com.schools24.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "questions", indexes = @Index(name = "idx_questions_topic_difficulty",
+        columnList = "topic_id, difficulty"))
+public class Question {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "topic_id")
+    private Topic topic;
+
+    private Integer classGrade;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Difficulty difficulty;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String questionText;
+
+    @Column(name = "option_a", nullable = false, columnDefinition = "text")
+    private String optionA;
+
+    @Column(name = "option_b", nullable = false, columnDefinition = "text")
+    private String optionB;
+
+    @Column(name = "option_c", nullable = false, columnDefinition = "text")
+    private String optionC;
+
+    @Column(name = "option_d", nullable = false, columnDefinition = "text")
+    private String optionD;
+
+    private String correctOption; // A, B, C or D
+
+    private Instant createdAt = Instant.now();
+}
@@ -0,0 +1,34 @@
+package com.schools24.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * One answer in a quiz session. Answers are written in batches by QuizAnswerBuffer with an
+ * upsert on (session, question), so a re-sent answer replaces the earlier one.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "quiz_attempt_details",
+        uniqueConstraints = @UniqueConstraint(name = "uk_attempt_session_question", columnNames = {"session_id", "question_id"}))
+public class QuizAttemptDetail {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "session_id")
+    private QuizSession session;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "question_id")
+    private Question question;
+
+    private String studentAnswer;
+    private Boolean isCorrect;
+    private Instant answeredAt;
+}
@@ -0,0 +1,22 @@
+package com.schools24.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * How far a quiz answer journal has been written: every answer journaled up to
+ * {@code writtenSeq} is in quiz_attempt_details, or was replaced by a newer one or set aside.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "quiz_journal")
+public class QuizJournalPosition {
+    @Id
+    @Column(length = 36)
+    private String journalId;
+
+    @Column(nullable = false)
+    private long writtenSeq;
+}
@@ -0,0 +1,46 @@
+package com.schools24.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * The change counter of one school's reference list (school 0 for rows without a school). Read and
+ * bumped with JDBC by ReferenceVersions; mapped so the schema is validated like the others.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "reference_versions")
+@IdClass(ReferenceVersion.Key.class)
+public class ReferenceVersion {
+    @Id
+    @Column(length = 20)
+    private String resource;
+
+    @Id
+    private long schoolId;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Column(nullable = false)
+    private long changedAtMs;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private String resource;
+        private long schoolId;
+    }
+}
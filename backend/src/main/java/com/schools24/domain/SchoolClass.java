@@ -1,8 +1,11 @@
 package com.schools24.domain;
 
+import com.schools24.tenant.SchoolStampListener;
+import com.schools24.tenant.TenantContext;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Filter;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -10,8 +13,13 @@ import java.util.Set;
 @Getter
 @Setter
 @Entity
-@Table(name = "classes")
-public class SchoolClass {
+@Filter(name = TenantContext.FILTER)
+@EntityListeners(SchoolStampListener.class)
+@Table(name = "classes", indexes = {
+        @Index(name = "idx_classes_school_name", columnList = "school_id, name, grade, section"),
+        @Index(name = "idx_classes_name", columnList = "name, grade, section")
+})
+public class SchoolClass implements SchoolScoped {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -25,6 +33,9 @@ public class SchoolClass {
     @Column(nullable = false)
     private String section;
 
+    @Column(name = "school_id")
+    private Long schoolId;
+
     private Boolean isActive = true;
 
     @ManyToOne
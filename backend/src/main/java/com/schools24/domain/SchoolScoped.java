@@ -0,0 +1,12 @@
+package com.schools24.domain;
+
+/**
+ * A row that belongs to one school. Queries on these entities are limited to the current
+ * request's school by the {@code school} filter (see package-info and
+ * {@link com.schools24.tenant.TenantContext}).
+ */
+public interface SchoolScoped {
+    Long getSchoolId();
+
+    void setSchoolId(Long schoolId);
+}
@@ -1,14 +1,20 @@
 package com.schools24.domain;
 
+import com.schools24.tenant.SchoolStampListener;
+import com.schools24.tenant.TenantContext;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Filter;
 
 @Getter
 @Setter
 @Entity
-@Table(name = "subjects")
-public class Subject {
+@Filter(name = TenantContext.FILTER)
+@EntityListeners(SchoolStampListener.class)
+@Table(name = "subjects", uniqueConstraints = @UniqueConstraint(name = "uk_subjects_school_code",
+        columnNames = {"school_id", "code"}), indexes = @Index(name = "idx_subjects_code", columnList = "code"))
+public class Subject implements SchoolScoped {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -16,10 +22,16 @@ public class Subject {
     @Column(nullable = false)
     private String name;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String code;
 
+    @Column(name = "school_id")
+    private Long schoolId;
+
     private Boolean isActive = true;
+
+    // Lessons a week in generated timetables; null uses schools24.timetable.periods-per-week.
+    private Integer periodsPerWeek;
 }
 
 
@@ -0,0 +1,39 @@
+package com.schools24.domain;
+
+import com.schools24.tenant.SchoolStampListener;
+import com.schools24.tenant.TenantContext;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.Filter;
+
+/**
+ * A slot a teacher cannot teach in, on a day (1 = Monday) and period (1-based); generated
+ * timetables leave it free.
+ */
+@Getter
+@Setter
+@Entity
+@Filter(name = TenantContext.FILTER)
+@EntityListeners(SchoolStampListener.class)
+@Table(name = "teacher_unavailable_slots", uniqueConstraints =
+        @UniqueConstraint(name = "uk_teacher_unavailable_slot", columnNames = {"teacher_id", "weekday", "period"}),
+        indexes = @Index(name = "idx_teacher_unavailable_school", columnList = "school_id"))
+public class TeacherUnavailableSlot implements SchoolScoped {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "teacher_id")
+    private User teacher;
+
+    @Column(nullable = false)
+    private int weekday;
+
+    @Column(nullable = false)
+    private int period;
+
+    @Column(name = "school_id")
+    private Long schoolId;
+}
@@ -0,0 +1,48 @@
+package com.schools24.domain;
+
+import com.schools24.tenant.SchoolStampListener;
+import com.schools24.tenant.TenantContext;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.Filter;
+
+/**
+ * One lesson of a generated weekly timetable: a class is taught a subject by a teacher on a day
+ * (1 = Monday) and period (1-based). A class or teacher has at most one lesson per slot.
+ */
+@Getter
+@Setter
+@Entity
+@Filter(name = TenantContext.FILTER)
+@EntityListeners(SchoolStampListener.class)
+@Table(name = "timetable_slots", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_timetable_class_slot", columnNames = {"class_id", "weekday", "period"}),
+        @UniqueConstraint(name = "uk_timetable_teacher_slot", columnNames = {"teacher_id", "weekday", "period"})
+}, indexes = @Index(name = "idx_timetable_school", columnList = "school_id"))
+public class TimetableSlot implements SchoolScoped {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "class_id")
+    private SchoolClass schoolClass;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "subject_id")
+    private Subject subject;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "teacher_id")
+    private User teacher;
+
+    @Column(nullable = false)
+    private int weekday;
+
+    @Column(nullable = false)
+    private int period;
+
+    @Column(name = "school_id")
+    private Long schoolId;
+}
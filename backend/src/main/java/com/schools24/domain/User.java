@@ -1,8 +1,11 @@
 package com.schools24.domain;
 
+import com.schools24.tenant.SchoolStampListener;
+import com.schools24.tenant.TenantContext;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Filter;
 
 import java.time.Instant;
 import java.util.HashSet;
@@ -11,8 +14,15 @@ import java.util.Set;
 @Getter
 @Setter
 @Entity
-@Table(name = "users")
-public class User {
+@Filter(name = TenantContext.FILTER)
+@EntityListeners(SchoolStampListener.class)
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_school_role", columnList = "school_id, role, is_active, created_at"),
+        @Index(name = "idx_users_school_created", columnList = "school_id, is_active, created_at"),
+        @Index(name = "idx_users_active_created", columnList = "is_active, created_at"),
+        @Index(name = "idx_users_role_active_created", columnList = "role, is_active, created_at")
+})
+public class User implements SchoolScoped {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -32,6 +42,9 @@ public class User {
     @Column(nullable = false, unique = true)
     private String userId; // human-readable id
 
+    @Column(name = "school_id")
+    private Long schoolId;
+
     private Boolean isActive = true;
 
     private Instant createdAt = Instant.now();
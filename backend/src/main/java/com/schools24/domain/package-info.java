@@ -0,0 +1,13 @@
+/**
+ * The {@code school} filter is enabled in every session. Its parameter is the current request's
+ * school, or 0 when unscoped, which turns the condition into a no-op.
+ */
+@FilterDef(name = TenantContext.FILTER, autoEnabled = true,
+        defaultCondition = "(:schoolId = 0 or school_id = :schoolId)",
+        parameters = @ParamDef(name = "schoolId", type = Long.class, resolver = CurrentSchoolId.class))
+package com.schools24.domain;
+
+import com.schools24.tenant.CurrentSchoolId;
+import com.schools24.tenant.TenantContext;
+import org.hibernate.annotations.FilterDef;
+import org.hibernate.annotations.ParamDef;
@@ -0,0 +1,37 @@
+package com.schools24.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Per-request SQL instrumentation; meters are served by the actuator metrics endpoint.
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+    private final MeterRegistry registry;
+    private final long slowRequestMs;
+    private final boolean enforceQueryBudget;
+
+    public MetricsConfig(MeterRegistry registry,
+                         @Value("${schools24.metrics.slow-request-ms:500}") long slowRequestMs,
+                         @Value("${schools24.metrics.enforce-query-budget:false}") boolean enforceQueryBudget) {
+        this.registry = registry;
+        this.slowRequestMs = slowRequestMs;
+        this.enforceQueryBudget = enforceQueryBudget;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlMetricsSessionListener() {
+        return props -> props.put("hibernate.session.events.auto", SqlMetricsSessionListener.class.getName());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestMetricsInterceptor(this.registry, slowRequestMs, enforceQueryBudget));
+    }
+}
@@ -0,0 +1,18 @@
+package com.schools24.metrics;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maximum number of SQL statements one call of a controller method may execute. Exceeding it
+ * is logged and counted; with {@code schools24.metrics.enforce-query-budget=true} the
+ * statement over budget fails instead, which is how N+1 regressions fail a CI or load-test run.
+ * QueryBudgetTest calls every budgeted endpoint with enforcement on, so add new ones there.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+    int value();
+}
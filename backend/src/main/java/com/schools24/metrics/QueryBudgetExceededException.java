@@ -0,0 +1,12 @@
+package com.schools24.metrics;
+
+/**
+ * Thrown, in enforcing mode, when a request executes more statements than its {@link QueryBudget}.
+ */
+public class QueryBudgetExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public QueryBudgetExceededException(String scope, int budget) {
+        super(scope + " exceeded its query budget of " + budget + " SQL statements");
+    }
+}
@@ -0,0 +1,36 @@
+package com.schools24.metrics;
+
+import java.util.function.Supplier;
+
+/**
+ * Counts the statements a piece of code executes, for tests and harnesses that want to pin
+ * a query budget: {@code QueryCounter.assertAtMost(3, () -> service.teachers(null, null, 51))}.
+ */
+public final class QueryCounter {
+    private QueryCounter() {
+    }
+
+    public static RequestMetrics.Snapshot count(Runnable work) {
+        RequestMetrics m = new RequestMetrics("counted block", -1, false);
+        RequestMetrics previous = RequestMetrics.bind(m);
+        try {
+            work.run();
+        } finally {
+            RequestMetrics.restore(previous);
+        }
+        return m.snapshot();
+    }
+
+    /**
+     * Runs the work and fails with {@link QueryBudgetExceededException} as soon as it executes
+     * more than {@code statements} statements.
+     */
+    public static <T> T assertAtMost(int statements, Supplier<T> work) {
+        RequestMetrics previous = RequestMetrics.bind(new RequestMetrics("counted block", statements, true));
+        try {
+            return work.get();
+        } finally {
+            RequestMetrics.restore(previous);
+        }
+    }
+}
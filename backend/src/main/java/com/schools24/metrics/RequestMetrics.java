@@ -0,0 +1,97 @@
+package com.schools24.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SQL statements, JDBC time and entities loaded by the current request (or any unit of work
+ * bound with {@link #bind}). Counters are shared with async continuations of the request,
+ * hence atomic.
+ */
+public final class RequestMetrics {
+    private static final ThreadLocal<RequestMetrics> CURRENT = new ThreadLocal<>();
+
+    public record Snapshot(long statements, long jdbcNanos, long entitiesLoaded) {
+        public double jdbcMillis() {
+            return jdbcNanos / 1e6;
+        }
+    }
+
+    private final String scope;
+    private final int budget;
+    private final boolean enforce;
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong jdbcNanos = new AtomicLong();
+    private final AtomicLong entitiesLoaded = new AtomicLong();
+
+    /**
+     * @param budget statements allowed, or -1 for no budget
+     */
+    public RequestMetrics(String scope, int budget, boolean enforce) {
+        this.scope = scope;
+        this.budget = budget;
+        this.enforce = enforce;
+    }
+
+    public static RequestMetrics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds to the current thread and returns what was bound before, for {@link #restore}.
+     */
+    public static RequestMetrics bind(RequestMetrics m) {
+        RequestMetrics previous = CURRENT.get();
+        CURRENT.set(m);
+        return previous;
+    }
+
+    public static void restore(RequestMetrics previous) {
+        if (previous == null) CURRENT.remove();
+        else CURRENT.set(previous);
+    }
+
+    /**
+     * Wraps a task so it counts against the submitting thread's request.
+     */
+    public static Runnable propagate(Runnable task) {
+        RequestMetrics m = CURRENT.get();
+        if (m == null) return task;
+        return () -> {
+            RequestMetrics previous = bind(m);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    void statementStarting() {
+        long n = statements.incrementAndGet();
+        if (enforce && budget >= 0 && n > budget) throw new QueryBudgetExceededException(scope, budget);
+    }
+
+    void statementFinished(long nanos) {
+        jdbcNanos.addAndGet(nanos);
+    }
+
+    void entityLoaded() {
+        entitiesLoaded.incrementAndGet();
+    }
+
+    public String scope() {
+        return scope;
+    }
+
+    public int budget() {
+        return budget;
+    }
+
+    public boolean overBudget() {
+        return budget >= 0 && statements.get() > budget;
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(statements.get(), jdbcNanos.get(), entitiesLoaded.get());
+    }
+}
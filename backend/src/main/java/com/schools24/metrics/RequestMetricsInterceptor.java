@@ -0,0 +1,109 @@
+package com.schools24.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binds a {@link RequestMetrics} to each handled request and, when the request completes,
+ * publishes its statement count, JDBC time and entities loaded per endpoint
+ * ({@code Controller.method}), checks the endpoint's {@link QueryBudget} and logs slow requests.
+ * Async requests keep their metrics across dispatches and are published once at the end.
+ */
+public class RequestMetricsInterceptor implements AsyncHandlerInterceptor {
+    private static final Logger log = LoggerFactory.getLogger(RequestMetricsInterceptor.class);
+    private static final String METRICS_ATTR = RequestMetrics.class.getName();
+    private static final String START_ATTR = RequestMetrics.class.getName() + ".start";
+    private static final String PREVIOUS_ATTR = RequestMetrics.class.getName() + ".previous";
+
+    private final MeterRegistry registry;
+    private final long slowRequestNanos;
+    private final boolean enforceBudgets;
+
+    public RequestMetricsInterceptor(MeterRegistry registry, long slowRequestMs, boolean enforceBudgets) {
+        this.registry = registry;
+        this.slowRequestNanos = TimeUnit.MILLISECONDS.toNanos(slowRequestMs);
+        this.enforceBudgets = enforceBudgets;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod m)) return true;
+        RequestMetrics metrics = (RequestMetrics) request.getAttribute(METRICS_ATTR);
+        if (metrics == null) {
+            QueryBudget budget = m.getMethodAnnotation(QueryBudget.class);
+            metrics = new RequestMetrics(endpoint(m), budget == null ? -1 : budget.value(), enforceBudgets);
+            request.setAttribute(METRICS_ATTR, metrics);
+            request.setAttribute(START_ATTR, System.nanoTime());
+        }
+        RequestMetrics previous = RequestMetrics.bind(metrics);
+        if (previous != null) request.setAttribute(PREVIOUS_ATTR, previous);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        unbind(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestMetrics metrics = (RequestMetrics) request.getAttribute(METRICS_ATTR);
+        if (metrics == null) return;
+        unbind(request);
+        long elapsed = System.nanoTime() - (Long) request.getAttribute(START_ATTR);
+        RequestMetrics.Snapshot s = metrics.snapshot();
+        String endpoint = metrics.scope();
+
+        DistributionSummary.builder("schools24.request.sql.statements")
+                .description("SQL statements executed per request")
+                .tag("endpoint", endpoint)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry)
+                .record(s.statements());
+        Timer.builder("schools24.request.jdbc.time")
+                .description("Time spent executing SQL per request")
+                .tag("endpoint", endpoint)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry)
+                .record(s.jdbcNanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("schools24.request.entities.loaded")
+                .description("Entities materialized per request")
+                .tag("endpoint", endpoint)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry)
+                .record(s.entitiesLoaded());
+
+        if (metrics.overBudget()) {
+            Counter.builder("schools24.request.query.budget.exceeded")
+                    .tag("endpoint", endpoint)
+                    .register(registry)
+                    .increment();
+            log.warn("{} {} ({}) executed {} SQL statements, over its budget of {}",
+                    request.getMethod(), request.getRequestURI(), endpoint, s.statements(), metrics.budget());
+        }
+        if (elapsed >= slowRequestNanos) {
+            log.warn("Slow request {} {} ({}) took {} ms: {} SQL statements, {} ms in JDBC, {} entities loaded",
+                    request.getMethod(), request.getRequestURI(), endpoint, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    s.statements(), Math.round(s.jdbcMillis()), s.entitiesLoaded());
+        }
+    }
+
+    private static void unbind(HttpServletRequest request) {
+        RequestMetrics.restore((RequestMetrics) request.getAttribute(PREVIOUS_ATTR));
+        request.removeAttribute(PREVIOUS_ATTR);
+    }
+
+    private static String endpoint(HandlerMethod m) {
+        return m.getBeanType().getSimpleName() + "." + m.getMethod().getName();
+    }
+}
@@ -0,0 +1,46 @@
+package com.schools24.metrics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Per-session Hibernate callback that charges every executed statement (or JDBC batch) and its
+ * execution time to the {@link RequestMetrics} bound to the calling thread. Registered through
+ * {@code hibernate.session.events.auto}; Hibernate creates one instance per session.
+ */
+public class SqlMetricsSessionListener implements SessionEventListener {
+    private static final long serialVersionUID = 1L;
+
+    private long startedAt;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        begin();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        finish();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        begin();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        finish();
+    }
+
+    private void begin() {
+        startedAt = System.nanoTime();
+        RequestMetrics m = RequestMetrics.current();
+        if (m != null) m.statementStarting();
+    }
+
+    private void finish() {
+        RequestMetrics m = RequestMetrics.current();
+        if (m != null && startedAt != 0) m.statementFinished(System.nanoTime() - startedAt);
+        startedAt = 0;
+    }
+}
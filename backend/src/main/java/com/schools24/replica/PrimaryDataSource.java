@@ -0,0 +1,65 @@
+package com.schools24.replica;
+
+import com.schools24.tenant.TenantContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The primary, for every connection that is not read-only. Any of them may have written, so
+ * closing one records a write for the thread and its school.
+ */
+class PrimaryDataSource extends DelegatingDataSource {
+    private final RecentWrites writes;
+    private final MeterRegistry registry;
+
+    PrimaryDataSource(DataSource target, RecentWrites writes, MeterRegistry registry) {
+        super(target);
+        this.writes = writes;
+        this.registry = registry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return tracked(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return tracked(super.getConnection(username, password));
+    }
+
+    private Connection tracked(Connection target) {
+        ReplicaMonitor.countRoute(registry, "primary", "write");
+        Long schoolId = TenantContext.current();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            try {
+                                target.close();
+                            } finally {
+                                writes.record(schoolId, System.currentTimeMillis());
+                            }
+                            return null;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Primary " + target;
+                        default:
+                            try {
+                                return method.invoke(target, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getTargetException();
+                            }
+                    }
+                });
+    }
+}
@@ -0,0 +1,60 @@
+package com.schools24.replica;
+
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * When the current thread, each school and unscoped requests last wrote to the primary (epoch
+ * milliseconds). A read may use a replica only once the replica has replayed past the caller's
+ * last write, so a client reads its own writes.
+ */
+public final class RecentWrites {
+    private static final ThreadLocal<Long> THREAD = new ThreadLocal<>();
+
+    private final Map<Long, Long> bySchool = new ConcurrentHashMap<>();
+    private final AtomicLong unscoped = new AtomicLong();
+
+    /**
+     * Records a write that has committed (or been rolled back) by now. Unscoped background work
+     * (quiz ingestion, snapshots) only holds back its own thread; unscoped requests hold back
+     * every unscoped read.
+     */
+    void record(Long schoolId, long atMs) {
+        THREAD.set(atMs);
+        if (schoolId != null) {
+            bySchool.merge(schoolId, atMs, Math::max);
+        } else if (RequestContextHolder.getRequestAttributes() != null) {
+            unscoped.accumulateAndGet(atMs, Math::max);
+        }
+    }
+
+    /**
+     * The time a replica must have replayed to for a read by the current thread in the given scope.
+     */
+    long mustSee(Long schoolId) {
+        Long own = THREAD.get();
+        long scope = schoolId != null ? bySchool.getOrDefault(schoolId, 0L) : unscoped.get();
+        return Math.max(own == null ? 0L : own, scope);
+    }
+
+    /**
+     * Wraps a task so it waits for the submitting thread's writes, like the request it belongs to.
+     */
+    public static Runnable propagate(Runnable task) {
+        Long own = THREAD.get();
+        if (own == null) return task;
+        return () -> {
+            Long previous = THREAD.get();
+            THREAD.set(previous == null ? own : Math.max(previous, own));
+            try {
+                task.run();
+            } finally {
+                if (previous == null) THREAD.remove();
+                else THREAD.set(previous);
+            }
+        };
+    }
+}
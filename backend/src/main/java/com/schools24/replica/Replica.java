@@ -0,0 +1,57 @@
+package com.schools24.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One read replica's pool and what the heartbeat last saw of it.
+ */
+final class Replica {
+    private static final Logger log = LoggerFactory.getLogger(Replica.class);
+
+    private final String name;
+    private final HikariDataSource dataSource;
+    // Null until the first heartbeat.
+    private volatile Boolean up;
+    // The primary's heartbeat time this replica has replayed to.
+    private volatile long seenUpToMs;
+
+    Replica(String name, HikariDataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    String name() {
+        return name;
+    }
+
+    HikariDataSource dataSource() {
+        return dataSource;
+    }
+
+    boolean up() {
+        return Boolean.TRUE.equals(up);
+    }
+
+    long seenUpToMs() {
+        return seenUpToMs;
+    }
+
+    long lagMs(long nowMs) {
+        return Math.max(0, nowMs - seenUpToMs);
+    }
+
+    void seen(long beatMs) {
+        seenUpToMs = Math.max(seenUpToMs, beatMs);
+        if (!Boolean.TRUE.equals(up)) {
+            up = Boolean.TRUE;
+            log.info("Replica {} is up", name);
+        }
+    }
+
+    void markDown(Exception e) {
+        if (!Boolean.FALSE.equals(up)) log.warn("Replica {} is down, reading from the primary: {}", name, e.toString());
+        up = Boolean.FALSE;
+    }
+}
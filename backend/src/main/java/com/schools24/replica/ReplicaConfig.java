@@ -0,0 +1,73 @@
+package com.schools24.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas, when {@code schools24.datasource.replica.urls} is set. The application's
+ * DataSource hands out lazy connections: a connection is only taken from a pool at its first
+ * statement, by which time Spring has marked a read-only transaction's connection read-only, so
+ * those go to {@link ReplicaDataSource} and everything else to the primary. Spring Data's
+ * finders run read-only unless they join a writing transaction.
+ * <p>
+ * Replicas use {@code spring.datasource.hikari.*} and, unless set, the primary's credentials.
+ */
+@Configuration
+@ConditionalOnProperty("schools24.datasource.replica.urls")
+public class ReplicaConfig {
+
+    @Bean
+    public ReplicaMonitor replicaMonitor(DataSourceProperties properties, Environment env, MeterRegistry registry) {
+        HikariDataSource primary = pool(properties, env, "primary", properties.determineUrl(),
+                properties.determineUsername(), properties.determinePassword());
+        String user = env.getProperty("schools24.datasource.replica.username", properties.determineUsername());
+        String password = env.getProperty("schools24.datasource.replica.password", properties.determinePassword());
+        long connectTimeoutMs = env.getProperty("schools24.datasource.replica.connect-timeout-ms", Long.class, 1_000L);
+        List<Replica> replicas = new ArrayList<>();
+        for (String url : env.getRequiredProperty("schools24.datasource.replica.urls", String[].class)) {
+            String name = "replica-" + (replicas.size() + 1);
+            HikariDataSource ds = pool(properties, env, name, url.trim(), user, password);
+            ds.setReadOnly(true);
+            // A replica that is unreachable should fail over quickly, not hold the request.
+            ds.setConnectionTimeout(connectTimeoutMs);
+            ds.setInitializationFailTimeout(-1);
+            replicas.add(new Replica(name, ds));
+        }
+        return new ReplicaMonitor(primary, replicas, registry);
+    }
+
+    @Bean
+    public DataSource dataSource(ReplicaMonitor monitor, Environment env, MeterRegistry registry) {
+        RecentWrites writes = new RecentWrites();
+        long maxLagMs = env.getProperty("schools24.datasource.replica.max-lag-ms", Long.class, 2_000L);
+        LazyConnectionDataSourceProxy ds = new LazyConnectionDataSourceProxy(
+                new PrimaryDataSource(monitor.primary(), writes, registry));
+        ds.setReadOnlyDataSource(new ReplicaDataSource(monitor.primary(), monitor.replicas(), writes, maxLagMs, registry));
+        return ds;
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, Environment env, String name,
+                                         String url, String user, String password) {
+        HikariDataSource ds = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(user)
+                .password(password)
+                .build();
+        Binder.get(env).bind("spring.datasource.hikari", Bindable.ofInstance(ds));
+        ds.setPoolName(name);
+        return ds;
+    }
+}
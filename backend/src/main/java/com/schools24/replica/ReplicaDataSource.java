@@ -0,0 +1,69 @@
+package com.schools24.replica;
+
+import com.schools24.tenant.TenantContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connections for read-only transactions. Replicas take turns; one is used only if it is up, at
+ * most {@code maxLagMs} behind the primary and has replayed the caller's last write (see
+ * {@link RecentWrites}). Otherwise the read goes to the primary, counted with the reason.
+ */
+class ReplicaDataSource extends AbstractDataSource {
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final RecentWrites writes;
+    private final long maxLagMs;
+    private final MeterRegistry registry;
+    private final AtomicInteger next = new AtomicInteger();
+
+    ReplicaDataSource(DataSource primary, List<Replica> replicas, RecentWrites writes, long maxLagMs,
+                      MeterRegistry registry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.writes = writes;
+        this.maxLagMs = maxLagMs;
+        this.registry = registry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long now = System.currentTimeMillis();
+        long mustSee = writes.mustSee(TenantContext.current());
+        String reason = "down";
+        int n = replicas.size();
+        int first = Math.floorMod(next.getAndIncrement(), n);
+        for (int i = 0; i < n; i++) {
+            Replica r = replicas.get((first + i) % n);
+            if (!r.up()) continue;
+            if (r.lagMs(now) > maxLagMs) {
+                if (reason.equals("down")) reason = "stale";
+                continue;
+            }
+            if (r.seenUpToMs() < mustSee) {
+                reason = "read-your-writes";
+                continue;
+            }
+            try {
+                Connection c = r.dataSource().getConnection();
+                ReplicaMonitor.countRoute(registry, r.name(), "read");
+                return c;
+            } catch (SQLException e) {
+                r.markDown(e);
+            }
+        }
+        ReplicaMonitor.countRoute(registry, "primary", reason);
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+}
@@ -0,0 +1,104 @@
+package com.schools24.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Owns the primary and replica pools and measures replica lag with a heartbeat: each interval
+ * the primary's {@code replica_heartbeat} row is set to the current time, and the value a
+ * replica returns is how far it has replayed. A replica that cannot be read is down until the
+ * next heartbeat succeeds.
+ */
+public class ReplicaMonitor implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaMonitor.class);
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private volatile boolean beating = true;
+
+    ReplicaMonitor(HikariDataSource primary, List<Replica> replicas, MeterRegistry registry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        for (Replica r : replicas) {
+            Gauge.builder("schools24.datasource.replica.lag", r, x -> x.lagMs(System.currentTimeMillis()))
+                    .description("How far the replica is behind the primary's heartbeat")
+                    .baseUnit("milliseconds")
+                    .tag("replica", r.name())
+                    .register(registry);
+            Gauge.builder("schools24.datasource.replica.up", r, x -> x.up() ? 1 : 0)
+                    .tag("replica", r.name())
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Counts a connection handed out on a route ("primary" or a replica) for a reason: "write",
+     * "read", or why a read went to the primary ("read-your-writes", "stale", "down").
+     */
+    static void countRoute(MeterRegistry registry, String route, String reason) {
+        Counter.builder("schools24.datasource.connections")
+                .tag("route", route)
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    HikariDataSource primary() {
+        return primary;
+    }
+
+    List<Replica> replicas() {
+        return replicas;
+    }
+
+    @Scheduled(fixedDelayString = "${schools24.datasource.replica.heartbeat-interval-ms:250}")
+    public void heartbeat() {
+        beat();
+        for (Replica r : replicas) probe(r);
+    }
+
+    // The time is taken before the update, so a replica showing it has every earlier commit.
+    private void beat() {
+        long now = System.currentTimeMillis();
+        try (Connection c = primary.getConnection();
+             PreparedStatement ps = c.prepareStatement("update replica_heartbeat set beat_ms = ? where id = 1")) {
+            ps.setLong(1, now);
+            ps.executeUpdate();
+            if (!beating) log.info("Replica heartbeat resumed");
+            beating = true;
+        } catch (SQLException e) {
+            if (beating) log.warn("Could not write the replica heartbeat; replicas will look stale: {}", e.toString());
+            beating = false;
+        }
+    }
+
+    private static void probe(Replica r) {
+        try (Connection c = r.dataSource().getConnection();
+             Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("select beat_ms from replica_heartbeat where id = 1")) {
+            if (!rs.next()) throw new SQLException("No heartbeat row");
+            r.seen(rs.getLong(1));
+        } catch (SQLException e) {
+            r.markDown(e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        for (Replica r : replicas) r.dataSource().close();
+        primary.close();
+    }
+}
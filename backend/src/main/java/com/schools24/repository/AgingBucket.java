@@ -0,0 +1,5 @@
+package com.schools24.repository;
+
+public interface AgingBucket extends FeeTotals {
+    Integer getBucket();
+}
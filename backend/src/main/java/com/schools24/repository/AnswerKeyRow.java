@@ -0,0 +1,4 @@
+package com.schools24.repository;
+
+public record AnswerKeyRow(Long questionId, Long topicId, String correctOption) {
+}
@@ -0,0 +1,4 @@
+package com.schools24.repository;
+
+public record AssignmentIndexRow(Long classId, String grade, Long subjectId, Long teacherId) {
+}
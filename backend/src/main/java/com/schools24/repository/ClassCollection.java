@@ -0,0 +1,11 @@
+package com.schools24.repository;
+
+public interface ClassCollection {
+    Long getClassId();
+    String getClassName();
+    String getGrade();
+    String getSection();
+    Long getInvoices();
+    Long getBilled();
+    Long getCollected();
+}
@@ -0,0 +1,4 @@
+package com.schools24.repository;
+
+public record ClassGradeRow(Long classId, String grade) {
+}
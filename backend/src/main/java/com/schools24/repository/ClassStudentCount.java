@@ -0,0 +1,6 @@
+package com.schools24.repository;
+
+public interface ClassStudentCount {
+    Long getClassId();
+    Long getStudents();
+}
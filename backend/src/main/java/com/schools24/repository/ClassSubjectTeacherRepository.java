@@ -5,11 +5,24 @@ import com.schools24.domain.SchoolClass;
 import com.schools24.domain.Subject;
 import com.schools24.domain.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
+@Transactional(readOnly = true)
 public interface ClassSubjectTeacherRepository extends JpaRepository<ClassSubjectTeacher, Long> {
     Optional<ClassSubjectTeacher> findBySchoolClassAndSubjectAndTeacher(SchoolClass c, Subject s, User t);
+
+    @Query("select new com.schools24.repository.TimetableAssignmentRow(a.schoolClass.id, s.id, a.teacher.id, s.periodsPerWeek) " +
+            "from ClassSubjectTeacher a join a.subject s where a.schoolId = :schoolId order by a.schoolClass.id, s.id")
+    List<TimetableAssignmentRow> findTimetableAssignments(@Param("schoolId") Long schoolId);
+
+    @Query("select new com.schools24.repository.AssignmentIndexRow(c.id, c.grade, a.subject.id, a.teacher.id) " +
+            "from ClassSubjectTeacher a join a.schoolClass c where a.schoolId = :schoolId")
+    List<AssignmentIndexRow> findIndexRows(@Param("schoolId") Long schoolId);
 }
 
 
@@ -0,0 +1,9 @@
+package com.schools24.repository;
+
+// Payments are recorded per invoice, so a head's collected amount is its share of each invoice's paid amount.
+public interface FeeHeadCollection {
+    Long getHeadId();
+    String getHeadName();
+    Long getBilled();
+    Double getCollected();
+}
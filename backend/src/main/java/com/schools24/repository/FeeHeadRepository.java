@@ -3,9 +3,11 @@ package com.schools24.repository;
 import com.schools24.domain.FeeHead;
 import com.schools24.domain.School;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
+@Transactional(readOnly = true)
 public interface FeeHeadRepository extends JpaRepository<FeeHead, Long> {
     List<FeeHead> findBySchool(School school);
 }
@@ -4,12 +4,73 @@ import com.schools24.domain.FeeInvoice;
 import com.schools24.domain.School;
 import com.schools24.domain.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+@Transactional(readOnly = true)
 public interface FeeInvoiceRepository extends JpaRepository<FeeInvoice, Long> {
     List<FeeInvoice> findBySchool(School school);
     List<FeeInvoice> findByStudent(User student);
-}
 
+    // Atomic increment under the row lock, of the school's invoice only. status is assigned first
+    // because MySQL evaluates single-table SET clauses left to right against already-updated columns.
+    @Transactional
+    @Modifying
+    @Query("update FeeInvoice i set " +
+            "i.status = case when coalesce(i.paidAmount, 0) + :amount >= i.totalAmount then 'PAID' " +
+            "when coalesce(i.paidAmount, 0) + :amount > 0 then 'PARTIAL' else 'UNPAID' end, " +
+            "i.paidAmount = coalesce(i.paidAmount, 0) + :amount " +
+            "where i.id = :id and i.school.id = :schoolId")
+    int applyPayment(@Param("id") Long id, @Param("schoolId") Long schoolId, @Param("amount") int amount);
+
+    @Query("select i.id as id, i.totalAmount as totalAmount, i.paidAmount as paidAmount, i.status as status " +
+            "from FeeInvoice i where i.id = :id")
+    Optional<InvoiceBalance> findBalanceById(@Param("id") Long id);
+
+    @Query("select i.id as id, i.school.id as schoolId from FeeInvoice i where i.id in :ids")
+    List<InvoiceSchool> findSchools(@Param("ids") Collection<Long> ids);
+
+    @Query("select new com.schools24.repository.StatementInvoiceRow(i.id, i.student.id, i.totalAmount, i.paidAmount, i.status, i.createdAt) " +
+            "from FeeInvoice i where i.school.id = :schoolId and i.student.id in :studentIds order by i.id")
+    List<StatementInvoiceRow> findStatementRows(@Param("schoolId") Long schoolId, @Param("studentIds") Collection<Long> studentIds);
+
+    @Query("select new com.schools24.repository.StatementItemRow(it.invoice.id, h.name, it.amount) " +
+            "from FeeInvoiceItem it join it.head h where it.invoice.id in :invoiceIds order by it.id")
+    List<StatementItemRow> findStatementItems(@Param("invoiceIds") Collection<Long> invoiceIds);
 
+    @Query("select count(i) as invoices, sum(i.totalAmount) as billed, sum(coalesce(i.paidAmount, 0)) as collected " +
+            "from FeeInvoice i where i.school.id = :schoolId")
+    FeeTotals sumBySchool(@Param("schoolId") Long schoolId);
+
+    // Invoices raised before :to by age: bucket 0 from :first on, 1 from :second, 2 from :third, 3 older.
+    @Query("select case when i.createdAt >= :first then 0 when i.createdAt >= :second then 1 " +
+            "when i.createdAt >= :third then 2 else 3 end as bucket, " +
+            "count(i) as invoices, sum(i.totalAmount) as billed, sum(coalesce(i.paidAmount, 0)) as collected " +
+            "from FeeInvoice i where i.school.id = :schoolId and i.createdAt < :to group by bucket")
+    List<AgingBucket> sumBySchoolAged(@Param("schoolId") Long schoolId, @Param("first") Instant first,
+                                      @Param("second") Instant second, @Param("third") Instant third,
+                                      @Param("to") Instant to);
+
+    @Query("select h.id as headId, h.name as headName, sum(it.amount) as billed, " +
+            "sum(1.0 * it.amount * coalesce(i.paidAmount, 0) / nullif(i.totalAmount, 0)) as collected " +
+            "from FeeInvoiceItem it join it.invoice i join it.head h " +
+            "where i.school.id = :schoolId group by h.id, h.name order by h.name")
+    List<FeeHeadCollection> sumByHead(@Param("schoolId") Long schoolId);
+
+    // A student in several classes counts once, in the lowest-id one, so rows never add up to
+    // more than the school's totals.
+    @Query("select c.id as classId, c.name as className, c.grade as grade, c.section as section, " +
+            "count(i) as invoices, sum(i.totalAmount) as billed, sum(coalesce(i.paidAmount, 0)) as collected " +
+            "from SchoolClass c join c.students st, FeeInvoice i " +
+            "where i.student = st and i.school.id = :schoolId " +
+            "and c.id = (select min(c2.id) from SchoolClass c2 join c2.students st2 where st2 = st) " +
+            "group by c.id, c.name, c.grade, c.section order by c.grade, c.section")
+    List<ClassCollection> sumByClass(@Param("schoolId") Long schoolId);
+}
@@ -0,0 +1,15 @@
+package com.schools24.repository;
+
+public interface FeeTotals {
+    Long getInvoices();
+    Long getBilled();
+    Long getCollected();
+
+    default long getDue() {
+        return value(getBilled()) - value(getCollected());
+    }
+
+    static long value(Long v) {
+        return v == null ? 0L : v;
+    }
+}
@@ -0,0 +1,8 @@
+package com.schools24.repository;
+
+public interface InvoiceBalance {
+    Long getId();
+    Integer getTotalAmount();
+    Integer getPaidAmount();
+    String getStatus();
+}
@@ -0,0 +1,6 @@
+package com.schools24.repository;
+
+public interface InvoiceSchool {
+    Long getId();
+    Long getSchoolId();
+}
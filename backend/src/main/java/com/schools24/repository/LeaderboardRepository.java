@@ -0,0 +1,20 @@
+package com.schools24.repository;
+
+import com.schools24.domain.LeaderboardEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Transactional(readOnly = true)
+public interface LeaderboardRepository extends JpaRepository<LeaderboardEntry, Long> {
+    @Query("select new com.schools24.repository.LeaderboardRow(u.id, u.name, e.school.id, e.classGrade, e.totalScore, e.lastUpdated) " +
+            "from LeaderboardEntry e join e.student u")
+    List<LeaderboardRow> findAllRows();
+
+    // Finished quizzes that the stored totals do not include yet, e.g. after a crash between snapshots.
+    @Query("select new com.schools24.repository.SessionScoreRow(s.id, s.student.id, s.score, s.endTime) " +
+            "from QuizSession s where s.onLeaderboard = false and s.endTime is not null")
+    List<SessionScoreRow> findUnsnapshottedScores();
+}
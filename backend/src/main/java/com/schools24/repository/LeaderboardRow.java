@@ -0,0 +1,7 @@
+package com.schools24.repository;
+
+import java.time.Instant;
+
+public record LeaderboardRow(Long studentId, String name, Long schoolId, Integer classGrade, Integer totalScore,
+                             Instant lastUpdated) {
+}
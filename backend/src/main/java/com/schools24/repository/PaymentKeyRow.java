@@ -0,0 +1,4 @@
+package com.schools24.repository;
+
+public record PaymentKeyRow(Long schoolId, String idempotencyKey, Long invoiceId, Integer amount, String method) {
+}
@@ -3,11 +3,25 @@ package com.schools24.repository;
 import com.schools24.domain.FeeInvoice;
 import com.schools24.domain.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+@Transactional(readOnly = true)
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Payment> findByInvoice(FeeInvoice invoice);
-}
+    Optional<Payment> findBySchoolIdAndIdempotencyKey(Long schoolId, String idempotencyKey);
 
+    // Keys are unique per school; the caller matches rows to its requests by school and key.
+    @Query("select new com.schools24.repository.PaymentKeyRow(p.schoolId, p.idempotencyKey, p.invoice.id, p.amount, p.method) " +
+            "from Payment p where p.idempotencyKey in :keys")
+    List<PaymentKeyRow> findKeyRows(@Param("keys") Collection<String> keys);
 
+    @Query("select new com.schools24.repository.StatementPaymentRow(p.invoice.id, p.id, p.amount, p.method, p.paidAt) " +
+            "from Payment p where p.invoice.id in :invoiceIds order by p.paidAt, p.id")
+    List<StatementPaymentRow> findStatementRows(@Param("invoiceIds") Collection<Long> invoiceIds);
+}
@@ -0,0 +1,6 @@
+package com.schools24.repository;
+
+import com.schools24.domain.Difficulty;
+
+public record QuestionIndexRow(Long id, Long topicId, Integer classGrade, Difficulty difficulty) {
+}
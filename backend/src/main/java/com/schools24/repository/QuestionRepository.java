@@ -0,0 +1,29 @@
+package com.schools24.repository;
+
+import com.schools24.domain.Difficulty;
+import com.schools24.domain.Question;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Transactional(readOnly = true)
+public interface QuestionRepository extends JpaRepository<Question, Long> {
+    @Query("select new com.schools24.repository.AnswerKeyRow(q.id, q.topic.id, q.correctOption) " +
+            "from Question q where q.id in :ids")
+    List<AnswerKeyRow> findAnswerKeys(@Param("ids") Collection<Long> ids);
+
+    @Query("select new com.schools24.repository.AnswerKeyRow(q.id, q.topic.id, q.correctOption) " +
+            "from Question q where q.topic.id = :topicId and q.difficulty = :difficulty")
+    List<AnswerKeyRow> findAnswerKeysByTopic(@Param("topicId") Long topicId, @Param("difficulty") Difficulty difficulty);
+
+    @Query("select new com.schools24.repository.QuestionIndexRow(q.id, q.topic.id, q.classGrade, q.difficulty) " +
+            "from Question q where q.id > :afterId order by q.id")
+    List<QuestionIndexRow> findIndexRowsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    List<QuestionText> findTextsByIdIn(Collection<Long> ids);
+}
@@ -0,0 +1,7 @@
+package com.schools24.repository;
+
+/**
+ * A question as shown to a student: no correct option.
+ */
+public record QuestionText(Long id, String questionText, String optionA, String optionB, String optionC, String optionD) {
+}
@@ -0,0 +1,18 @@
+package com.schools24.repository;
+
+import com.schools24.domain.QuizAttemptDetail;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Transactional(readOnly = true)
+public interface QuizAttemptDetailRepository extends JpaRepository<QuizAttemptDetail, Long> {
+    long countBySessionId(Long sessionId);
+    long countBySessionIdAndIsCorrectTrue(Long sessionId);
+
+    @Query("select d.question.id from QuizAttemptDetail d where d.session.id = :sessionId order by d.question.id")
+    List<Long> findAnsweredQuestionIds(@Param("sessionId") Long sessionId);
+}
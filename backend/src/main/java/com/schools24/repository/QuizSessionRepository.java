@@ -0,0 +1,24 @@
+package com.schools24.repository;
+
+import com.schools24.domain.QuizSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Transactional(readOnly = true)
+public interface QuizSessionRepository extends JpaRepository<QuizSession, Long> {
+    @Query("select new com.schools24.repository.QuizSessionState(s.id, s.student.id, s.student.schoolId, s.topic.id, s.startTime, s.endTime, s.score) " +
+            "from QuizSession s where s.id = :id")
+    Optional<QuizSessionState> findStateById(@Param("id") Long id);
+
+    // Only an open session is finished; 0 means someone else finished it first.
+    @Transactional
+    @Modifying
+    @Query("update QuizSession s set s.endTime = :endTime, s.score = :score where s.id = :id and s.endTime is null")
+    int finish(@Param("id") Long id, @Param("endTime") Instant endTime, @Param("score") int score);
+}
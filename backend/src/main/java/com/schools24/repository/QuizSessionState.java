@@ -0,0 +1,6 @@
+package com.schools24.repository;
+
+import java.time.Instant;
+
+public record QuizSessionState(Long id, Long studentId, Long schoolId, Long topicId, Instant startTime, Instant endTime, Integer score) {
+}
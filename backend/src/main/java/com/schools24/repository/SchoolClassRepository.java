@@ -1,13 +1,44 @@
 package com.schools24.repository;
 
 import com.schools24.domain.SchoolClass;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+@Transactional(readOnly = true)
 public interface SchoolClassRepository extends JpaRepository<SchoolClass, Long> {
-    long countByIsActiveTrue();
+    boolean existsByIdAndSchoolId(Long id, Long schoolId);
     Optional<SchoolClass> findByNameAndGradeAndSectionAndIsActiveTrue(String name, String grade, String section);
+
+    @Query("select new com.schools24.repository.StudentGradeRow(st.id, c.grade) " +
+            "from SchoolClass c join c.students st where st.id in :studentIds and c.isActive = true")
+    List<StudentGradeRow> findGradesOfStudents(@Param("studentIds") Collection<Long> studentIds);
+
+    @Query("select new com.schools24.repository.SchoolCount(c.schoolId, count(c)) " +
+            "from SchoolClass c where c.isActive = true group by c.schoolId")
+    List<SchoolCount> countActiveBySchool();
+
+    @Query("select st.id from SchoolClass c join c.students st where c.id = :classId and st.isActive = true order by st.id")
+    List<Long> findActiveStudentIds(@Param("classId") Long classId);
+
+    // Class teacher is fetched in the same query; the student set stays unloaded.
+    @EntityGraph(attributePaths = "classTeacher")
+    List<SchoolClass> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    @Query("select c.id as classId, count(st) as students from SchoolClass c join c.students st " +
+            "where c.id in :classIds group by c.id")
+    List<ClassStudentCount> countStudents(@Param("classIds") Collection<Long> classIds);
+
+    @Query("select new com.schools24.repository.ClassGradeRow(c.id, c.grade) from SchoolClass c " +
+            "where c.schoolId = :schoolId and c.id in :classIds")
+    List<ClassGradeRow> findGrades(@Param("schoolId") Long schoolId, @Param("classIds") Collection<Long> classIds);
 }
 
 
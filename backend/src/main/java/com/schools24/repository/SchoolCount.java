@@ -0,0 +1,4 @@
+package com.schools24.repository;
+
+public record SchoolCount(Long schoolId, Long count) {
+}
@@ -0,0 +1,19 @@
+package com.schools24.repository;
+
+import java.time.Instant;
+
+public record SchoolExportRow(
+        Long id,
+        String code,
+        String name,
+        String domain,
+        String email,
+        String address,
+        String city,
+        String state,
+        String country,
+        Boolean lockTeacherCreation,
+        Boolean lockStudentCreation,
+        Instant createdAt
+) {
+}
@@ -1,13 +1,42 @@
 package com.schools24.repository;
 
 import com.schools24.domain.School;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
+@Transactional(readOnly = true)
 public interface SchoolRepository extends JpaRepository<School, Long> {
     boolean existsByCode(String code);
     Page<School> findByNameContainingIgnoreCaseOrCodeContainingIgnoreCase(String name, String code, Pageable pageable);
-}
+    List<School> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    // q matches literally: '%' and '_' are escaped, as the derived Containing finders do.
+    @Query("select s from School s where s.id > :afterId " +
+            "and (lower(s.name) like lower(concat('%', :#{escape(#q)}, '%')) escape :#{escapeCharacter()} " +
+            "or lower(s.code) like lower(concat('%', :#{escape(#q)}, '%')) escape :#{escapeCharacter()}) " +
+            "order by s.id")
+    List<School> findMatchingAfter(@Param("afterId") Long afterId, @Param("q") String q, Limit limit);
 
+    long countByNameContainingIgnoreCaseOrCodeContainingIgnoreCase(String name, String code);
 
+    // Keyset chunks for exports: unmanaged rows ordered by id, resumed after the last id seen.
+    @Query("select new com.schools24.repository.SchoolExportRow(s.id, s.code, s.name, s.domain, s.email, s.address, " +
+            "s.city, s.state, s.country, s.lockTeacherCreation, s.lockStudentCreation, s.createdAt) " +
+            "from School s where s.id > :afterId order by s.id")
+    List<SchoolExportRow> findExportRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select new com.schools24.repository.SchoolExportRow(s.id, s.code, s.name, s.domain, s.email, s.address, " +
+            "s.city, s.state, s.country, s.lockTeacherCreation, s.lockStudentCreation, s.createdAt) " +
+            "from School s where s.id > :afterId " +
+            "and (lower(s.name) like lower(concat('%', :#{escape(#q)}, '%')) escape :#{escapeCharacter()} " +
+            "or lower(s.code) like lower(concat('%', :#{escape(#q)}, '%')) escape :#{escapeCharacter()}) " +
+            "order by s.id")
+    List<SchoolExportRow> findExportRowsAfterMatching(@Param("afterId") Long afterId, @Param("q") String q, Pageable pageable);
+}
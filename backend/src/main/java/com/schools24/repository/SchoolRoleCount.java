@@ -0,0 +1,4 @@
+package com.schools24.repository;
+
+public record SchoolRoleCount(Long schoolId, String role, Long count) {
+}
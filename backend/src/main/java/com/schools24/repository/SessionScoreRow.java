@@ -0,0 +1,6 @@
+package com.schools24.repository;
+
+import java.time.Instant;
+
+public record SessionScoreRow(Long sessionId, Long studentId, Integer score, Instant endTime) {
+}
@@ -0,0 +1,7 @@
+package com.schools24.repository;
+
+import java.time.Instant;
+
+public record StatementInvoiceRow(Long id, Long studentId, Integer totalAmount, Integer paidAmount, String status,
+                                  Instant createdAt) {
+}
@@ -0,0 +1,4 @@
+package com.schools24.repository;
+
+public record StatementItemRow(Long invoiceId, String headName, Integer amount) {
+}
@@ -0,0 +1,6 @@
+package com.schools24.repository;
+
+import java.time.Instant;
+
+public record StatementPaymentRow(Long invoiceId, Long id, Integer amount, String method, Instant paidAt) {
+}
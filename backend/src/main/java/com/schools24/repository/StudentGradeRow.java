@@ -0,0 +1,4 @@
+package com.schools24.repository;
+
+public record StudentGradeRow(Long studentId, String grade) {
+}
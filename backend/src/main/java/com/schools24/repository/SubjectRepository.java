@@ -1,11 +1,28 @@
 package com.schools24.repository;
 
 import com.schools24.domain.Subject;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+
+@Transactional(readOnly = true)
 public interface SubjectRepository extends JpaRepository<Subject, Long> {
-    long countByIsActiveTrue();
     boolean existsByCode(String code);
-}
+    List<Subject> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
 
+    @Query("select new com.schools24.repository.SchoolCount(s.schoolId, count(s)) " +
+            "from Subject s where s.isActive = true group by s.schoolId")
+    List<SchoolCount> countActiveBySchool();
 
+    @Query("select s.id from Subject s where s.schoolId = :schoolId and s.id in :ids")
+    List<Long> findIdsInSchool(@Param("schoolId") Long schoolId, @Param("ids") Collection<Long> ids);
+
+    @Query("select new com.schools24.repository.SubjectPeriodsRow(s.id, s.periodsPerWeek) " +
+            "from Subject s where s.schoolId = :schoolId and s.periodsPerWeek is not null")
+    List<SubjectPeriodsRow> findPeriodsPerWeek(@Param("schoolId") Long schoolId);
+}
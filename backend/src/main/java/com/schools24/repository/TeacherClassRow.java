@@ -0,0 +1,4 @@
+package com.schools24.repository;
+
+public record TeacherClassRow(Long teacherId, Long classId, String name, String grade, String section) {
+}
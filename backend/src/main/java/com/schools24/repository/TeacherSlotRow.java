@@ -0,0 +1,4 @@
+package com.schools24.repository;
+
+public record TeacherSlotRow(Long teacherId, int weekday, int period) {
+}
@@ -0,0 +1,4 @@
+package com.schools24.repository;
+
+public record TeacherSubjectRow(Long teacherId, Long subjectId, String name, String code) {
+}
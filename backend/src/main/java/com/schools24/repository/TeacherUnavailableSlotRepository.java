@@ -0,0 +1,16 @@
+package com.schools24.repository;
+
+import com.schools24.domain.TeacherUnavailableSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Transactional(readOnly = true)
+public interface TeacherUnavailableSlotRepository extends JpaRepository<TeacherUnavailableSlot, Long> {
+    @Query("select new com.schools24.repository.TeacherSlotRow(u.teacher.id, u.weekday, u.period) " +
+            "from TeacherUnavailableSlot u where u.schoolId = :schoolId order by u.teacher.id, u.weekday, u.period")
+    List<TeacherSlotRow> findBySchool(@Param("schoolId") Long schoolId);
+}
@@ -0,0 +1,4 @@
+package com.schools24.repository;
+
+public record TimetableAssignmentRow(Long classId, Long subjectId, Long teacherId, Integer periodsPerWeek) {
+}
@@ -0,0 +1,22 @@
+package com.schools24.repository;
+
+import com.schools24.domain.TimetableSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Transactional(readOnly = true)
+public interface TimetableSlotRepository extends JpaRepository<TimetableSlot, Long> {
+    @Query("select new com.schools24.repository.TimetableSlotRow(t.weekday, t.period, c.id, c.name, c.grade, c.section, " +
+            "s.id, s.name, u.id, u.name) from TimetableSlot t join t.schoolClass c join t.subject s join t.teacher u " +
+            "where c.id = :classId order by t.weekday, t.period")
+    List<TimetableSlotRow> findClassTimetable(@Param("classId") Long classId);
+
+    @Query("select new com.schools24.repository.TimetableSlotRow(t.weekday, t.period, c.id, c.name, c.grade, c.section, " +
+            "s.id, s.name, u.id, u.name) from TimetableSlot t join t.schoolClass c join t.subject s join t.teacher u " +
+            "where u.id = :teacherId order by t.weekday, t.period")
+    List<TimetableSlotRow> findTeacherTimetable(@Param("teacherId") Long teacherId);
+}
@@ -0,0 +1,5 @@
+package com.schools24.repository;
+
+public record TimetableSlotRow(int weekday, int period, Long classId, String className, String grade, String section,
+                               Long subjectId, String subjectName, Long teacherId, String teacherName) {
+}
@@ -0,0 +1,7 @@
+package com.schools24.repository;
+
+import com.schools24.domain.Topic;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TopicRepository extends JpaRepository<Topic, Long> {
+}
@@ -0,0 +1,4 @@
+package com.schools24.repository;
+
+public record UserKeyRow(Long id, String email, String userId) {
+}
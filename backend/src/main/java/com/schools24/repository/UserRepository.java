@@ -1,17 +1,94 @@
 package com.schools24.repository;
 
 import com.schools24.domain.User;
+import com.schools24.tenant.TenantContext;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, Long> {
-    long countByRoleAndIsActiveTrue(String role);
-    List<User> findTop5ByIsActiveTrueOrderByCreatedAtDesc();
+    List<UserSummary> findTop10ByIsActiveTrueOrderByCreatedAtDesc();
+    List<UserSummary> findTop10BySchoolIdAndIsActiveTrueOrderByCreatedAtDesc(Long schoolId);
+    List<UserSummary> findSummariesByIsActiveTrueAndIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+    List<UserSummary> findSummariesByIdIn(Collection<Long> ids);
     List<User> findByRoleAndIsActiveTrue(String role);
     Optional<User> findByEmail(String email);
     boolean existsByEmailOrUserId(String email, String userId);
+
+    // Emails and user ids are unique across schools.
+    default boolean existsByEmailOrUserIdInAnySchool(String email, String userId) {
+        return TenantContext.unscoped(() -> existsByEmailOrUserId(email, userId));
+    }
+
+    List<UserKeyRow> findKeysByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+    List<UserKeyRow> findKeysByEmailIn(Collection<String> emails);
+    List<UserKeyRow> findKeysByUserIdIn(Collection<String> userIds);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
+
+    @Query("select u.id from User u where u.schoolId = :schoolId and u.role = :role and u.isActive = true order by u.id")
+    List<Long> findActiveIdsBySchoolAndRole(@Param("schoolId") Long schoolId, @Param("role") String role);
+
+    @Query("select u.id from User u where u.schoolId = :schoolId and u.role = :role and u.isActive = true and u.id in :ids")
+    List<Long> findActiveIdsBySchoolAndRoleIn(@Param("schoolId") Long schoolId, @Param("role") String role,
+                                              @Param("ids") Collection<Long> ids);
+
+    @Query("select new com.schools24.repository.SchoolRoleCount(u.schoolId, u.role, count(u)) " +
+            "from User u where u.isActive = true group by u.schoolId, u.role")
+    List<SchoolRoleCount> countActiveBySchoolAndRole();
+
+    // The users the search index holds for q, for use until it is built: active users whose name,
+    // email or user id contains q, with '%' and '_' matched literally.
+    @Query("select new com.schools24.repository.UserSummary(u.id, u.name, u.email, u.role, u.userId, u.schoolId, u.isActive, u.createdAt) " +
+            "from User u where u.isActive = true " +
+            "and (lower(u.name) like lower(concat('%', :#{escape(#q)}, '%')) escape :#{escapeCharacter()} " +
+            "or lower(u.email) like lower(concat('%', :#{escape(#q)}, '%')) escape :#{escapeCharacter()} " +
+            "or lower(u.userId) like lower(concat('%', :#{escape(#q)}, '%')) escape :#{escapeCharacter()}) " +
+            "order by u.id")
+    List<UserSummary> findActiveSummariesMatching(@Param("q") String q, Limit limit);
+
+    // Newest first, keyed on (createdAt, id) for seek pagination.
+    @Query("select new com.schools24.repository.UserSummary(u.id, u.name, u.email, u.role, u.userId, u.schoolId, u.isActive, u.createdAt) " +
+            "from User u where u.role = :role and u.isActive = true order by u.createdAt desc, u.id desc")
+    List<UserSummary> findActiveSummariesByRole(@Param("role") String role, Limit limit);
+
+    @Query("select new com.schools24.repository.UserSummary(u.id, u.name, u.email, u.role, u.userId, u.schoolId, u.isActive, u.createdAt) " +
+            "from User u where u.role = :role and u.isActive = true " +
+            "and (u.createdAt < :createdAt or (u.createdAt = :createdAt and u.id < :id)) " +
+            "order by u.createdAt desc, u.id desc")
+    List<UserSummary> findActiveSummariesByRoleBefore(@Param("role") String role, @Param("createdAt") Instant createdAt,
+                                                      @Param("id") Long id, Limit limit);
+
+    @Query("select new com.schools24.repository.UserSummary(u.id, u.name, u.email, u.role, u.userId, u.schoolId, u.isActive, u.createdAt) " +
+            "from User u where u.schoolId = :schoolId and u.isActive = true order by u.createdAt desc, u.id desc")
+    List<UserSummary> findActiveSummariesBySchool(@Param("schoolId") Long schoolId, Limit limit);
+
+    @Query("select new com.schools24.repository.UserSummary(u.id, u.name, u.email, u.role, u.userId, u.schoolId, u.isActive, u.createdAt) " +
+            "from User u where u.schoolId = :schoolId and u.isActive = true " +
+            "and (u.createdAt < :createdAt or (u.createdAt = :createdAt and u.id < :id)) " +
+            "order by u.createdAt desc, u.id desc")
+    List<UserSummary> findActiveSummariesBySchoolBefore(@Param("schoolId") Long schoolId, @Param("createdAt") Instant createdAt,
+                                                        @Param("id") Long id, Limit limit);
+
+    @Query("select new com.schools24.repository.TeacherClassRow(t.id, c.id, c.name, c.grade, c.section) " +
+            "from User t join t.assignedClasses c where t.id in :teacherIds order by c.grade, c.section")
+    List<TeacherClassRow> findClassAssignments(@Param("teacherIds") Collection<Long> teacherIds);
+
+    @Query("select new com.schools24.repository.TeacherSubjectRow(t.id, s.id, s.name, s.code) " +
+            "from User t join t.subjects s where t.id in :teacherIds order by s.name")
+    List<TeacherSubjectRow> findSubjectAssignments(@Param("teacherIds") Collection<Long> teacherIds);
 }
 
 
@@ -0,0 +1,12 @@
+package com.schools24.repository;
+
+import com.schools24.domain.User;
+
+import java.time.Instant;
+
+public record UserSummary(Long id, String name, String email, String role, String userId, Long schoolId, Boolean isActive,
+                          Instant createdAt) {
+    public static UserSummary of(User u) {
+        return new UserSummary(u.getId(), u.getName(), u.getEmail(), u.getRole(), u.getUserId(), u.getSchoolId(), u.getIsActive(), u.getCreatedAt());
+    }
+}
@@ -0,0 +1,104 @@
+package com.schools24.service;
+
+import com.schools24.domain.SchoolClass;
+import com.schools24.domain.User;
+import com.schools24.repository.ClassStudentCount;
+import com.schools24.repository.SchoolClassRepository;
+import com.schools24.repository.TeacherClassRow;
+import com.schools24.repository.TeacherSubjectRow;
+import com.schools24.repository.UserRepository;
+import com.schools24.repository.UserSummary;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read models for the admin listings. Each page runs a fixed number of queries regardless
+ * of row count, and only the fields the UI shows (never the password) leave the server.
+ */
+@Service
+@Transactional(readOnly = true)
+public class AdminReadService {
+    public record ClassRef(Long id, String name, String grade, String section) {
+    }
+
+    public record SubjectRef(Long id, String name, String code) {
+    }
+
+    public record TeacherRef(Long id, String name) {
+    }
+
+    public record TeacherView(Long id, String name, String email, String userId, Boolean isActive, Instant createdAt,
+                              List<ClassRef> assignedClasses, List<SubjectRef> subjects) {
+    }
+
+    public record ClassView(Long id, String name, String grade, String section, Boolean isActive,
+                            TeacherRef classTeacher, long studentCount) {
+    }
+
+    private final UserRepository userRepository;
+    private final SchoolClassRepository classRepository;
+
+    public AdminReadService(UserRepository userRepository, SchoolClassRepository classRepository) {
+        this.userRepository = userRepository;
+        this.classRepository = classRepository;
+    }
+
+    /**
+     * Up to {@code fetch} active teachers, newest first, strictly after {@code after}
+     * (null for the first page). Three queries: teachers, their classes, their subjects.
+     */
+    public List<TeacherView> teachers(Instant afterCreatedAt, Long afterId, int fetch) {
+        List<UserSummary> teachers = afterCreatedAt == null
+                ? userRepository.findActiveSummariesByRole("teacher", Limit.of(fetch))
+                : userRepository.findActiveSummariesByRoleBefore("teacher", afterCreatedAt, afterId, Limit.of(fetch));
+        if (teachers.isEmpty()) return List.of();
+        List<Long> ids = teachers.stream().map(UserSummary::id).toList();
+        Map<Long, List<ClassRef>> classes = new HashMap<>();
+        for (TeacherClassRow r : userRepository.findClassAssignments(ids)) {
+            classes.computeIfAbsent(r.teacherId(), k -> new ArrayList<>())
+                    .add(new ClassRef(r.classId(), r.name(), r.grade(), r.section()));
+        }
+        Map<Long, List<SubjectRef>> subjects = new HashMap<>();
+        for (TeacherSubjectRow r : userRepository.findSubjectAssignments(ids)) {
+            subjects.computeIfAbsent(r.teacherId(), k -> new ArrayList<>())
+                    .add(new SubjectRef(r.subjectId(), r.name(), r.code()));
+        }
+        List<TeacherView> res = new ArrayList<>(teachers.size());
+        for (UserSummary t : teachers) {
+            res.add(new TeacherView(t.id(), t.name(), t.email(), t.userId(), t.isActive(), t.createdAt(),
+                    classes.getOrDefault(t.id(), List.of()), subjects.getOrDefault(t.id(), List.of())));
+        }
+        return res;
+    }
+
+    /**
+     * Up to {@code fetch} classes in id order after {@code afterId}. Two queries: classes joined
+     * with their class teacher, and student counts for just those classes.
+     */
+    public List<ClassView> classes(long afterId, int fetch) {
+        List<SchoolClass> classes = classRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(fetch));
+        if (classes.isEmpty()) return List.of();
+        Map<Long, Long> counts = new HashMap<>();
+        for (ClassStudentCount c : classRepository.countStudents(classes.stream().map(SchoolClass::getId).toList())) {
+            counts.put(c.getClassId(), c.getStudents());
+        }
+        List<ClassView> res = new ArrayList<>(classes.size());
+        for (SchoolClass c : classes) {
+            res.add(toView(c, counts.getOrDefault(c.getId(), 0L)));
+        }
+        return res;
+    }
+
+    public static ClassView toView(SchoolClass c, long studentCount) {
+        User t = c.getClassTeacher();
+        return new ClassView(c.getId(), c.getName(), c.getGrade(), c.getSection(), c.getIsActive(),
+                t == null ? null : new TeacherRef(t.getId(), t.getName()), studentCount);
+    }
+}
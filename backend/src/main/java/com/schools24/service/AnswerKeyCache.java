@@ -0,0 +1,59 @@
+package com.schools24.service;
+
+import com.schools24.domain.Difficulty;
+import com.schools24.repository.AnswerKeyRow;
+import com.schools24.repository.QuestionRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Correct options by question id, so grading an answer needs no query. A topic's keys are
+ * loaded when a quiz on it starts; a question missed by that is loaded on its first answer.
+ * Questions are not edited in place, so entries never go stale.
+ */
+@Component
+public class AnswerKeyCache {
+    /**
+     * {@code correctOption} is null for a question without a key; its answers are stored ungraded.
+     */
+    public record Key(long topicId, String correctOption) {
+    }
+
+    private final QuestionRepository questionRepository;
+    private final Map<Long, Key> keys = new ConcurrentHashMap<>();
+
+    public AnswerKeyCache(QuestionRepository questionRepository) {
+        this.questionRepository = questionRepository;
+    }
+
+    public void preload(Long topicId, Difficulty difficulty) {
+        put(questionRepository.findAnswerKeysByTopic(topicId, difficulty));
+    }
+
+    /**
+     * The key for a question, or null if the question does not exist.
+     */
+    public Key get(Long questionId) {
+        Key k = keys.get(questionId);
+        if (k == null) {
+            put(questionRepository.findAnswerKeys(List.of(questionId)));
+            k = keys.get(questionId);
+        }
+        return k;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    private void put(List<AnswerKeyRow> rows) {
+        for (AnswerKeyRow r : rows) {
+            String c = r.correctOption() == null ? null : r.correctOption().trim().toUpperCase(Locale.ROOT);
+            keys.put(r.questionId(), new Key(r.topicId(), c == null || c.isEmpty() ? null : c));
+        }
+    }
+}
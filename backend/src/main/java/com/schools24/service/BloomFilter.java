@@ -0,0 +1,59 @@
+package com.schools24.service;
+
+/**
+ * Fixed-size Bloom filter over strings. {@link #mightContain} never misses a value that was put,
+ * and wrongly reports an absent value with roughly the false-positive rate it was sized for.
+ * Not thread-safe.
+ */
+final class BloomFilter {
+    private final long[] bits;
+    private final int numBits;
+    private final int hashes;
+
+    BloomFilter(int expectedValues, double falsePositiveRate) {
+        int n = Math.max(expectedValues, 1);
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+        numBits = (int) Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+        bits = new long[(numBits + 63) >>> 6];
+        hashes = Math.max(1, (int) Math.round((double) numBits / n * ln2));
+    }
+
+    void put(CharSequence value) {
+        long h = hash(value);
+        int h1 = (int) h, h2 = (int) (h >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            int bit = index(h1 + i * h2);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(CharSequence value) {
+        long h = hash(value);
+        int h1 = (int) h, h2 = (int) (h >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            int bit = index(h1 + i * h2);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    private int index(int combined) {
+        return (combined < 0 ? ~combined : combined) % numBits;
+    }
+
+    // FNV-1a over UTF-16 units, finished with the MurmurHash3 64-bit mixer.
+    private static long hash(CharSequence v) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < v.length(); i++) {
+            h ^= v.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb3fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,78 @@
+package com.schools24.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of one bulk billing run. Counters are updated by the worker thread and read by status requests.
+ */
+public class BulkInvoiceJob {
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Long schoolId;
+    private final Long classId;
+    private final Instant submittedAt = Instant.now();
+    private final AtomicInteger invoicesCreated = new AtomicInteger();
+    private volatile int totalStudents;
+    private volatile State state = State.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    BulkInvoiceJob(Long schoolId, Long classId) {
+        this.schoolId = schoolId;
+        this.classId = classId;
+    }
+
+    public String getId() { return id; }
+
+    public Long getSchoolId() { return schoolId; }
+
+    public State getState() { return state; }
+
+    public Instant getFinishedAt() { return finishedAt; }
+
+    void start(int totalStudents) {
+        this.totalStudents = totalStudents;
+        this.startedAt = Instant.now();
+        this.state = State.RUNNING;
+    }
+
+    void advance(int invoices) { invoicesCreated.addAndGet(invoices); }
+
+    void complete() {
+        this.finishedAt = Instant.now();
+        this.state = State.COMPLETED;
+    }
+
+    void fail(Throwable t) {
+        this.finishedAt = Instant.now();
+        this.error = t.getMessage();
+        this.state = State.FAILED;
+    }
+
+    public Map<String, Object> toMap() {
+        int done = invoicesCreated.get();
+        Instant started = startedAt;
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long elapsedMs = started == null ? 0 : Duration.between(started, end).toMillis();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("jobId", id);
+        m.put("schoolId", schoolId);
+        m.put("classId", classId);
+        m.put("state", state);
+        m.put("totalStudents", totalStudents);
+        m.put("invoicesCreated", done);
+        m.put("progress", totalStudents == 0 ? (state == State.COMPLETED ? 1.0 : 0.0) : (double) done / totalStudents);
+        m.put("elapsedMs", elapsedMs);
+        m.put("invoicesPerSecond", elapsedMs == 0 ? 0.0 : done * 1000.0 / elapsedMs);
+        m.put("submittedAt", submittedAt.toString());
+        if (error != null) m.put("error", error);
+        return m;
+    }
+}
@@ -0,0 +1,168 @@
+package com.schools24.service;
+
+import com.schools24.admission.DbAdmission;
+import com.schools24.admission.WorkloadClass;
+import com.schools24.domain.FeeHead;
+import com.schools24.domain.FeeInvoice;
+import com.schools24.domain.FeeInvoiceItem;
+import com.schools24.domain.School;
+import com.schools24.domain.User;
+import com.schools24.repository.FeeHeadRepository;
+import com.schools24.repository.SchoolClassRepository;
+import com.schools24.repository.SchoolRepository;
+import com.schools24.repository.UserRepository;
+import com.schools24.tenant.TenantContext;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Bills a whole class or school in one background run. Fee heads are resolved once, and invoices
+ * with their items are persisted in chunks; pooled sequence ids let Hibernate send each chunk as
+ * JDBC batches (see hibernate.jdbc.batch_size).
+ */
+@Service
+public class BulkInvoiceService {
+    private static final Logger log = LoggerFactory.getLogger(BulkInvoiceService.class);
+    static final int CHUNK_SIZE = 500;
+    private static final Duration JOB_RETENTION = Duration.ofHours(1);
+
+    private final SchoolRepository schoolRepository;
+    private final FeeHeadRepository feeHeadRepository;
+    private final SchoolClassRepository classRepository;
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate tx;
+    private final DbAdmission admission;
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final Map<String, BulkInvoiceJob> jobs = new ConcurrentHashMap<>();
+
+    public BulkInvoiceService(SchoolRepository schoolRepository,
+                              FeeHeadRepository feeHeadRepository,
+                              SchoolClassRepository classRepository,
+                              UserRepository userRepository,
+                              EntityManager entityManager,
+                              PlatformTransactionManager transactionManager,
+                              DbAdmission admission) {
+        this.schoolRepository = schoolRepository;
+        this.feeHeadRepository = feeHeadRepository;
+        this.classRepository = classRepository;
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.admission = admission;
+    }
+
+    /**
+     * Validates the request and queues the run. When classId is null every active student of the
+     * school is billed.
+     */
+    public BulkInvoiceJob submit(Long schoolId, Collection<Long> headIds, Long classId) {
+        TenantContext.checkAccess(schoolId);
+        School school = schoolRepository.findById(schoolId)
+                .orElseThrow(() -> new IllegalArgumentException("School not found"));
+        List<FeeHead> heads = resolveHeads(school, headIds);
+        if (classId != null && !classRepository.existsByIdAndSchoolId(classId, schoolId)) {
+            throw new IllegalArgumentException("Class not found");
+        }
+        evictFinishedJobs();
+        BulkInvoiceJob job = new BulkInvoiceJob(schoolId, classId);
+        jobs.put(job.getId(), job);
+        executor.submit(() -> admission.run(WorkloadClass.BULK, () -> run(job, school, heads, classId)));
+        return job;
+    }
+
+    public Optional<BulkInvoiceJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Loads the requested heads with one query and checks they all belong to the school.
+     */
+    public List<FeeHead> resolveHeads(School school, Collection<Long> headIds) {
+        Set<Long> ids = new LinkedHashSet<>(headIds);
+        if (ids.isEmpty()) throw new IllegalArgumentException("At least one fee head is required");
+        List<FeeHead> heads = feeHeadRepository.findAllById(ids);
+        if (heads.size() != ids.size()) throw new IllegalArgumentException("Unknown fee head");
+        for (FeeHead h : heads) {
+            if (h.getSchool() == null || !school.getId().equals(h.getSchool().getId())) {
+                throw new IllegalArgumentException("Fee head " + h.getId() + " does not belong to this school");
+            }
+        }
+        return heads;
+    }
+
+    /**
+     * Builds an unsaved invoice with one item per head; callers persist it once (items cascade).
+     */
+    public static FeeInvoice buildInvoice(School school, User student, List<FeeHead> heads) {
+        FeeInvoice inv = new FeeInvoice();
+        inv.setSchool(school);
+        inv.setStudent(student);
+        int total = 0;
+        for (FeeHead head : heads) {
+            int amount = Optional.ofNullable(head.getAmount()).orElse(0);
+            FeeInvoiceItem item = new FeeInvoiceItem();
+            item.setInvoice(inv);
+            item.setHead(head);
+            item.setAmount(amount);
+            inv.getItems().add(item);
+            total += amount;
+        }
+        inv.setTotalAmount(total);
+        return inv;
+    }
+
+    private void run(BulkInvoiceJob job, School school, List<FeeHead> heads, Long classId) {
+        try {
+            List<Long> studentIds = classId != null
+                    ? classRepository.findActiveStudentIds(classId)
+                    : userRepository.findActiveIdsBySchoolAndRole(school.getId(), "student");
+            job.start(studentIds.size());
+            for (int from = 0; from < studentIds.size(); from += CHUNK_SIZE) {
+                List<Long> chunk = studentIds.subList(from, Math.min(from + CHUNK_SIZE, studentIds.size()));
+                tx.executeWithoutResult(status -> writeChunk(school, heads, chunk));
+                job.advance(chunk.size());
+            }
+            job.complete();
+        } catch (RuntimeException e) {
+            log.error("Bulk invoice job {} failed", job.getId(), e);
+            job.fail(e);
+        }
+    }
+
+    // School and heads stay detached; they are only referenced by id from the new rows.
+    private void writeChunk(School school, List<FeeHead> heads, List<Long> studentIds) {
+        for (Long studentId : studentIds) {
+            entityManager.persist(buildInvoice(school, entityManager.getReference(User.class, studentId), heads));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(JOB_RETENTION);
+        jobs.values().removeIf(j -> j.getFinishedAt() != null && j.getFinishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
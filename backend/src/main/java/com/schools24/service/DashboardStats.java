@@ -0,0 +1,221 @@
+package com.schools24.service;
+
+import com.schools24.domain.User;
+import com.schools24.repository.SchoolClassRepository;
+import com.schools24.repository.SchoolCount;
+import com.schools24.repository.SchoolRepository;
+import com.schools24.repository.SchoolRoleCount;
+import com.schools24.repository.SubjectRepository;
+import com.schools24.repository.UserRepository;
+import com.schools24.repository.UserSummary;
+import com.schools24.tenant.TenantContext;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory counters behind the admin and developer dashboards, kept per school and in total.
+ * They are adjusted by {@link DashboardStatsListener} as entities are committed and reconciled
+ * against the database on a fixed delay, so dashboard requests never issue COUNT queries.
+ * Readers get the current request's school (see {@link TenantContext}), or the totals when
+ * unscoped.
+ */
+@Service
+public class DashboardStats {
+    static final int RECENT_CAPACITY = 10;
+    // Key for rows without a school.
+    private static final long NO_SCHOOL = 0;
+
+    private static final class Counters {
+        final Map<String, AtomicLong> activeUsersByRole = new ConcurrentHashMap<>();
+        final AtomicLong activeClasses = new AtomicLong();
+        final AtomicLong activeSubjects = new AtomicLong();
+
+        AtomicLong users(String role) {
+            return activeUsersByRole.computeIfAbsent(role, r -> new AtomicLong());
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final SchoolClassRepository classRepository;
+    private final SubjectRepository subjectRepository;
+    private final SchoolRepository schoolRepository;
+
+    private volatile Counters total = new Counters();
+    private volatile Map<Long, Counters> bySchool = new ConcurrentHashMap<>();
+    private final AtomicLong schools = new AtomicLong();
+    // Newest first by createdAt, bounded to RECENT_CAPACITY; each list is guarded by its own
+    // monitor. A school's list is loaded on first use and dropped on reconcile.
+    private final List<UserSummary> recentUsers = new ArrayList<>(RECENT_CAPACITY + 1);
+    private final Map<Long, List<UserSummary>> recentBySchool = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public DashboardStats(UserRepository userRepository,
+                          SchoolClassRepository classRepository,
+                          SubjectRepository subjectRepository,
+                          SchoolRepository schoolRepository) {
+        this.userRepository = userRepository;
+        this.classRepository = classRepository;
+        this.subjectRepository = subjectRepository;
+        this.schoolRepository = schoolRepository;
+    }
+
+    public long activeUsers(String role) {
+        AtomicLong c = counters().activeUsersByRole.get(role);
+        return c == null ? 0 : c.get();
+    }
+
+    public long activeClasses() {
+        return counters().activeClasses.get();
+    }
+
+    public long activeSubjects() {
+        return counters().activeSubjects.get();
+    }
+
+    public long schools() {
+        ensureLoaded();
+        return schools.get();
+    }
+
+    public List<UserSummary> recentUsers(int limit) {
+        ensureLoaded();
+        Long schoolId = TenantContext.current();
+        List<UserSummary> recent = schoolId == null ? recentUsers : recentBySchool.get(schoolId);
+        if (recent == null) {
+            List<UserSummary> loadedNow = new ArrayList<>(userRepository.findTop10BySchoolIdAndIsActiveTrueOrderByCreatedAtDesc(schoolId));
+            recent = Objects.requireNonNullElse(recentBySchool.putIfAbsent(schoolId, loadedNow), loadedNow);
+        }
+        synchronized (recent) {
+            return List.copyOf(recent.subList(0, Math.min(limit, recent.size())));
+        }
+    }
+
+    /**
+     * Recounts everything from the database with one grouped query per entity. Deltas committed
+     * while this runs may be counted twice or not at all; the next run corrects them.
+     */
+    @Scheduled(fixedDelayString = "${schools24.stats.reconcile-interval-ms:60000}",
+            initialDelayString = "${schools24.stats.reconcile-interval-ms:60000}")
+    public synchronized void reconcile() {
+        TenantContext.unscoped(() -> {
+            recount();
+            return null;
+        });
+        loaded = true;
+    }
+
+    private void recount() {
+        Counters newTotal = new Counters();
+        Map<Long, Counters> newBySchool = new ConcurrentHashMap<>();
+        for (SchoolRoleCount r : userRepository.countActiveBySchoolAndRole()) {
+            newBySchool.computeIfAbsent(key(r.schoolId()), k -> new Counters()).users(r.role()).addAndGet(r.count());
+            newTotal.users(r.role()).addAndGet(r.count());
+        }
+        for (SchoolCount c : classRepository.countActiveBySchool()) {
+            newBySchool.computeIfAbsent(key(c.schoolId()), k -> new Counters()).activeClasses.addAndGet(c.count());
+            newTotal.activeClasses.addAndGet(c.count());
+        }
+        for (SchoolCount c : subjectRepository.countActiveBySchool()) {
+            newBySchool.computeIfAbsent(key(c.schoolId()), k -> new Counters()).activeSubjects.addAndGet(c.count());
+            newTotal.activeSubjects.addAndGet(c.count());
+        }
+        schools.set(schoolRepository.count());
+        List<UserSummary> newest = userRepository.findTop10ByIsActiveTrueOrderByCreatedAtDesc();
+        total = newTotal;
+        bySchool = newBySchool;
+        synchronized (recentUsers) {
+            recentUsers.clear();
+            recentUsers.addAll(newest);
+        }
+        recentBySchool.clear();
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) reconcile();
+            }
+        }
+    }
+
+    private Counters counters() {
+        ensureLoaded();
+        Long schoolId = TenantContext.current();
+        if (schoolId == null) return total;
+        Counters c = bySchool.get(schoolId);
+        return c == null ? new Counters() : c;
+    }
+
+    private Counters school(Long schoolId) {
+        return bySchool.computeIfAbsent(key(schoolId), k -> new Counters());
+    }
+
+    private static long key(Long schoolId) {
+        return schoolId == null ? NO_SCHOOL : schoolId;
+    }
+
+    void userActivated(User u) {
+        total.users(u.getRole()).incrementAndGet();
+        school(u.getSchoolId()).users(u.getRole()).incrementAndGet();
+        UserSummary snapshot = UserSummary.of(u);
+        addRecent(recentUsers, snapshot);
+        if (u.getSchoolId() != null) {
+            List<UserSummary> recent = recentBySchool.get(u.getSchoolId());
+            if (recent != null) addRecent(recent, snapshot);
+        }
+    }
+
+    void userDeactivated(Long id, String role, Long schoolId) {
+        total.users(role).decrementAndGet();
+        school(schoolId).users(role).decrementAndGet();
+        synchronized (recentUsers) {
+            removeRecent(recentUsers, id);
+        }
+        if (schoolId != null) {
+            List<UserSummary> recent = recentBySchool.get(schoolId);
+            if (recent != null) {
+                synchronized (recent) {
+                    removeRecent(recent, id);
+                }
+            }
+        }
+    }
+
+    void classDelta(Long schoolId, int delta) {
+        total.activeClasses.addAndGet(delta);
+        school(schoolId).activeClasses.addAndGet(delta);
+    }
+
+    void subjectDelta(Long schoolId, int delta) {
+        total.activeSubjects.addAndGet(delta);
+        school(schoolId).activeSubjects.addAndGet(delta);
+    }
+
+    void schoolDelta(int delta) { schools.addAndGet(delta); }
+
+    private static void addRecent(List<UserSummary> recent, UserSummary snapshot) {
+        synchronized (recent) {
+            removeRecent(recent, snapshot.id());
+            int i = 0;
+            while (i < recent.size() && !isNewer(snapshot, recent.get(i))) i++;
+            recent.add(i, snapshot);
+            if (recent.size() > RECENT_CAPACITY) recent.remove(RECENT_CAPACITY);
+        }
+    }
+
+    private static boolean isNewer(UserSummary a, UserSummary b) {
+        if (a.createdAt() == null) return false;
+        return b.createdAt() == null || !a.createdAt().isBefore(b.createdAt());
+    }
+
+    private static void removeRecent(List<UserSummary> recent, Long id) {
+        recent.removeIf(r -> Objects.equals(r.id(), id));
+    }
+}
@@ -0,0 +1,120 @@
+package com.schools24.service;
+
+import com.schools24.domain.School;
+import com.schools24.domain.SchoolClass;
+import com.schools24.domain.Subject;
+import com.schools24.domain.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * Feeds committed inserts, updates and deletes into {@link DashboardStats}. Post-commit
+ * events fire only once the transaction has succeeded and carry the pre-update state,
+ * which is what tells an activation or deactivation apart from any other update.
+ */
+@Component
+public class DashboardStatsListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+    private final EntityManagerFactory entityManagerFactory;
+    private final DashboardStats stats;
+
+    public DashboardStatsListener(EntityManagerFactory entityManagerFactory, DashboardStats stats) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.stats = stats;
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Object e = event.getEntity();
+        if (e instanceof User u) {
+            if (isTrue(u.getIsActive())) stats.userActivated(u);
+        } else if (e instanceof SchoolClass c) {
+            if (isTrue(c.getIsActive())) stats.classDelta(c.getSchoolId(), 1);
+        } else if (e instanceof Subject s) {
+            if (isTrue(s.getIsActive())) stats.subjectDelta(s.getSchoolId(), 1);
+        } else if (e instanceof School) {
+            stats.schoolDelta(1);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object[] old = event.getOldState();
+        if (old == null || event.getEntity() instanceof School) return;
+        EntityPersister persister = event.getPersister();
+        Object e = event.getEntity();
+        boolean wasActive = isTrue(old[persister.getPropertyIndex("isActive")]);
+        Long oldSchool = (Long) old[persister.getPropertyIndex("schoolId")];
+        if (e instanceof User u) {
+            String oldRole = (String) old[persister.getPropertyIndex("role")];
+            boolean active = isTrue(u.getIsActive());
+            boolean moved = !Objects.equals(oldRole, u.getRole()) || !Objects.equals(oldSchool, u.getSchoolId());
+            if (wasActive && (!active || moved)) stats.userDeactivated(u.getId(), oldRole, oldSchool);
+            if (active && (!wasActive || moved)) stats.userActivated(u);
+        } else if (e instanceof SchoolClass c) {
+            if (wasActive) stats.classDelta(oldSchool, -1);
+            if (isTrue(c.getIsActive())) stats.classDelta(c.getSchoolId(), 1);
+        } else if (e instanceof Subject s) {
+            if (wasActive) stats.subjectDelta(oldSchool, -1);
+            if (isTrue(s.getIsActive())) stats.subjectDelta(s.getSchoolId(), 1);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Object e = event.getEntity();
+        if (e instanceof User u) {
+            if (isTrue(u.getIsActive())) stats.userDeactivated(u.getId(), u.getRole(), u.getSchoolId());
+        } else if (e instanceof SchoolClass c) {
+            if (isTrue(c.getIsActive())) stats.classDelta(c.getSchoolId(), -1);
+        } else if (e instanceof Subject s) {
+            if (isTrue(s.getIsActive())) stats.subjectDelta(s.getSchoolId(), -1);
+        } else if (e instanceof School) {
+            stats.schoolDelta(-1);
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == User.class || type == SchoolClass.class || type == Subject.class || type == School.class;
+    }
+
+    private static boolean isTrue(Object v) {
+        return Boolean.TRUE.equals(v);
+    }
+}
@@ -0,0 +1,114 @@
+package com.schools24.service;
+
+import com.schools24.repository.AgingBucket;
+import com.schools24.repository.ClassCollection;
+import com.schools24.repository.FeeHeadCollection;
+import com.schools24.repository.FeeInvoiceRepository;
+import com.schools24.repository.FeeTotals;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fee collection figures computed with aggregate queries; no invoice entities are loaded.
+ */
+@Service
+@Transactional(readOnly = true)
+public class FeeReportService {
+    // Age buckets in days since the invoice was raised: [0, 30), [30, 60), [60, 90), 90+.
+    private static final int[] AGING_BOUNDS = {30, 60, 90};
+
+    private final FeeInvoiceRepository invoiceRepository;
+
+    public FeeReportService(FeeInvoiceRepository invoiceRepository) {
+        this.invoiceRepository = invoiceRepository;
+    }
+
+    public Map<String, Object> totals(Long schoolId) {
+        return toMap(invoiceRepository.sumBySchool(schoolId));
+    }
+
+    public Map<String, Object> breakdown(Long schoolId) {
+        Map<String, Object> res = new LinkedHashMap<>(totals(schoolId));
+        res.put("byHead", byHead(schoolId));
+        res.put("byClass", byClass(schoolId));
+        res.put("aging", aging(schoolId, Instant.now()));
+        return res;
+    }
+
+    private List<Map<String, Object>> byHead(Long schoolId) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (FeeHeadCollection h : invoiceRepository.sumByHead(schoolId)) {
+            long billed = FeeTotals.value(h.getBilled());
+            long collected = h.getCollected() == null ? 0L : Math.round(h.getCollected());
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("headId", h.getHeadId());
+            row.put("name", h.getHeadName());
+            row.put("billed", billed);
+            row.put("collected", collected);
+            row.put("due", billed - collected);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private List<Map<String, Object>> byClass(Long schoolId) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (ClassCollection c : invoiceRepository.sumByClass(schoolId)) {
+            long billed = FeeTotals.value(c.getBilled());
+            long collected = FeeTotals.value(c.getCollected());
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("classId", c.getClassId());
+            row.put("name", c.getClassName());
+            row.put("grade", c.getGrade());
+            row.put("section", c.getSection());
+            row.put("invoices", FeeTotals.value(c.getInvoices()));
+            row.put("billed", billed);
+            row.put("collected", collected);
+            row.put("due", billed - collected);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    // One grouped query for every bucket; buckets with no invoices are reported as zeros.
+    private List<Map<String, Object>> aging(Long schoolId, Instant now) {
+        Map<Integer, FeeTotals> byBucket = new HashMap<>();
+        for (AgingBucket b : invoiceRepository.sumBySchoolAged(schoolId, now.minus(Duration.ofDays(AGING_BOUNDS[0])),
+                now.minus(Duration.ofDays(AGING_BOUNDS[1])), now.minus(Duration.ofDays(AGING_BOUNDS[2])), now.plusSeconds(1))) {
+            byBucket.put(b.getBucket(), b);
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        int lowerDays = 0;
+        for (int i = 0; i <= AGING_BOUNDS.length; i++) {
+            boolean last = i == AGING_BOUNDS.length;
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("bucket", last ? lowerDays + "+" : lowerDays + "-" + (AGING_BOUNDS[i] - 1));
+            FeeTotals t = byBucket.get(i);
+            row.putAll(t == null ? toMap(0, 0, 0) : toMap(t));
+            rows.add(row);
+            if (!last) lowerDays = AGING_BOUNDS[i];
+        }
+        return rows;
+    }
+
+    private static Map<String, Object> toMap(FeeTotals t) {
+        return toMap(FeeTotals.value(t.getInvoices()), FeeTotals.value(t.getBilled()), FeeTotals.value(t.getCollected()));
+    }
+
+    private static Map<String, Object> toMap(long invoices, long billed, long collected) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("invoices", invoices);
+        m.put("billed", billed);
+        m.put("collected", collected);
+        m.put("due", billed - collected);
+        return m;
+    }
+}
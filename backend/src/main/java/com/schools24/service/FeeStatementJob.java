@@ -0,0 +1,99 @@
+package com.schools24.service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one fee statement run. Counters are updated by the thread writing the archive and
+ * read by status requests.
+ */
+public class FeeStatementJob {
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    public enum Output { STREAM, FILE }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Long schoolId;
+    private final Output output;
+    private final Instant submittedAt = Instant.now();
+    private final AtomicInteger statements = new AtomicInteger();
+    private final AtomicInteger invoices = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+    private volatile int totalStudents;
+    private volatile State state = State.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile Path file;
+    private volatile String error;
+
+    FeeStatementJob(Long schoolId, Output output) {
+        this.schoolId = schoolId;
+        this.output = output;
+    }
+
+    public String getId() { return id; }
+
+    public Long getSchoolId() { return schoolId; }
+
+    public State getState() { return state; }
+
+    public Instant getFinishedAt() { return finishedAt; }
+
+    /**
+     * The finished archive of a FILE run; null until it completes.
+     */
+    public Path getFile() { return file; }
+
+    void start(int totalStudents) {
+        this.totalStudents = totalStudents;
+        this.startedAt = Instant.now();
+        this.state = State.RUNNING;
+    }
+
+    void advance(int invoices, int bytes) {
+        this.statements.incrementAndGet();
+        this.invoices.addAndGet(invoices);
+        this.bytes.addAndGet(bytes);
+    }
+
+    void complete(Path file) {
+        this.file = file;
+        this.finishedAt = Instant.now();
+        this.state = State.COMPLETED;
+    }
+
+    void fail(Throwable t) {
+        this.finishedAt = Instant.now();
+        this.error = t.getMessage();
+        this.state = State.FAILED;
+    }
+
+    public Map<String, Object> toMap() {
+        int done = statements.get();
+        Instant started = startedAt;
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long elapsedMs = started == null ? 0 : Duration.between(started, end).toMillis();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("jobId", id);
+        m.put("schoolId", schoolId);
+        m.put("output", output);
+        m.put("state", state);
+        m.put("totalStudents", totalStudents);
+        m.put("statementsWritten", done);
+        m.put("invoices", invoices.get());
+        m.put("bytesWritten", bytes.get());
+        m.put("progress", totalStudents == 0 ? (state == State.COMPLETED ? 1.0 : 0.0) : (double) done / totalStudents);
+        m.put("elapsedMs", elapsedMs);
+        m.put("statementsPerSecond", elapsedMs == 0 ? 0.0 : done * 1000.0 / elapsedMs);
+        m.put("submittedAt", submittedAt.toString());
+        if (file != null) m.put("download", "/api/admin/fees/statements/" + id + "/file");
+        if (error != null) m.put("error", error);
+        return m;
+    }
+}
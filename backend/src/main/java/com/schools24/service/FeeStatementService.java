@@ -0,0 +1,268 @@
+package com.schools24.service;
+
+import com.schools24.admission.DbAdmission;
+import com.schools24.admission.WorkloadClass;
+import com.schools24.domain.School;
+import com.schools24.repository.FeeInvoiceRepository;
+import com.schools24.repository.PaymentRepository;
+import com.schools24.repository.SchoolRepository;
+import com.schools24.repository.StatementInvoiceRow;
+import com.schools24.repository.StatementItemRow;
+import com.schools24.repository.StatementPaymentRow;
+import com.schools24.repository.UserRepository;
+import com.schools24.repository.UserSummary;
+import com.schools24.tenant.TenantContext;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a fee statement (invoices, their items and payments) for every active student of a
+ * school into a zip archive, streamed to the client or saved under
+ * {@code schools24.statements.dir}. Students are read in chunks of {@link #CHUNK_SIZE}, each
+ * with four set-based queries; a chunk's statements are rendered in parallel on a fork-join pool
+ * while the next chunk is fetched, then written to the archive in student order. At most two
+ * chunks are held in memory, whatever the size of the school.
+ */
+@Service
+public class FeeStatementService {
+    private static final Logger log = LoggerFactory.getLogger(FeeStatementService.class);
+    static final int CHUNK_SIZE = 500;
+    private static final Duration JOB_RETENTION = Duration.ofHours(1);
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ISO_LOCAL_DATE.withZone(ZoneOffset.UTC);
+
+    private record Chunk(School school, List<UserSummary> students, Map<Long, List<StatementInvoiceRow>> invoices,
+                         Map<Long, List<StatementItemRow>> items, Map<Long, List<StatementPaymentRow>> payments) {
+    }
+
+    private record Rendered(String name, byte[] text, int invoices) {
+    }
+
+    private final SchoolRepository schoolRepository;
+    private final UserRepository userRepository;
+    private final FeeInvoiceRepository invoiceRepository;
+    private final PaymentRepository paymentRepository;
+    private final DbAdmission admission;
+    private final Path dir;
+    private final ForkJoinPool renderPool;
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final Map<String, FeeStatementJob> jobs = new ConcurrentHashMap<>();
+
+    public FeeStatementService(SchoolRepository schoolRepository,
+                               UserRepository userRepository,
+                               FeeInvoiceRepository invoiceRepository,
+                               PaymentRepository paymentRepository,
+                               DbAdmission admission,
+                               Environment env) {
+        this.schoolRepository = schoolRepository;
+        this.userRepository = userRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.paymentRepository = paymentRepository;
+        this.admission = admission;
+        this.dir = Path.of(env.getProperty("schools24.statements.dir", "fee-statements"));
+        this.renderPool = new ForkJoinPool(env.getProperty("schools24.statements.render-threads", Integer.class,
+                Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Registers a run whose archive the caller streams with {@link #write}.
+     */
+    public FeeStatementJob open(Long schoolId) {
+        checkSchool(schoolId);
+        return register(new FeeStatementJob(schoolId, FeeStatementJob.Output.STREAM));
+    }
+
+    /**
+     * Queues a run that saves the archive to a file, downloadable once the job completes.
+     */
+    public FeeStatementJob submit(Long schoolId) {
+        checkSchool(schoolId);
+        FeeStatementJob job = register(new FeeStatementJob(schoolId, FeeStatementJob.Output.FILE));
+        executor.submit(() -> admission.run(WorkloadClass.EXPORTS, () -> writeFile(job)));
+        return job;
+    }
+
+    public Optional<FeeStatementJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Writes the job's archive to {@code out}; the job fails if writing does.
+     */
+    public void write(FeeStatementJob job, OutputStream out) throws IOException {
+        try {
+            writeZip(job, out);
+            job.complete(null);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Fee statement job {} failed: {}", job.getId(), e.getMessage());
+            job.fail(e);
+            throw e;
+        }
+    }
+
+    private void writeFile(FeeStatementJob job) {
+        Path file = dir.resolve("statements-school-" + job.getSchoolId() + "-" + job.getId() + ".zip");
+        Path part = file.resolveSibling(file.getFileName() + ".part");
+        try {
+            Files.createDirectories(dir);
+            try (OutputStream out = Files.newOutputStream(part)) {
+                writeZip(job, out);
+            }
+            Files.move(part, file, StandardCopyOption.ATOMIC_MOVE);
+            job.complete(file);
+        } catch (IOException | RuntimeException e) {
+            log.error("Fee statement job {} failed", job.getId(), e);
+            job.fail(e);
+            try {
+                Files.deleteIfExists(part);
+            } catch (IOException ignored) {
+                // left for the next eviction
+            }
+        }
+    }
+
+    private void writeZip(FeeStatementJob job, OutputStream out) throws IOException {
+        School school = schoolRepository.findById(job.getSchoolId()).orElseThrow(() -> new IllegalArgumentException("School not found"));
+        List<Long> studentIds = userRepository.findActiveIdsBySchoolAndRole(school.getId(), "student");
+        job.start(studentIds.size());
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        List<ForkJoinTask<Rendered>> rendering = List.of();
+        for (int from = 0; from < studentIds.size(); from += CHUNK_SIZE) {
+            Chunk chunk = fetch(school, studentIds.subList(from, Math.min(from + CHUNK_SIZE, studentIds.size())));
+            writeEntries(zip, job, rendering);
+            rendering = new ArrayList<>(chunk.students().size());
+            for (UserSummary s : chunk.students()) rendering.add(renderPool.submit(() -> render(chunk, s)));
+        }
+        writeEntries(zip, job, rendering);
+        zip.finish();
+        zip.flush();
+    }
+
+    private Chunk fetch(School school, List<Long> studentIds) {
+        Map<Long, UserSummary> byId = new HashMap<>();
+        for (UserSummary u : userRepository.findSummariesByIdIn(studentIds)) byId.put(u.id(), u);
+        List<UserSummary> students = new ArrayList<>(studentIds.size());
+        for (Long id : studentIds) {
+            UserSummary u = byId.get(id);
+            if (u != null) students.add(u);
+        }
+        Map<Long, List<StatementInvoiceRow>> invoices = new HashMap<>();
+        List<Long> invoiceIds = new ArrayList<>();
+        for (StatementInvoiceRow i : invoiceRepository.findStatementRows(school.getId(), studentIds)) {
+            invoices.computeIfAbsent(i.studentId(), k -> new ArrayList<>()).add(i);
+            invoiceIds.add(i.id());
+        }
+        Map<Long, List<StatementItemRow>> items = new HashMap<>();
+        Map<Long, List<StatementPaymentRow>> payments = new HashMap<>();
+        if (!invoiceIds.isEmpty()) {
+            for (StatementItemRow it : invoiceRepository.findStatementItems(invoiceIds)) {
+                items.computeIfAbsent(it.invoiceId(), k -> new ArrayList<>()).add(it);
+            }
+            for (StatementPaymentRow p : paymentRepository.findStatementRows(invoiceIds)) {
+                payments.computeIfAbsent(p.invoiceId(), k -> new ArrayList<>()).add(p);
+            }
+        }
+        return new Chunk(school, students, invoices, items, payments);
+    }
+
+    private static void writeEntries(ZipOutputStream zip, FeeStatementJob job, List<ForkJoinTask<Rendered>> rendering) throws IOException {
+        for (ForkJoinTask<Rendered> task : rendering) {
+            Rendered r = task.join();
+            zip.putNextEntry(new ZipEntry(r.name()));
+            zip.write(r.text());
+            zip.closeEntry();
+            job.advance(r.invoices(), r.text().length);
+        }
+        zip.flush();
+    }
+
+    private static Rendered render(Chunk chunk, UserSummary student) {
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append("FEE STATEMENT\n");
+        sb.append("School:  ").append(chunk.school().getName()).append(" (").append(chunk.school().getCode()).append(")\n");
+        sb.append("Student: ").append(student.name()).append(" (").append(student.userId()).append(")\n\n");
+        List<StatementInvoiceRow> invoices = chunk.invoices().getOrDefault(student.id(), List.of());
+        long billed = 0, paid = 0;
+        for (StatementInvoiceRow inv : invoices) {
+            sb.append(String.format("Invoice %d, %s, %s%n", inv.id(),
+                    inv.createdAt() == null ? "-" : DATE.format(inv.createdAt()), inv.status()));
+            for (StatementItemRow it : chunk.items().getOrDefault(inv.id(), List.of())) {
+                sb.append(String.format("  %-40s %10d%n", it.headName(), amount(it.amount())));
+            }
+            sb.append(String.format("  %-40s %10d%n", "Total", amount(inv.totalAmount())));
+            for (StatementPaymentRow p : chunk.payments().getOrDefault(inv.id(), List.of())) {
+                sb.append(String.format("  Paid %-10s %-24s %10d%n", p.paidAt() == null ? "-" : DATE.format(p.paidAt()),
+                        p.method(), amount(p.amount())));
+            }
+            sb.append(String.format("  %-40s %10d%n%n", "Balance", amount(inv.totalAmount()) - amount(inv.paidAmount())));
+            billed += amount(inv.totalAmount());
+            paid += amount(inv.paidAmount());
+        }
+        if (invoices.isEmpty()) sb.append("No invoices.\n\n");
+        sb.append(String.format("%-42s %10d%n", "Total billed", billed));
+        sb.append(String.format("%-42s %10d%n", "Total paid", paid));
+        sb.append(String.format("%-42s %10d%n", "Balance due", billed - paid));
+        String name = "statement-" + student.id() + "-" + student.userId().replaceAll("[^A-Za-z0-9._-]", "_") + ".txt";
+        return new Rendered(name, sb.toString().getBytes(StandardCharsets.UTF_8), invoices.size());
+    }
+
+    private static int amount(Integer v) {
+        return v == null ? 0 : v;
+    }
+
+    private void checkSchool(Long schoolId) {
+        TenantContext.checkAccess(schoolId);
+        if (!schoolRepository.existsById(schoolId)) throw new IllegalArgumentException("School not found");
+    }
+
+    private FeeStatementJob register(FeeStatementJob job) {
+        evictFinishedJobs();
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    private void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(JOB_RETENTION);
+        jobs.values().removeIf(j -> {
+            if (j.getFinishedAt() == null || !j.getFinishedAt().isBefore(cutoff)) return false;
+            try {
+                if (j.getFile() != null) Files.deleteIfExists(j.getFile());
+            } catch (IOException e) {
+                log.warn("Could not delete fee statements {}: {}", j.getFile(), e.getMessage());
+            }
+            return true;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+        renderPool.shutdown();
+    }
+}
@@ -0,0 +1,13 @@
+package com.schools24.service;
+
+/**
+ * Thrown when an idempotency key comes back with a different payment (invoice, amount or
+ * method) than the one it was first used for.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public IdempotencyKeyReusedException() {
+        super("Idempotency key was already used for a different payment");
+    }
+}
@@ -0,0 +1,365 @@
+package com.schools24.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log in memory-mapped segment files, used for payments and quiz answers that are
+ * acknowledged before they reach the database. Appenders copy their record into the current
+ * segment and wait; one sync thread forces everything appended so far to disk and releases all
+ * of them (group commit), so a burst of appends shares one fsync. Records that are on disk are
+ * handed to {@code onDurable} in sequence order.
+ * <p>
+ * A record is its body length, the CRC32 of the body, and the body (sequence number, time
+ * accepted, and the value as written by the {@link Codec}). On open, segments are read up to the
+ * first torn or corrupt record, and anything after it is zeroed before appending resumes.
+ * Segments whose records have all been applied are deleted by {@link #applied}.
+ */
+class Journal<T> implements Closeable {
+    record Entry<T>(long seq, long acceptedAtMs, T value) {
+    }
+
+    /**
+     * Writes a value into a record body and reads it back; {@code decode} may throw on a body it
+     * cannot read, which ends recovery there like a bad checksum.
+     */
+    interface Codec<T> {
+        byte[] encode(T value);
+
+        T decode(ByteBuffer b);
+    }
+
+    private record Segment(Path path, long firstSeq) {
+    }
+
+    private static final int HEADER = 8;
+
+    private final Path dir;
+    private final String name;
+    private final Pattern segment;
+    private final Codec<T> codec;
+    private final String id;
+    private final int segmentBytes;
+    private final Consumer<List<Entry<T>>> onDurable;
+    private final List<Entry<T>> recovered = new ArrayList<>();
+    // Guards everything below it.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    private final Deque<Segment> closed = new ArrayDeque<>();
+    private Segment current;
+    private MappedByteBuffer buffer;
+    private int position;
+    private int syncedPosition;
+    private long nextSeq;
+    private long durableSeq;
+    private final List<Entry<T>> unsynced = new ArrayList<>();
+    private long appends;
+    private long syncs;
+    private boolean open = true;
+    private final Thread syncer;
+
+    /**
+     * Opens the journal in {@code dir}, whose segments are named {@code <name>-<first seq>.log}.
+     */
+    Journal(Path dir, String name, Codec<T> codec, int segmentBytes, Consumer<List<Entry<T>>> onDurable) throws IOException {
+        this.dir = dir;
+        this.name = name;
+        this.segment = Pattern.compile(Pattern.quote(name) + "-(\\d{20})\\.log");
+        this.codec = codec;
+        this.syncer = new Thread(this::syncLoop, name + "-journal-sync");
+        this.segmentBytes = segmentBytes;
+        this.onDurable = onDurable;
+        Files.createDirectories(dir);
+        Path idFile = dir.resolve("journal.id");
+        if (!Files.exists(idFile)) Files.writeString(idFile, UUID.randomUUID().toString());
+        this.id = Files.readString(idFile).trim();
+
+        List<Segment> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(p -> {
+                Matcher m = segment.matcher(p.getFileName().toString());
+                if (m.matches()) segments.add(new Segment(p, Long.parseLong(m.group(1))));
+            });
+        }
+        segments.sort((a, b) -> Long.compare(a.firstSeq(), b.firstSeq()));
+        if (segments.isEmpty()) segments.add(new Segment(segmentPath(1), 1));
+        for (int i = 0; i < segments.size() - 1; i++) {
+            Segment s = segments.get(i);
+            try (FileChannel ch = FileChannel.open(s.path(), StandardOpenOption.READ)) {
+                read(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()), s.firstSeq());
+            }
+            closed.add(s);
+        }
+        current = segments.get(segments.size() - 1);
+        buffer = map(current.path());
+        position = read(buffer, current.firstSeq());
+        zeroFrom(position);
+        syncedPosition = position;
+        nextSeq = recovered.isEmpty() ? current.firstSeq() : recovered.get(recovered.size() - 1).seq() + 1;
+        durableSeq = nextSeq - 1;
+        syncer.setDaemon(true);
+        syncer.start();
+    }
+
+    String id() {
+        return id;
+    }
+
+    /**
+     * The records found on open, including ones already posted; the caller skips those.
+     */
+    List<Entry<T>> recovered() {
+        return recovered;
+    }
+
+    /**
+     * Appends a value and returns once it is on disk.
+     */
+    Entry<T> append(T value) {
+        lock.lock();
+        try {
+            if (!open) throw new IllegalStateException("Journal " + name + " is closed");
+            Entry<T> e = new Entry<>(nextSeq, System.currentTimeMillis(), value);
+            byte[] body = encode(e);
+            if (position + HEADER + body.length > segmentBytes) roll();
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            buffer.putInt(position, body.length);
+            buffer.putInt(position + 4, (int) crc.getValue());
+            buffer.put(position + HEADER, body);
+            position += HEADER + body.length;
+            nextSeq++;
+            appends++;
+            unsynced.add(e);
+            appended.signal();
+            while (durableSeq < e.seq()) synced.awaitUninterruptibly();
+            return e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments whose records are all at or before {@code seq}.
+     */
+    void applied(long seq) {
+        lock.lock();
+        try {
+            while (!closed.isEmpty()) {
+                Iterator<Segment> it = closed.iterator();
+                Segment oldest = it.next();
+                Segment following = it.hasNext() ? it.next() : current;
+                if (following.firstSeq() - 1 > seq) break;
+                closed.pollFirst();
+                Files.deleteIfExists(oldest.path());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long durableSeq() {
+        lock.lock();
+        try {
+            return durableSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long appends() {
+        lock.lock();
+        try {
+            return appends;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long syncs() {
+        lock.lock();
+        try {
+            return syncs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int segments() {
+        lock.lock();
+        try {
+            return closed.size() + 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            open = false;
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            syncer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void syncLoop() {
+        while (true) {
+            MappedByteBuffer target;
+            int from;
+            int to;
+            long upTo;
+            List<Entry<T>> batch;
+            lock.lock();
+            try {
+                while (open && unsynced.isEmpty()) appended.awaitUninterruptibly();
+                if (unsynced.isEmpty()) return;
+                target = buffer;
+                from = syncedPosition;
+                to = position;
+                upTo = nextSeq - 1;
+                batch = new ArrayList<>(unsynced);
+                unsynced.clear();
+            } finally {
+                lock.unlock();
+            }
+            target.force(from, to - from);
+            lock.lock();
+            try {
+                if (target == buffer) syncedPosition = Math.max(syncedPosition, to);
+                durableSeq = Math.max(durableSeq, upTo);
+                syncs++;
+                synced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            onDurable.accept(batch);
+        }
+    }
+
+    // Called with the lock held. The full segment is forced here, so its waiters are released
+    // now; its entries stay in unsynced and reach onDurable through the sync thread, in order.
+    private void roll() {
+        buffer.force();
+        durableSeq = nextSeq - 1;
+        synced.signalAll();
+        closed.addLast(current);
+        current = new Segment(segmentPath(nextSeq), nextSeq);
+        try {
+            buffer = map(current.path());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        position = 0;
+        syncedPosition = 0;
+    }
+
+    private Path segmentPath(long firstSeq) {
+        return dir.resolve(String.format("%s-%020d.log", name, firstSeq));
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    // Adds the segment's intact records to recovered and returns where they end.
+    private int read(ByteBuffer b, long firstSeq) {
+        int pos = 0;
+        long expected = recovered.isEmpty() ? firstSeq : recovered.get(recovered.size() - 1).seq() + 1;
+        while (pos + HEADER <= b.limit()) {
+            int len = b.getInt(pos);
+            if (len <= 0 || pos + HEADER + len > b.limit()) break;
+            byte[] body = new byte[len];
+            b.get(pos + HEADER, body);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != b.getInt(pos + 4)) break;
+            Entry<T> e = decode(body);
+            if (e == null || e.seq() != expected) break;
+            recovered.add(e);
+            expected++;
+            pos += HEADER + len;
+        }
+        return pos;
+    }
+
+    // A torn write can leave a later record intact behind a broken one; clear it so it is not
+    // read back after new records are written over the broken one.
+    private void zeroFrom(int from) {
+        boolean changed = false;
+        for (int i = from; i < segmentBytes; i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+                changed = true;
+            }
+        }
+        if (changed) buffer.force();
+    }
+
+    private byte[] encode(Entry<T> e) {
+        byte[] value = codec.encode(e.value());
+        return ByteBuffer.allocate(16 + value.length).putLong(e.seq()).putLong(e.acceptedAtMs()).put(value).array();
+    }
+
+    private Entry<T> decode(byte[] body) {
+        ByteBuffer b = ByteBuffer.wrap(body);
+        try {
+            long seq = b.getLong();
+            long at = b.getLong();
+            return new Entry<>(seq, at, codec.decode(b));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    static void putString(ByteBuffer b, String s) {
+        byte[] bytes = s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+        b.putShort((short) (bytes == null ? -1 : bytes.length));
+        if (bytes != null) b.put(bytes);
+    }
+
+    static int stringBytes(String s) {
+        return 2 + (s == null ? 0 : s.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    static String getString(ByteBuffer b) {
+        int len = b.getShort();
+        if (len < 0) return null;
+        byte[] s = new byte[len];
+        b.get(s);
+        return new String(s, StandardCharsets.UTF_8);
+    }
+}
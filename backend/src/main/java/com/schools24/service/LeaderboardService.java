@@ -0,0 +1,369 @@
+package com.schools24.service;
+
+import com.schools24.repository.LeaderboardRepository;
+import com.schools24.repository.LeaderboardRow;
+import com.schools24.repository.SchoolClassRepository;
+import com.schools24.repository.SchoolRepository;
+import com.schools24.repository.SessionScoreRow;
+import com.schools24.repository.StudentGradeRow;
+import com.schools24.repository.UserRepository;
+import com.schools24.repository.UserSummary;
+import com.schools24.tenant.TenantContext;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Live quiz leaderboards per school and per (school, grade). Totals are held in memory in one
+ * {@link RankedSet} per board, so a finished quiz, a top-K page and a student's rank with
+ * neighbours each cost O(log n) per row touched and no query. Changed totals are written to the
+ * {@code leaderboard} table every {@code schools24.leaderboard.snapshot-interval-ms} and on
+ * shutdown. The same transaction sets {@code on_leaderboard} on the quiz sessions the saved
+ * totals now include, so on startup the finished quizzes without it (e.g. from before a crash)
+ * are added back from quiz_sessions, each exactly once.
+ * <p>
+ * A student joins the boards of their own school, with the grade of their class; {@link #place}
+ * overrides either. Requests scoped to a school (see {@link TenantContext}) only see that school's
+ * boards and students.
+ */
+@Service
+public class LeaderboardService {
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardService.class);
+    private static final String UPSERT_SQL =
+            "insert into leaderboard (student_id, school_id, class_grade, total_score, last_updated) values (?, ?, ?, ?, ?) " +
+            "on duplicate key update school_id = values(school_id), class_grade = values(class_grade), " +
+            "total_score = values(total_score), last_updated = values(last_updated)";
+    private static final String APPLIED_SQL = "update quiz_sessions set on_leaderboard = 1 where id = ?";
+
+    public record Standing(int rank, long studentId, String name, long totalScore) {
+    }
+
+    public record Position(Standing student, Long schoolId, Integer classGrade, int boardSize, List<Standing> neighbours) {
+    }
+
+    private static final class Entry {
+        final long studentId;
+        final String name;
+        Long schoolId;
+        Integer grade;
+        long total;
+        // End of the latest quiz included; saved as last_updated.
+        Instant lastEnd;
+        // Quizzes added since the last snapshot, which marks them on_leaderboard.
+        final Set<Long> unsaved = new HashSet<>();
+        boolean dirty;
+
+        Entry(long studentId, String name) {
+            this.studentId = studentId;
+            this.name = name;
+        }
+    }
+
+    // grade is null for the whole-school board.
+    private record BoardKey(long schoolId, Integer grade) {
+    }
+
+    private record SnapshotRow(long studentId, Long schoolId, Integer grade, long total, Instant lastEnd, List<Long> sessions) {
+    }
+
+    private final LeaderboardRepository leaderboardRepository;
+    private final UserRepository userRepository;
+    private final SchoolClassRepository classRepository;
+    private final SchoolRepository schoolRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<BoardKey, RankedSet> boards = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded;
+
+    public LeaderboardService(LeaderboardRepository leaderboardRepository,
+                              UserRepository userRepository,
+                              SchoolClassRepository classRepository,
+                              SchoolRepository schoolRepository,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager) {
+        this.leaderboardRepository = leaderboardRepository;
+        this.userRepository = userRepository;
+        this.classRepository = classRepository;
+        this.schoolRepository = schoolRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Adds a finished quiz to the student's total. A quiz already added since the last snapshot
+     * (e.g. found unsaved while loading) is ignored, so replay and live updates cannot count it
+     * twice; quizzes are added whatever order they finish in.
+     */
+    public void recordQuiz(long studentId, long sessionId, int score, Instant endTime) {
+        ensureLoaded();
+        Entry fresh = isKnown(studentId) ? null : newEntries(List.of(studentId)).get(studentId);
+        lock.writeLock().lock();
+        try {
+            Entry e = fresh == null ? entries.get(studentId) : entries.computeIfAbsent(studentId, k -> fresh);
+            if (e == null || !e.unsaved.add(sessionId)) return;
+            unlink(e);
+            add(e, score, endTime);
+            link(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Puts a student on a school's boards, in the given grade (or their class's grade when null).
+     */
+    public void place(long studentId, long schoolId, Integer grade) {
+        ensureLoaded();
+        TenantContext.checkAccess(schoolId);
+        if (!schoolRepository.existsById(schoolId)) throw new IllegalArgumentException("School not found");
+        Entry fresh = isKnown(studentId) ? null : newEntries(List.of(studentId)).get(studentId);
+        lock.writeLock().lock();
+        try {
+            Entry e = fresh == null ? entries.get(studentId) : entries.computeIfAbsent(studentId, k -> fresh);
+            if (e == null) throw new IllegalArgumentException("Student not found");
+            if (e.schoolId != null) TenantContext.checkAccess(e.schoolId);
+            unlink(e);
+            e.schoolId = schoolId;
+            if (grade != null) e.grade = grade;
+            e.dirty = true;
+            link(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Standing> top(long schoolId, Integer grade, int limit) {
+        ensureLoaded();
+        TenantContext.checkAccess(schoolId);
+        lock.readLock().lock();
+        try {
+            RankedSet board = boards.get(new BoardKey(schoolId, grade));
+            if (board == null) return List.of();
+            List<Standing> res = new ArrayList<>(Math.min(limit, board.size()));
+            for (int i = 0; i < limit; i++) {
+                RankedSet.Ranked r = board.select(i);
+                if (r == null) break;
+                res.add(standing(board, r));
+            }
+            return res;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A student's rank on their school board (or grade board) with up to {@code around}
+     * students either side.
+     */
+    public Position position(long studentId, boolean byGrade, int around) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Entry e = entries.get(studentId);
+            Long current = TenantContext.current();
+            if (e == null || current != null && !current.equals(e.schoolId)) {
+                throw new NoSuchElementException("Student is not on the leaderboard");
+            }
+            if (e.schoolId == null) throw new IllegalStateException("Student has not been placed in a school");
+            if (byGrade && e.grade == null) throw new IllegalStateException("Student has no grade");
+            RankedSet board = boards.get(new BoardKey(e.schoolId, byGrade ? e.grade : null));
+            int at = board.position(e.studentId, e.total);
+            List<Standing> neighbours = new ArrayList<>(2 * around + 1);
+            for (int i = Math.max(0, at - around); i <= at + around; i++) {
+                RankedSet.Ranked r = board.select(i);
+                if (r == null) break;
+                neighbours.add(standing(board, r));
+            }
+            Standing self = standing(board, new RankedSet.Ranked(e.studentId, e.total));
+            return new Position(self, e.schoolId, e.grade, board.size(), neighbours);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) TenantContext.unscoped(this::load);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${schools24.leaderboard.snapshot-interval-ms:30000}",
+            initialDelayString = "${schools24.leaderboard.snapshot-interval-ms:30000}")
+    public void snapshot() {
+        if (!loaded) return;
+        List<SnapshotRow> rows = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            for (Entry e : entries.values()) {
+                if (!e.dirty) continue;
+                rows.add(new SnapshotRow(e.studentId, e.schoolId, e.grade, e.total, e.lastEnd, List.copyOf(e.unsaved)));
+                e.unsaved.clear();
+                e.dirty = false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (rows.isEmpty()) return;
+        try {
+            Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+            List<Long> sessions = rows.stream().flatMap(r -> r.sessions().stream()).toList();
+            tx.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, rows, 500, (ps, r) -> {
+                    ps.setLong(1, r.studentId());
+                    ps.setObject(2, r.schoolId(), Types.BIGINT);
+                    ps.setObject(3, r.grade(), Types.INTEGER);
+                    ps.setInt(4, (int) Math.min(r.total(), Integer.MAX_VALUE));
+                    ps.setTimestamp(5, r.lastEnd() == null ? null : Timestamp.from(r.lastEnd()), utc);
+                });
+                jdbcTemplate.batchUpdate(APPLIED_SQL, sessions, 500, (ps, id) -> ps.setLong(1, id));
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Leaderboard snapshot of {} rows failed, will retry: {}", rows.size(), ex.getMessage());
+            lock.writeLock().lock();
+            try {
+                for (SnapshotRow r : rows) {
+                    Entry e = entries.get(r.studentId());
+                    if (e == null) continue;
+                    e.unsaved.addAll(r.sessions());
+                    e.dirty = true;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        snapshot();
+    }
+
+    private Void load() {
+        long started = System.nanoTime();
+        List<LeaderboardRow> rows = leaderboardRepository.findAllRows();
+        List<SessionScoreRow> missed = leaderboardRepository.findUnsnapshottedScores();
+        List<Long> newStudents = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            for (LeaderboardRow r : rows) {
+                Entry e = new Entry(r.studentId(), r.name());
+                e.schoolId = r.schoolId();
+                e.grade = r.classGrade();
+                e.total = r.totalScore() == null ? 0 : r.totalScore();
+                e.lastEnd = r.lastUpdated();
+                entries.put(e.studentId, e);
+            }
+            for (SessionScoreRow m : missed) {
+                if (!entries.containsKey(m.studentId())) newStudents.add(m.studentId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<Long, Entry> fresh = newEntries(newStudents);
+        lock.writeLock().lock();
+        try {
+            entries.putAll(fresh);
+            for (SessionScoreRow m : missed) {
+                Entry e = entries.get(m.studentId());
+                if (e != null && e.unsaved.add(m.sessionId())) add(e, m.score() == null ? 0 : m.score(), m.endTime());
+            }
+            for (Entry e : entries.values()) link(e);
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Leaderboard loaded: {} students, {} unsnapshotted quizzes added in {} ms", entries.size(),
+                missed.size(), (System.nanoTime() - started) / 1_000_000);
+        return null;
+    }
+
+    // Called with the write lock held and the entry unlinked.
+    private static void add(Entry e, int score, Instant endTime) {
+        e.total += score;
+        if (e.lastEnd == null || endTime.isAfter(e.lastEnd)) e.lastEnd = endTime;
+        e.dirty = true;
+    }
+
+    private boolean isKnown(long studentId) {
+        lock.readLock().lock();
+        try {
+            return entries.containsKey(studentId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Two queries for any number of students: names and schools, then class grades.
+    private Map<Long, Entry> newEntries(Collection<Long> studentIds) {
+        Map<Long, Entry> res = new HashMap<>();
+        if (studentIds.isEmpty()) return res;
+        // Unscoped so each student's own school is found whatever the caller's scope.
+        for (UserSummary u : TenantContext.unscoped(() -> userRepository.findSummariesByIdIn(studentIds))) {
+            Entry e = new Entry(u.id(), u.name());
+            e.schoolId = u.schoolId();
+            res.put(u.id(), e);
+        }
+        for (StudentGradeRow g : TenantContext.unscoped(() -> classRepository.findGradesOfStudents(studentIds))) {
+            Entry e = res.get(g.studentId());
+            if (e != null && e.grade == null) e.grade = parseGrade(g.grade());
+        }
+        return res;
+    }
+
+    private static Integer parseGrade(String grade) {
+        if (grade == null) return null;
+        String digits = grade.replaceAll("\\D", "");
+        if (digits.isEmpty() || digits.length() > 3) return null;
+        return Integer.valueOf(digits);
+    }
+
+    private Standing standing(RankedSet board, RankedSet.Ranked r) {
+        Entry e = entries.get(r.id());
+        return new Standing(board.countAbove(r.score()) + 1, r.id(), e == null ? null : e.name, r.score());
+    }
+
+    private void link(Entry e) {
+        if (e.schoolId == null) return;
+        boards.computeIfAbsent(new BoardKey(e.schoolId, null), k -> new RankedSet()).add(e.studentId, e.total);
+        if (e.grade != null) {
+            boards.computeIfAbsent(new BoardKey(e.schoolId, e.grade), k -> new RankedSet()).add(e.studentId, e.total);
+        }
+    }
+
+    private void unlink(Entry e) {
+        if (e.schoolId == null) return;
+        RankedSet school = boards.get(new BoardKey(e.schoolId, null));
+        if (school != null) school.remove(e.studentId, e.total);
+        if (e.grade != null) {
+            RankedSet grade = boards.get(new BoardKey(e.schoolId, e.grade));
+            if (grade != null) grade.remove(e.studentId, e.total);
+        }
+    }
+}
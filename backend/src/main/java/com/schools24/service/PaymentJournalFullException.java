@@ -0,0 +1,13 @@
+package com.schools24.service;
+
+/**
+ * Thrown when too many journaled payments are waiting to be posted, and while the journal is
+ * closing.
+ */
+public class PaymentJournalFullException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public PaymentJournalFullException() {
+        super("Too many payments waiting to be posted, retry shortly");
+    }
+}
@@ -0,0 +1,385 @@
+package com.schools24.service;
+
+import com.schools24.admission.WorkloadClass;
+import com.schools24.admission.WorkloadContext;
+import com.schools24.domain.PaymentJournalPosition;
+import com.schools24.tenant.TenantAccessException;
+import com.schools24.tenant.TenantContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Takes payments while the database is slow or down. A payment is acknowledged once it is in the
+ * local {@link Journal} (fsync'd, shared with the payments journaled at the same time)
+ * and gets a receipt; one applier thread posts journaled payments in batches of
+ * {@code schools24.payments.journal.batch}, in journal order, and resolves their receipts.
+ * <p>
+ * Each batch is committed together with the journal's position in {@code payment_journal}, so
+ * after a crash the journal is replayed from that position and every payment is posted exactly
+ * once. A payment the database refuses (e.g. an unknown invoice) is rejected on its own without
+ * holding up the rest. Idempotency keys are answered from memory while their receipt is kept;
+ * a key that was posted before that is reported as DUPLICATE by the applier.
+ * <p>
+ * At most {@code schools24.payments.journal.max-pending} payments wait to be posted; beyond that
+ * {@link #accept} throws {@link PaymentJournalFullException}.
+ */
+@Service
+@ConditionalOnProperty(name = "schools24.payments.journal.enabled", havingValue = "true", matchIfMissing = true)
+public class PaymentJournalService {
+    private static final Logger log = LoggerFactory.getLogger(PaymentJournalService.class);
+
+    public static final String JOURNALED = "JOURNALED";
+    public static final String POSTED = "POSTED";
+    private static final PaymentService.Outcome POSTED_EARLIER =
+            new PaymentService.Outcome(PaymentService.ACCEPTED, null, "Posted by an earlier attempt");
+
+    // A SCHOOL_FORMAT byte and the school id (0 for none), then invoice id, amount, method,
+    // idempotency key. Records written before payments named their school start with the invoice
+    // id, whose first byte is 0 for any id below 2^56.
+    private static final byte SCHOOL_FORMAT = 1;
+    private static final Journal.Codec<PaymentService.PaymentRequest> CODEC = new Journal.Codec<>() {
+        @Override
+        public byte[] encode(PaymentService.PaymentRequest r) {
+            ByteBuffer b = ByteBuffer.allocate(21 + Journal.stringBytes(r.method()) + Journal.stringBytes(r.idempotencyKey()));
+            b.put(SCHOOL_FORMAT).putLong(r.schoolId() == null ? 0 : r.schoolId());
+            b.putLong(r.invoiceId()).putInt(r.amount());
+            Journal.putString(b, r.method());
+            Journal.putString(b, r.idempotencyKey());
+            return b.array();
+        }
+
+        @Override
+        public PaymentService.PaymentRequest decode(ByteBuffer b) {
+            Long schoolId = null;
+            if (b.get(b.position()) == SCHOOL_FORMAT) {
+                b.get();
+                long id = b.getLong();
+                if (id != 0) schoolId = id;
+            }
+            return new PaymentService.PaymentRequest(schoolId, b.getLong(), b.getInt(), Journal.getString(b), Journal.getString(b));
+        }
+    };
+
+    // Idempotency keys are unique per school.
+    private record ReceiptKey(Long schoolId, String idempotencyKey) {
+    }
+
+    private static final class Receipt {
+        final CompletableFuture<Long> seq = new CompletableFuture<>();
+        final PaymentService.PaymentRequest request;
+        final ReceiptKey key;
+        volatile String state = JOURNALED;
+        volatile Long paymentId;
+        volatile String message;
+
+        Receipt(PaymentService.PaymentRequest request) {
+            this.request = request;
+            this.key = request.idempotencyKey() == null ? null : new ReceiptKey(request.schoolId(), request.idempotencyKey());
+        }
+
+        Map<String, Object> toMap(boolean duplicate) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("receiptId", seq.join());
+            m.put("state", state);
+            if (paymentId != null) m.put("paymentId", paymentId);
+            if (message != null) m.put("message", message);
+            m.put("duplicate", duplicate);
+            return m;
+        }
+    }
+
+    private final PaymentService paymentService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate tx;
+    private final Journal<PaymentService.PaymentRequest> journal;
+    private final int batchSize;
+    private final int maxPending;
+    private final int receiptCapacity;
+    private final Map<Long, Receipt> receipts = new ConcurrentHashMap<>();
+    private final Map<ReceiptKey, Receipt> byKey = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Long> resolved = new ConcurrentLinkedQueue<>();
+    private final BlockingQueue<Journal.Entry<PaymentService.PaymentRequest>> journaled = new LinkedBlockingQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread applier = new Thread(this::applyLoop, "payment-journal-applier");
+    private volatile boolean closing;
+    private volatile boolean running = true;
+    private volatile long appliedSeq = -1;
+    private final AtomicLong posted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+
+    public PaymentJournalService(PaymentService paymentService,
+                                 EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager,
+                                 Environment env) throws IOException {
+        this.paymentService = paymentService;
+        this.entityManager = entityManager;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.batchSize = env.getProperty("schools24.payments.journal.batch", Integer.class, 500);
+        this.maxPending = env.getProperty("schools24.payments.journal.max-pending", Integer.class, 100_000);
+        this.receiptCapacity = env.getProperty("schools24.payments.journal.receipt-capacity", Integer.class, 100_000);
+        int segmentMb = env.getProperty("schools24.payments.journal.segment-mb", Integer.class, 64);
+        Path dir = Path.of(env.getProperty("schools24.payments.journal.dir", "payment-journal"));
+        this.journal = new Journal<>(dir, "payments", CODEC, segmentMb * 1024 * 1024, journaled::addAll);
+    }
+
+    @PostConstruct
+    void start() {
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    /**
+     * Journals the payment and returns its receipt; a request whose idempotency key has a
+     * receipt gets that one, with {@code duplicate} set, unless the receipt is for a different
+     * payment ({@link IdempotencyKeyReusedException}).
+     */
+    public Map<String, Object> accept(PaymentService.PaymentRequest req) {
+        PaymentService.validate(req);
+        Receipt r = new Receipt(req);
+        if (r.key != null) {
+            Receipt existing = byKey.putIfAbsent(r.key, r);
+            if (existing != null) {
+                try {
+                    existing.seq.join();
+                    PaymentService.PaymentRequest earlier = existing.request;
+                    if (!PaymentService.samePayment(req, earlier.invoiceId(), earlier.amount(),
+                            PaymentService.method(earlier))) {
+                        throw new IdempotencyKeyReusedException();
+                    }
+                    return existing.toMap(true);
+                } catch (CompletionException e) {
+                    return accept(req); // that request was not journaled; its key is free again
+                }
+            }
+        }
+        try {
+            if (closing) throw new PaymentJournalFullException();
+            if (pending.incrementAndGet() > maxPending) {
+                pending.decrementAndGet();
+                throw new PaymentJournalFullException();
+            }
+            long seq;
+            try {
+                seq = journal.append(req).seq();
+            } catch (IllegalStateException e) {
+                pending.decrementAndGet();
+                throw new PaymentJournalFullException(); // closed meanwhile
+            } catch (RuntimeException e) {
+                pending.decrementAndGet();
+                throw e;
+            }
+            receipts.put(seq, r);
+            r.seq.complete(seq);
+            return r.toMap(false);
+        } catch (RuntimeException e) {
+            if (r.key != null) byKey.remove(r.key, r);
+            r.seq.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * The receipt, if it is still kept; another school's receipt is refused with
+     * {@link TenantAccessException}.
+     */
+    public Optional<Map<String, Object>> receipt(long receiptId) {
+        return Optional.ofNullable(receipts.get(receiptId)).map(r -> {
+            TenantContext.checkAccess(r.request.schoolId());
+            return r.toMap(false);
+        });
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("journalId", journal.id());
+        m.put("pending", pending.get());
+        m.put("maxPending", maxPending);
+        m.put("journaledSeq", journal.durableSeq());
+        m.put("appliedSeq", appliedSeq);
+        m.put("segments", journal.segments());
+        m.put("appends", journal.appends());
+        m.put("syncs", journal.syncs());
+        m.put("posted", posted.get());
+        m.put("rejected", rejected.get());
+        m.put("failedBatches", failedBatches.get());
+        return m;
+    }
+
+    private void applyLoop() {
+        long backoffMs = 100;
+        List<Journal.Entry<PaymentService.PaymentRequest>> batch = new ArrayList<>();
+        while (running) {
+            try {
+                if (appliedSeq < 0) {
+                    WorkloadContext.run(WorkloadClass.PAYMENTS, this::loadPosition);
+                    continue;
+                }
+                if (batch.isEmpty()) {
+                    if (closing && journaled.isEmpty()) break;
+                    Journal.Entry<PaymentService.PaymentRequest> first = journaled.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                    journaled.drainTo(batch, batchSize - 1);
+                }
+                // Again on every retry: part of a failed batch may have been posted by a split.
+                batch.removeIf(e -> e.seq() <= appliedSeq);
+                List<Journal.Entry<PaymentService.PaymentRequest>> current = batch;
+                WorkloadContext.run(WorkloadClass.PAYMENTS, () -> apply(current));
+                batch = new ArrayList<>();
+                journal.applied(appliedSeq);
+                backoffMs = 100;
+            } catch (InterruptedException e) {
+                if (!running) break;
+            } catch (RuntimeException e) {
+                failedBatches.incrementAndGet();
+                log.warn("Posting journaled payments failed, retrying in {} ms: {}", backoffMs, e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    if (!running) break;
+                }
+                backoffMs = Math.min(backoffMs * 2, 10_000);
+            }
+        }
+    }
+
+    // Payments journaled before the last shutdown are queued ahead of new ones, minus those posted.
+    private void loadPosition() {
+        long seq = tx.execute(status -> {
+            PaymentJournalPosition p = entityManager.find(PaymentJournalPosition.class, journal.id());
+            if (p != null) return p.getAppliedSeq();
+            p = new PaymentJournalPosition();
+            p.setJournalId(journal.id());
+            entityManager.persist(p);
+            return 0L;
+        });
+        List<Journal.Entry<PaymentService.PaymentRequest>> replay = new ArrayList<>();
+        for (Journal.Entry<PaymentService.PaymentRequest> e : journal.recovered()) {
+            if (e.seq() <= seq) continue;
+            Receipt r = new Receipt(e.value());
+            r.seq.complete(e.seq());
+            receipts.put(e.seq(), r);
+            if (r.key != null) byKey.putIfAbsent(r.key, r);
+            pending.incrementAndGet();
+            replay.add(e);
+        }
+        journal.recovered().clear();
+        List<Journal.Entry<PaymentService.PaymentRequest>> rest = new ArrayList<>();
+        journaled.drainTo(rest);
+        journaled.addAll(replay);
+        journaled.addAll(rest);
+        if (!replay.isEmpty()) log.info("Replaying {} journaled payments from {}", replay.size(), replay.get(0).seq());
+        appliedSeq = seq;
+    }
+
+    // A batch the database refuses is split until the payment it refuses is found and rejected.
+    // The position row is locked first and entries at or before it are skipped: a commit whose
+    // acknowledgement was lost (e.g. the connection dropped) has already posted them.
+    private void apply(List<Journal.Entry<PaymentService.PaymentRequest>> batch) {
+        if (batch.isEmpty()) return;
+        long last = batch.get(batch.size() - 1).seq();
+        List<PaymentService.Outcome> outcomes;
+        try {
+            outcomes = tx.execute(status -> {
+                PaymentJournalPosition position = lockPosition();
+                List<PaymentService.Outcome> res = new ArrayList<>(batch.size());
+                List<PaymentService.PaymentRequest> reqs = new ArrayList<>(batch.size());
+                List<Instant> paidAt = new ArrayList<>(batch.size());
+                for (Journal.Entry<PaymentService.PaymentRequest> e : batch) {
+                    if (e.seq() <= position.getAppliedSeq()) {
+                        res.add(POSTED_EARLIER);
+                    } else {
+                        reqs.add(e.value());
+                        paidAt.add(Instant.ofEpochMilli(e.acceptedAtMs()));
+                    }
+                }
+                if (reqs.isEmpty()) return res;
+                res.addAll(paymentService.post(reqs, paidAt));
+                position.setAppliedSeq(last);
+                return res;
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (batch.size() > 1) {
+                int half = batch.size() / 2;
+                apply(batch.subList(0, half));
+                apply(batch.subList(half, batch.size()));
+                return;
+            }
+            tx.executeWithoutResult(status -> {
+                PaymentJournalPosition position = lockPosition();
+                if (position.getAppliedSeq() < last) position.setAppliedSeq(last);
+            });
+            outcomes = List.of(new PaymentService.Outcome(PaymentService.REJECTED, null, "Payment could not be posted"));
+            log.warn("Rejected journaled payment {}: {}", last, e.getMessage());
+        }
+        appliedSeq = last;
+        for (int i = 0; i < batch.size(); i++) resolve(batch.get(i).seq(), outcomes.get(i));
+    }
+
+    private PaymentJournalPosition lockPosition() {
+        return entityManager.find(PaymentJournalPosition.class, journal.id(), LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    private void resolve(long seq, PaymentService.Outcome o) {
+        pending.decrementAndGet();
+        if (PaymentService.ACCEPTED.equals(o.result())) {
+            posted.incrementAndGet();
+        } else {
+            rejected.incrementAndGet();
+        }
+        Receipt r = receipts.get(seq);
+        if (r == null) return;
+        r.paymentId = o.paymentId();
+        r.message = o.message();
+        r.state = PaymentService.ACCEPTED.equals(o.result()) ? POSTED : o.result();
+        resolved.add(seq);
+        while (resolved.size() > receiptCapacity) {
+            Long old = resolved.poll();
+            if (old == null) break;
+            Receipt gone = receipts.remove(old);
+            if (gone != null && gone.key != null) byKey.remove(gone.key, gone);
+        }
+    }
+
+    // Payments still journaled after the drain are posted on the next start.
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        closing = true;
+        journal.close();
+        applier.join(5_000);
+        running = false;
+        applier.interrupt();
+        applier.join(1_000);
+        if (pending.get() > 0) log.warn("{} journaled payments will be posted on the next start", pending.get());
+    }
+}
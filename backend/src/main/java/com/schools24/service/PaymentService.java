@@ -0,0 +1,256 @@
+package com.schools24.service;
+
+import com.schools24.domain.FeeInvoice;
+import com.schools24.domain.Payment;
+import com.schools24.repository.FeeInvoiceRepository;
+import com.schools24.repository.InvoiceBalance;
+import com.schools24.repository.InvoiceSchool;
+import com.schools24.repository.PaymentKeyRow;
+import com.schools24.repository.PaymentRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Posts payments against invoices. The invoice balance is changed with a single conditional
+ * UPDATE, so concurrent payments never lose each other's increments, and an optional
+ * idempotency key (unique per school in the payments table) turns client retries into no-ops.
+ * A key sent again with a different invoice, amount or method is refused rather than answered
+ * with the earlier payment. A payment only reaches an invoice of the school it is made for.
+ */
+@Service
+public class PaymentService {
+    private final FeeInvoiceRepository invoiceRepository;
+    private final PaymentRepository paymentRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate tx;
+
+    public PaymentService(FeeInvoiceRepository invoiceRepository,
+                          PaymentRepository paymentRepository,
+                          EntityManager entityManager,
+                          PlatformTransactionManager transactionManager) {
+        this.invoiceRepository = invoiceRepository;
+        this.paymentRepository = paymentRepository;
+        this.entityManager = entityManager;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    public static final String ACCEPTED = "ACCEPTED";
+    public static final String DUPLICATE = "DUPLICATE";
+    public static final String REJECTED = "REJECTED";
+
+    /**
+     * A payment for one school's invoice; {@code schoolId} is only null for journal records
+     * written before payments named their school, which take their invoice's school.
+     */
+    public record PaymentRequest(Long schoolId, Long invoiceId, Integer amount, String method, String idempotencyKey) {
+    }
+
+    private record SchoolKey(Long schoolId, String idempotencyKey) {
+    }
+
+    /**
+     * What happened to one request of a batch: ACCEPTED (with the payment id), DUPLICATE or
+     * REJECTED (with the reason).
+     */
+    public record Outcome(String result, Long paymentId, String message) {
+    }
+
+    public Map<String, Object> record(PaymentRequest req) {
+        validate(req);
+        if (req.idempotencyKey() != null) {
+            Map<String, Object> replay = findReplay(req);
+            if (replay != null) return replay;
+        }
+        try {
+            return tx.execute(status -> {
+                if (invoiceRepository.applyPayment(req.invoiceId(), req.schoolId(), req.amount()) == 0) {
+                    throw new NoSuchElementException("Invoice not found");
+                }
+                Payment p = newPayment(req, req.schoolId());
+                entityManager.persist(p);
+                entityManager.flush();
+                return result(p.getId(), invoiceRepository.findBalanceById(req.invoiceId()).orElseThrow(), false);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same key won the unique index; report that one.
+            if (req.idempotencyKey() == null) throw e;
+            Map<String, Object> replay = findReplay(req);
+            if (replay == null) throw e;
+            return replay;
+        }
+    }
+
+    /**
+     * Posts a whole batch (e.g. a bank reconciliation file) in one transaction. Rows with an
+     * already-used key are reported as duplicates, or rejected if the key was used for a different
+     * payment; rows for unknown invoices (or another school's) are rejected, as are rows the
+     * caller could not read: {@code inputErrors} holds the reason per row, or null.
+     */
+    public Map<String, Object> recordBatch(List<PaymentRequest> requests, List<String> inputErrors) {
+        return tx.execute(status -> {
+            List<PaymentRequest> readable = new ArrayList<>(requests.size());
+            for (int i = 0; i < requests.size(); i++) {
+                if (inputErrors.get(i) == null) readable.add(requests.get(i));
+            }
+            List<Outcome> posted = post(readable, null);
+            List<Outcome> outcomes = new ArrayList<>(requests.size());
+            for (int i = 0, next = 0; i < requests.size(); i++) {
+                outcomes.add(inputErrors.get(i) == null ? posted.get(next++) : new Outcome(REJECTED, null, inputErrors.get(i)));
+            }
+            List<Map<String, Object>> rows = new ArrayList<>();
+            int accepted = 0, duplicates = 0, rejected = 0;
+            for (int i = 0; i < requests.size(); i++) {
+                Outcome o = outcomes.get(i);
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("index", i);
+                row.put("invoiceId", requests.get(i).invoiceId());
+                row.put("result", o.result());
+                if (o.paymentId() != null) row.put("paymentId", o.paymentId());
+                if (o.message() != null) row.put("message", o.message());
+                switch (o.result()) {
+                    case ACCEPTED -> accepted++;
+                    case DUPLICATE -> duplicates++;
+                    default -> rejected++;
+                }
+                rows.add(row);
+            }
+            Map<String, Object> res = new LinkedHashMap<>();
+            res.put("accepted", accepted);
+            res.put("duplicates", duplicates);
+            res.put("rejected", rejected);
+            res.put("results", rows);
+            return res;
+        });
+    }
+
+    /**
+     * Posts the requests in the caller's transaction and returns one outcome per request, in
+     * order. {@code paidAt}, when given, holds each payment's time. Balances are updated once
+     * per invoice, in id order to keep lock acquisition consistent.
+     */
+    public List<Outcome> post(List<PaymentRequest> requests, List<Instant> paidAt) {
+        Set<String> keys = new HashSet<>();
+        Set<Long> invoiceIds = new HashSet<>();
+        for (PaymentRequest r : requests) {
+            if (r.idempotencyKey() != null) keys.add(r.idempotencyKey());
+            if (r.invoiceId() != null) invoiceIds.add(r.invoiceId());
+        }
+        Map<SchoolKey, PaymentKeyRow> usedKeys = new HashMap<>();
+        if (!keys.isEmpty()) {
+            for (PaymentKeyRow k : paymentRepository.findKeyRows(keys)) usedKeys.put(new SchoolKey(k.schoolId(), k.idempotencyKey()), k);
+        }
+        Map<Long, Long> invoiceSchools = new HashMap<>();
+        if (!invoiceIds.isEmpty()) {
+            for (InvoiceSchool i : invoiceRepository.findSchools(invoiceIds)) invoiceSchools.put(i.getId(), i.getSchoolId());
+        }
+
+        List<Outcome> res = new ArrayList<>(requests.size());
+        List<Payment> payments = new ArrayList<>(requests.size());
+        Map<Long, Integer> totals = new TreeMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            PaymentRequest r = requests.get(i);
+            String error = validationError(r);
+            Long school = error == null ? invoiceSchools.get(r.invoiceId()) : null;
+            if (error == null && (school == null || (r.schoolId() != null && !r.schoolId().equals(school)))) {
+                error = "Invoice not found";
+            }
+            SchoolKey key = error == null && r.idempotencyKey() != null ? new SchoolKey(school, r.idempotencyKey()) : null;
+            PaymentKeyRow used = key == null ? null : usedKeys.get(key);
+            Payment p = null;
+            if (error != null) {
+                res.add(new Outcome(REJECTED, null, error));
+            } else if (used != null) {
+                res.add(samePayment(r, used.invoiceId(), used.amount(), used.method())
+                        ? new Outcome(DUPLICATE, null, null)
+                        : new Outcome(REJECTED, null, new IdempotencyKeyReusedException().getMessage()));
+            } else {
+                if (key != null) {
+                    usedKeys.put(key, new PaymentKeyRow(school, r.idempotencyKey(), r.invoiceId(), r.amount(), method(r)));
+                }
+                p = newPayment(r, school);
+                if (paidAt != null) p.setPaidAt(paidAt.get(i));
+                entityManager.persist(p);
+                totals.merge(r.invoiceId(), r.amount(), Integer::sum);
+                res.add(null);
+            }
+            payments.add(p);
+        }
+        totals.forEach((invoiceId, amount) -> invoiceRepository.applyPayment(invoiceId, invoiceSchools.get(invoiceId), amount));
+        entityManager.flush();
+        for (int i = 0; i < res.size(); i++) {
+            if (res.get(i) == null) res.set(i, new Outcome(ACCEPTED, payments.get(i).getId(), null));
+        }
+        return res;
+    }
+
+    private Payment newPayment(PaymentRequest req, Long schoolId) {
+        Payment p = new Payment();
+        p.setSchoolId(schoolId);
+        p.setInvoice(entityManager.getReference(FeeInvoice.class, req.invoiceId()));
+        p.setAmount(req.amount());
+        p.setMethod(method(req));
+        p.setIdempotencyKey(req.idempotencyKey());
+        return p;
+    }
+
+    // The earlier payment with the request's key, or IdempotencyKeyReusedException if it was a different one.
+    private Map<String, Object> findReplay(PaymentRequest req) {
+        return paymentRepository.findBySchoolIdAndIdempotencyKey(req.schoolId(), req.idempotencyKey())
+                .map(p -> {
+                    if (!samePayment(req, p.getInvoice().getId(), p.getAmount(), p.getMethod())) {
+                        throw new IdempotencyKeyReusedException();
+                    }
+                    return result(p.getId(), invoiceRepository.findBalanceById(p.getInvoice().getId()).orElseThrow(), true);
+                })
+                .orElse(null);
+    }
+
+    /**
+     * Whether a request is the payment recorded with its key: same invoice, amount and method.
+     */
+    static boolean samePayment(PaymentRequest req, Long invoiceId, Integer amount, String method) {
+        return Objects.equals(req.invoiceId(), invoiceId) && Objects.equals(req.amount(), amount)
+                && method(req).equals(method);
+    }
+
+    static String method(PaymentRequest req) {
+        return req.method() == null ? "CASH" : req.method();
+    }
+
+    private static Map<String, Object> result(Long paymentId, InvoiceBalance b, boolean duplicate) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("paymentId", paymentId);
+        m.put("status", b.getStatus());
+        m.put("paidAmount", b.getPaidAmount() == null ? 0 : b.getPaidAmount());
+        m.put("duplicate", duplicate);
+        return m;
+    }
+
+    static void validate(PaymentRequest req) {
+        String error = validationError(req);
+        if (error != null) throw new IllegalArgumentException(error);
+    }
+
+    static String validationError(PaymentRequest req) {
+        if (req.invoiceId() == null || req.amount() == null) return "Missing fields";
+        if (req.amount() <= 0) return "Amount must be positive";
+        if (req.idempotencyKey() != null && req.idempotencyKey().length() > 100) return "Idempotency key too long";
+        if (req.method() != null && req.method().length() > 255) return "Method too long";
+        return null;
+    }
+}
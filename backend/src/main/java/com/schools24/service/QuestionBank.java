@@ -0,0 +1,200 @@
+package com.schools24.service;
+
+import com.schools24.domain.Difficulty;
+import com.schools24.repository.QuestionIndexRow;
+import com.schools24.repository.QuestionRepository;
+import com.schools24.repository.QuestionText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Question ids by (topic, grade, difficulty), held as primitive arrays so drawing a random paper
+ * runs no query and allocates little. Question text is loaded when a question is first drawn and
+ * kept in a bounded LRU cache. New questions are picked up by a periodic scan of ids above the
+ * ones already indexed; questions are not edited in place, so indexed entries never go stale.
+ */
+@Component
+public class QuestionBank {
+    private static final Logger log = LoggerFactory.getLogger(QuestionBank.class);
+    private static final int LOAD_CHUNK = 5_000;
+    private static final int RESCAN_IDS = 1_000;
+    public static final int MAX_PAPER = 100;
+
+    /**
+     * Grade 0 holds questions without a grade.
+     */
+    public record BankKey(long topicId, int grade, Difficulty difficulty) {
+    }
+
+    // Appends are serialised on the bucket; readers take size first, so the array they read next
+    // holds at least that many ids.
+    private static final class Bucket {
+        volatile long[] ids = new long[16];
+        volatile int size;
+
+        synchronized void add(long id) {
+            long[] a = ids;
+            if (size == a.length) ids = a = Arrays.copyOf(a, a.length * 2);
+            a[size] = id;
+            size = size + 1;
+        }
+    }
+
+    private final QuestionRepository questionRepository;
+    private final Map<BankKey, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Map<Long, QuestionText> texts;
+    private final Object refreshLock = new Object();
+    // A question may commit after one with a higher id, so each scan re-reads the last
+    // RESCAN_IDS ids below the highest indexed one; recent holds those ids so none is added twice.
+    private long highest;
+    private final Set<Long> recent = new HashSet<>();
+    private volatile boolean loaded;
+    private volatile int indexed;
+
+    public QuestionBank(QuestionRepository questionRepository, Environment env) {
+        this.questionRepository = questionRepository;
+        int textCacheSize = env.getProperty("schools24.questions.text-cache-size", Integer.class, 20_000);
+        this.texts = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, QuestionText> eldest) {
+                return size() > textCacheSize;
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureLoaded() {
+        if (!loaded) {
+            synchronized (refreshLock) {
+                if (!loaded) {
+                    long started = System.nanoTime();
+                    scan();
+                    loaded = true;
+                    log.info("Question bank loaded: {} questions in {} buckets in {} ms", indexed, buckets.size(),
+                            (System.nanoTime() - started) / 1_000_000);
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${schools24.questions.refresh-interval-ms:60000}",
+            initialDelayString = "${schools24.questions.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (!loaded) return;
+        synchronized (refreshLock) {
+            scan();
+        }
+    }
+
+    public int available(BankKey key) {
+        ensureLoaded();
+        Bucket b = buckets.get(key);
+        return b == null ? 0 : b.size;
+    }
+
+    /**
+     * Up to {@code count} distinct question ids from the bucket, in random order. Picks positions
+     * with Floyd's algorithm, so the cost depends on count, not on the bucket size.
+     */
+    public long[] sample(BankKey key, int count) {
+        ensureLoaded();
+        Bucket b = buckets.get(key);
+        if (b == null) return new long[0];
+        int n = b.size;
+        long[] ids = b.ids;
+        int k = Math.min(Math.min(count, MAX_PAPER), n);
+        int[] picked = new int[k];
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        for (int j = n - k, m = 0; j < n; j++, m++) {
+            int t = rnd.nextInt(j + 1);
+            picked[m] = contains(picked, m, t) ? j : t;
+        }
+        long[] res = new long[k];
+        for (int i = k - 1; i >= 0; i--) {
+            int s = rnd.nextInt(i + 1);
+            int p = picked[s];
+            picked[s] = picked[i];
+            res[i] = ids[p];
+        }
+        return res;
+    }
+
+    /**
+     * Texts for the given ids in the same order, loading the uncached ones with one query. Ids
+     * that no longer exist are skipped.
+     */
+    public List<QuestionText> texts(long[] ids) {
+        List<Long> missing = new ArrayList<>();
+        for (long id : ids) {
+            if (!texts.containsKey(id)) missing.add(id);
+        }
+        Map<Long, QuestionText> loadedNow = new HashMap<>();
+        if (!missing.isEmpty()) {
+            for (QuestionText t : questionRepository.findTextsByIdIn(missing)) {
+                loadedNow.put(t.id(), t);
+                texts.put(t.id(), t);
+            }
+        }
+        List<QuestionText> res = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            QuestionText t = loadedNow.get(id);
+            if (t == null) t = texts.get(id);
+            if (t != null) res.add(t);
+        }
+        return res;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("questions", indexed);
+        res.put("buckets", buckets.size());
+        res.put("cachedTexts", texts.size());
+        return res;
+    }
+
+    private static boolean contains(int[] a, int len, int v) {
+        for (int i = 0; i < len; i++) {
+            if (a[i] == v) return true;
+        }
+        return false;
+    }
+
+    private void scan() {
+        long after = Math.max(0, highest - RESCAN_IDS);
+        int added = 0;
+        while (true) {
+            List<QuestionIndexRow> rows = questionRepository.findIndexRowsAfter(after, Limit.of(LOAD_CHUNK));
+            for (QuestionIndexRow r : rows) {
+                if (!recent.add(r.id())) continue;
+                if (r.topicId() == null || r.difficulty() == null) continue;
+                int grade = r.classGrade() == null ? 0 : r.classGrade();
+                buckets.computeIfAbsent(new BankKey(r.topicId(), grade, r.difficulty()), k -> new Bucket()).add(r.id());
+                added++;
+            }
+            if (!rows.isEmpty()) after = rows.get(rows.size() - 1).id();
+            long settled = after - RESCAN_IDS;
+            recent.removeIf(id -> id <= settled);
+            if (rows.size() < LOAD_CHUNK) break;
+        }
+        highest = Math.max(highest, after);
+        indexed += added;
+    }
+}
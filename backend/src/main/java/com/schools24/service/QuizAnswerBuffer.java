@@ -0,0 +1,431 @@
+package com.schools24.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for quiz answers. Answers are kept per session (a re-answered question
+ * replaces the buffered answer) and written by one flusher thread with batched upserts, when
+ * {@code schools24.quiz.flush-batch} answers are waiting or every
+ * {@code schools24.quiz.flush-interval-ms}, whichever comes first.
+ * <p>
+ * At most {@code schools24.quiz.buffer-capacity} answers wait at a time; when full,
+ * {@link #offer} waits up to {@code schools24.quiz.offer-timeout-ms} for room and then throws
+ * {@link QuizBufferFullException}. A failed write is put back and retried; answers newer than
+ * the failed ones win. A batch the database refuses (e.g. an answer to a session it does not
+ * have) is split until the refused answers are found; those are set aside in the dead-letter
+ * file ({@code answers-dead-letter.log} in the journal directory) instead of being retried.
+ * {@link #flushSession} writes one session's answers before returning and is what a finished
+ * quiz is scored from.
+ * <p>
+ * An answer is acknowledged only once it is also in a local {@link Journal} in
+ * {@code schools24.quiz.journal.dir} (fsync'd, shared with the answers journaled at the same
+ * time). How far the journal has been written is kept in {@code quiz_journal}, updated after
+ * each flush that moves it. After a crash the answers journaled after that position are replayed
+ * in order into the buffer, so the latest answer to each question is written again; the upsert
+ * makes that safe. Segments are deleted once every answer in them has been written or replaced
+ * by a newer one. With {@code schools24.quiz.journal.enabled=false} buffered answers are lost if
+ * the process dies.
+ */
+@Component
+public class QuizAnswerBuffer {
+    private static final Logger log = LoggerFactory.getLogger(QuizAnswerBuffer.class);
+    private static final String UPSERT_SQL =
+            "insert into quiz_attempt_details (session_id, question_id, student_answer, is_correct, answered_at) " +
+            "values (?, ?, ?, ?, ?) on duplicate key update student_answer = values(student_answer), " +
+            "is_correct = values(is_correct), answered_at = values(answered_at)";
+    private static final String POSITION_SQL = "select written_seq from quiz_journal where journal_id = ?";
+    private static final String INSERT_POSITION_SQL = "insert into quiz_journal (journal_id, written_seq) values (?, 0)";
+    private static final String SAVE_POSITION_SQL = "update quiz_journal set written_seq = ? where journal_id = ?";
+
+    public record Answer(long sessionId, long questionId, String answer, Boolean correct, Instant answeredAt) {
+    }
+
+    // Session id, question id, answer, correct (-1 when unknown), time answered.
+    private static final Journal.Codec<Answer> CODEC = new Journal.Codec<>() {
+        @Override
+        public byte[] encode(Answer a) {
+            ByteBuffer b = ByteBuffer.allocate(16 + Journal.stringBytes(a.answer()) + 1 + 12);
+            b.putLong(a.sessionId()).putLong(a.questionId());
+            Journal.putString(b, a.answer());
+            b.put((byte) (a.correct() == null ? -1 : a.correct() ? 1 : 0));
+            b.putLong(a.answeredAt().getEpochSecond()).putInt(a.answeredAt().getNano());
+            return b.array();
+        }
+
+        @Override
+        public Answer decode(ByteBuffer b) {
+            long sessionId = b.getLong();
+            long questionId = b.getLong();
+            String answer = Journal.getString(b);
+            byte correct = b.get();
+            Instant at = Instant.ofEpochSecond(b.getLong(), b.getInt());
+            return new Answer(sessionId, questionId, answer, correct < 0 ? null : correct == 1, at);
+        }
+    };
+
+    // Lets answers replayed from the journal take more room than is free.
+    private static final class Room extends Semaphore {
+        private static final long serialVersionUID = 1L;
+
+        Room(int permits) {
+            super(permits);
+        }
+
+        void take(int permits) {
+            reducePermits(permits);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final int capacity;
+    private final int flushBatch;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final Room room;
+    // Null when the journal is disabled.
+    private final Journal<Answer> journal;
+    private final Path deadLetters;
+    // Guards pending and pendingCount.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushDue = lock.newCondition();
+    private final Map<Long, Map<Long, Answer>> pending = new HashMap<>();
+    private int pendingCount;
+    // Every answer journaled up to here is written or replaced; set by a successful flushAll.
+    private volatile long writtenSeq;
+    // Held while answers are drained and written, so an older answer never overwrites a newer one.
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Thread flusher = new Thread(this::flushLoop, "quiz-answer-flusher");
+    private volatile boolean running = true;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+
+    public QuizAnswerBuffer(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, Environment env) throws IOException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.capacity = env.getProperty("schools24.quiz.buffer-capacity", Integer.class, 50_000);
+        this.flushBatch = env.getProperty("schools24.quiz.flush-batch", Integer.class, 500);
+        this.flushIntervalMs = env.getProperty("schools24.quiz.flush-interval-ms", Long.class, 200L);
+        this.offerTimeoutMs = env.getProperty("schools24.quiz.offer-timeout-ms", Long.class, 100L);
+        this.room = new Room(capacity);
+        if (env.getProperty("schools24.quiz.journal.enabled", Boolean.class, true)) {
+            int segmentMb = env.getProperty("schools24.quiz.journal.segment-mb", Integer.class, 16);
+            Path dir = Path.of(env.getProperty("schools24.quiz.journal.dir", "quiz-journal"));
+            this.journal = new Journal<>(dir, "answers", CODEC, segmentMb * 1024 * 1024, batch -> { });
+            this.deadLetters = dir.resolve("answers-dead-letter.log");
+        } else {
+            this.journal = null;
+            this.deadLetters = null;
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (journal != null) replay();
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Buffers the answer and, with the journal enabled, returns once it is on disk. The answer
+     * goes into the buffer before the journal, so whenever a flush has written everything up to
+     * the journal's position, that includes this answer or a newer one.
+     */
+    public void offer(Answer a) {
+        buffer(a);
+        if (journal == null) return;
+        try {
+            journal.append(a);
+        } catch (IllegalStateException e) {
+            throw new QuizBufferFullException(); // shutting down
+        }
+    }
+
+    private void buffer(Answer a) {
+        if (replace(a)) return;
+        try {
+            if (!room.tryAcquire(offerTimeoutMs, TimeUnit.MILLISECONDS)) throw new QuizBufferFullException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QuizBufferFullException();
+        }
+        lock.lock();
+        try {
+            if (pending.computeIfAbsent(a.sessionId(), k -> new LinkedHashMap<>()).put(a.questionId(), a) != null) {
+                room.release(); // replaced while waiting for room
+            } else if (++pendingCount >= flushBatch) {
+                flushDue.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Questions of a session that are buffered but not yet written.
+     */
+    public List<Long> pendingQuestionIds(long sessionId) {
+        lock.lock();
+        try {
+            Map<Long, Answer> m = pending.get(sessionId);
+            return m == null ? List.of() : List.copyOf(m.keySet());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the session's buffered answers now; throws if the write fails (they stay buffered).
+     */
+    public void flushSession(long sessionId) {
+        writeLock.lock();
+        try {
+            List<Answer> batch;
+            lock.lock();
+            try {
+                Map<Long, Answer> m = pending.remove(sessionId);
+                if (m == null) return;
+                batch = new ArrayList<>(m.values());
+                pendingCount -= batch.size();
+            } finally {
+                lock.unlock();
+            }
+            write(batch);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            m.put("pending", pendingCount);
+            m.put("sessions", pending.size());
+        } finally {
+            lock.unlock();
+        }
+        m.put("capacity", capacity);
+        if (journal != null) {
+            m.put("journaledSeq", journal.durableSeq());
+            m.put("writtenSeq", writtenSeq);
+            m.put("segments", journal.segments());
+            m.put("syncs", journal.syncs());
+        }
+        m.put("written", written.get());
+        m.put("failedWrites", failedWrites.get());
+        m.put("deadLettered", deadLettered.get());
+        return m;
+    }
+
+    private boolean replace(Answer a) {
+        lock.lock();
+        try {
+            Map<Long, Answer> m = pending.get(a.sessionId());
+            if (m == null || !m.containsKey(a.questionId())) return false;
+            m.put(a.questionId(), a);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        long backoffMs = flushIntervalMs;
+        while (running) {
+            lock.lock();
+            try {
+                if (pendingCount < flushBatch) flushDue.await(backoffMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                if (!running) break;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                flushAll();
+                backoffMs = flushIntervalMs;
+            } catch (RuntimeException e) {
+                failedWrites.incrementAndGet();
+                backoffMs = Math.min(backoffMs * 2, 10_000);
+                log.warn("Writing quiz answers failed, retrying in {} ms: {}", backoffMs, e.getMessage());
+            }
+        }
+    }
+
+    private void flushAll() {
+        writeLock.lock();
+        try {
+            List<Answer> batch = new ArrayList<>();
+            long upTo;
+            lock.lock();
+            try {
+                upTo = journal == null ? 0 : journal.durableSeq();
+                for (Map<Long, Answer> m : pending.values()) batch.addAll(m.values());
+                pending.clear();
+                pendingCount = 0;
+            } finally {
+                lock.unlock();
+            }
+            for (int from = 0; from < batch.size(); from += flushBatch) {
+                int to = Math.min(from + flushBatch, batch.size());
+                try {
+                    write(batch.subList(from, to));
+                } catch (RuntimeException e) {
+                    requeue(batch.subList(to, batch.size()));
+                    throw e;
+                }
+            }
+            if (journal == null || upTo == writtenSeq) return;
+            jdbcTemplate.update(SAVE_POSITION_SQL, upTo, journal.id());
+            writtenSeq = upTo;
+            journal.applied(upTo);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Answers journaled after the stored position go back into the buffer, latest last, before
+    // any new answer is taken; they may take more room than the buffer has.
+    private void replay() {
+        List<Long> stored = jdbcTemplate.queryForList(POSITION_SQL, Long.class, journal.id());
+        if (stored.isEmpty()) jdbcTemplate.update(INSERT_POSITION_SQL, journal.id());
+        writtenSeq = stored.isEmpty() ? 0 : stored.get(0);
+        List<Journal.Entry<Answer>> recovered = journal.recovered();
+        lock.lock();
+        try {
+            int added = 0;
+            long from = 0;
+            for (Journal.Entry<Answer> e : recovered) {
+                if (e.seq() <= writtenSeq) continue;
+                if (from == 0) from = e.seq();
+                Answer a = e.value();
+                if (pending.computeIfAbsent(a.sessionId(), k -> new LinkedHashMap<>()).put(a.questionId(), a) == null) added++;
+            }
+            pendingCount += added;
+            room.take(added);
+            if (added > 0) log.info("Replaying {} journaled quiz answers from {}", added, from);
+        } finally {
+            lock.unlock();
+        }
+        recovered.clear();
+        journal.applied(writtenSeq);
+    }
+
+    // On failure the answers go back unless a newer answer to the same question arrived meanwhile.
+    // A batch the database refuses is split until the answers it refuses are found and set aside.
+    private void write(List<Answer> batch) {
+        if (batch.isEmpty()) return;
+        try {
+            Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+            tx.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, batch, batch.size(), (ps, a) -> {
+                ps.setLong(1, a.sessionId());
+                ps.setLong(2, a.questionId());
+                ps.setString(3, a.answer());
+                ps.setObject(4, a.correct());
+                ps.setTimestamp(5, Timestamp.from(a.answeredAt()), utc);
+            }));
+        } catch (DataIntegrityViolationException e) {
+            if (batch.size() == 1) {
+                deadLetter(batch.get(0), e);
+                return;
+            }
+            int half = batch.size() / 2;
+            try {
+                write(batch.subList(0, half));
+            } catch (RuntimeException again) {
+                requeue(batch.subList(half, batch.size()));
+                throw again;
+            }
+            write(batch.subList(half, batch.size()));
+            return;
+        } catch (RuntimeException e) {
+            requeue(batch);
+            throw e;
+        }
+        written.addAndGet(batch.size());
+        room.release(batch.size());
+    }
+
+    private void deadLetter(Answer a, DataIntegrityViolationException e) {
+        deadLettered.incrementAndGet();
+        room.release();
+        log.warn("Setting aside quiz answer to question {} of session {}: {}", a.questionId(), a.sessionId(),
+                e.getMostSpecificCause().getMessage());
+        if (deadLetters == null) return;
+        String line = a.sessionId() + "," + a.questionId() + "," + a.answer() + "," + a.correct() + "," + a.answeredAt() + "\n";
+        try {
+            Files.writeString(deadLetters, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException io) {
+            log.error("Could not write quiz answer to {}: {}", deadLetters, io.getMessage());
+        }
+    }
+
+    private void requeue(List<Answer> batch) {
+        lock.lock();
+        try {
+            int replaced = 0;
+            for (Answer a : batch) {
+                if (pending.computeIfAbsent(a.sessionId(), k -> new LinkedHashMap<>()).putIfAbsent(a.questionId(), a) == null) {
+                    pendingCount++;
+                } else {
+                    replaced++;
+                }
+            }
+            if (replaced > 0) room.release(replaced);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Answers still unwritten after the retries are replayed from the journal on the next start.
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (journal != null) journal.close();
+        running = false;
+        flusher.interrupt();
+        flusher.join(5_000);
+        for (int attempt = 0; attempt < 3; attempt++) {
+            try {
+                flushAll();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Writing quiz answers on shutdown failed: {}", e.getMessage());
+            }
+        }
+        if (journal != null) {
+            log.warn("{} quiz answers will be written on the next start", pendingCount);
+        } else {
+            log.error("{} quiz answers were not written", pendingCount);
+        }
+    }
+}
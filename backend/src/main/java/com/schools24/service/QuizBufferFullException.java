@@ -0,0 +1,13 @@
+package com.schools24.service;
+
+/**
+ * Thrown when the answer buffer stayed full for longer than an answer may wait, or when the
+ * server is shutting down and no longer journals answers.
+ */
+public class QuizBufferFullException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public QuizBufferFullException() {
+        super("Too many answers waiting to be saved, retry shortly");
+    }
+}
@@ -0,0 +1,205 @@
+package com.schools24.service;
+
+import com.schools24.domain.Difficulty;
+import com.schools24.domain.QuizSession;
+import com.schools24.domain.Subject;
+import com.schools24.domain.Topic;
+import com.schools24.domain.User;
+import com.schools24.repository.QuizAttemptDetailRepository;
+import com.schools24.repository.QuizSessionRepository;
+import com.schools24.repository.QuizSessionState;
+import com.schools24.repository.SubjectRepository;
+import com.schools24.repository.TopicRepository;
+import com.schools24.repository.UserRepository;
+import com.schools24.tenant.TenantContext;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Quiz sessions and answer ingestion. Open sessions are tracked in memory and answers are graded
+ * against {@link AnswerKeyCache}, so recording an answer normally runs no query; answers are
+ * persisted by {@link QuizAnswerBuffer}. Finishing a quiz writes its buffered answers before
+ * scoring it from the database.
+ */
+@Service
+public class QuizService {
+    private static final Set<String> OPTIONS = Set.of("A", "B", "C", "D");
+    private static final Duration OPEN_SESSION_RETENTION = Duration.ofHours(12);
+
+    public record FinishResult(Long sessionId, int score, long answered, Instant endTime) {
+    }
+
+    private static final class OpenSession {
+        final long studentId;
+        final Long schoolId;
+        final long topicId;
+        final Instant startTime;
+        // Answers take the read lock; finishing takes the write lock, so no answer slips in after.
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        volatile boolean finished;
+
+        OpenSession(long studentId, Long schoolId, long topicId, Instant startTime) {
+            this.studentId = studentId;
+            this.schoolId = schoolId;
+            this.topicId = topicId;
+            this.startTime = startTime;
+        }
+    }
+
+    private final QuizSessionRepository sessionRepository;
+    private final QuizAttemptDetailRepository attemptRepository;
+    private final UserRepository userRepository;
+    private final SubjectRepository subjectRepository;
+    private final TopicRepository topicRepository;
+    private final AnswerKeyCache answerKeys;
+    private final QuizAnswerBuffer answerBuffer;
+    private final LeaderboardService leaderboard;
+    private final Map<Long, OpenSession> open = new ConcurrentHashMap<>();
+
+    public QuizService(QuizSessionRepository sessionRepository,
+                       QuizAttemptDetailRepository attemptRepository,
+                       UserRepository userRepository,
+                       SubjectRepository subjectRepository,
+                       TopicRepository topicRepository,
+                       AnswerKeyCache answerKeys,
+                       QuizAnswerBuffer answerBuffer,
+                       LeaderboardService leaderboard) {
+        this.sessionRepository = sessionRepository;
+        this.attemptRepository = attemptRepository;
+        this.userRepository = userRepository;
+        this.subjectRepository = subjectRepository;
+        this.topicRepository = topicRepository;
+        this.answerKeys = answerKeys;
+        this.answerBuffer = answerBuffer;
+        this.leaderboard = leaderboard;
+    }
+
+    public QuizSessionState start(Long studentId, Long subjectId, Long topicId, Difficulty difficulty) {
+        User student = userRepository.findById(studentId)
+                .filter(u -> "student".equals(u.getRole()))
+                .orElseThrow(() -> new IllegalArgumentException("Student not found"));
+        Subject subject = subjectRepository.findById(subjectId)
+                .orElseThrow(() -> new IllegalArgumentException("Subject not found"));
+        Topic topic = topicRepository.findById(topicId)
+                .orElseThrow(() -> new IllegalArgumentException("Topic not found"));
+        if (!subject.getId().equals(topic.getSubject().getId())) {
+            throw new IllegalArgumentException("Topic does not belong to this subject");
+        }
+        QuizSession s = new QuizSession();
+        s.setStudent(student);
+        s.setSubject(subject);
+        s.setTopic(topic);
+        s.setDifficulty(difficulty);
+        sessionRepository.save(s);
+        answerKeys.preload(topicId, difficulty);
+        open.put(s.getId(), new OpenSession(studentId, student.getSchoolId(), topicId, s.getStartTime()));
+        return new QuizSessionState(s.getId(), studentId, student.getSchoolId(), topicId, s.getStartTime(), null, s.getScore());
+    }
+
+    /**
+     * Grades and buffers one answer. Returns whether it is correct, or null for a question
+     * without a key. A second answer to the same question replaces the first.
+     */
+    public Boolean answer(Long sessionId, Long questionId, String answer) {
+        OpenSession s = openSession(sessionId);
+        AnswerKeyCache.Key key = answerKeys.get(questionId);
+        if (key == null) throw new IllegalArgumentException("Question not found");
+        if (key.topicId() != s.topicId) throw new IllegalArgumentException("Question is not part of this quiz");
+        String a = answer == null ? "" : answer.trim().toUpperCase(Locale.ROOT);
+        if (!OPTIONS.contains(a)) throw new IllegalArgumentException("Answer must be A, B, C or D");
+        Boolean correct = key.correctOption() == null ? null : key.correctOption().equals(a);
+        s.lock.readLock().lock();
+        try {
+            if (s.finished) throw new IllegalStateException("Quiz already finished");
+            answerBuffer.offer(new QuizAnswerBuffer.Answer(sessionId, questionId, a, correct, Instant.now()));
+        } finally {
+            s.lock.readLock().unlock();
+        }
+        return correct;
+    }
+
+    /**
+     * Closes the quiz, scores it and adds the score to the leaderboard. Finishing twice returns
+     * the first result.
+     */
+    public FinishResult finish(Long sessionId) {
+        // A session no longer in memory (after a restart or eviction) is put back, so that answers
+        // racing with this call see it finished rather than loading their own copy.
+        OpenSession s = open.get(sessionId);
+        if (s == null) {
+            QuizSessionState state = state(sessionId);
+            s = open.computeIfAbsent(sessionId, k -> new OpenSession(state.studentId(), state.schoolId(), state.topicId(), state.startTime()));
+        }
+        TenantContext.checkAccess(s.schoolId);
+        s.lock.writeLock().lock();
+        s.finished = true;
+        s.lock.writeLock().unlock();
+        answerBuffer.flushSession(sessionId);
+        int score = (int) attemptRepository.countBySessionIdAndIsCorrectTrue(sessionId);
+        // Stored times keep microseconds, so this matches what finishing again returns.
+        Instant end = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        if (sessionRepository.finish(sessionId, end, score) == 1) {
+            leaderboard.recordQuiz(s.studentId, sessionId, score, end);
+        } else {
+            QuizSessionState state = sessionRepository.findStateById(sessionId)
+                    .orElseThrow(() -> new NoSuchElementException("Quiz session not found"));
+            score = state.score() == null ? 0 : state.score();
+            end = state.endTime();
+        }
+        return new FinishResult(sessionId, score, attemptRepository.countBySessionId(sessionId), end);
+    }
+
+    public QuizSessionState state(Long sessionId) {
+        QuizSessionState state = sessionRepository.findStateById(sessionId)
+                .orElseThrow(() -> new NoSuchElementException("Quiz session not found"));
+        TenantContext.checkAccess(state.schoolId());
+        return state;
+    }
+
+    /**
+     * Questions answered so far, written or still buffered. With the answer journal disabled,
+     * answers buffered before a crash are missing here, which tells the client what to send again.
+     */
+    public List<Long> answeredQuestionIds(Long sessionId) {
+        Set<Long> ids = new TreeSet<>(attemptRepository.findAnsweredQuestionIds(sessionId));
+        ids.addAll(answerBuffer.pendingQuestionIds(sessionId));
+        return List.copyOf(ids);
+    }
+
+    public int openSessions() {
+        return (int) open.values().stream().filter(s -> !s.finished).count();
+    }
+
+    // Finished quizzes stay until the next run, so an answer that read the session before it was
+    // finished still finds it finished here; abandoned ones drop out of memory, and an answer to
+    // one reloads it from the database.
+    @Scheduled(fixedDelay = 600_000)
+    public void evictStaleSessions() {
+        Instant cutoff = Instant.now().minus(OPEN_SESSION_RETENTION);
+        open.values().removeIf(s -> s.finished || s.startTime.isBefore(cutoff));
+    }
+
+    // The session, if it belongs to the current school.
+    private OpenSession openSession(Long sessionId) {
+        OpenSession s = open.get(sessionId);
+        if (s != null) {
+            TenantContext.checkAccess(s.schoolId);
+            return s;
+        }
+        QuizSessionState state = state(sessionId);
+        if (state.endTime() != null) throw new IllegalStateException("Quiz already finished");
+        return open.computeIfAbsent(sessionId, k -> new OpenSession(state.studentId(), state.schoolId(), state.topicId(), state.startTime()));
+    }
+}
@@ -0,0 +1,148 @@
+package com.schools24.service;
+
+import java.util.SplittableRandom;
+
+/**
+ * Order-statistic treap of (id, score) pairs, highest score first and lower id first among
+ * equal scores. Insert, remove, position and select by position all take O(log n) expected
+ * time, since every node knows the size of its subtree. Not thread-safe.
+ */
+final class RankedSet {
+    record Ranked(long id, long score) {
+    }
+
+    private static final class Node {
+        final long id;
+        final long score;
+        final int priority;
+        int size = 1;
+        Node left, right;
+
+        Node(long id, long score, int priority) {
+            this.id = id;
+            this.score = score;
+            this.priority = priority;
+        }
+    }
+
+    private final SplittableRandom random = new SplittableRandom();
+    private Node root;
+
+    int size() {
+        return size(root);
+    }
+
+    void add(long id, long score) {
+        root = insert(root, new Node(id, score, random.nextInt()));
+    }
+
+    void remove(long id, long score) {
+        root = remove(root, id, score);
+    }
+
+    /**
+     * Number of pairs ordered before (id, score); the pair itself need not be present.
+     */
+    int position(long id, long score) {
+        int before = 0;
+        for (Node t = root; t != null; ) {
+            if (compare(id, score, t) <= 0) {
+                t = t.left;
+            } else {
+                before += size(t.left) + 1;
+                t = t.right;
+            }
+        }
+        return before;
+    }
+
+    /**
+     * Number of pairs with a score strictly above {@code score}; one less than a competition rank.
+     */
+    int countAbove(long score) {
+        return position(Long.MIN_VALUE, score);
+    }
+
+    /**
+     * The pair at a 0-based position, or null past the end.
+     */
+    Ranked select(int position) {
+        if (position < 0) return null;
+        Node t = root;
+        while (t != null) {
+            int left = size(t.left);
+            if (position < left) {
+                t = t.left;
+            } else if (position == left) {
+                return new Ranked(t.id, t.score);
+            } else {
+                position -= left + 1;
+                t = t.right;
+            }
+        }
+        return null;
+    }
+
+    private static int compare(long id, long score, Node t) {
+        if (score != t.score) return score > t.score ? -1 : 1;
+        return Long.compare(id, t.id);
+    }
+
+    private static int size(Node t) {
+        return t == null ? 0 : t.size;
+    }
+
+    private static Node update(Node t) {
+        t.size = 1 + size(t.left) + size(t.right);
+        return t;
+    }
+
+    private Node insert(Node t, Node n) {
+        if (t == null) return n;
+        if (n.priority > t.priority) {
+            Node[] parts = split(t, n.id, n.score);
+            n.left = parts[0];
+            n.right = parts[1];
+            return update(n);
+        }
+        if (compare(n.id, n.score, t) < 0) t.left = insert(t.left, n);
+        else t.right = insert(t.right, n);
+        return update(t);
+    }
+
+    private Node remove(Node t, long id, long score) {
+        if (t == null) return null;
+        int c = compare(id, score, t);
+        if (c == 0) return merge(t.left, t.right);
+        if (c < 0) t.left = remove(t.left, id, score);
+        else t.right = remove(t.right, id, score);
+        return update(t);
+    }
+
+    // Splits into pairs ordered before (id, score) and the rest.
+    private static Node[] split(Node t, long id, long score) {
+        if (t == null) return new Node[2];
+        if (compare(id, score, t) <= 0) {
+            Node[] parts = split(t.left, id, score);
+            t.left = parts[1];
+            parts[1] = update(t);
+            return parts;
+        }
+        Node[] parts = split(t.right, id, score);
+        t.right = parts[0];
+        parts[0] = update(t);
+        return parts;
+    }
+
+    // Every pair in a is ordered before every pair in b.
+    private static Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            return update(a);
+        }
+        b.left = merge(a, b.left);
+        return update(b);
+    }
+}
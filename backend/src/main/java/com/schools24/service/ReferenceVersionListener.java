@@ -0,0 +1,131 @@
+package com.schools24.service;
+
+import com.schools24.domain.FeeHead;
+import com.schools24.domain.School;
+import com.schools24.domain.SchoolClass;
+import com.schools24.domain.Subject;
+import com.schools24.domain.User;
+import com.schools24.service.ReferenceVersions.Change;
+import com.schools24.service.ReferenceVersions.Resource;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bumps {@link ReferenceVersions} for changes made through JPA, just before their transaction
+ * commits and on its connection, so the counters commit or roll back with the change. Class lists
+ * show the class teacher's name, so renaming or deleting a user bumps the user's school's classes,
+ * and fee heads embed their school, so school updates bump its fee heads.
+ */
+@Component
+public class ReferenceVersionListener implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener {
+    private final EntityManagerFactory entityManagerFactory;
+    private final ReferenceVersions versions;
+    private final Map<SharedSessionContractImplementor, Pending> pending = new ConcurrentHashMap<>();
+
+    public ReferenceVersionListener(EntityManagerFactory entityManagerFactory, ReferenceVersions versions) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.versions = versions;
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event.getSession(), event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof User u) {
+            if (renamed(event)) changed(event.getSession(), Resource.CLASSES, u.getSchoolId());
+        } else if (event.getEntity() instanceof School s) {
+            changed(event.getSession(), Resource.FEE_HEADS, s.getId());
+        } else {
+            changed(event.getSession(), event.getEntity());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof User u) changed(event.getSession(), Resource.CLASSES, u.getSchoolId());
+        else changed(event.getSession(), event.getEntity());
+    }
+
+    private void changed(EventSource session, Object entity) {
+        if (entity instanceof SchoolClass c) changed(session, Resource.CLASSES, c.getSchoolId());
+        else if (entity instanceof Subject s) changed(session, Resource.SUBJECTS, s.getSchoolId());
+        else if (entity instanceof FeeHead h) changed(session, Resource.FEE_HEADS, h.getSchool() == null ? null : h.getSchool().getId());
+    }
+
+    private void changed(EventSource session, Resource resource, Long schoolId) {
+        pending.computeIfAbsent(session, s -> {
+            Pending p = new Pending();
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) p);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) p);
+            return p;
+        }).changes.add(new Change(resource, schoolId));
+    }
+
+    // Logins rehash passwords; only a name change shows in the class lists.
+    private static boolean renamed(PostUpdateEvent event) {
+        int[] dirty = event.getDirtyProperties();
+        if (dirty == null) return true;
+        String[] names = event.getPersister().getPropertyNames();
+        for (int i : dirty) {
+            if (names[i].equals("name")) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * The changes of one session's transaction, counted when it is about to commit.
+     */
+    private final class Pending implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+        final Set<Change> changes = new HashSet<>();
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            pending.remove(session);
+            session.doWork(connection -> versions.bump(connection, changes));
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+            pending.remove(session);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.schools24.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Change counters for reference lists, per resource and school, kept in reference_versions so
+ * every server reads the same counter. A change bumps its school's counter in the transaction that
+ * makes it ({@link ReferenceVersionListener} for changes made through JPA, {@link #bump} for JDBC
+ * writes), so a list read after reading the counter holds every change counted so far, and a
+ * client holding a response tagged with the current counter has current data. Unscoped lists use
+ * the sum of the schools' counters, so no single row is bumped by every school's writes.
+ */
+@Component
+public class ReferenceVersions {
+    public enum Resource { CLASSES, SUBJECTS, FEE_HEADS }
+
+    /**
+     * A counter and when it last changed (epoch milliseconds).
+     */
+    public record Version(long value, long changedAtMs) {
+        static final Version INITIAL = new Version(0, 0);
+    }
+
+    /**
+     * A change to one school's list; rows without a school count under school 0.
+     */
+    record Change(Resource resource, long schoolId) {
+        // Bumped in this order, so transactions bumping the same counters do not deadlock.
+        static final Comparator<Change> ORDER = Comparator.comparing(Change::resource).thenComparingLong(Change::schoolId);
+
+        Change(Resource resource, Long schoolId) {
+            this(resource, schoolId == null ? 0 : schoolId.longValue());
+        }
+    }
+
+    private static final String BUMP_SQL = "insert into reference_versions (resource, school_id, version, changed_at_ms) " +
+            "values (?, ?, 1, ?) on duplicate key update version = version + 1, changed_at_ms = values(changed_at_ms)";
+    private static final String SCHOOL_SQL = "select version, changed_at_ms from reference_versions " +
+            "where resource = ? and school_id = ?";
+    private static final String ALL_SQL = "select coalesce(sum(version), 0), coalesce(max(changed_at_ms), 0) " +
+            "from reference_versions where resource = ?";
+    private static final RowMapper<Version> VERSION = (rs, n) -> new Version(rs.getLong(1), rs.getLong(2));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReferenceVersions(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * The counter of one school's list, or of the list across schools when schoolId is null.
+     */
+    public Version version(Resource resource, Long schoolId) {
+        List<Version> rows = schoolId == null
+                ? jdbcTemplate.query(ALL_SQL, VERSION, resource.name())
+                : jdbcTemplate.query(SCHOOL_SQL, VERSION, resource.name(), schoolId);
+        return rows.isEmpty() ? Version.INITIAL : rows.get(0);
+    }
+
+    /**
+     * Counts a change to one school's list in the caller's transaction; for writes made with JDBC,
+     * which {@link ReferenceVersionListener} does not see.
+     */
+    public void bump(Resource resource, Long schoolId) {
+        Change c = new Change(resource, schoolId);
+        jdbcTemplate.update(BUMP_SQL, c.resource().name(), c.schoolId(), System.currentTimeMillis());
+    }
+
+    /**
+     * Counts changes on a transaction's own connection, in {@link Change#ORDER}.
+     */
+    void bump(Connection connection, Collection<Change> changes) throws SQLException {
+        long now = System.currentTimeMillis();
+        try (PreparedStatement ps = connection.prepareStatement(BUMP_SQL)) {
+            for (Change c : changes.stream().sorted(Change.ORDER).toList()) {
+                ps.setString(1, c.resource().name());
+                ps.setLong(2, c.schoolId());
+                ps.setLong(3, now);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+}
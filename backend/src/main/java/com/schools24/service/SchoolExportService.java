@@ -0,0 +1,102 @@
+package com.schools24.service;
+
+import com.schools24.repository.SchoolExportRow;
+import com.schools24.repository.SchoolRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the school CSV export straight to an output stream. Rows are read in
+ * fixed-size keyset chunks (id > last id) so memory use does not grow with the
+ * number of schools and deep chunks cost the same as the first one.
+ */
+@Service
+public class SchoolExportService {
+    static final int CHUNK_SIZE = 500;
+
+    private static final String BASIC_HEADER = "id,code,name,domain,email\n";
+    private static final String EXTENDED_HEADER = "id,code,name,domain,email,address,city,state,country," +
+            "lockTeacherCreation,lockStudentCreation,createdAt\n";
+
+    private final SchoolRepository schoolRepository;
+
+    public SchoolExportService(SchoolRepository schoolRepository) {
+        this.schoolRepository = schoolRepository;
+    }
+
+    public void writeCsv(String q, boolean extended, boolean gzip, OutputStream out) throws IOException {
+        GZIPOutputStream gz = gzip ? new GZIPOutputStream(out, 8192) : null;
+        Writer w = new BufferedWriter(new OutputStreamWriter(gz != null ? gz : out, StandardCharsets.UTF_8), 16 * 1024);
+        w.write(extended ? EXTENDED_HEADER : BASIC_HEADER);
+        boolean filtered = q != null && !q.isBlank();
+        PageRequest chunk = PageRequest.of(0, CHUNK_SIZE);
+        long afterId = 0L;
+        while (true) {
+            List<SchoolExportRow> rows = filtered
+                    ? schoolRepository.findExportRowsAfterMatching(afterId, q, chunk)
+                    : schoolRepository.findExportRowsAfter(afterId, chunk);
+            for (SchoolExportRow r : rows) {
+                writeRow(w, r, extended);
+            }
+            w.flush();
+            if (rows.size() < CHUNK_SIZE) break;
+            afterId = rows.get(rows.size() - 1).id();
+        }
+        if (gz != null) gz.finish();
+        out.flush();
+    }
+
+    public static void writeRow(Writer w, SchoolExportRow r, boolean extended) throws IOException {
+        w.write(String.valueOf(r.id()));
+        w.write(',');
+        writeEscaped(w, r.code());
+        w.write(',');
+        writeEscaped(w, r.name());
+        w.write(',');
+        writeEscaped(w, r.domain());
+        w.write(',');
+        writeEscaped(w, r.email());
+        if (extended) {
+            w.write(',');
+            writeEscaped(w, r.address());
+            w.write(',');
+            writeEscaped(w, r.city());
+            w.write(',');
+            writeEscaped(w, r.state());
+            w.write(',');
+            writeEscaped(w, r.country());
+            w.write(',');
+            w.write(String.valueOf(Boolean.TRUE.equals(r.lockTeacherCreation())));
+            w.write(',');
+            w.write(String.valueOf(Boolean.TRUE.equals(r.lockStudentCreation())));
+            w.write(',');
+            if (r.createdAt() != null) w.write(r.createdAt().toString());
+        }
+        w.write('\n');
+    }
+
+    // Quotes the value and doubles embedded quotes without building an intermediate string per cell.
+    public static void writeEscaped(Writer w, String v) throws IOException {
+        if (v == null) return;
+        w.write('"');
+        int start = 0;
+        for (int i = 0; i < v.length(); i++) {
+            if (v.charAt(i) == '"') {
+                w.write(v, start, i - start + 1);
+                w.write('"');
+                start = i + 1;
+            }
+        }
+        w.write(v, start, v.length() - start);
+        w.write('"');
+    }
+}
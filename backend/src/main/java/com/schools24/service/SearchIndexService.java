@@ -0,0 +1,103 @@
+package com.schools24.service;
+
+import com.schools24.domain.School;
+import com.schools24.domain.User;
+import com.schools24.repository.SchoolExportRow;
+import com.schools24.repository.SchoolRepository;
+import com.schools24.repository.UserRepository;
+import com.schools24.repository.UserSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Typeahead indexes for schools (name, code) and active users (name, email, userId). They are rebuilt
+ * from the database once the application is ready and then kept current by
+ * {@link SearchIndexListener}. Until the first build finishes {@link #isReady()} is false and
+ * callers should fall back to the database.
+ */
+@Service
+public class SearchIndexService {
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexService.class);
+    private static final int CHUNK_SIZE = 1000;
+
+    private final SchoolRepository schoolRepository;
+    private final UserRepository userRepository;
+    private final TypeaheadIndex schools = new TypeaheadIndex();
+    private final TypeaheadIndex users = new TypeaheadIndex();
+    private volatile boolean ready;
+
+    public SearchIndexService(SchoolRepository schoolRepository, UserRepository userRepository) {
+        this.schoolRepository = schoolRepository;
+        this.userRepository = userRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long[] searchSchools(String q, int limit) {
+        return schools.search(q, limit);
+    }
+
+    /**
+     * Every matching school id in ascending order, for paging through all matches.
+     */
+    public long[] matchSchools(String q) {
+        return schools.matchAll(q);
+    }
+
+    public long[] searchUsers(String q, int limit) {
+        return users.search(q, limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        schools.clear();
+        users.clear();
+        long afterId = 0;
+        List<SchoolExportRow> schoolRows;
+        do {
+            schoolRows = schoolRepository.findExportRowsAfter(afterId, PageRequest.of(0, CHUNK_SIZE));
+            for (SchoolExportRow s : schoolRows) schools.put(s.id(), s.name(), s.code());
+            if (!schoolRows.isEmpty()) afterId = schoolRows.get(schoolRows.size() - 1).id();
+        } while (schoolRows.size() == CHUNK_SIZE);
+        afterId = 0;
+        List<UserSummary> userRows;
+        do {
+            userRows = userRepository.findSummariesByIsActiveTrueAndIdGreaterThanOrderByIdAsc(afterId, Limit.of(CHUNK_SIZE));
+            for (UserSummary u : userRows) users.put(u.id(), u.name(), u.email(), u.userId());
+            if (!userRows.isEmpty()) afterId = userRows.get(userRows.size() - 1).id();
+        } while (userRows.size() == CHUNK_SIZE);
+        ready = true;
+        log.info("Search index built: {} schools, {} users in {} ms", schools.size(), users.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    void schoolChanged(School s) {
+        schools.put(s.getId(), s.getName(), s.getCode());
+    }
+
+    void schoolRemoved(Long id) {
+        schools.remove(id);
+    }
+
+    void userChanged(User u) {
+        if (!Boolean.TRUE.equals(u.getIsActive())) {
+            users.remove(u.getId());
+            return;
+        }
+        users.put(u.getId(), u.getName(), u.getEmail(), u.getUserId());
+    }
+
+    void userRemoved(Long id) {
+        users.remove(id);
+    }
+}
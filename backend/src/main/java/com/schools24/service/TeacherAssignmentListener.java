@@ -0,0 +1,77 @@
+package com.schools24.service;
+
+import com.schools24.domain.ClassSubjectTeacher;
+import com.schools24.domain.SchoolClass;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops a school from {@link TeacherAssignmentService} when an assignment or class of it changes
+ * through JPA, so the next lookup reloads it from the committed rows. Patching it here instead
+ * could apply concurrent changes in another order than they committed.
+ */
+@Component
+public class TeacherAssignmentListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+    private final EntityManagerFactory entityManagerFactory;
+    private final TeacherAssignmentService assignments;
+
+    public TeacherAssignmentListener(EntityManagerFactory entityManagerFactory, TeacherAssignmentService assignments) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.assignments = assignments;
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof ClassSubjectTeacher a) assignments.invalidate(a.getSchoolId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof ClassSubjectTeacher a) assignments.invalidate(a.getSchoolId());
+        else if (event.getEntity() instanceof SchoolClass c) assignments.invalidate(c.getSchoolId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof ClassSubjectTeacher a) assignments.invalidate(a.getSchoolId());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == ClassSubjectTeacher.class || type == SchoolClass.class;
+    }
+}
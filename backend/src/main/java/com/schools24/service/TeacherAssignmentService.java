@@ -0,0 +1,201 @@
+package com.schools24.service;
+
+import com.schools24.repository.AssignmentIndexRow;
+import com.schools24.repository.ClassGradeRow;
+import com.schools24.repository.ClassSubjectTeacherRepository;
+import com.schools24.repository.SchoolClassRepository;
+import com.schools24.repository.SubjectRepository;
+import com.schools24.repository.UserRepository;
+import com.schools24.tenant.TenantContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Which teacher teaches each subject of each class, held in memory per school
+ * ({@link TeacherAssignments}) so "classes of a teacher", "teachers of a subject in a grade" and
+ * teacher loads run no query. A school is loaded on its first lookup and dropped again when its
+ * assignments change: by assignment sheets applied here once they commit, and by
+ * {@link TeacherAssignmentListener} for changes made through JPA.
+ */
+@Service
+public class TeacherAssignmentService {
+    static final int MAX_SHEET = 10_000;
+    private static final String UPSERT_SQL = "insert into class_subject_teacher (school_id, class_id, subject_id, teacher_id) " +
+            "values (?, ?, ?, ?) on duplicate key update teacher_id = values(teacher_id)";
+    private static final String DELETE_SQL = "delete from class_subject_teacher where class_id = ? and subject_id = ?";
+
+    public record Assignment(long classId, String grade, long subjectId, long teacherId) {
+    }
+
+    public record TeacherLoad(long teacherId, int assignments, int classes) {
+    }
+
+    /**
+     * One row of an assignment sheet; a null teacher removes the class's subject assignment.
+     */
+    public record SheetRow(Long classId, Long subjectId, Long teacherId) {
+    }
+
+    private record Cell(long classId, long subjectId) {
+    }
+
+    private final ClassSubjectTeacherRepository assignmentRepository;
+    private final SchoolClassRepository classRepository;
+    private final SubjectRepository subjectRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final Map<Long, TeacherAssignments> schools = new ConcurrentHashMap<>();
+    // Serialises loads and invalidations, so a change committed while a school loads is not lost.
+    private final Object lock = new Object();
+
+    public TeacherAssignmentService(ClassSubjectTeacherRepository assignmentRepository,
+                                    SchoolClassRepository classRepository,
+                                    SubjectRepository subjectRepository,
+                                    UserRepository userRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager) {
+        this.assignmentRepository = assignmentRepository;
+        this.classRepository = classRepository;
+        this.subjectRepository = subjectRepository;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    public Map<String, Object> ofTeacher(Long schoolId, long teacherId) {
+        TeacherAssignments a = school(schoolId);
+        TeacherLoad load = a.load(teacherId);
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("teacherId", teacherId);
+        m.put("assignments", a.ofTeacher(teacherId));
+        m.put("load", load != null ? load : new TeacherLoad(teacherId, 0, 0));
+        return m;
+    }
+
+    public Map<String, Object> ofSubject(Long schoolId, long subjectId, String grade) {
+        List<Assignment> rows = school(schoolId).ofSubject(subjectId, grade);
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("subjectId", subjectId);
+        m.put("grade", grade);
+        m.put("teacherIds", rows.stream().mapToLong(Assignment::teacherId).sorted().distinct().toArray());
+        m.put("assignments", rows);
+        return m;
+    }
+
+    public Map<String, Object> loads(Long schoolId) {
+        TeacherAssignments a = school(schoolId);
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("schoolId", schoolId);
+        m.put("assignments", a.size());
+        m.put("teachers", a.loads());
+        return m;
+    }
+
+    /**
+     * Applies an assignment sheet in one transaction: rows with a teacher are inserted or replace
+     * the class's teacher for that subject, rows without one remove it. Every class, subject and
+     * teacher must belong to the school, or nothing is written.
+     */
+    public Map<String, Object> apply(Long schoolId, List<SheetRow> sheet) {
+        TenantContext.checkAccess(schoolId);
+        if (sheet.isEmpty()) throw new IllegalArgumentException("The sheet has no rows");
+        if (sheet.size() > MAX_SHEET) throw new IllegalArgumentException("A sheet has at most " + MAX_SHEET + " rows");
+        Set<Cell> cells = new HashSet<>();
+        Set<Long> classIds = new HashSet<>();
+        Set<Long> subjectIds = new HashSet<>();
+        Set<Long> teacherIds = new HashSet<>();
+        for (SheetRow r : sheet) {
+            if (r.classId() == null || r.subjectId() == null) throw new IllegalArgumentException("Every row needs classId and subjectId");
+            if (!cells.add(new Cell(r.classId(), r.subjectId()))) {
+                throw new IllegalArgumentException("Class " + r.classId() + " and subject " + r.subjectId() + " appear twice");
+            }
+            classIds.add(r.classId());
+            subjectIds.add(r.subjectId());
+            if (r.teacherId() != null) teacherIds.add(r.teacherId());
+        }
+        Set<Long> foundClasses = new HashSet<>();
+        for (ClassGradeRow c : classRepository.findGrades(schoolId, classIds)) foundClasses.add(c.classId());
+        missing("Class", classIds, foundClasses);
+        missing("Subject", subjectIds, subjectRepository.findIdsInSchool(schoolId, subjectIds));
+        if (!teacherIds.isEmpty()) {
+            missing("Teacher", teacherIds, userRepository.findActiveIdsBySchoolAndRoleIn(schoolId, "teacher", teacherIds));
+        }
+
+        TeacherAssignments before = school(schoolId);
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        int assigned = 0, removed = 0;
+        for (SheetRow r : sheet) {
+            long current = before.teacher(r.classId(), r.subjectId());
+            if (r.teacherId() == null) {
+                deletes.add(new Object[]{r.classId(), r.subjectId()});
+                if (current >= 0) removed++;
+            } else {
+                upserts.add(new Object[]{schoolId, r.classId(), r.subjectId(), r.teacherId()});
+                if (current != r.teacherId()) assigned++;
+            }
+        }
+        tx.executeWithoutResult(status -> {
+            if (!upserts.isEmpty()) jdbcTemplate.batchUpdate(UPSERT_SQL, upserts);
+            if (!deletes.isEmpty()) jdbcTemplate.batchUpdate(DELETE_SQL, deletes);
+        });
+        // Patching the copy here could apply two concurrent sheets in the opposite order to their
+        // commits, so it is dropped and the next lookup reads the committed rows.
+        invalidate(schoolId);
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("schoolId", schoolId);
+        m.put("rows", sheet.size());
+        m.put("assigned", assigned);
+        m.put("removed", removed);
+        m.put("unchanged", sheet.size() - assigned - removed);
+        return m;
+    }
+
+    /**
+     * Drops a school's assignments, to be reloaded on its next lookup.
+     */
+    void invalidate(Long schoolId) {
+        if (schoolId == null) return;
+        synchronized (lock) {
+            schools.remove(schoolId);
+        }
+    }
+
+    private TeacherAssignments school(Long schoolId) {
+        TenantContext.checkAccess(schoolId);
+        TeacherAssignments a = schools.get(schoolId);
+        if (a != null) return a;
+        synchronized (lock) {
+            a = schools.get(schoolId);
+            if (a == null) {
+                List<Assignment> rows = new ArrayList<>();
+                for (AssignmentIndexRow r : TenantContext.unscoped(() -> assignmentRepository.findIndexRows(schoolId))) {
+                    rows.add(new Assignment(r.classId(), r.grade(), r.subjectId(), r.teacherId()));
+                }
+                a = rows.isEmpty() ? TeacherAssignments.EMPTY : new TeacherAssignments(rows);
+                schools.put(schoolId, a);
+            }
+            return a;
+        }
+    }
+
+    private static void missing(String what, Set<Long> requested, Collection<Long> found) {
+        Set<Long> rest = new HashSet<>(requested);
+        rest.removeAll(found);
+        if (!rest.isEmpty()) {
+            throw new IllegalArgumentException(what + " " + rest.iterator().next() + " does not belong to this school");
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.schools24.service;
+
+import com.schools24.service.TeacherAssignmentService.Assignment;
+import com.schools24.service.TeacherAssignmentService.TeacherLoad;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * One school's class x subject -> teacher assignments, immutable once built. Class, subject and
+ * teacher ids are held in sorted {@code long[]}s and found by binary search; the matrix holds a
+ * teacher position per (class, subject) cell, and the classes of each teacher and of each grade
+ * are bitmaps over class positions, so the lookups below never touch more than one school's
+ * classes. Changes build a new instance from {@link #rows()}.
+ */
+final class TeacherAssignments {
+    static final TeacherAssignments EMPTY = new TeacherAssignments(List.of());
+
+    private final long[] classIds;
+    private final String[] grades;
+    private final long[] subjectIds;
+    private final long[] teacherIds;
+    private final int[] matrix;
+    private final long[][] classesOfTeacher;
+    private final int[] assignmentsOfTeacher;
+    private final Map<String, long[]> classesOfGrade = new HashMap<>();
+    private final int size;
+
+    TeacherAssignments(Collection<Assignment> rows) {
+        Map<Long, String> classGrades = new TreeMap<>();
+        for (Assignment r : rows) classGrades.put(r.classId(), r.grade());
+        classIds = new long[classGrades.size()];
+        grades = new String[classIds.length];
+        int i = 0;
+        for (Map.Entry<Long, String> e : classGrades.entrySet()) {
+            classIds[i] = e.getKey();
+            grades[i++] = e.getValue();
+        }
+        subjectIds = rows.stream().mapToLong(Assignment::subjectId).sorted().distinct().toArray();
+        teacherIds = rows.stream().mapToLong(Assignment::teacherId).sorted().distinct().toArray();
+        int words = (classIds.length + 63) >>> 6;
+        matrix = new int[classIds.length * subjectIds.length];
+        Arrays.fill(matrix, -1);
+        classesOfTeacher = new long[teacherIds.length][words];
+        assignmentsOfTeacher = new int[teacherIds.length];
+        int n = 0;
+        for (Assignment r : rows) {
+            int c = Arrays.binarySearch(classIds, r.classId());
+            int t = Arrays.binarySearch(teacherIds, r.teacherId());
+            int cell = c * subjectIds.length + Arrays.binarySearch(subjectIds, r.subjectId());
+            if (matrix[cell] >= 0) continue; // the caller keyed rows by (class, subject); first wins
+            matrix[cell] = t;
+            classesOfTeacher[t][c >>> 6] |= 1L << c;
+            assignmentsOfTeacher[t]++;
+            n++;
+        }
+        for (int c = 0; c < classIds.length; c++) {
+            if (grades[c] != null) classesOfGrade.computeIfAbsent(grades[c], g -> new long[words])[c >>> 6] |= 1L << c;
+        }
+        size = n;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * The teacher of a class's subject, or -1.
+     */
+    long teacher(long classId, long subjectId) {
+        int c = Arrays.binarySearch(classIds, classId);
+        int s = Arrays.binarySearch(subjectIds, subjectId);
+        if (c < 0 || s < 0) return -1;
+        int t = matrix[c * subjectIds.length + s];
+        return t < 0 ? -1 : teacherIds[t];
+    }
+
+    /**
+     * The (class, subject) pairs a teacher is assigned, as rows in class then subject order.
+     */
+    List<Assignment> ofTeacher(long teacherId) {
+        int t = Arrays.binarySearch(teacherIds, teacherId);
+        if (t < 0) return List.of();
+        List<Assignment> res = new ArrayList<>(assignmentsOfTeacher[t]);
+        long[] bits = classesOfTeacher[t];
+        for (int w = 0; w < bits.length; w++) {
+            for (long m = bits[w]; m != 0; m &= m - 1) {
+                int c = (w << 6) + Long.numberOfTrailingZeros(m);
+                for (int s = 0; s < subjectIds.length; s++) {
+                    if (matrix[c * subjectIds.length + s] == t) res.add(new Assignment(classIds[c], grades[c], subjectIds[s], teacherId));
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * The assignments of a subject in the classes of a grade (every grade when null).
+     */
+    List<Assignment> ofSubject(long subjectId, String grade) {
+        int s = Arrays.binarySearch(subjectIds, subjectId);
+        if (s < 0) return List.of();
+        long[] bits = grade == null ? null : classesOfGrade.get(grade);
+        if (grade != null && bits == null) return List.of();
+        List<Assignment> res = new ArrayList<>();
+        for (int c = 0; c < classIds.length; c++) {
+            if (bits != null && (bits[c >>> 6] & (1L << c)) == 0) continue;
+            int t = matrix[c * subjectIds.length + s];
+            if (t >= 0) res.add(new Assignment(classIds[c], grades[c], subjectId, teacherIds[t]));
+        }
+        return res;
+    }
+
+    /**
+     * The teacher's load, or null when they have no assignments.
+     */
+    TeacherLoad load(long teacherId) {
+        int t = Arrays.binarySearch(teacherIds, teacherId);
+        return t < 0 ? null : load(t);
+    }
+
+    /**
+     * Every assigned teacher's load, heaviest first.
+     */
+    List<TeacherLoad> loads() {
+        List<TeacherLoad> res = new ArrayList<>(teacherIds.length);
+        for (int t = 0; t < teacherIds.length; t++) res.add(load(t));
+        res.sort((a, b) -> a.assignments() != b.assignments()
+                ? Integer.compare(b.assignments(), a.assignments()) : Long.compare(a.teacherId(), b.teacherId()));
+        return res;
+    }
+
+    private TeacherLoad load(int t) {
+        int classes = 0;
+        for (long w : classesOfTeacher[t]) classes += Long.bitCount(w);
+        return new TeacherLoad(teacherIds[t], assignmentsOfTeacher[t], classes);
+    }
+
+    List<Assignment> rows() {
+        List<Assignment> res = new ArrayList<>(size);
+        for (int c = 0; c < classIds.length; c++) {
+            for (int s = 0; s < subjectIds.length; s++) {
+                int t = matrix[c * subjectIds.length + s];
+                if (t >= 0) res.add(new Assignment(classIds[c], grades[c], subjectIds[s], teacherIds[t]));
+            }
+        }
+        return res;
+    }
+}
@@ -0,0 +1,317 @@
+package com.schools24.service;
+
+import com.schools24.repository.ClassSubjectTeacherRepository;
+import com.schools24.repository.SchoolRepository;
+import com.schools24.repository.SubjectPeriodsRow;
+import com.schools24.repository.SubjectRepository;
+import com.schools24.repository.TeacherSlotRow;
+import com.schools24.repository.TeacherUnavailableSlotRepository;
+import com.schools24.repository.TimetableAssignmentRow;
+import com.schools24.repository.TimetableSlotRepository;
+import com.schools24.repository.TimetableSlotRow;
+import com.schools24.repository.UserRepository;
+import com.schools24.tenant.TenantContext;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates a school's weekly timetable from its class-subject-teacher assignments and replaces
+ * the stored one. Each assignment is taught {@code periodsPerWeek} times a week (per subject, else
+ * {@code schools24.timetable.periods-per-week}), spread over the days, avoiding the slots its
+ * teacher is unavailable in. Both settings are stored (on the subject, and in
+ * teacher_unavailable_slots) and a solve request only changes the ones it names.
+ * <p>
+ * The search itself is {@link TimetableSolver}; its searches share a pool of
+ * {@code schools24.timetable.workers} threads, and each runs for at most
+ * {@code schools24.timetable.time-limit-ms} from when it starts, so a solve queued behind another
+ * school's still gets its full time.
+ */
+@Service
+public class TimetableService {
+    private static final Logger log = LoggerFactory.getLogger(TimetableService.class);
+    private static final String INSERT_SQL = "insert into timetable_slots (school_id, class_id, subject_id, teacher_id, weekday, period) values (?, ?, ?, ?, ?, ?)";
+
+    /**
+     * @param periodsPerWeek per subject id, the lessons a week to store; null goes back to the default
+     * @param unavailable    per teacher id, the (day, period) pairs it cannot teach in, both 1-based;
+     *                       replaces what is stored for that teacher
+     */
+    public record Request(Long schoolId, Map<Long, Integer> periodsPerWeek, Map<Long, Collection<int[]>> unavailable) {
+    }
+
+    private final SchoolRepository schoolRepository;
+    private final ClassSubjectTeacherRepository assignmentRepository;
+    private final TimetableSlotRepository slotRepository;
+    private final SubjectRepository subjectRepository;
+    private final UserRepository userRepository;
+    private final TeacherUnavailableSlotRepository unavailableRepository;
+    private final ReferenceVersions versions;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final int days;
+    private final int periodsPerDay;
+    private final int defaultPeriodsPerWeek;
+    private final int workers;
+    private final long timeLimitMs;
+    private final ExecutorService pool;
+    private final Set<Long> solving = ConcurrentHashMap.newKeySet();
+
+    public TimetableService(SchoolRepository schoolRepository,
+                            ClassSubjectTeacherRepository assignmentRepository,
+                            TimetableSlotRepository slotRepository,
+                            SubjectRepository subjectRepository,
+                            UserRepository userRepository,
+                            TeacherUnavailableSlotRepository unavailableRepository,
+                            ReferenceVersions versions,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            Environment env) {
+        this.schoolRepository = schoolRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.slotRepository = slotRepository;
+        this.subjectRepository = subjectRepository;
+        this.userRepository = userRepository;
+        this.unavailableRepository = unavailableRepository;
+        this.versions = versions;
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.days = env.getProperty("schools24.timetable.days", Integer.class, 6);
+        this.periodsPerDay = env.getProperty("schools24.timetable.periods-per-day", Integer.class, 8);
+        if (days < 1 || periodsPerDay < 1 || days * periodsPerDay > 64) {
+            throw new IllegalStateException("schools24.timetable.days x periods-per-day must be between 1 and 64");
+        }
+        this.defaultPeriodsPerWeek = env.getProperty("schools24.timetable.periods-per-week", Integer.class, 5);
+        this.workers = env.getProperty("schools24.timetable.workers", Integer.class, Runtime.getRuntime().availableProcessors());
+        this.timeLimitMs = env.getProperty("schools24.timetable.time-limit-ms", Long.class, 10_000L);
+        this.pool = Executors.newFixedThreadPool(workers);
+    }
+
+    /**
+     * Stores the request's settings, then solves and stores the school's timetable, returning a
+     * summary. Throws IllegalArgumentException for invalid settings (nothing is stored) or when
+     * the assignments cannot fit in a week at all, and IllegalStateException when the school is
+     * already being solved or no complete timetable was found in time (the stored one is kept;
+     * the settings stay stored).
+     */
+    public Map<String, Object> solve(Request req) throws InterruptedException {
+        TenantContext.checkAccess(req.schoolId());
+        if (!schoolRepository.existsById(req.schoolId())) throw new IllegalArgumentException("School not found");
+        if (!solving.add(req.schoolId())) throw new IllegalStateException("A timetable for this school is already being generated");
+        try {
+            saveSettings(req);
+            return solveAndStore(req.schoolId());
+        } finally {
+            solving.remove(req.schoolId());
+        }
+    }
+
+    /**
+     * The school's stored periods per week (subjects without one use the default) and teacher
+     * unavailability.
+     */
+    public Map<String, Object> settings(Long schoolId) {
+        TenantContext.checkAccess(schoolId);
+        Map<Long, Integer> periods = new TreeMap<>();
+        for (SubjectPeriodsRow r : subjectRepository.findPeriodsPerWeek(schoolId)) periods.put(r.subjectId(), r.periodsPerWeek());
+        Map<Long, List<int[]>> unavailable = new TreeMap<>();
+        for (TeacherSlotRow r : unavailableRepository.findBySchool(schoolId)) {
+            unavailable.computeIfAbsent(r.teacherId(), k -> new ArrayList<>()).add(new int[]{r.weekday(), r.period()});
+        }
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("schoolId", schoolId);
+        m.put("defaultPeriodsPerWeek", defaultPeriodsPerWeek);
+        m.put("periodsPerWeek", periods);
+        m.put("teacherUnavailable", unavailable);
+        return m;
+    }
+
+    private void saveSettings(Request req) {
+        Long schoolId = req.schoolId();
+        Map<Long, Integer> periods = req.periodsPerWeek();
+        Map<Long, Collection<int[]>> unavailable = req.unavailable();
+        for (Integer n : periods.values()) {
+            if (n != null && n < 0) throw new IllegalArgumentException("Periods per week must not be negative");
+        }
+        for (Collection<int[]> slots : unavailable.values()) {
+            for (int[] dp : slots) {
+                if (dp.length != 2 || dp[0] < 1 || dp[0] > days || dp[1] < 1 || dp[1] > periodsPerDay) {
+                    throw new IllegalArgumentException("Unavailable slots must be [day, period] with day 1-" + days + " and period 1-" + periodsPerDay);
+                }
+            }
+        }
+        if (!periods.isEmpty()) {
+            Set<Long> found = new HashSet<>(subjectRepository.findIdsInSchool(schoolId, periods.keySet()));
+            for (Long id : periods.keySet()) {
+                if (!found.contains(id)) throw new IllegalArgumentException("Subject " + id + " not found");
+            }
+        }
+        if (!unavailable.isEmpty()) {
+            Set<Long> found = new HashSet<>(userRepository.findActiveIdsBySchoolAndRoleIn(schoolId, "teacher", unavailable.keySet()));
+            for (Long id : unavailable.keySet()) {
+                if (!found.contains(id)) throw new IllegalArgumentException("Teacher " + id + " not found");
+            }
+        }
+        if (periods.isEmpty() && unavailable.isEmpty()) return;
+        tx.executeWithoutResult(status -> {
+            List<Object[]> subjects = new ArrayList<>(periods.size());
+            periods.forEach((id, n) -> subjects.add(new Object[]{n, id, schoolId}));
+            jdbcTemplate.batchUpdate("update subjects set periods_per_week = ? where id = ? and school_id = ?", subjects);
+            // Subject lists show periodsPerWeek.
+            if (!subjects.isEmpty()) versions.bump(ReferenceVersions.Resource.SUBJECTS, schoolId);
+            List<Object[]> teachers = new ArrayList<>(unavailable.size());
+            List<Object[]> slots = new ArrayList<>();
+            unavailable.forEach((id, dps) -> {
+                teachers.add(new Object[]{id});
+                // A slot listed twice is stored once.
+                Set<Integer> seen = new HashSet<>();
+                for (int[] dp : dps) {
+                    if (seen.add(dp[0] * 64 + dp[1])) slots.add(new Object[]{schoolId, id, dp[0], dp[1]});
+                }
+            });
+            jdbcTemplate.batchUpdate("delete from teacher_unavailable_slots where teacher_id = ?", teachers);
+            jdbcTemplate.batchUpdate("insert into teacher_unavailable_slots (school_id, teacher_id, weekday, period) values (?, ?, ?, ?)", slots);
+        });
+    }
+
+    private Map<String, Object> solveAndStore(Long schoolId) throws InterruptedException {
+        long started = System.nanoTime();
+        List<TimetableAssignmentRow> assignments = assignmentRepository.findTimetableAssignments(schoolId);
+        if (assignments.isEmpty()) throw new IllegalArgumentException("The school has no class-subject-teacher assignments");
+
+        // Dense indexes for the solver: classes and teachers by first appearance.
+        Map<Long, Integer> classIndex = new HashMap<>();
+        Map<Long, Integer> teacherIndex = new HashMap<>();
+        List<Long> teacherIds = new ArrayList<>();
+        Map<String, Long> seen = new HashMap<>();
+        List<Integer> lessonClass = new ArrayList<>();
+        List<Integer> lessonTeacher = new ArrayList<>();
+        List<Integer> lessonGroup = new ArrayList<>();
+        for (int g = 0; g < assignments.size(); g++) {
+            TimetableAssignmentRow a = assignments.get(g);
+            Long other = seen.putIfAbsent(a.classId() + ":" + a.subjectId(), a.teacherId());
+            if (other != null) {
+                throw new IllegalArgumentException("Class " + a.classId() + " has more than one teacher for subject " + a.subjectId());
+            }
+            int c = classIndex.computeIfAbsent(a.classId(), k -> classIndex.size());
+            int t = teacherIndex.computeIfAbsent(a.teacherId(), k -> {
+                teacherIds.add(k);
+                return teacherIds.size() - 1;
+            });
+            int n = a.periodsPerWeek() == null ? defaultPeriodsPerWeek : a.periodsPerWeek();
+            for (int i = 0; i < n; i++) {
+                lessonClass.add(c);
+                lessonTeacher.add(t);
+                lessonGroup.add(g);
+            }
+        }
+
+        int slots = days * periodsPerDay;
+        long week = slots == 64 ? -1L : (1L << slots) - 1;
+        long[] available = new long[teacherIds.size()];
+        Arrays.fill(available, week);
+        for (TeacherSlotRow u : unavailableRepository.findBySchool(schoolId)) {
+            Integer t = teacherIndex.get(u.teacherId());
+            // Slots outside the configured week (e.g. stored before it was shortened) do not apply.
+            if (t == null || u.weekday() > days || u.period() > periodsPerDay) continue;
+            available[t] &= ~(1L << ((u.weekday() - 1) * periodsPerDay + u.period() - 1));
+        }
+        checkCapacity(lessonClass, classIndex, slots, "Class", null);
+        checkCapacity(lessonTeacher, teacherIndex, slots, "Teacher", available);
+
+        TimetableSolver solver = new TimetableSolver(days, periodsPerDay, classIndex.size(), available,
+                toArray(lessonClass), toArray(lessonTeacher), toArray(lessonGroup), assignments.size());
+        TimetableSolver.Result result = solver.solve(pool, workers, TimeUnit.MILLISECONDS.toNanos(timeLimitMs));
+        long solveMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        if (!result.complete()) {
+            log.info("No timetable for school {}: {} of {} lessons unplaced after {} ms", schoolId,
+                    result.unplaced(), solver.lessons(), solveMs);
+            throw new IllegalStateException("No timetable found within " + timeLimitMs + " ms; " + result.unplaced()
+                    + " of " + solver.lessons() + " lessons could not be placed");
+        }
+
+        int[] slotOf = result.slotOf();
+        tx.executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from timetable_slots where school_id = ?", schoolId);
+            List<Object[]> rows = new ArrayList<>(slotOf.length);
+            for (int l = 0; l < slotOf.length; l++) {
+                TimetableAssignmentRow a = assignments.get(lessonGroup.get(l));
+                rows.add(new Object[]{schoolId, a.classId(), a.subjectId(), a.teacherId(),
+                        slotOf[l] / periodsPerDay + 1, slotOf[l] % periodsPerDay + 1});
+            }
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        });
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("schoolId", schoolId);
+        m.put("days", days);
+        m.put("periodsPerDay", periodsPerDay);
+        m.put("classes", classIndex.size());
+        m.put("teachers", teacherIds.size());
+        m.put("lessons", solver.lessons());
+        m.put("moves", result.moves());
+        m.put("workers", workers);
+        m.put("solveMs", solveMs);
+        m.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return m;
+    }
+
+    public Map<String, Object> classTimetable(Long classId) {
+        return view(slotRepository.findClassTimetable(classId));
+    }
+
+    public Map<String, Object> teacherTimetable(Long teacherId) {
+        return view(slotRepository.findTeacherTimetable(teacherId));
+    }
+
+    private Map<String, Object> view(List<TimetableSlotRow> slots) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("days", days);
+        m.put("periodsPerDay", periodsPerDay);
+        m.put("slots", slots);
+        return m;
+    }
+
+    private void checkCapacity(List<Integer> lessonOwner, Map<Long, Integer> index, int slots, String what, long[] available) {
+        int[] count = new int[index.size()];
+        for (int o : lessonOwner) count[o]++;
+        for (Map.Entry<Long, Integer> e : index.entrySet()) {
+            int o = e.getValue();
+            int capacity = available == null ? slots : Long.bitCount(available[o]);
+            if (count[o] > capacity) {
+                throw new IllegalArgumentException(what + " " + e.getKey() + " has " + count[o] + " lessons but only "
+                        + capacity + " slots a week");
+            }
+        }
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] a = new int[list.size()];
+        for (int i = 0; i < a.length; i++) a[i] = list.get(i);
+        return a;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+}
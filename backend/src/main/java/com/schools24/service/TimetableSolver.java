@@ -0,0 +1,298 @@
+package com.schools24.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Places weekly lessons into day/period slots so that no class and no teacher has two lessons at
+ * once, teachers only teach in their available slots, and a class has a subject at most
+ * ceil(lessons / days) times a day. A week has at most 64 slots, so each class's and teacher's
+ * occupancy is one {@code long} and the free slots for a lesson are a few bitwise operations.
+ * <p>
+ * Several searches run in parallel with different random seeds. Each places the lessons
+ * greedily, hardest first, then repairs: an unplaced lesson takes the slot whose occupants are
+ * cheapest to move out, and those go back in the queue (a lesson does not return at once to the
+ * slot it was moved out of). The first search to place every lesson stops the others; when its
+ * time is up each search returns the most complete timetable it found, and the best is used.
+ */
+final class TimetableSolver {
+    record Result(int[] slotOf, int unplaced, long moves) {
+        boolean complete() {
+            return unplaced == 0;
+        }
+    }
+
+    private final int days;
+    private final int slots;
+    private final long[] dayMasks;
+    private final int[] lessonClass;
+    private final int[] lessonTeacher;
+    private final int[] lessonGroup;
+    private final int[] maxPerDay;
+    private final long[] available;
+    private final int classes;
+    private final int[] difficulty;
+
+    /**
+     * @param available   per teacher, the slots the teacher can teach in
+     * @param lessonGroup per lesson, its class-subject-teacher assignment; an assignment's lessons
+     *                    are spread over the days
+     */
+    TimetableSolver(int days, int periodsPerDay, int classes, long[] available,
+                    int[] lessonClass, int[] lessonTeacher, int[] lessonGroup, int groups) {
+        this.days = days;
+        this.slots = days * periodsPerDay;
+        this.dayMasks = new long[days];
+        long day = periodsPerDay == 64 ? -1L : (1L << periodsPerDay) - 1;
+        for (int d = 0; d < days; d++) dayMasks[d] = day << (d * periodsPerDay);
+        this.classes = classes;
+        this.available = available;
+        this.lessonClass = lessonClass;
+        this.lessonTeacher = lessonTeacher;
+        this.lessonGroup = lessonGroup;
+        int[] groupSize = new int[groups];
+        for (int g : lessonGroup) groupSize[g]++;
+        this.maxPerDay = new int[groups];
+        for (int g = 0; g < groups; g++) maxPerDay[g] = (groupSize[g] + days - 1) / days;
+        // Busy teachers with few available slots are placed first.
+        int[] teacherLoad = new int[available.length];
+        for (int t : lessonTeacher) teacherLoad[t]++;
+        this.difficulty = new int[lessonClass.length];
+        for (int l = 0; l < lessonClass.length; l++) {
+            int t = lessonTeacher[l];
+            difficulty[l] = teacherLoad[t] * 64 / Math.max(1, Long.bitCount(available[t]));
+        }
+    }
+
+    int lessons() {
+        return lessonClass.length;
+    }
+
+    /**
+     * Runs the searches on the pool. Each gets {@code timeLimitNanos} from when it starts, so
+     * time spent queued behind other work on the pool does not count against it.
+     */
+    Result solve(ExecutorService pool, int searches, long timeLimitNanos) throws InterruptedException {
+        AtomicBoolean solved = new AtomicBoolean();
+        long seed = new Random().nextLong();
+        List<Future<Result>> futures = new ArrayList<>(searches);
+        for (int i = 0; i < searches; i++) {
+            long s = seed + i;
+            futures.add(pool.submit(() -> new Search(s).run(solved, System.nanoTime() + timeLimitNanos)));
+        }
+        Result best = null;
+        long moves = 0;
+        for (Future<Result> f : futures) {
+            Result r;
+            try {
+                r = f.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Timetable search failed", e.getCause());
+            }
+            moves += r.moves();
+            if (best == null || r.unplaced() < best.unplaced()) best = r;
+        }
+        return new Result(best.slotOf(), best.unplaced(), moves);
+    }
+
+    private final class Search {
+        private final SplittableRandom random;
+        private final long[] classBusy = new long[classes];
+        private final long[] teacherBusy = new long[available.length];
+        private final int[] classAt = new int[classes * slots];
+        private final int[] teacherAt = new int[available.length * slots];
+        private final int[] groupDayCount = new int[maxPerDay.length * days];
+        private final int[] slotOf = new int[lessonClass.length];
+        private final int[] tabuSlot = new int[lessonClass.length];
+        private final long[] tabuUntil = new long[lessonClass.length];
+        private final int[] evict = new int[3];
+
+        Search(long seed) {
+            this.random = new SplittableRandom(seed);
+        }
+
+        Result run(AtomicBoolean solved, long deadlineNanos) {
+            Arrays.fill(slotOf, -1);
+            Arrays.fill(tabuSlot, -1);
+            IntQueue unplaced = new IntQueue(lessonClass.length);
+            for (int l : initialOrder()) {
+                long free = allowed(l) & ~teacherBusy[lessonTeacher[l]] & ~classBusy[lessonClass[l]];
+                if (free != 0) assign(l, pick(free));
+                else unplaced.add(l);
+            }
+            int[] best = slotOf.clone();
+            int bestUnplaced = unplaced.size();
+            long moves = 0;
+            while (!unplaced.isEmpty()) {
+                if ((++moves & 1023) == 0 && (solved.get() || System.nanoTime() >= deadlineNanos)) break;
+                int l = unplaced.poll();
+                int s = choose(l, moves);
+                if (s < 0) {
+                    unplaced.add(l);
+                    continue;
+                }
+                int n = evictions(l, s, evict);
+                for (int i = 0; i < n; i++) {
+                    int b = evict[i];
+                    tabuSlot[b] = s;
+                    tabuUntil[b] = moves + 10 + random.nextInt(10);
+                    unassign(b);
+                    unplaced.add(b);
+                }
+                assign(l, s);
+                if (unplaced.size() < bestUnplaced) {
+                    bestUnplaced = unplaced.size();
+                    System.arraycopy(slotOf, 0, best, 0, best.length);
+                }
+            }
+            if (bestUnplaced == 0) solved.set(true);
+            return new Result(best, bestUnplaced, moves);
+        }
+
+        // Most difficult first, ties in random order.
+        private int[] initialOrder() {
+            int n = lessonClass.length;
+            long[] key = new long[n];
+            for (int l = 0; l < n; l++) key[l] = ((long) difficulty[l] << 32) | ((long) random.nextInt() & 0xffffffffL);
+            Integer[] order = new Integer[n];
+            for (int l = 0; l < n; l++) order[l] = l;
+            Arrays.sort(order, (a, b) -> Long.compare(key[b], key[a]));
+            int[] res = new int[n];
+            for (int i = 0; i < n; i++) res[i] = order[i];
+            return res;
+        }
+
+        // The slot whose occupants are cheapest to move out, skipping slots the lesson was just
+        // moved out of; -1 when the teacher has no slot at all.
+        private int choose(int l, long iteration) {
+            long candidates = available[lessonTeacher[l]];
+            if (tabuSlot[l] >= 0 && iteration < tabuUntil[l]) {
+                long rest = candidates & ~(1L << tabuSlot[l]);
+                if (rest != 0) candidates = rest;
+            }
+            int best = -1;
+            int bestCost = Integer.MAX_VALUE;
+            int ties = 0;
+            for (long m = candidates; m != 0; m &= m - 1) {
+                int s = Long.numberOfTrailingZeros(m);
+                int cost = evictions(l, s, evict);
+                if (cost < bestCost) {
+                    best = s;
+                    bestCost = cost;
+                    ties = 1;
+                } else if (cost == bestCost && random.nextInt(++ties) == 0) {
+                    best = s;
+                }
+                if (cost == 0 && ties > 3) break;
+            }
+            return best;
+        }
+
+        // The lessons that must leave slot s for l to take it.
+        private int evictions(int l, int s, int[] out) {
+            int n = 0;
+            int c = lessonClass[l];
+            int t = lessonTeacher[l];
+            long bit = 1L << s;
+            if ((teacherBusy[t] & bit) != 0) out[n++] = teacherAt[t * slots + s];
+            if ((classBusy[c] & bit) != 0) {
+                int o = classAt[c * slots + s];
+                if (n == 0 || out[0] != o) out[n++] = o;
+            }
+            int g = lessonGroup[l];
+            int d = dayOf(s);
+            if (groupDayCount[g * days + d] >= maxPerDay[g]) {
+                boolean freed = false;
+                for (int i = 0; i < n; i++) freed |= lessonGroup[out[i]] == g;
+                if (!freed) {
+                    int periods = slots / days;
+                    for (int p = d * periods; p < (d + 1) * periods; p++) {
+                        if ((classBusy[c] & (1L << p)) != 0 && lessonGroup[classAt[c * slots + p]] == g) {
+                            out[n++] = classAt[c * slots + p];
+                            break;
+                        }
+                    }
+                }
+            }
+            return n;
+        }
+
+        private long allowed(int l) {
+            int g = lessonGroup[l];
+            long open = 0;
+            for (int d = 0; d < days; d++) {
+                if (groupDayCount[g * days + d] < maxPerDay[g]) open |= dayMasks[d];
+            }
+            return available[lessonTeacher[l]] & open;
+        }
+
+        private void assign(int l, int s) {
+            int c = lessonClass[l];
+            int t = lessonTeacher[l];
+            classBusy[c] |= 1L << s;
+            teacherBusy[t] |= 1L << s;
+            classAt[c * slots + s] = l;
+            teacherAt[t * slots + s] = l;
+            groupDayCount[lessonGroup[l] * days + dayOf(s)]++;
+            slotOf[l] = s;
+        }
+
+        private void unassign(int l) {
+            int s = slotOf[l];
+            classBusy[lessonClass[l]] &= ~(1L << s);
+            teacherBusy[lessonTeacher[l]] &= ~(1L << s);
+            groupDayCount[lessonGroup[l] * days + dayOf(s)]--;
+            slotOf[l] = -1;
+        }
+
+        private int dayOf(int s) {
+            return s / (slots / days);
+        }
+
+        private int pick(long mask) {
+            return nthBit(mask, random.nextInt(Long.bitCount(mask)));
+        }
+    }
+
+    private static int nthBit(long mask, int n) {
+        for (int i = 0; i < n; i++) mask &= mask - 1;
+        return Long.numberOfTrailingZeros(mask);
+    }
+
+    // FIFO of lesson ids; each lesson is queued at most once.
+    private static final class IntQueue {
+        private final int[] items;
+        private int head;
+        private int size;
+
+        IntQueue(int capacity) {
+            this.items = new int[capacity];
+        }
+
+        void add(int v) {
+            items[(head + size++) % items.length] = v;
+        }
+
+        int poll() {
+            int v = items[head];
+            head = (head + 1) % items.length;
+            size--;
+            return v;
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
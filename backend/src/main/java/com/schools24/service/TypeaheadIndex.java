@@ -0,0 +1,376 @@
+package com.schools24.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory typeahead index over a few short text fields per document. Documents live in dense
+ * slots; every one-, two- and three-character gram of every field maps to a sorted {@code int[]}
+ * of slots, and so does every one-, two- and three-character word prefix. A query intersects
+ * the postings of its grams (shortest first) and verifies the survivors against the stored text,
+ * so results are exact substring matches at any query length, the same rows a case-insensitive
+ * {@code LIKE '%q%'} over the fields returns.
+ * <p>
+ * Matches are ranked: whole-field match, then field prefix, then word prefix, then any
+ * substring; ties go to the earlier field, the shorter field, then the lower id. Word-prefix
+ * candidates are ranked first and substring-only candidates are only looked at when those do
+ * not fill the result. At most {@link #MAX_VERIFIED} candidates are verified per phase, which
+ * bounds the cost of very unselective queries such as a single letter.
+ */
+public class TypeaheadIndex {
+    static final int MAX_VERIFIED = 10_000;
+    private static final int EXACT = 0, FIELD_PREFIX = 1, WORD_PREFIX = 2, SUBSTRING = 3;
+    // Hits are packed as (15-bit rank << 32 | slot).
+    private static final int SLOT_BITS = 32;
+    private static final long SLOT_MASK = (1L << SLOT_BITS) - 1;
+
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final Map<Long, Postings> grams = new HashMap<>();
+    private long[] ids = new long[64];
+    private String[][] fields = new String[64][];
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int slotCount;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds or replaces a document. Null fields are indexed as empty.
+     */
+    public void put(long id, String... values) {
+        String[] normalized = new String[values.length];
+        for (int i = 0; i < values.length; i++) normalized[i] = normalize(values[i]);
+        lock.writeLock().lock();
+        try {
+            Integer existing = slotById.get(id);
+            int slot;
+            if (existing != null) {
+                slot = existing;
+                unindex(slot);
+            } else {
+                slot = allocateSlot();
+                slotById.put(id, slot);
+                ids[slot] = id;
+            }
+            fields[slot] = normalized;
+            for (String f : normalized) forEachGram(f, g -> postings(g).add(slot));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.remove(id);
+            if (slot == null) return;
+            unindex(slot);
+            fields[slot] = null;
+            if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            freeSlots[freeCount++] = slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            slotById.clear();
+            grams.clear();
+            Arrays.fill(fields, null);
+            slotCount = 0;
+            freeCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the best {@code limit} matches, best first. An empty query matches nothing.
+     */
+    public long[] search(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) return new long[0];
+        lock.readLock().lock();
+        try {
+            TopK top = new TopK(Math.min(limit, slotById.size()));
+            int prefixLen = Math.min(q.length(), 3);
+            Postings wordPrefix = grams.get(gramKey(q, 0, prefixLen, true));
+            if (wordPrefix != null) rankAll(intersectTrigrams(q, wordPrefix), q, top, WORD_PREFIX);
+            if (!top.isFull()) {
+                // Word-prefix hits are already in; only substring-only hits are new here.
+                rankAll(substringCandidates(q), q, top, SUBSTRING);
+            }
+            return top.ids(this.ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of every match in ascending id order, without ranking or a verification budget.
+     */
+    public long[] matchAll(String query) {
+        String q = normalize(query);
+        if (q.isEmpty()) return new long[0];
+        lock.readLock().lock();
+        try {
+            int[] candidates = substringCandidates(q);
+            long[] res = new long[candidates.length];
+            int n = 0;
+            for (int slot : candidates) {
+                String[] f = fields[slot];
+                if (f != null && rank(f, q) >= 0) res[n++] = ids[slot];
+            }
+            res = Arrays.copyOf(res, n);
+            Arrays.sort(res);
+            return res;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void rankAll(int[] candidates, String q, TopK top, int acceptKind) {
+        int budget = Math.min(candidates.length, MAX_VERIFIED);
+        for (int i = 0; i < budget; i++) {
+            int slot = candidates[i];
+            String[] f = fields[slot];
+            if (f == null) continue;
+            long rank = rank(f, q);
+            if (rank < 0) continue;
+            int kind = (int) (rank >> 13);
+            if (acceptKind == SUBSTRING ? kind != SUBSTRING : kind > acceptKind) continue;
+            top.offer((rank << SLOT_BITS) | slot);
+        }
+    }
+
+    // Slots whose fields may contain q: the postings of a short q itself, else its trigrams'.
+    private int[] substringCandidates(String q) {
+        if (q.length() >= 3) return intersectTrigrams(q, null);
+        Postings p = grams.get(gramKey(q, 0, q.length(), false));
+        return p == null ? new int[0] : Arrays.copyOf(p.slots, p.size);
+    }
+
+    // Intersects the trigram postings of q, optionally starting from a seed list.
+    private int[] intersectTrigrams(String q, Postings seed) {
+        int n = Math.max(q.length() - 2, 0);
+        Postings[] lists = new Postings[n + (seed == null ? 0 : 1)];
+        for (int i = 0; i < n; i++) {
+            Postings p = grams.get(gramKey(q, i, 3, false));
+            if (p == null) return new int[0];
+            lists[i] = p;
+        }
+        if (seed != null) lists[n] = seed;
+        if (lists.length == 0) return new int[0];
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        int[] acc = Arrays.copyOf(lists[0].slots, lists[0].size);
+        int len = acc.length;
+        for (int i = 1; i < lists.length && len > 0; i++) {
+            len = intersect(acc, len, lists[i]);
+        }
+        return len == acc.length ? acc : Arrays.copyOf(acc, len);
+    }
+
+    // In-place intersection of acc[0..len) with a posting list; both sorted ascending. Merges
+    // lists of similar size and binary-searches (with a moving lower bound) a much longer one.
+    private static int intersect(int[] acc, int len, Postings p) {
+        int out = 0, j = 0;
+        if ((long) len * 8 < p.size) {
+            for (int i = 0; i < len && j < p.size; i++) {
+                int at = Arrays.binarySearch(p.slots, j, p.size, acc[i]);
+                if (at >= 0) {
+                    acc[out++] = acc[i];
+                    j = at + 1;
+                } else {
+                    j = -at - 1;
+                }
+            }
+            return out;
+        }
+        for (int i = 0; i < len && j < p.size; ) {
+            if (acc[i] < p.slots[j]) i++;
+            else if (acc[i] > p.slots[j]) j++;
+            else {
+                acc[out++] = acc[i];
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    private static long rank(String[] fields, String q) {
+        long best = -1;
+        for (int f = 0; f < fields.length; f++) {
+            String v = fields[f];
+            int at = v.indexOf(q);
+            if (at < 0) continue;
+            int kind;
+            if (v.length() == q.length()) kind = EXACT;
+            else if (at == 0) kind = FIELD_PREFIX;
+            else if (isWordPrefix(v, q, at)) kind = WORD_PREFIX;
+            else kind = SUBSTRING;
+            long r = ((long) kind << 13) | ((long) Math.min(f, 7) << 10) | Math.min(v.length(), 1023);
+            if (best < 0 || r < best) best = r;
+        }
+        return best;
+    }
+
+    private static boolean isWordPrefix(String v, String q, int from) {
+        for (int at = from; at >= 0; at = v.indexOf(q, at + 1)) {
+            if (at == 0 || !Character.isLetterOrDigit(v.charAt(at - 1))) return true;
+        }
+        return false;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) return freeSlots[--freeCount];
+        if (slotCount == ids.length) {
+            ids = Arrays.copyOf(ids, slotCount * 2);
+            fields = Arrays.copyOf(fields, slotCount * 2);
+        }
+        return slotCount++;
+    }
+
+    private void unindex(int slot) {
+        String[] old = fields[slot];
+        if (old == null) return;
+        for (String f : old) {
+            forEachGram(f, g -> {
+                Postings p = grams.get(g);
+                if (p != null && p.remove(slot) && p.size == 0) grams.remove(g);
+            });
+        }
+    }
+
+    private Postings postings(long gram) {
+        return grams.computeIfAbsent(gram, k -> new Postings());
+    }
+
+    private interface GramConsumer {
+        void accept(long gram);
+    }
+
+    private static void forEachGram(String v, GramConsumer c) {
+        for (int len = 1; len <= 3; len++) {
+            for (int i = 0; i + len <= v.length(); i++) c.accept(gramKey(v, i, len, false));
+        }
+        for (int i = 0; i < v.length(); i++) {
+            if (i == 0 || !Character.isLetterOrDigit(v.charAt(i - 1))) {
+                for (int len = 1; len <= 3 && i + len <= v.length(); len++) c.accept(gramKey(v, i, len, true));
+            }
+        }
+    }
+
+    // Up to three UTF-16 units packed into 48 bits, tagged with the length and the word-prefix flag.
+    private static long gramKey(String v, int from, int len, boolean prefix) {
+        long k = (long) len << 56 | (prefix ? 1L << 60 : 0L);
+        for (int i = 0; i < len; i++) k |= (long) v.charAt(from + i) << (16 * i);
+        return k;
+    }
+
+    static String normalize(String v) {
+        return v == null ? "" : v.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Sorted, growable array of slots. Slots are mostly appended in increasing order.
+     */
+    private static final class Postings {
+        int[] slots = new int[4];
+        int size;
+
+        void add(int slot) {
+            if (size > 0 && slots[size - 1] < slot) {
+                ensureCapacity();
+                slots[size++] = slot;
+                return;
+            }
+            int at = Arrays.binarySearch(slots, 0, size, slot);
+            if (at >= 0) return;
+            at = -at - 1;
+            ensureCapacity();
+            System.arraycopy(slots, at, slots, at + 1, size - at);
+            slots[at] = slot;
+            size++;
+        }
+
+        boolean remove(int slot) {
+            int at = Arrays.binarySearch(slots, 0, size, slot);
+            if (at < 0) return false;
+            System.arraycopy(slots, at + 1, slots, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        private void ensureCapacity() {
+            if (size == slots.length) slots = Arrays.copyOf(slots, slots.length + (slots.length >> 1) + 1);
+        }
+    }
+
+    /**
+     * Bounded max-heap of packed keys; the root is the worst hit kept so far.
+     */
+    private static final class TopK {
+        final long[] heap;
+        int n;
+
+        TopK(int limit) {
+            heap = new long[limit];
+        }
+
+        boolean isFull() {
+            return n == heap.length;
+        }
+
+        void offer(long key) {
+            if (n < heap.length) {
+                heap[n] = key;
+                int i = n++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (heap[parent] >= heap[i]) return;
+                    swap(parent, i);
+                    i = parent;
+                }
+            } else if (key < heap[0]) {
+                heap[0] = key;
+                int i = 0;
+                while (true) {
+                    int l = 2 * i + 1, r = l + 1, max = i;
+                    if (l < n && heap[l] > heap[max]) max = l;
+                    if (r < n && heap[r] > heap[max]) max = r;
+                    if (max == i) return;
+                    swap(max, i);
+                    i = max;
+                }
+            }
+        }
+
+        long[] ids(long[] idBySlot) {
+            long[] sorted = Arrays.copyOf(heap, n);
+            Arrays.sort(sorted);
+            long[] res = new long[n];
+            for (int i = 0; i < n; i++) res[i] = idBySlot[(int) (sorted[i] & SLOT_MASK)];
+            return res;
+        }
+
+        private void swap(int a, int b) {
+            long t = heap[a];
+            heap[a] = heap[b];
+            heap[b] = t;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.schools24.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one user import. Counters are updated by the worker thread and read by status
+ * requests; only the first {@link #MAX_ERRORS} row errors are kept.
+ */
+public class UserImportJob {
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    public enum Format { CSV, JSON }
+
+    static final int MAX_ERRORS = 1000;
+
+    public record RowError(int row, String email, String userId, String message) {
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Format format;
+    private final Long schoolId;
+    private final long bytes;
+    private final Instant submittedAt = Instant.now();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicInteger rowsRead = new AtomicInteger();
+    private final AtomicInteger imported = new AtomicInteger();
+    private final AtomicInteger duplicates = new AtomicInteger();
+    private final AtomicInteger invalid = new AtomicInteger();
+    private final AtomicInteger exactChecks = new AtomicInteger();
+    private final List<RowError> errors = new ArrayList<>();
+    private volatile State state = State.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    UserImportJob(Format format, Long schoolId, long bytes) {
+        this.format = format;
+        this.schoolId = schoolId;
+        this.bytes = bytes;
+    }
+
+    public String getId() { return id; }
+
+    public Long getSchoolId() { return schoolId; }
+
+    public State getState() { return state; }
+
+    public Instant getFinishedAt() { return finishedAt; }
+
+    void start() {
+        this.startedAt = Instant.now();
+        this.state = State.RUNNING;
+    }
+
+    void read(int rows, long totalBytesRead) {
+        rowsRead.addAndGet(rows);
+        bytesRead.set(totalBytesRead);
+    }
+
+    void imported(int rows) { imported.addAndGet(rows); }
+
+    void checked(int rows) { exactChecks.addAndGet(rows); }
+
+    void duplicate(UserImportReader.Row r, String message) {
+        duplicates.incrementAndGet();
+        addError(r, message);
+    }
+
+    void invalid(UserImportReader.Row r, String message) {
+        invalid.incrementAndGet();
+        addError(r, message);
+    }
+
+    void complete() {
+        this.finishedAt = Instant.now();
+        this.state = State.COMPLETED;
+    }
+
+    void fail(Throwable t) {
+        this.finishedAt = Instant.now();
+        this.error = t.getMessage();
+        this.state = State.FAILED;
+    }
+
+    private void addError(UserImportReader.Row r, String message) {
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) errors.add(new RowError(r.number(), r.email(), r.userId(), message));
+        }
+    }
+
+    public Map<String, Object> toMap() {
+        int done = imported.get();
+        Instant started = startedAt;
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long elapsedMs = started == null ? 0 : Duration.between(started, end).toMillis();
+        int failed = duplicates.get() + invalid.get();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("jobId", id);
+        m.put("format", format);
+        m.put("schoolId", schoolId);
+        m.put("state", state);
+        m.put("bytes", bytes);
+        m.put("progress", state == State.COMPLETED ? 1.0 : bytes == 0 ? 0.0 : Math.min(1.0, (double) bytesRead.get() / bytes));
+        m.put("rowsRead", rowsRead.get());
+        m.put("imported", done);
+        m.put("duplicates", duplicates.get());
+        m.put("invalid", invalid.get());
+        m.put("exactChecks", exactChecks.get());
+        m.put("elapsedMs", elapsedMs);
+        m.put("rowsPerSecond", elapsedMs == 0 ? 0.0 : rowsRead.get() * 1000.0 / elapsedMs);
+        m.put("submittedAt", submittedAt.toString());
+        synchronized (errors) {
+            m.put("errors", List.copyOf(errors));
+        }
+        m.put("errorsTruncated", failed > MAX_ERRORS);
+        if (error != null) m.put("error", error);
+        return m;
+    }
+}
@@ -0,0 +1,153 @@
+package com.schools24.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads import rows one at a time, so a file of any size is held in memory one row at a time.
+ * CSV needs a header row naming the columns (any order, case-insensitive); JSON is an array of
+ * objects with the same keys as {@code POST /api/admin/users}.
+ */
+abstract class UserImportReader implements Closeable {
+    static final String[] COLUMNS = {"name", "email", "password", "role", "userId"};
+
+    record Row(int number, String name, String email, String password, String role, String userId) {
+    }
+
+    /**
+     * The next row, or null at the end of the input. Malformed input throws IOException.
+     */
+    abstract Row next() throws IOException;
+
+    static UserImportReader open(UserImportJob.Format format, InputStream in, ObjectMapper mapper) throws IOException {
+        return format == UserImportJob.Format.CSV ? new Csv(in) : new Json(in, mapper);
+    }
+
+    private static String clean(Object v) {
+        if (v == null) return null;
+        String s = String.valueOf(v).trim();
+        return s.isEmpty() ? null : s;
+    }
+
+    private static final class Csv extends UserImportReader {
+        private final BufferedReader reader;
+        private final int[] columnAt = new int[COLUMNS.length];
+        private int rows;
+
+        Csv(InputStream in) throws IOException {
+            reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+            List<String> header = record();
+            if (header == null) throw new IOException("CSV file is empty");
+            Map<String, Integer> byName = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                String h = header.get(i).trim().toLowerCase(Locale.ROOT).replace("_", "");
+                if (i == 0 && h.startsWith("\uFEFF")) h = h.substring(1);
+                byName.put(h, i);
+            }
+            for (int c = 0; c < COLUMNS.length; c++) {
+                Integer at = byName.get(COLUMNS[c].toLowerCase(Locale.ROOT));
+                if (at == null) throw new IOException("CSV header is missing column " + COLUMNS[c]);
+                columnAt[c] = at;
+            }
+        }
+
+        @Override
+        Row next() throws IOException {
+            List<String> r;
+            do {
+                r = record();
+                if (r == null) return null;
+            } while (r.size() == 1 && r.get(0).isBlank());
+            rows++;
+            String[] v = new String[COLUMNS.length];
+            for (int c = 0; c < COLUMNS.length; c++) v[c] = columnAt[c] < r.size() ? clean(r.get(columnAt[c])) : null;
+            return new Row(rows, v[0], v[1], v[2], v[3], v[4]);
+        }
+
+        // One RFC 4180 record: quoted fields may contain commas, doubled quotes and line breaks.
+        private List<String> record() throws IOException {
+            int ch = reader.read();
+            if (ch < 0) return null;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (ch < 0) throw new IOException("Unterminated quoted field in CSV row " + (rows + 1));
+                    if (ch == '"') {
+                        reader.mark(1);
+                        int peek = reader.read();
+                        if (peek == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            if (peek >= 0) reader.reset();
+                        }
+                    } else {
+                        field.append((char) ch);
+                    }
+                } else if (ch < 0 || ch == '\n') {
+                    fields.add(field.toString());
+                    return fields;
+                } else if (ch == '\r') {
+                    // dropped; CRLF ends the record at the LF
+                } else if (ch == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (ch == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else {
+                    field.append((char) ch);
+                }
+                ch = reader.read();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static final class Json extends UserImportReader {
+        private final JsonParser parser;
+        private int rows;
+
+        Json(InputStream in, ObjectMapper mapper) throws IOException {
+            parser = mapper.createParser(in);
+            if (parser.nextToken() != JsonToken.START_ARRAY) throw new IOException("JSON import must be an array of users");
+        }
+
+        @Override
+        Row next() throws IOException {
+            JsonToken t = parser.nextToken();
+            if (t == JsonToken.END_ARRAY || t == null) return null;
+            rows++;
+            if (t != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                return new Row(rows, null, null, null, null, null);
+            }
+            Map<?, ?> m = parser.readValueAs(Map.class);
+            return new Row(rows, clean(m.get("name")), clean(m.get("email")), clean(m.get("password")),
+                    clean(m.get("role")), clean(m.get("userId")));
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+}
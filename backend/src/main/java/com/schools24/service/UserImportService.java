@@ -0,0 +1,328 @@
+package com.schools24.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schools24.admission.DbAdmission;
+import com.schools24.admission.WorkloadClass;
+import com.schools24.auth.PasswordHasher;
+import com.schools24.domain.User;
+import com.schools24.repository.UserKeyRow;
+import com.schools24.repository.UserRepository;
+import com.schools24.tenant.TenantContext;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Imports users from a CSV or JSON file in the background. The upload is spooled to a temp file
+ * and read back one row at a time; rows are checked and written in chunks. Existing emails and
+ * user ids are loaded once per job into a Bloom filter, so only rows it flags (real duplicates
+ * plus about 1% false positives) go into the chunk's single set-based lookup. Accepted rows are
+ * written with one JDBC batch insert per chunk and then fed to the dashboard counters and the
+ * search index, which do not see JDBC writes on their own. Password hashing dominates the run
+ * time (one BCrypt hash per row), so each chunk is hashed in parallel on the hasher's import
+ * pool. Users join the school of the submitting request;
+ * duplicates are checked across all schools, as emails and user ids are unique platform-wide.
+ */
+@Service
+public class UserImportService {
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+    static final int CHUNK_SIZE = 1000;
+    private static final int KEY_SCAN_SIZE = 5000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int MAX_FIELD_LENGTH = 255;
+    private static final Set<String> ROLES = Set.of("admin", "teacher", "student");
+    private static final Duration JOB_RETENTION = Duration.ofHours(1);
+    private static final String INSERT_SQL =
+            "insert into users (name, email, password, role, user_id, school_id, is_active, created_at) values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final DashboardStats dashboardStats;
+    private final SearchIndexService searchIndex;
+    private final ObjectMapper objectMapper;
+    private final PasswordHasher passwordHasher;
+    private final DbAdmission admission;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Map<String, UserImportJob> jobs = new ConcurrentHashMap<>();
+
+    public UserImportService(UserRepository userRepository,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             DashboardStats dashboardStats,
+                             SearchIndexService searchIndex,
+                             ObjectMapper objectMapper,
+                             PasswordHasher passwordHasher,
+                             DbAdmission admission) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.dashboardStats = dashboardStats;
+        this.searchIndex = searchIndex;
+        this.objectMapper = objectMapper;
+        this.passwordHasher = passwordHasher;
+        this.admission = admission;
+    }
+
+    /**
+     * Copies the upload to a temp file and queues the import. Jobs run one at a time, so two
+     * files with overlapping users cannot both insert them.
+     */
+    public UserImportJob submit(InputStream body, UserImportJob.Format format) throws IOException {
+        Path file = Files.createTempFile("user-import-", format == UserImportJob.Format.CSV ? ".csv" : ".json");
+        long bytes;
+        try {
+            bytes = Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        evictFinishedJobs();
+        UserImportJob job = new UserImportJob(format, TenantContext.current(), bytes);
+        jobs.put(job.getId(), job);
+        executor.submit(() -> admission.run(WorkloadClass.BULK, () -> run(job, file, format)));
+        return job;
+    }
+
+    public Optional<UserImportJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void run(UserImportJob job, Path file, UserImportJob.Format format) {
+        try (CountingInputStream in = new CountingInputStream(Files.newInputStream(file));
+             UserImportReader reader = UserImportReader.open(format, in, objectMapper)) {
+            job.start();
+            BloomFilter existing = loadExistingKeys();
+            Set<String> seen = new HashSet<>();
+            List<UserImportReader.Row> chunk = new ArrayList<>(CHUNK_SIZE);
+            for (UserImportReader.Row r = reader.next(); r != null; r = reader.next()) {
+                chunk.add(r);
+                if (chunk.size() == CHUNK_SIZE) {
+                    importChunk(job, chunk, existing, seen);
+                    job.read(chunk.size(), in.count);
+                    chunk.clear();
+                }
+            }
+            importChunk(job, chunk, existing, seen);
+            job.read(chunk.size(), in.count);
+            job.complete();
+        } catch (IOException | RuntimeException e) {
+            log.error("User import job {} failed", job.getId(), e);
+            job.fail(e);
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete import file {}", file, e);
+            }
+        }
+    }
+
+    private BloomFilter loadExistingKeys() {
+        BloomFilter filter = new BloomFilter((int) Math.min(2 * userRepository.count() + CHUNK_SIZE, Integer.MAX_VALUE),
+                FALSE_POSITIVE_RATE);
+        long afterId = 0;
+        List<UserKeyRow> rows;
+        do {
+            rows = userRepository.findKeysByIdGreaterThanOrderByIdAsc(afterId, Limit.of(KEY_SCAN_SIZE));
+            for (UserKeyRow r : rows) {
+                filter.put(emailKey(r.email()));
+                filter.put(userIdKey(r.userId()));
+            }
+            if (!rows.isEmpty()) afterId = rows.get(rows.size() - 1).id();
+        } while (rows.size() == KEY_SCAN_SIZE);
+        return filter;
+    }
+
+    private void importChunk(UserImportJob job, List<UserImportReader.Row> rows, BloomFilter existing, Set<String> seen) {
+        List<UserImportReader.Row> valid = new ArrayList<>(rows.size());
+        for (UserImportReader.Row r : rows) {
+            String error = validationError(r);
+            if (error != null) {
+                job.invalid(r, error);
+                continue;
+            }
+            String email = emailKey(r.email()), userId = userIdKey(r.userId());
+            if (seen.contains(email)) {
+                job.duplicate(r, "Email appears earlier in the file");
+            } else if (seen.contains(userId)) {
+                job.duplicate(r, "User ID appears earlier in the file");
+            } else {
+                seen.add(email);
+                seen.add(userId);
+                valid.add(r);
+            }
+        }
+        List<UserImportReader.Row> fresh = dropExisting(job, valid, existing, false);
+        try {
+            insert(fresh, job.getSchoolId());
+        } catch (DataIntegrityViolationException e) {
+            // A user was created elsewhere after the filter was built; look up every row instead.
+            fresh = dropExisting(job, fresh, existing, true);
+            insert(fresh, job.getSchoolId());
+        }
+        job.imported(fresh.size());
+    }
+
+    // Looks up only the rows the filter flags (or all rows when exact); the rest cannot exist.
+    // Emails and user ids are looked up separately: an "or" of the two cannot use either index.
+    private List<UserImportReader.Row> dropExisting(UserImportJob job, List<UserImportReader.Row> rows,
+                                                    BloomFilter existing, boolean exact) {
+        Set<String> emails = new HashSet<>(), userIds = new HashSet<>();
+        for (UserImportReader.Row r : rows) {
+            if (exact || existing.mightContain(emailKey(r.email())) || existing.mightContain(userIdKey(r.userId()))) {
+                emails.add(r.email());
+                userIds.add(r.userId());
+            }
+        }
+        if (emails.isEmpty()) return rows;
+        job.checked(emails.size());
+        Set<String> taken = new HashSet<>();
+        List<UserKeyRow> found = new ArrayList<>(userRepository.findKeysByEmailIn(emails));
+        found.addAll(userRepository.findKeysByUserIdIn(userIds));
+        for (UserKeyRow k : found) {
+            taken.add(emailKey(k.email()));
+            taken.add(userIdKey(k.userId()));
+        }
+        List<UserImportReader.Row> res = new ArrayList<>(rows.size());
+        for (UserImportReader.Row r : rows) {
+            if (taken.contains(emailKey(r.email()))) job.duplicate(r, "Email already exists");
+            else if (taken.contains(userIdKey(r.userId()))) job.duplicate(r, "User ID already exists");
+            else res.add(r);
+        }
+        return res;
+    }
+
+    private void insert(List<UserImportReader.Row> rows, Long schoolId) {
+        if (rows.isEmpty()) return;
+        // Hashed on the import pool: several cores, none of them the login pool's.
+        String[] hashes = passwordHasher.hashAll(rows.stream().map(UserImportReader.Row::password).toList());
+        Instant now = Instant.now();
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        KeyHolder keys = new GeneratedKeyHolder();
+        tx.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        UserImportReader.Row r = rows.get(i);
+                        ps.setString(1, r.name());
+                        ps.setString(2, r.email());
+                        ps.setString(3, hashes[i]);
+                        ps.setString(4, r.role().toLowerCase(Locale.ROOT));
+                        ps.setString(5, r.userId());
+                        ps.setObject(6, schoolId, Types.BIGINT);
+                        ps.setBoolean(7, true);
+                        ps.setTimestamp(8, Timestamp.from(now), utc);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                }, keys));
+        List<Map<String, Object>> ids = keys.getKeyList();
+        for (int i = 0; i < rows.size(); i++) {
+            UserImportReader.Row r = rows.get(i);
+            User u = new User();
+            u.setId(((Number) ids.get(i).values().iterator().next()).longValue());
+            u.setName(r.name());
+            u.setEmail(r.email());
+            u.setRole(r.role().toLowerCase(Locale.ROOT));
+            u.setUserId(r.userId());
+            u.setSchoolId(schoolId);
+            u.setCreatedAt(now);
+            dashboardStats.userActivated(u);
+            searchIndex.userChanged(u);
+        }
+    }
+
+    private static String validationError(UserImportReader.Row r) {
+        if (r.name() == null || r.email() == null || r.password() == null || r.role() == null || r.userId() == null) {
+            return "Missing fields";
+        }
+        if (!ROLES.contains(r.role().toLowerCase(Locale.ROOT))) return "Unknown role " + r.role();
+        if (r.email().indexOf('@') <= 0) return "Invalid email";
+        if (r.name().length() > MAX_FIELD_LENGTH || r.email().length() > MAX_FIELD_LENGTH
+                || r.password().length() > MAX_FIELD_LENGTH || r.userId().length() > MAX_FIELD_LENGTH) {
+            return "Field too long";
+        }
+        return null;
+    }
+
+    // Unique columns compare case-insensitively in MySQL, so keys are lower-cased.
+    private static String emailKey(String email) {
+        return "e:" + email.toLowerCase(Locale.ROOT);
+    }
+
+    private static String userIdKey(String userId) {
+        return "u:" + userId.toLowerCase(Locale.ROOT);
+    }
+
+    private void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(JOB_RETENTION);
+        jobs.values().removeIf(j -> j.getFinishedAt() != null && j.getFinishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
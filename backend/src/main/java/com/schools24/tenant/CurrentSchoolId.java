@@ -0,0 +1,14 @@
+package com.schools24.tenant;
+
+import java.util.function.Supplier;
+
+/**
+ * Parameter of the {@code school} filter, read by Hibernate for each query.
+ */
+public class CurrentSchoolId implements Supplier<Long> {
+    @Override
+    public Long get() {
+        Long schoolId = TenantContext.current();
+        return schoolId == null ? 0L : schoolId;
+    }
+}
@@ -0,0 +1,16 @@
+package com.schools24.tenant;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller method (or every method of a controller) as a platform endpoint: it runs
+ * unscoped, across all schools, and is only open to signed-in platform users (see
+ * {@link TenantConfig}). Every other API endpoint needs a signed-in school user.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PlatformEndpoint {
+}
@@ -0,0 +1,39 @@
+package com.schools24.tenant;
+
+import com.schools24.domain.SchoolScoped;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+/**
+ * Gives new rows the current school and refuses writes to another school's rows. Filters do
+ * not apply to loads by id, so those are checked here after loading.
+ */
+public class SchoolStampListener {
+
+    @PrePersist
+    void stamp(SchoolScoped row) {
+        Long current = TenantContext.current();
+        if (row.getSchoolId() == null) row.setSchoolId(current);
+        check(row, current);
+    }
+
+    @PostLoad
+    void checkRead(SchoolScoped row) {
+        Long current = TenantContext.current();
+        if (current != null && !current.equals(row.getSchoolId())) {
+            throw new TenantAccessException("Not allowed to read another school's data");
+        }
+    }
+
+    @PreUpdate
+    void check(SchoolScoped row) {
+        check(row, TenantContext.current());
+    }
+
+    private static void check(SchoolScoped row, Long current) {
+        if (current != null && !current.equals(row.getSchoolId())) {
+            throw new TenantAccessException("Not allowed to write another school's data");
+        }
+    }
+}
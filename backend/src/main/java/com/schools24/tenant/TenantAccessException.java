@@ -0,0 +1,12 @@
+package com.schools24.tenant;
+
+/**
+ * Thrown when a request names a school it may not act for, or writes another school's rows.
+ */
+public class TenantAccessException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public TenantAccessException(String message) {
+        super(message);
+    }
+}
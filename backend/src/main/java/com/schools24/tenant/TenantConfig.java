@@ -0,0 +1,79 @@
+package com.schools24.tenant;
+
+import com.schools24.auth.AuthSession;
+import com.schools24.auth.NotSignedInException;
+import com.schools24.auth.TokenService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Scopes each API request to the school of its signed-in user; the scope is never taken from
+ * the request itself. A request without a valid token gets 401 and a user without a school gets
+ * 403, except on {@link PlatformEndpoint}s, which run unscoped and are only open to platform
+ * users ({@value #PLATFORM_ROLE}, without a school). {@code /api/admin} is only open to a
+ * school's admins. Login and the other {@code /api/auth} endpoints need no scope.
+ */
+@Configuration
+public class TenantConfig implements WebMvcConfigurer {
+    public static final String PLATFORM_ROLE = "developer";
+    public static final String ADMIN_ROLE = "admin";
+
+    private final TokenService tokenService;
+
+    public TenantConfig(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AsyncHandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (!(handler instanceof HandlerMethod m)) return true;
+                AuthSession session = tokenService.authenticate(TokenService.bearer(request.getHeader(HttpHeaders.AUTHORIZATION)))
+                        .orElse(null);
+                if (session == null) throw new NotSignedInException();
+                if (platform(m)) {
+                    if (!PLATFORM_ROLE.equals(session.role()) || session.schoolId() != null) {
+                        throw new TenantAccessException("Platform endpoints are only open to platform users");
+                    }
+                    return true;
+                }
+                if (session.schoolId() == null) throw new TenantAccessException("Not signed in to a school");
+                TenantContext.set(session.schoolId());
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+                TenantContext.clear();
+            }
+
+            @Override
+            public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                TenantContext.clear();
+            }
+        }).addPathPatterns("/api/**").excludePathPatterns("/api/auth/**");
+        // Runs after the scope above, so the request has a signed-in school user.
+        registry.addInterceptor(new AsyncHandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (!(handler instanceof HandlerMethod)) return true;
+                String role = tokenService.authenticate(TokenService.bearer(request.getHeader(HttpHeaders.AUTHORIZATION)))
+                        .map(AuthSession::role).orElse(null);
+                if (!ADMIN_ROLE.equals(role)) throw new TenantAccessException("Admin endpoints are only open to school admins");
+                return true;
+            }
+        }).addPathPatterns("/api/admin/**");
+    }
+
+    private static boolean platform(HandlerMethod m) {
+        return m.hasMethodAnnotation(PlatformEndpoint.class) || m.getBeanType().isAnnotationPresent(PlatformEndpoint.class);
+    }
+}
@@ -0,0 +1,79 @@
+package com.schools24.tenant;
+
+import java.util.function.Supplier;
+
+/**
+ * The school the current thread's request or job acts for. Every query on a
+ * {@link com.schools24.domain.SchoolScoped} entity is limited to it by the {@link #FILTER} filter,
+ * and new rows are stamped with it. Requests take it from the signed-in user (see
+ * {@link TenantConfig}). No school means unscoped: {@link PlatformEndpoint}s, startup loads and
+ * background jobs see every school.
+ */
+public final class TenantContext {
+    public static final String FILTER = "school";
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    /**
+     * The current school, or null when unscoped.
+     */
+    public static Long current() {
+        return CURRENT.get();
+    }
+
+    static void set(Long schoolId) {
+        CURRENT.set(schoolId);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    public static void run(Long schoolId, Runnable task) {
+        call(schoolId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public static <T> T call(Long schoolId, Supplier<T> task) {
+        Long previous = CURRENT.get();
+        if (schoolId == null) CURRENT.remove();
+        else CURRENT.set(schoolId);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) CURRENT.remove();
+            else CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Runs unscoped, for lookups that must see every school (email uniqueness, login, the
+     * in-memory indexes).
+     */
+    public static <T> T unscoped(Supplier<T> task) {
+        return call(null, task);
+    }
+
+    /**
+     * For endpoints that name a school explicitly: a request scoped to another school is refused.
+     */
+    public static void checkAccess(Long schoolId) {
+        Long current = CURRENT.get();
+        if (current != null && !current.equals(schoolId)) {
+            throw new TenantAccessException("Not allowed to access another school");
+        }
+    }
+
+    /**
+     * Wraps a task so it runs for the submitting thread's school.
+     */
+    public static Runnable propagate(Runnable task) {
+        Long schoolId = CURRENT.get();
+        if (schoolId == null) return task;
+        return () -> run(schoolId, task);
+    }
+}
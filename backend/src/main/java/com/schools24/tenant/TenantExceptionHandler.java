@@ -0,0 +1,25 @@
+package com.schools24.tenant;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+@RestControllerAdvice
+public class TenantExceptionHandler {
+
+    @ExceptionHandler(TenantAccessException.class)
+    public ResponseEntity<?> forbidden(TenantAccessException e) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", e.getMessage()));
+    }
+
+    // An update checked at flush surfaces from the commit, wrapped.
+    @ExceptionHandler(TransactionSystemException.class)
+    public ResponseEntity<?> commitFailed(TransactionSystemException e) {
+        if (e.getRootCause() instanceof TenantAccessException t) return forbidden(t);
+        throw e;
+    }
+}
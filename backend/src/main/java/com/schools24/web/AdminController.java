@@ -1,10 +1,25 @@
 package com.schools24.web;
 
+import com.schools24.admission.Workload;
+import com.schools24.admission.WorkloadClass;
+import com.schools24.auth.PasswordHasher;
+import com.schools24.metrics.QueryBudget;
 import com.schools24.domain.*;
 import com.schools24.repository.*;
+import com.schools24.service.AdminReadService;
+import com.schools24.service.DashboardStats;
+import com.schools24.service.ReferenceVersions.Resource;
+import com.schools24.service.UserImportJob;
+import com.schools24.service.UserImportService;
+import com.schools24.tenant.TenantContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.HashMap;
 import java.util.List;
@@ -18,35 +33,63 @@ public class AdminController {
     private final SchoolClassRepository classRepository;
     private final SubjectRepository subjectRepository;
     private final ClassSubjectTeacherRepository cstRepository;
+    private final DashboardStats dashboardStats;
+    private final AdminReadService adminReadService;
+    private final UserImportService userImportService;
+    private final PasswordHasher passwordHasher;
+    private final ReferenceResponses referenceResponses;
 
     public AdminController(UserRepository userRepository,
                            SchoolClassRepository classRepository,
                            SubjectRepository subjectRepository,
-                           ClassSubjectTeacherRepository cstRepository) {
+                           ClassSubjectTeacherRepository cstRepository,
+                           DashboardStats dashboardStats,
+                           AdminReadService adminReadService,
+                           UserImportService userImportService,
+                           PasswordHasher passwordHasher,
+                           ReferenceResponses referenceResponses) {
         this.userRepository = userRepository;
         this.classRepository = classRepository;
         this.subjectRepository = subjectRepository;
         this.cstRepository = cstRepository;
+        this.dashboardStats = dashboardStats;
+        this.adminReadService = adminReadService;
+        this.userImportService = userImportService;
+        this.passwordHasher = passwordHasher;
+        this.referenceResponses = referenceResponses;
     }
 
+    @Workload(WorkloadClass.DASHBOARD)
+    @QueryBudget(7) // first call recounts; later calls are served from memory
     @GetMapping("/dashboard")
     public Map<String, Object> dashboard() {
         Map<String, Object> body = new HashMap<>();
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalStudents", userRepository.countByRoleAndIsActiveTrue("student"));
-        stats.put("totalTeachers", userRepository.countByRoleAndIsActiveTrue("teacher"));
-        stats.put("totalClasses", classRepository.countByIsActiveTrue());
-        stats.put("totalSubjects", subjectRepository.countByIsActiveTrue());
+        stats.put("totalStudents", dashboardStats.activeUsers("student"));
+        stats.put("totalTeachers", dashboardStats.activeUsers("teacher"));
+        stats.put("totalClasses", dashboardStats.activeClasses());
+        stats.put("totalSubjects", dashboardStats.activeSubjects());
         body.put("stats", stats);
-        body.put("recentUsers", userRepository.findTop5ByIsActiveTrueOrderByCreatedAtDesc());
+        body.put("recentUsers", dashboardStats.recentUsers(5));
         return body;
     }
 
+    @QueryBudget(3)
     @GetMapping("/teachers")
-    public Map<String, Object> teachers() {
-        Map<String, Object> res = new HashMap<>();
-        res.put("teachers", userRepository.findByRoleAndIsActiveTrue("teacher"));
-        return res;
+    public ResponseEntity<?> teachers(@RequestParam(value = "cursor", required = false) String cursor,
+                                      @RequestParam(value = "limit", required = false) Integer limit,
+                                      @RequestParam(value = "withTotal", defaultValue = "false") boolean withTotal) {
+        try {
+            CursorPage.Key after = CursorPage.decodeKey(cursor);
+            int n = CursorPage.limit(limit);
+            List<AdminReadService.TeacherView> rows = after == null
+                    ? adminReadService.teachers(null, null, n + 1)
+                    : adminReadService.teachers(after.createdAt(), after.id(), n + 1);
+            return ResponseEntity.ok(CursorPage.body("teachers", rows, n, t -> CursorPage.encode(t.createdAt(), t.id()),
+                    withTotal ? dashboardStats.activeUsers("teacher") : null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
     }
 
     @PostMapping("/users")
@@ -59,13 +102,13 @@ public class AdminController {
         if (name == null || email == null || password == null || role == null || userId == null) {
             return ResponseEntity.badRequest().body(Map.of("message", "Missing fields"));
         }
-        if (userRepository.existsByEmailOrUserId(email, userId)) {
+        if (userRepository.existsByEmailOrUserIdInAnySchool(email, userId)) {
             return ResponseEntity.badRequest().body(Map.of("message", "Email or User ID already exists"));
         }
         User u = new User();
         u.setName(name);
         u.setEmail(email);
-        u.setPassword(password); // For demo; replace with hashing in production
+        u.setPassword(passwordHasher.hash(password));
         u.setRole(role);
         u.setUserId(userId);
         userRepository.save(u);
@@ -81,11 +124,43 @@ public class AdminController {
         ));
     }
 
+    @Workload(WorkloadClass.BULK)
+    @PostMapping(value = "/users/import", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                         InputStream body) throws IOException {
+        UserImportJob.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_JSON)
+                ? UserImportJob.Format.JSON : UserImportJob.Format.CSV;
+        UserImportJob job = userImportService.submit(body, format);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/admin/users/import/" + job.getId()))
+                .body(job.toMap());
+    }
+
+    @GetMapping("/users/import/{jobId}")
+    public ResponseEntity<?> importStatus(@PathVariable String jobId) {
+        return userImportService.find(jobId)
+                .<ResponseEntity<?>>map(job -> {
+                    TenantContext.checkAccess(job.getSchoolId());
+                    return ResponseEntity.ok(job.toMap());
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @QueryBudget(3)
     @GetMapping("/classes")
-    public Map<String, Object> classesAll() {
-        Map<String, Object> res = new HashMap<>();
-        res.put("classes", classRepository.findAll());
-        return res;
+    public ResponseEntity<?> classesAll(@RequestParam(value = "cursor", required = false) String cursor,
+                                        @RequestParam(value = "limit", required = false) Integer limit,
+                                        @RequestParam(value = "withTotal", defaultValue = "false") boolean withTotal,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            long afterId = CursorPage.decodeId(cursor);
+            int n = CursorPage.limit(limit);
+            return referenceResponses.respond(Resource.CLASSES, TenantContext.current(), afterId + "/" + n + "/" + withTotal,
+                    ifNoneMatch, () -> CursorPage.body("classes", adminReadService.classes(afterId, n + 1), n,
+                            c -> CursorPage.encode(c.id()), withTotal ? classRepository.count() : null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
     }
 
     @PostMapping("/classes")
@@ -107,9 +182,24 @@ public class AdminController {
         return ResponseEntity.status(201).body(Map.of("message", "Class created successfully", "class", c));
     }
 
+    @QueryBudget(2)
     @GetMapping("/subjects")
-    public Map<String, Object> subjectsAll() {
-        return Map.of("subjects", subjectRepository.findAll());
+    public ResponseEntity<?> subjectsAll(@RequestParam(value = "cursor", required = false) String cursor,
+                                         @RequestParam(value = "limit", required = false) Integer limit,
+                                         @RequestParam(value = "withTotal", defaultValue = "false") boolean withTotal,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            long afterId = CursorPage.decodeId(cursor);
+            int n = CursorPage.limit(limit);
+            return referenceResponses.respond(Resource.SUBJECTS, TenantContext.current(), afterId + "/" + n + "/" + withTotal,
+                    ifNoneMatch, () -> {
+                        List<Subject> rows = subjectRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(n + 1));
+                        return CursorPage.body("subjects", rows, n, sub -> CursorPage.encode(sub.getId()),
+                                withTotal ? subjectRepository.count() : null);
+                    });
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
     }
 
     @PostMapping("/subjects")
@@ -0,0 +1,65 @@
+package com.schools24.web;
+
+import com.schools24.admission.Workload;
+import com.schools24.admission.WorkloadClass;
+import com.schools24.metrics.QueryBudget;
+import com.schools24.service.TeacherAssignmentService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/assignments")
+@CrossOrigin
+public class AssignmentController {
+    private final TeacherAssignmentService assignments;
+
+    public AssignmentController(TeacherAssignmentService assignments) {
+        this.assignments = assignments;
+    }
+
+    @QueryBudget(1) // loads the school on its first lookup
+    @GetMapping("/teachers/{teacherId}")
+    public Map<String, Object> ofTeacher(@PathVariable long teacherId, @RequestParam Long schoolId) {
+        return assignments.ofTeacher(schoolId, teacherId);
+    }
+
+    @QueryBudget(1)
+    @GetMapping("/subjects/{subjectId}")
+    public Map<String, Object> ofSubject(@PathVariable long subjectId, @RequestParam Long schoolId,
+                                         @RequestParam(required = false) String grade) {
+        return assignments.ofSubject(schoolId, subjectId, grade);
+    }
+
+    @QueryBudget(1)
+    @GetMapping("/load")
+    public Map<String, Object> load(@RequestParam Long schoolId) {
+        return assignments.loads(schoolId);
+    }
+
+    @Workload(WorkloadClass.BULK)
+    @PutMapping
+    public ResponseEntity<?> apply(@RequestBody Map<String, Object> body) {
+        if (body.get("schoolId") == null || !(body.get("assignments") instanceof List<?> rows)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "schoolId and an assignments list are required"));
+        }
+        try {
+            List<TeacherAssignmentService.SheetRow> sheet = new ArrayList<>(rows.size());
+            for (Object row : rows) {
+                Map<?, ?> m = row instanceof Map<?, ?> r ? r : Map.of();
+                sheet.add(new TeacherAssignmentService.SheetRow(toLong(m.get("classId")), toLong(m.get("subjectId")),
+                        toLong(m.get("teacherId"))));
+            }
+            return ResponseEntity.ok(assignments.apply(Long.valueOf(String.valueOf(body.get("schoolId"))), sheet));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    private static Long toLong(Object v) {
+        return v == null ? null : Long.valueOf(String.valueOf(v));
+    }
+}
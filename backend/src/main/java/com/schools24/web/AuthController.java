@@ -0,0 +1,69 @@
+package com.schools24.web;
+
+import com.schools24.auth.AuthService;
+import com.schools24.auth.AuthSession;
+import com.schools24.auth.TokenService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/auth")
+@CrossOrigin
+public class AuthController {
+    private final AuthService authService;
+    private final TokenService tokenService;
+
+    public AuthController(AuthService authService, TokenService tokenService) {
+        this.authService = authService;
+        this.tokenService = tokenService;
+    }
+
+    @PostMapping("/login")
+    public ResponseEntity<?> login(@RequestBody Map<String, Object> body) {
+        String email = (String) body.get("email");
+        String password = (String) body.get("password");
+        if (email == null || password == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Missing fields"));
+        }
+        return authService.login(email, password)
+                .<ResponseEntity<?>>map(l -> {
+                    Map<String, Object> res = new LinkedHashMap<>();
+                    res.put("token", l.token());
+                    res.put("tokenType", "Bearer");
+                    res.put("expiresAt", l.session().expiresAt().toString());
+                    res.put("user", user(l.session()));
+                    return ResponseEntity.ok(res);
+                })
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(Map.of("message", "Invalid email or password")));
+    }
+
+    @GetMapping("/me")
+    public ResponseEntity<?> me(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        return tokenService.authenticate(TokenService.bearer(authorization))
+                .<ResponseEntity<?>>map(s -> ResponseEntity.ok(Map.of("user", user(s), "expiresAt", s.expiresAt().toString())))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Not signed in")));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        tokenService.revoke(TokenService.bearer(authorization));
+        return ResponseEntity.noContent().build();
+    }
+
+    private static Map<String, Object> user(AuthSession s) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("id", s.id());
+        m.put("name", s.name());
+        m.put("email", s.email());
+        m.put("role", s.role());
+        m.put("userId", s.userId());
+        m.put("schoolId", s.schoolId());
+        return m;
+    }
+}
@@ -0,0 +1,95 @@
+package com.schools24.web;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Seek pagination shared by the list endpoints. A cursor is an opaque token holding the sort
+ * key of the last row returned, either an id or a (createdAt, id) pair; the next page is read
+ * with a range predicate on that key, so page 1000 costs the same as page 1. Callers fetch
+ * {@code limit + 1} rows to learn whether another page exists without counting.
+ */
+public final class CursorPage {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 500;
+
+    public record Key(Instant createdAt, long id) {
+    }
+
+    private CursorPage() {
+    }
+
+    public static int limit(Integer requested) {
+        if (requested == null) return DEFAULT_LIMIT;
+        return Math.min(Math.max(requested, 1), MAX_LIMIT);
+    }
+
+    public static String encode(long id) {
+        return encodeRaw(Long.toString(id));
+    }
+
+    public static String encode(Instant createdAt, long id) {
+        return encodeRaw(createdAt + "|" + id);
+    }
+
+    /**
+     * Returns 0 (before the first row) for a missing cursor.
+     */
+    public static long decodeId(String cursor) {
+        if (cursor == null || cursor.isBlank()) return 0L;
+        try {
+            return Long.parseLong(decodeRaw(cursor));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Returns null for a missing cursor.
+     */
+    public static Key decodeKey(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        String raw = decodeRaw(cursor);
+        int sep = raw.indexOf('|');
+        if (sep < 0) throw new IllegalArgumentException("Invalid cursor");
+        try {
+            return new Key(Instant.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Builds the response body from a result fetched with {@code limit + 1} rows.
+     * {@code total} is only included when the caller asked for it.
+     */
+    public static <T> Map<String, Object> body(String itemsKey, List<T> rows, int limit,
+                                               Function<T, String> cursorOf, Long total) {
+        boolean hasMore = rows.size() > limit;
+        List<T> items = hasMore ? rows.subList(0, limit) : rows;
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put(itemsKey, items);
+        body.put("nextCursor", hasMore ? cursorOf.apply(items.get(items.size() - 1)) : null);
+        body.put("hasMore", hasMore);
+        if (total != null) body.put("total", total);
+        return body;
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeRaw(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -1,57 +1,159 @@
 package com.schools24.web;
 
+import com.schools24.admission.DbAdmission;
+import com.schools24.admission.Workload;
+import com.schools24.admission.WorkloadClass;
+import com.schools24.auth.PasswordHasher;
+import com.schools24.metrics.QueryBudget;
 import com.schools24.domain.School;
 import com.schools24.domain.User;
 import com.schools24.repository.SchoolRepository;
 import com.schools24.repository.UserRepository;
+import com.schools24.repository.UserSummary;
+import com.schools24.service.DashboardStats;
+import com.schools24.service.PaymentJournalService;
+import com.schools24.service.SchoolExportService;
+import com.schools24.service.SearchIndexService;
+import com.schools24.tenant.PlatformEndpoint;
+import com.schools24.tenant.TenantContext;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 @RestController
 @RequestMapping("/api/developer")
 @CrossOrigin
+@PlatformEndpoint
 public class DeveloperController {
     private final SchoolRepository schoolRepository;
     private final UserRepository userRepository;
+    private final SchoolExportService schoolExportService;
+    private final DashboardStats dashboardStats;
+    private final SearchIndexService searchIndex;
+    private final DbAdmission dbAdmission;
+    private final PasswordHasher passwordHasher;
+    private final PaymentJournalService paymentJournal; // null when schools24.payments.journal.enabled=false
 
-    public DeveloperController(SchoolRepository schoolRepository, UserRepository userRepository) {
+    public DeveloperController(SchoolRepository schoolRepository,
+                               UserRepository userRepository,
+                               SchoolExportService schoolExportService,
+                               DashboardStats dashboardStats,
+                               SearchIndexService searchIndex,
+                               DbAdmission dbAdmission,
+                               PasswordHasher passwordHasher,
+                               ObjectProvider<PaymentJournalService> paymentJournal) {
         this.schoolRepository = schoolRepository;
         this.userRepository = userRepository;
+        this.schoolExportService = schoolExportService;
+        this.dashboardStats = dashboardStats;
+        this.searchIndex = searchIndex;
+        this.dbAdmission = dbAdmission;
+        this.passwordHasher = passwordHasher;
+        this.paymentJournal = paymentJournal.getIfAvailable();
     }
 
+    @Workload(WorkloadClass.DASHBOARD)
+    @QueryBudget(7)
     @GetMapping("/overview")
     public Map<String, Object> overview() {
         Map<String, Object> res = new HashMap<>();
-        res.put("schools", schoolRepository.count());
-        res.put("admins", userRepository.countByRoleAndIsActiveTrue("admin"));
-        res.put("teachers", userRepository.countByRoleAndIsActiveTrue("teacher"));
-        res.put("students", userRepository.countByRoleAndIsActiveTrue("student"));
+        res.put("schools", dashboardStats.schools());
+        res.put("admins", dashboardStats.activeUsers("admin"));
+        res.put("teachers", dashboardStats.activeUsers("teacher"));
+        res.put("students", dashboardStats.activeUsers("student"));
         return res;
     }
 
+    // Seek pagination by id unless the legacy page parameter is sent (the developer console still uses it).
+    @QueryBudget(2)
     @GetMapping("/schools")
-    public Map<String, Object> listSchools(@RequestParam(value = "q", required = false) String q,
-                                           @RequestParam(value = "page", defaultValue = "1") int page,
-                                           @RequestParam(value = "pageSize", defaultValue = "10") int pageSize) {
-        PageRequest pr = PageRequest.of(Math.max(page - 1, 0), Math.max(pageSize, 1));
-        Page<School> result;
-        if (q != null && !q.isBlank()) {
-            result = schoolRepository.findByNameContainingIgnoreCaseOrCodeContainingIgnoreCase(q, q, pr);
-        } else {
-            result = schoolRepository.findAll(pr);
+    public ResponseEntity<?> listSchools(@RequestParam(value = "q", required = false) String q,
+                                         @RequestParam(value = "page", required = false) Integer page,
+                                         @RequestParam(value = "pageSize", defaultValue = "10") int pageSize,
+                                         @RequestParam(value = "cursor", required = false) String cursor,
+                                         @RequestParam(value = "limit", required = false) Integer limit,
+                                         @RequestParam(value = "withTotal", defaultValue = "false") boolean withTotal) {
+        boolean filtered = q != null && !q.isBlank();
+        if (page != null) {
+            PageRequest pr = PageRequest.of(Math.max(page - 1, 0), Math.max(pageSize, 1));
+            Map<String, Object> body = new HashMap<>();
+            if (filtered && searchIndex.isReady()) {
+                long[] ranked = searchIndex.searchSchools(q, (int) Math.min(pr.getOffset() + pr.getPageSize(), Integer.MAX_VALUE));
+                int from = (int) Math.min(pr.getOffset(), ranked.length);
+                body.put("schools", schoolsInOrder(Arrays.copyOfRange(ranked, from, ranked.length)));
+                body.put("total", (long) searchIndex.matchSchools(q).length);
+                return ResponseEntity.ok(body);
+            }
+            Page<School> result = filtered
+                    ? schoolRepository.findByNameContainingIgnoreCaseOrCodeContainingIgnoreCase(q, q, pr)
+                    : schoolRepository.findAll(pr);
+            body.put("schools", result.getContent());
+            body.put("total", result.getTotalElements());
+            return ResponseEntity.ok(body);
         }
-        Map<String, Object> body = new HashMap<>();
-        body.put("schools", result.getContent());
-        body.put("total", result.getTotalElements());
-        return body;
+        try {
+            long afterId = CursorPage.decodeId(cursor);
+            int n = CursorPage.limit(limit);
+            List<School> rows;
+            Long total = withTotal ? dashboardStats.schools() : null;
+            if (filtered && searchIndex.isReady()) {
+                long[] ids = searchIndex.matchSchools(q);
+                int from = Arrays.binarySearch(ids, afterId);
+                from = from >= 0 ? from + 1 : -from - 1;
+                rows = schoolsInOrder(Arrays.copyOfRange(ids, from, Math.min(ids.length, from + n + 1)));
+                if (withTotal) total = (long) ids.length;
+            } else if (filtered) {
+                rows = schoolRepository.findMatchingAfter(afterId, q, Limit.of(n + 1));
+                if (withTotal) total = schoolRepository.countByNameContainingIgnoreCaseOrCodeContainingIgnoreCase(q, q);
+            } else {
+                rows = schoolRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(n + 1));
+            }
+            return ResponseEntity.ok(CursorPage.body("schools", rows, n, sch -> CursorPage.encode(sch.getId()), total));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @QueryBudget(1)
+    @GetMapping("/search/schools")
+    public Map<String, Object> searchSchools(@RequestParam("q") String q,
+                                             @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        int n = Math.min(Math.max(limit, 1), 50);
+        // Both paths match the trimmed query; an empty one matches nothing, as in the index.
+        q = q.trim();
+        if (q.isEmpty()) return Map.of("schools", List.of());
+        if (!searchIndex.isReady()) {
+            return Map.of("schools", schoolRepository.findByNameContainingIgnoreCaseOrCodeContainingIgnoreCase(q, q, PageRequest.of(0, n)).getContent());
+        }
+        return Map.of("schools", schoolsInOrder(searchIndex.searchSchools(q, n)));
+    }
+
+    @QueryBudget(1)
+    @GetMapping("/search/users")
+    public Map<String, Object> searchUsers(@RequestParam("q") String q,
+                                           @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        int n = Math.min(Math.max(limit, 1), 50);
+        q = q.trim();
+        if (q.isEmpty()) return Map.of("users", List.of());
+        if (!searchIndex.isReady()) return Map.of("users", userRepository.findActiveSummariesMatching(q, Limit.of(n)));
+        long[] ids = searchIndex.searchUsers(q, n);
+        Map<Long, UserSummary> byId = new HashMap<>();
+        for (UserSummary u : userRepository.findSummariesByIdIn(Arrays.stream(ids).boxed().toList())) byId.put(u.id(), u);
+        List<UserSummary> users = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            UserSummary u = byId.get(id);
+            if (u != null) users.add(u);
+        }
+        return Map.of("users", users);
     }
 
     @PostMapping("/schools")
@@ -73,11 +175,23 @@ public class DeveloperController {
         return ResponseEntity.created(URI.create("/api/developer/schools/" + s.getId())).body(Map.of("school", s));
     }
 
+    @QueryBudget(2)
     @GetMapping("/schools/{id}/users")
-    public Map<String, Object> listUsers(@PathVariable Long id) {
-        // naive: list all active users (no school link yet); to be refined after school/user relation
-        List<User> users = userRepository.findTop5ByIsActiveTrueOrderByCreatedAtDesc();
-        return Map.of("users", users);
+    public ResponseEntity<?> listUsers(@PathVariable Long id,
+                                       @RequestParam(value = "cursor", required = false) String cursor,
+                                       @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            TenantContext.checkAccess(id);
+            if (!schoolRepository.existsById(id)) return ResponseEntity.notFound().build();
+            CursorPage.Key after = CursorPage.decodeKey(cursor);
+            int n = CursorPage.limit(limit);
+            List<UserSummary> rows = after == null
+                    ? userRepository.findActiveSummariesBySchool(id, Limit.of(n + 1))
+                    : userRepository.findActiveSummariesBySchoolBefore(id, after.createdAt(), after.id(), Limit.of(n + 1));
+            return ResponseEntity.ok(CursorPage.body("users", rows, n, u -> CursorPage.encode(u.createdAt(), u.id()), null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
     }
 
     @PostMapping("/schools/{id}/users")
@@ -90,15 +204,18 @@ public class DeveloperController {
         if (role == null || name == null || email == null || userId == null || password == null) {
             return ResponseEntity.badRequest().body(Map.of("message", "Missing fields"));
         }
-        if (userRepository.existsByEmailOrUserId(email, userId)) {
+        TenantContext.checkAccess(id);
+        if (!schoolRepository.existsById(id)) return ResponseEntity.badRequest().body(Map.of("message", "School not found"));
+        if (userRepository.existsByEmailOrUserIdInAnySchool(email, userId)) {
             return ResponseEntity.badRequest().body(Map.of("message", "Email or User ID already exists"));
         }
         User u = new User();
         u.setName(name);
         u.setEmail(email);
-        u.setPassword(password);
+        u.setPassword(passwordHasher.hash(password));
         u.setRole(role);
         u.setUserId(userId);
+        u.setSchoolId(id);
         userRepository.save(u);
         return ResponseEntity.ok(Map.of("message", "User created", "user", Map.of("id", u.getId())));
     }
@@ -112,15 +229,18 @@ public class DeveloperController {
         if (name == null || email == null || userId == null || password == null) {
             return ResponseEntity.badRequest().body(Map.of("message", "Missing fields"));
         }
-        if (userRepository.existsByEmailOrUserId(email, userId)) {
+        TenantContext.checkAccess(id);
+        if (!schoolRepository.existsById(id)) return ResponseEntity.badRequest().body(Map.of("message", "School not found"));
+        if (userRepository.existsByEmailOrUserIdInAnySchool(email, userId)) {
             return ResponseEntity.badRequest().body(Map.of("message", "Email or User ID already exists"));
         }
         User u = new User();
         u.setName(name);
         u.setEmail(email);
-        u.setPassword(password);
+        u.setPassword(passwordHasher.hash(password));
         u.setRole("admin");
         u.setUserId(userId);
+        u.setSchoolId(id);
         userRepository.save(u);
         return ResponseEntity.ok(Map.of("message", "Admin provisioned", "user", Map.of("id", u.getId())));
     }
@@ -143,30 +263,39 @@ public class DeveloperController {
         return ResponseEntity.ok(Map.of("message", "Locks updated"));
     }
 
+    @Workload(WorkloadClass.EXPORTS)
     @GetMapping("/schools/export")
-    public ResponseEntity<byte[]> exportCsv(@RequestParam(value = "q", required = false) String q) {
-        List<School> schools;
-        if (q != null && !q.isBlank()) {
-            schools = schoolRepository.findByNameContainingIgnoreCaseOrCodeContainingIgnoreCase(q, q, PageRequest.of(0, Integer.MAX_VALUE)).getContent();
-        } else {
-            schools = schoolRepository.findAll();
-        }
-        StringBuilder sb = new StringBuilder("id,code,name,domain,email\n");
-        for (School s : schools) {
-            sb.append(s.getId()).append(',')
-              .append(escape(s.getCode())).append(',')
-              .append(escape(s.getName())).append(',')
-              .append(escape(s.getDomain())).append(',')
-              .append(escape(s.getEmail())).append('\n');
-        }
-        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+    public ResponseEntity<StreamingResponseBody> exportCsv(@RequestParam(value = "q", required = false) String q,
+                                                           @RequestParam(value = "columns", defaultValue = "basic") String columns,
+                                                           @RequestParam(value = "gzip", defaultValue = "false") boolean gzip) {
+        boolean extended = "all".equalsIgnoreCase(columns);
+        StreamingResponseBody body = out -> schoolExportService.writeCsv(q, extended, gzip, out);
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=schools.csv")
-                .contentType(MediaType.TEXT_PLAIN)
-                .body(bytes);
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + (gzip ? "schools.csv.gz" : "schools.csv"))
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.TEXT_PLAIN)
+                .body(body);
     }
 
-    private String escape(String v) { return v == null ? "" : '"' + v.replace("\"", "\"\"") + '"'; }
-}
+    @GetMapping("/admission")
+    public Map<String, Object> admission() {
+        return dbAdmission.snapshot();
+    }
 
+    // The server's payment journal, which holds every school's payments.
+    @GetMapping("/payments/journal")
+    public ResponseEntity<?> paymentJournal() {
+        if (paymentJournal == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(paymentJournal.snapshot());
+    }
 
+    private List<School> schoolsInOrder(long[] ids) {
+        Map<Long, School> byId = new HashMap<>();
+        for (School s : schoolRepository.findAllById(Arrays.stream(ids).boxed().toList())) byId.put(s.getId(), s);
+        List<School> res = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            School s = byId.get(id);
+            if (s != null) res.add(s);
+        }
+        return res;
+    }
+}
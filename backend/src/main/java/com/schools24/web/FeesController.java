@@ -1,39 +1,90 @@
 package com.schools24.web;
 
+import com.schools24.admission.Workload;
+import com.schools24.admission.WorkloadClass;
+import com.schools24.metrics.QueryBudget;
 import com.schools24.domain.*;
 import com.schools24.repository.*;
+import com.schools24.service.BulkInvoiceJob;
+import com.schools24.service.BulkInvoiceService;
+import com.schools24.service.FeeReportService;
+import com.schools24.service.FeeStatementJob;
+import com.schools24.service.FeeStatementService;
+import com.schools24.service.IdempotencyKeyReusedException;
+import com.schools24.service.PaymentJournalFullException;
+import com.schools24.service.PaymentJournalService;
+import com.schools24.service.PaymentService;
+import com.schools24.service.ReferenceVersions.Resource;
+import com.schools24.tenant.TenantContext;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.util.*;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/admin/fees")
 @CrossOrigin
 public class FeesController {
+    /**
+     * One row of a payment batch. Ids and amounts are read as text, so a malformed value rejects
+     * its row instead of the whole batch.
+     */
+    public record PaymentRow(String invoiceId, String amount, String method, String idempotencyKey) {
+    }
+
+    public record PaymentBatch(List<PaymentRow> payments) {
+    }
+
     private final SchoolRepository schoolRepository;
     private final FeeHeadRepository feeHeadRepository;
     private final FeeInvoiceRepository invoiceRepository;
-    private final PaymentRepository paymentRepository;
     private final UserRepository userRepository;
+    private final FeeReportService feeReportService;
+    private final BulkInvoiceService bulkInvoiceService;
+    private final FeeStatementService feeStatementService;
+    private final PaymentService paymentService;
+    private final PaymentJournalService paymentJournal; // null when schools24.payments.journal.enabled=false
+    private final ReferenceResponses referenceResponses;
 
     public FeesController(SchoolRepository schoolRepository,
                           FeeHeadRepository feeHeadRepository,
                           FeeInvoiceRepository invoiceRepository,
-                          PaymentRepository paymentRepository,
-                          UserRepository userRepository) {
+                          UserRepository userRepository,
+                          FeeReportService feeReportService,
+                          BulkInvoiceService bulkInvoiceService,
+                          FeeStatementService feeStatementService,
+                          PaymentService paymentService,
+                          ObjectProvider<PaymentJournalService> paymentJournal,
+                          ReferenceResponses referenceResponses) {
         this.schoolRepository = schoolRepository;
         this.feeHeadRepository = feeHeadRepository;
         this.invoiceRepository = invoiceRepository;
-        this.paymentRepository = paymentRepository;
         this.userRepository = userRepository;
+        this.feeReportService = feeReportService;
+        this.bulkInvoiceService = bulkInvoiceService;
+        this.feeStatementService = feeStatementService;
+        this.paymentService = paymentService;
+        this.paymentJournal = paymentJournal.getIfAvailable();
+        this.referenceResponses = referenceResponses;
     }
 
+    @QueryBudget(3)
     @GetMapping("/heads")
-    public Map<String, Object> listHeads(@RequestParam Long schoolId) {
-        School s = schoolRepository.findById(schoolId).orElseThrow();
-        return Map.of("heads", feeHeadRepository.findBySchool(s));
+    public ResponseEntity<?> listHeads(@RequestParam Long schoolId,
+                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        TenantContext.checkAccess(schoolId);
+        return referenceResponses.respond(Resource.FEE_HEADS, schoolId, "", ifNoneMatch, () -> {
+            School s = schoolRepository.findById(schoolId).orElseThrow();
+            return Map.of("heads", feeHeadRepository.findBySchool(s));
+        });
     }
 
     @PostMapping("/heads")
@@ -41,6 +92,7 @@ public class FeesController {
         Long schoolId = Long.valueOf(String.valueOf(body.get("schoolId")));
         String name = (String) body.get("name");
         Integer amount = Integer.valueOf(String.valueOf(body.getOrDefault("amount", 0)));
+        TenantContext.checkAccess(schoolId);
         School s = schoolRepository.findById(schoolId).orElseThrow();
         FeeHead h = new FeeHead();
         h.setSchool(s);
@@ -54,54 +106,203 @@ public class FeesController {
     public ResponseEntity<?> createInvoice(@RequestBody Map<String, Object> body) {
         Long schoolId = Long.valueOf(String.valueOf(body.get("schoolId")));
         Long studentId = Long.valueOf(String.valueOf(body.get("studentId")));
-        List<Integer> headIds = (List<Integer>) body.get("headIds");
+        List<Long> headIds = toLongs(body.get("headIds"));
+        TenantContext.checkAccess(schoolId);
         School s = schoolRepository.findById(schoolId).orElseThrow();
         User student = userRepository.findById(studentId).orElseThrow();
-        FeeInvoice inv = new FeeInvoice();
-        inv.setSchool(s);
-        inv.setStudent(student);
+        FeeInvoice inv = BulkInvoiceService.buildInvoice(s, student, bulkInvoiceService.resolveHeads(s, headIds));
         invoiceRepository.save(inv);
-        int total = 0;
-        for (Integer hid : headIds) {
-            FeeHead head = feeHeadRepository.findById(hid.longValue()).orElseThrow();
-            FeeInvoiceItem item = new FeeInvoiceItem();
-            item.setInvoice(inv);
-            item.setHead(head);
-            item.setAmount(head.getAmount());
-            inv.getItems().add(item);
-            total += head.getAmount();
+        return ResponseEntity.ok(Map.of("invoiceId", inv.getId(), "total", inv.getTotalAmount()));
+    }
+
+    @Workload(WorkloadClass.BULK)
+    @PostMapping("/invoices/bulk")
+    public ResponseEntity<?> createInvoicesBulk(@RequestBody Map<String, Object> body) {
+        if (body.get("schoolId") == null || body.get("headIds") == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Missing fields"));
         }
-        inv.setTotalAmount(total);
-        invoiceRepository.save(inv);
-        return ResponseEntity.ok(Map.of("invoiceId", inv.getId(), "total", total));
+        Long schoolId = Long.valueOf(String.valueOf(body.get("schoolId")));
+        Long classId = body.get("classId") == null ? null : Long.valueOf(String.valueOf(body.get("classId")));
+        try {
+            BulkInvoiceJob job = bulkInvoiceService.submit(schoolId, toLongs(body.get("headIds")), classId);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/admin/fees/invoices/bulk/" + job.getId()))
+                    .body(job.toMap());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/invoices/bulk/{jobId}")
+    public ResponseEntity<?> bulkInvoiceStatus(@PathVariable String jobId) {
+        return bulkInvoiceService.find(jobId)
+                .<ResponseEntity<?>>map(job -> {
+                    TenantContext.checkAccess(job.getSchoolId());
+                    return ResponseEntity.ok(job.toMap());
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Workload(WorkloadClass.EXPORTS)
+    @GetMapping("/statements/export")
+    public ResponseEntity<StreamingResponseBody> exportStatements(@RequestParam Long schoolId) {
+        FeeStatementJob job;
+        try {
+            job = feeStatementService.open(schoolId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build(); // unknown school
+        }
+        StreamingResponseBody body = out -> feeStatementService.write(job, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=fee-statements-" + schoolId + ".zip")
+                .header("X-Job-Id", job.getId())
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
     }
 
+    @PostMapping("/statements")
+    public ResponseEntity<?> createStatements(@RequestBody Map<String, Object> body) {
+        if (body.get("schoolId") == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Missing fields"));
+        }
+        try {
+            FeeStatementJob job = feeStatementService.submit(Long.valueOf(String.valueOf(body.get("schoolId"))));
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/admin/fees/statements/" + job.getId()))
+                    .body(job.toMap());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/statements/{jobId}")
+    public ResponseEntity<?> statementsStatus(@PathVariable String jobId) {
+        return feeStatementService.find(jobId)
+                .<ResponseEntity<?>>map(job -> {
+                    TenantContext.checkAccess(job.getSchoolId());
+                    return ResponseEntity.ok(job.toMap());
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/statements/{jobId}/file")
+    public ResponseEntity<?> statementsFile(@PathVariable String jobId) {
+        FeeStatementJob job = feeStatementService.find(jobId).orElse(null);
+        if (job == null) return ResponseEntity.notFound().build();
+        TenantContext.checkAccess(job.getSchoolId());
+        if (job.getFile() == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", "Statements are not ready"));
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=fee-statements-" + job.getSchoolId() + ".zip")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(new FileSystemResource(job.getFile()));
+    }
+
+    @Workload(WorkloadClass.PAYMENTS)
+    @QueryBudget(7)
     @PostMapping("/payments")
-    public ResponseEntity<?> recordPayment(@RequestBody Map<String, Object> body) {
-        Long invoiceId = Long.valueOf(String.valueOf(body.get("invoiceId")));
-        Integer amount = Integer.valueOf(String.valueOf(body.get("amount")));
-        String method = String.valueOf(body.getOrDefault("method", "CASH"));
-        FeeInvoice inv = invoiceRepository.findById(invoiceId).orElseThrow();
-        Payment p = new Payment();
-        p.setInvoice(inv);
-        p.setAmount(amount);
-        p.setMethod(method);
-        paymentRepository.save(p);
-        int paid = Optional.ofNullable(inv.getPaidAmount()).orElse(0) + amount;
-        inv.setPaidAmount(paid);
-        inv.setStatus(paid >= inv.getTotalAmount() ? "PAID" : (paid > 0 ? "PARTIAL" : "UNPAID"));
-        invoiceRepository.save(inv);
-        return ResponseEntity.ok(Map.of("status", inv.getStatus(), "paidAmount", paid));
+    public ResponseEntity<?> recordPayment(@RequestBody Map<String, Object> body,
+                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        try {
+            PaymentService.PaymentRequest req = toPaymentRequest(body, idempotencyKey);
+            if (paymentJournal == null) return ResponseEntity.ok(paymentService.record(req));
+            Map<String, Object> receipt = paymentJournal.accept(req);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/admin/fees/payments/receipts/" + receipt.get("receiptId")))
+                    .body(receipt);
+        } catch (PaymentJournalFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("message", e.getMessage()));
+        } catch (IdempotencyKeyReusedException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Invoice not found"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/payments/receipts/{receiptId}")
+    public ResponseEntity<?> paymentReceipt(@PathVariable long receiptId) {
+        if (paymentJournal == null) return ResponseEntity.notFound().build();
+        return paymentJournal.receipt(receiptId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    @Workload(WorkloadClass.PAYMENTS)
+    @PostMapping("/payments/batch")
+    public ResponseEntity<?> recordPayments(@RequestBody PaymentBatch body) {
+        if (body.payments() == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "payments must be a list"));
+        }
+        List<PaymentService.PaymentRequest> reqs = new ArrayList<>(body.payments().size());
+        List<String> errors = new ArrayList<>(body.payments().size());
+        Long schoolId = TenantContext.current();
+        for (PaymentRow row : body.payments()) {
+            PaymentRow r = row != null ? row : new PaymentRow(null, null, null, null);
+            Long invoiceId = null;
+            try {
+                invoiceId = parse(r.invoiceId(), "invoiceId", Long::valueOf);
+                Integer amount = parse(r.amount(), "amount", Integer::valueOf);
+                reqs.add(new PaymentService.PaymentRequest(schoolId, invoiceId, amount,
+                        r.method() == null ? "CASH" : r.method(), r.idempotencyKey()));
+                errors.add(null);
+            } catch (IllegalArgumentException e) {
+                reqs.add(new PaymentService.PaymentRequest(schoolId, invoiceId, null, null, null));
+                errors.add(e.getMessage());
+            }
+        }
+        return ResponseEntity.ok(paymentService.recordBatch(reqs, errors));
+    }
+
+    @Workload(WorkloadClass.REPORTS)
+    @QueryBudget(2)
     @GetMapping("/collections")
     public Map<String, Object> collections(@RequestParam Long schoolId) {
+        TenantContext.checkAccess(schoolId);
         School s = schoolRepository.findById(schoolId).orElseThrow();
-        List<FeeInvoice> invs = invoiceRepository.findBySchool(s);
-        int billed = invs.stream().mapToInt(FeeInvoice::getTotalAmount).sum();
-        int collected = invs.stream().mapToInt(i -> Optional.ofNullable(i.getPaidAmount()).orElse(0)).sum();
-        return Map.of("billed", billed, "collected", collected, "due", billed - collected);
+        return feeReportService.totals(s.getId());
     }
-}
 
+    @Workload(WorkloadClass.REPORTS)
+    @QueryBudget(5)
+    @GetMapping("/collections/breakdown")
+    public Map<String, Object> collectionsBreakdown(@RequestParam Long schoolId) {
+        TenantContext.checkAccess(schoolId);
+        School s = schoolRepository.findById(schoolId).orElseThrow();
+        return feeReportService.breakdown(s.getId());
+    }
+
+    private static List<Long> toLongs(Object raw) {
+        List<Long> ids = new ArrayList<>();
+        if (raw instanceof Collection<?> c) {
+            for (Object o : c) ids.add(Long.valueOf(String.valueOf(o)));
+        }
+        return ids;
+    }
 
+    private static <T> T parse(String value, String field, Function<String, T> parser) {
+        if (value == null || value.isBlank()) return null;
+        try {
+            return parser.apply(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+    }
+
+    // A payment for the current school's invoice.
+    private static PaymentService.PaymentRequest toPaymentRequest(Map<String, Object> body, String headerKey) {
+        Object invoiceId = body.get("invoiceId");
+        Object amount = body.get("amount");
+        Object key = headerKey != null ? headerKey : body.get("idempotencyKey");
+        return new PaymentService.PaymentRequest(
+                TenantContext.current(),
+                invoiceId == null ? null : parse(String.valueOf(invoiceId), "invoiceId", Long::valueOf),
+                amount == null ? null : parse(String.valueOf(amount), "amount", Integer::valueOf),
+                String.valueOf(body.getOrDefault("method", "CASH")),
+                key == null ? null : String.valueOf(key));
+    }
+}
@@ -0,0 +1,68 @@
+package com.schools24.web;
+
+import com.schools24.metrics.QueryBudget;
+import com.schools24.service.LeaderboardService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/api/leaderboard")
+@CrossOrigin
+public class LeaderboardController {
+    private static final int MAX_LIMIT = 100;
+
+    private final LeaderboardService leaderboard;
+
+    public LeaderboardController(LeaderboardService leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    @QueryBudget(0)
+    @GetMapping("/schools/{schoolId}")
+    public Map<String, Object> top(@PathVariable Long schoolId,
+                                   @RequestParam(required = false) Integer grade,
+                                   @RequestParam(defaultValue = "10") int limit) {
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("schoolId", schoolId);
+        res.put("grade", grade);
+        res.put("entries", leaderboard.top(schoolId, grade, Math.max(1, Math.min(limit, MAX_LIMIT))));
+        return res;
+    }
+
+    @QueryBudget(0)
+    @GetMapping("/students/{studentId}")
+    public ResponseEntity<?> student(@PathVariable Long studentId,
+                                     @RequestParam(defaultValue = "school") String scope,
+                                     @RequestParam(defaultValue = "2") int around) {
+        if (!scope.equals("school") && !scope.equals("grade")) {
+            return ResponseEntity.badRequest().body(Map.of("message", "scope must be school or grade"));
+        }
+        try {
+            return ResponseEntity.ok(leaderboard.position(studentId, scope.equals("grade"),
+                    Math.max(0, Math.min(around, MAX_LIMIT / 2))));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @PutMapping("/students/{studentId}")
+    public ResponseEntity<?> place(@PathVariable Long studentId, @RequestBody Map<String, Object> body) {
+        if (body.get("schoolId") == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Missing fields"));
+        }
+        try {
+            Integer grade = body.get("classGrade") == null ? null : Integer.valueOf(String.valueOf(body.get("classGrade")));
+            leaderboard.place(studentId, Long.valueOf(String.valueOf(body.get("schoolId"))), grade);
+            return ResponseEntity.ok(leaderboard.position(studentId, false, 0));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+}
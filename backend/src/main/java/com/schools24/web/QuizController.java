@@ -0,0 +1,141 @@
+package com.schools24.web;
+
+import com.schools24.domain.Difficulty;
+import com.schools24.metrics.QueryBudget;
+import com.schools24.repository.QuizSessionState;
+import com.schools24.service.QuestionBank;
+import com.schools24.service.QuizAnswerBuffer;
+import com.schools24.service.QuizBufferFullException;
+import com.schools24.service.QuizService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+@RestController
+@RequestMapping("/api/quiz")
+@CrossOrigin
+public class QuizController {
+    private final QuizService quizService;
+    private final QuizAnswerBuffer answerBuffer;
+    private final QuestionBank questionBank;
+
+    public QuizController(QuizService quizService, QuizAnswerBuffer answerBuffer, QuestionBank questionBank) {
+        this.quizService = quizService;
+        this.answerBuffer = answerBuffer;
+        this.questionBank = questionBank;
+    }
+
+    /**
+     * A random paper of distinct questions; grade 0 draws questions without a grade.
+     */
+    @QueryBudget(1)
+    @GetMapping("/paper")
+    public ResponseEntity<?> paper(@RequestParam Long topicId,
+                                   @RequestParam int grade,
+                                   @RequestParam String difficulty,
+                                   @RequestParam(defaultValue = "10") int count) {
+        return handle(() -> {
+            QuestionBank.BankKey key = new QuestionBank.BankKey(topicId, grade, parseDifficulty(difficulty));
+            Map<String, Object> res = new LinkedHashMap<>();
+            res.put("topicId", topicId);
+            res.put("grade", grade);
+            res.put("difficulty", key.difficulty());
+            res.put("available", questionBank.available(key));
+            res.put("questions", questionBank.texts(questionBank.sample(key, Math.max(1, count))));
+            return ResponseEntity.ok(res);
+        });
+    }
+
+    @PostMapping("/sessions")
+    public ResponseEntity<?> start(@RequestBody Map<String, Object> body) {
+        if (body.get("studentId") == null || body.get("subjectId") == null || body.get("topicId") == null
+                || body.get("difficulty") == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Missing fields"));
+        }
+        return handle(() -> {
+            QuizSessionState s = quizService.start(toLong(body.get("studentId")), toLong(body.get("subjectId")),
+                    toLong(body.get("topicId")), parseDifficulty(String.valueOf(body.get("difficulty"))));
+            return ResponseEntity.created(URI.create("/api/quiz/sessions/" + s.id())).body(Map.of("session", s));
+        });
+    }
+
+    @QueryBudget(2)
+    @PostMapping("/sessions/{id}/answers")
+    public ResponseEntity<?> answer(@PathVariable Long id, @RequestBody Map<String, Object> body) {
+        if (body.get("questionId") == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Missing fields"));
+        }
+        return handle(() -> {
+            Long questionId = toLong(body.get("questionId"));
+            Boolean correct = quizService.answer(id, questionId, (String) body.get("answer"));
+            Map<String, Object> res = new HashMap<>();
+            res.put("questionId", questionId);
+            res.put("correct", correct);
+            return ResponseEntity.accepted().body(res);
+        });
+    }
+
+    @PostMapping("/sessions/{id}/finish")
+    public ResponseEntity<?> finish(@PathVariable Long id) {
+        return handle(() -> ResponseEntity.ok(quizService.finish(id)));
+    }
+
+    @GetMapping("/sessions/{id}")
+    public ResponseEntity<?> session(@PathVariable Long id) {
+        return handle(() -> {
+            Map<String, Object> res = new LinkedHashMap<>();
+            res.put("session", quizService.state(id));
+            res.put("answeredQuestionIds", quizService.answeredQuestionIds(id));
+            return ResponseEntity.ok(res);
+        });
+    }
+
+    @GetMapping("/ingest")
+    public Map<String, Object> ingest() {
+        Map<String, Object> res = new LinkedHashMap<>(answerBuffer.snapshot());
+        res.put("openSessions", quizService.openSessions());
+        res.put("questionBank", questionBank.snapshot());
+        return res;
+    }
+
+    private static ResponseEntity<?> handle(Supplier<ResponseEntity<?>> action) {
+        try {
+            return action.get();
+        } catch (QuizBufferFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("message", e.getMessage()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    private static Difficulty parseDifficulty(String v) {
+        try {
+            return Difficulty.valueOf(v.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Difficulty must be EASY, MEDIUM or HARD");
+        }
+    }
+
+    private static Long toLong(Object v) {
+        try {
+            return Long.valueOf(String.valueOf(v));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid id " + v);
+        }
+    }
+}
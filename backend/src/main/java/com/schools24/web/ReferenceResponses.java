@@ -0,0 +1,120 @@
+package com.schools24.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schools24.service.ReferenceVersions;
+import com.schools24.service.ReferenceVersions.Resource;
+import com.schools24.service.ReferenceVersions.Version;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.Environment;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GETs for the reference lists (classes, subjects, fee heads). The ETag is a SHA-256
+ * of the list, its school, its {@link ReferenceVersions} counter (read before the list is) and
+ * the request's parameters, so every server tags a page alike and a client sending back the
+ * current tag gets 304 after reading only the counter. Serialized bodies are kept per tag, so
+ * each version of a page is read and serialized once per server.
+ * <p>
+ * With read replicas, a list changed within the replica lag limit is sent untagged and not kept:
+ * a write made outside the school's requests may not have reached the replica the read used yet.
+ */
+@Component
+public class ReferenceResponses {
+    private final ReferenceVersions versions;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry registry;
+    private final long settleMs;
+    private final Map<String, byte[]> bodies;
+
+    public ReferenceResponses(ReferenceVersions versions, ObjectMapper objectMapper, MeterRegistry registry,
+                              Environment env) {
+        this.versions = versions;
+        this.objectMapper = objectMapper;
+        this.registry = registry;
+        this.settleMs = env.getProperty("schools24.datasource.replica.urls") == null ? 0
+                : env.getProperty("schools24.datasource.replica.max-lag-ms", Long.class, 2_000L);
+        int entries = env.getProperty("schools24.reference.cache-entries", Integer.class, 500);
+        this.bodies = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > entries;
+            }
+        });
+    }
+
+    /**
+     * Answers a GET of one school's list (every school's when schoolId is null); params must
+     * hold every request parameter that shapes the body.
+     */
+    public ResponseEntity<?> respond(Resource resource, Long schoolId, String params, String ifNoneMatch,
+                                     Supplier<Object> body) {
+        Version v = versions.version(resource, schoolId);
+        if (System.currentTimeMillis() - v.changedAtMs() < settleMs) {
+            count(resource, "unsettled");
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(body.get());
+        }
+        String key = resource + "/" + (schoolId == null ? "all" : schoolId) + "/" + v.value() + "?" + params;
+        String etag = "\"" + digest(key) + "\"";
+        if (matches(ifNoneMatch, etag)) {
+            count(resource, "not_modified");
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
+        byte[] json = bodies.get(key);
+        if (json != null) {
+            count(resource, "cached");
+        } else {
+            try {
+                json = objectMapper.writeValueAsBytes(body.get());
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize " + resource, e);
+            }
+            bodies.put(key, json);
+            count(resource, "loaded");
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON).body(json);
+    }
+
+    // If-None-Match compares weakly: W/"x" matches "x".
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String t = candidate.trim();
+            if (t.equals("*")) return true;
+            if (t.startsWith("W/")) t = t.substring(2);
+            if (t.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private static String digest(String key) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void count(Resource resource, String result) {
+        Counter.builder("schools24.reference.responses")
+                .tag("resource", resource.name().toLowerCase())
+                .tag("result", result)
+                .register(registry)
+                .increment();
+    }
+}
@@ -0,0 +1,82 @@
+package com.schools24.web;
+
+import com.schools24.admission.Workload;
+import com.schools24.admission.WorkloadClass;
+import com.schools24.metrics.QueryBudget;
+import com.schools24.service.TimetableService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/timetable")
+@CrossOrigin
+public class TimetableController {
+    private final TimetableService timetableService;
+
+    public TimetableController(TimetableService timetableService) {
+        this.timetableService = timetableService;
+    }
+
+    @Workload(WorkloadClass.BULK)
+    @QueryBudget(5)
+    @PostMapping("/solve")
+    public ResponseEntity<?> solve(@RequestBody Map<String, Object> body) throws InterruptedException {
+        if (body.get("schoolId") == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Missing fields"));
+        }
+        try {
+            Map<Long, Integer> periodsPerWeek = new HashMap<>();
+            if (body.get("periodsPerWeek") instanceof Map<?, ?> m) {
+                m.forEach((k, v) -> periodsPerWeek.put(Long.valueOf(String.valueOf(k)), v == null ? null : Integer.valueOf(String.valueOf(v))));
+            }
+            Map<Long, Collection<int[]>> unavailable = new HashMap<>();
+            if (body.get("teacherUnavailable") instanceof Map<?, ?> m) {
+                m.forEach((k, v) -> unavailable.put(Long.valueOf(String.valueOf(k)), toSlots(v)));
+            }
+            return ResponseEntity.ok(timetableService.solve(new TimetableService.Request(
+                    Long.valueOf(String.valueOf(body.get("schoolId"))), periodsPerWeek, unavailable)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @QueryBudget(2)
+    @GetMapping("/settings")
+    public Map<String, Object> settings(@RequestParam Long schoolId) {
+        return timetableService.settings(schoolId);
+    }
+
+    @QueryBudget(1)
+    @GetMapping("/classes/{classId}")
+    public Map<String, Object> classTimetable(@PathVariable Long classId) {
+        return timetableService.classTimetable(classId);
+    }
+
+    @QueryBudget(1)
+    @GetMapping("/teachers/{teacherId}")
+    public Map<String, Object> teacherTimetable(@PathVariable Long teacherId) {
+        return timetableService.teacherTimetable(teacherId);
+    }
+
+    private static List<int[]> toSlots(Object raw) {
+        List<int[]> slots = new ArrayList<>();
+        if (raw instanceof Collection<?> c) {
+            for (Object o : c) {
+                if (!(o instanceof List<?> dp) || dp.size() != 2) {
+                    throw new IllegalArgumentException("Unavailable slots must be [day, period] pairs");
+                }
+                slots.add(new int[]{Integer.parseInt(String.valueOf(dp.get(0))), Integer.parseInt(String.valueOf(dp.get(1)))});
+            }
+        }
+        return slots;
+    }
+}
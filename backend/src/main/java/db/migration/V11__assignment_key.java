@@ -0,0 +1,41 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class has one teacher per subject (see TeacherAssignmentService); the key lets assignment
+ * sheets be applied as upserts. Existing duplicates are not resolved here, since which teacher is
+ * right is the school's call: the migration fails and lists them, to be fixed by hand and rerun
+ * (MySQL cannot roll back the failed migration's history row, so that is deleted too).
+ * In Java rather than SQL so the list is not cut short by MySQL's 128-character error messages.
+ */
+public class V11__assignment_key extends BaseJavaMigration {
+    private static final String DUPLICATES_SQL = "select class_id, subject_id, " +
+            "group_concat(concat(id, ' (teacher ', teacher_id, ')') order by id separator ', ') " +
+            "from class_subject_teacher group by class_id, subject_id having count(*) > 1 order by class_id, subject_id";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement st = context.getConnection().createStatement()) {
+            st.execute("set session group_concat_max_len = 65536");
+            List<String> conflicts = new ArrayList<>();
+            try (ResultSet rs = st.executeQuery(DUPLICATES_SQL)) {
+                while (rs.next()) {
+                    conflicts.add("class " + rs.getLong(1) + ", subject " + rs.getLong(2) + ": assignments " + rs.getString(3));
+                }
+            }
+            if (!conflicts.isEmpty()) {
+                throw new IllegalStateException("Classes with more than one teacher for a subject: keep one row of each in " +
+                        "class_subject_teacher, delete this migration's failed row from flyway_schema_history (or run " +
+                        "flyway repair) and start again\n  " + String.join("\n  ", conflicts));
+            }
+            st.execute("alter table class_subject_teacher add constraint uk_cst_class_subject unique (class_id, subject_id)");
+        }
+    }
+}
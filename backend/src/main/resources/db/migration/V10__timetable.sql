@@ -0,0 +1,20 @@
+-- Generated weekly timetables (see TimetableService). The unique keys stop a class or a teacher
+-- being booked twice in a slot and serve the per-class and per-teacher reads.
+create table timetable_slots (
+    id bigint not null auto_increment,
+    school_id bigint,
+    class_id bigint not null,
+    subject_id bigint not null,
+    teacher_id bigint not null,
+    weekday integer not null,
+    period integer not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table timetable_slots add constraint uk_timetable_class_slot unique (class_id, weekday, period);
+alter table timetable_slots add constraint uk_timetable_teacher_slot unique (teacher_id, weekday, period);
+create index idx_timetable_school on timetable_slots (school_id);
+
+alter table timetable_slots add constraint fk_timetable_class foreign key (class_id) references classes (id);
+alter table timetable_slots add constraint fk_timetable_subject foreign key (subject_id) references subjects (id);
+alter table timetable_slots add constraint fk_timetable_teacher foreign key (teacher_id) references users (id);
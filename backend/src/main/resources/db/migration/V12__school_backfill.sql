@@ -0,0 +1,74 @@
+-- Fills in school_id on rows created before it existed (V6), from the rows they are linked to.
+-- Each step only fills rows still without a school; a row linked to several schools takes the
+-- lowest school id. Admins and rows with no link stay unscoped unless there is only one school.
+
+-- Students from their invoices, which always name a school.
+update users u
+join (select student_id, min(school_id) as school_id from fee_invoices group by student_id) f on f.student_id = u.id
+set u.school_id = f.school_id
+where u.school_id is null;
+
+-- Classes from their students.
+update classes c
+join (select cs.class_id, min(u.school_id) as school_id
+      from class_students cs join users u on u.id = cs.student_id
+      where u.school_id is not null group by cs.class_id) x on x.class_id = c.id
+set c.school_id = x.school_id
+where c.school_id is null;
+
+-- Students without invoices from their class.
+update users u
+join (select cs.student_id, min(c.school_id) as school_id
+      from class_students cs join classes c on c.id = cs.class_id
+      where c.school_id is not null group by cs.student_id) x on x.student_id = u.id
+set u.school_id = x.school_id
+where u.school_id is null;
+
+-- Teachers from the classes they lead, teach or are assigned to.
+update users u
+join (select teacher_id, min(school_id) as school_id from (
+          select c.class_teacher_id as teacher_id, c.school_id from classes c
+          union all
+          select tc.teacher_id, c.school_id from teacher_classes tc join classes c on c.id = tc.class_id
+          union all
+          select cst.teacher_id, c.school_id from class_subject_teacher cst join classes c on c.id = cst.class_id
+      ) t where teacher_id is not null and school_id is not null group by teacher_id) x on x.teacher_id = u.id
+set u.school_id = x.school_id
+where u.school_id is null;
+
+-- Classes without students from their class teacher.
+update classes c
+join users t on t.id = c.class_teacher_id
+set c.school_id = t.school_id
+where c.school_id is null and t.school_id is not null;
+
+-- Assignments belong to their class's school.
+update class_subject_teacher cst
+join classes c on c.id = cst.class_id
+set cst.school_id = c.school_id
+where cst.school_id is null and c.school_id is not null;
+
+-- Subjects from the classes they are assigned in, then from the teachers who teach them.
+-- Codes were unique across schools until V6, so this cannot break uk_subjects_school_code.
+update subjects s
+join (select subject_id, min(school_id) as school_id from class_subject_teacher
+      where school_id is not null group by subject_id) x on x.subject_id = s.id
+set s.school_id = x.school_id
+where s.school_id is null;
+
+update subjects s
+join (select ts.subject_id, min(u.school_id) as school_id
+      from teacher_subjects ts join users u on u.id = ts.teacher_id
+      where u.school_id is not null group by ts.subject_id) x on x.subject_id = s.id
+set s.school_id = x.school_id
+where s.school_id is null;
+
+-- A database with a single school: everything left belongs to it.
+update users set school_id = (select min(id) from schools)
+where school_id is null and (select count(*) from schools) = 1;
+update classes set school_id = (select min(id) from schools)
+where school_id is null and (select count(*) from schools) = 1;
+update subjects set school_id = (select min(id) from schools)
+where school_id is null and (select count(*) from schools) = 1;
+update class_subject_teacher set school_id = (select min(id) from schools)
+where school_id is null and (select count(*) from schools) = 1;
@@ -0,0 +1,13 @@
+-- Finished quizzes are marked once their score is in a saved leaderboard total. This replaces
+-- the end-time high-water mark, which skipped a quiz that finished after a later-ending one had
+-- already been counted.
+alter table quiz_sessions add column on_leaderboard bit not null default 0;
+
+-- Quizzes that ended by a student's saved mark are already in their total.
+update quiz_sessions s
+join leaderboard e on e.student_id = s.student_id
+set s.on_leaderboard = 1
+where s.end_time is not null and e.last_updated is not null and s.end_time <= e.last_updated;
+
+-- Startup reads the finished quizzes not yet counted.
+create index idx_quiz_sessions_on_leaderboard on quiz_sessions (on_leaderboard, end_time);
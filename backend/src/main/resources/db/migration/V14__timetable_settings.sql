@@ -0,0 +1,17 @@
+-- Timetable settings kept between solves (see TimetableService): how many lessons a subject has
+-- a week (null uses schools24.timetable.periods-per-week) and the slots a teacher cannot teach in.
+alter table subjects add column periods_per_week integer;
+
+create table teacher_unavailable_slots (
+    id bigint not null auto_increment,
+    school_id bigint,
+    teacher_id bigint not null,
+    weekday integer not null,
+    period integer not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table teacher_unavailable_slots add constraint uk_teacher_unavailable_slot unique (teacher_id, weekday, period);
+create index idx_teacher_unavailable_school on teacher_unavailable_slots (school_id);
+
+alter table teacher_unavailable_slots add constraint fk_teacher_unavailable_teacher foreign key (teacher_id) references users (id);
@@ -0,0 +1,9 @@
+-- Change counters of the reference lists (see ReferenceVersions), bumped in the transaction that
+-- changes a list so every server tags it alike. Rows without a school count under school_id 0.
+create table reference_versions (
+    resource varchar(20) not null,
+    school_id bigint not null,
+    version bigint not null,
+    changed_at_ms bigint not null,
+    primary key (resource, school_id)
+) engine=InnoDB;
@@ -0,0 +1,11 @@
+-- Payments carry their invoice's school, so they are filtered like other school rows, and
+-- idempotency keys are unique per school instead of across schools: one school's key never
+-- answers another school's payment.
+alter table payments add column school_id bigint after id;
+
+update payments p
+join fee_invoices i on i.id = p.invoice_id
+set p.school_id = i.school_id;
+
+alter table payments drop index UKj4pdqn1207fuhx2gybp1ue799;
+alter table payments add constraint uk_payments_school_key unique (school_id, idempotency_key);
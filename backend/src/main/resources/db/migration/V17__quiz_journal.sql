@@ -0,0 +1,7 @@
+-- Write position of each local quiz answer journal (see QuizAnswerBuffer), so a restart only
+-- replays the answers journaled after the last flush instead of the whole current segment.
+create table quiz_journal (
+    journal_id varchar(36) not null,
+    written_seq bigint not null,
+    primary key (journal_id)
+) engine=InnoDB;
@@ -0,0 +1,133 @@
+-- The schema as ddl-auto=update built it before migrations were introduced. A database created
+-- that way is recorded at this version without running it (spring.flyway.baseline-on-migrate)
+-- and brought up to date by the later scripts; constraint names are Hibernate's.
+
+create table schools (
+    id bigint not null auto_increment,
+    code varchar(255) not null,
+    name varchar(255) not null,
+    domain varchar(255),
+    email varchar(255),
+    address varchar(255),
+    city varchar(255),
+    state varchar(255),
+    country varchar(255),
+    lock_teacher_creation bit,
+    lock_student_creation bit,
+    created_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table users (
+    id bigint not null auto_increment,
+    name varchar(255) not null,
+    email varchar(255) not null,
+    password varchar(255) not null,
+    role varchar(255) not null,
+    user_id varchar(255) not null,
+    is_active bit,
+    created_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table classes (
+    id bigint not null auto_increment,
+    name varchar(255) not null,
+    grade varchar(255) not null,
+    section varchar(255) not null,
+    class_teacher_id bigint,
+    is_active bit,
+    primary key (id)
+) engine=InnoDB;
+
+create table class_students (
+    class_id bigint not null,
+    student_id bigint not null,
+    primary key (class_id, student_id)
+) engine=InnoDB;
+
+create table subjects (
+    id bigint not null auto_increment,
+    name varchar(255) not null,
+    code varchar(255) not null,
+    is_active bit,
+    primary key (id)
+) engine=InnoDB;
+
+create table teacher_classes (
+    class_id bigint not null,
+    teacher_id bigint not null,
+    primary key (class_id, teacher_id)
+) engine=InnoDB;
+
+create table teacher_subjects (
+    subject_id bigint not null,
+    teacher_id bigint not null,
+    primary key (subject_id, teacher_id)
+) engine=InnoDB;
+
+create table class_subject_teacher (
+    id bigint not null auto_increment,
+    class_id bigint not null,
+    subject_id bigint not null,
+    teacher_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table fee_heads (
+    id bigint not null auto_increment,
+    school_id bigint,
+    name varchar(255) not null,
+    amount integer,
+    primary key (id)
+) engine=InnoDB;
+
+create table fee_invoices (
+    id bigint not null auto_increment,
+    school_id bigint not null,
+    student_id bigint not null,
+    total_amount integer,
+    paid_amount integer,
+    status varchar(255),
+    created_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table fee_invoice_items (
+    id bigint not null auto_increment,
+    invoice_id bigint not null,
+    fee_head_id bigint not null,
+    amount integer,
+    primary key (id)
+) engine=InnoDB;
+
+create table payments (
+    id bigint not null auto_increment,
+    invoice_id bigint not null,
+    amount integer,
+    method varchar(255),
+    paid_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+alter table schools add constraint UKm5x8j64nhdcprk9ghc6622swx unique (code);
+alter table users add constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email);
+alter table users add constraint UK6efs5vmce86ymf5q7lmvn2uuf unique (user_id);
+alter table subjects add constraint UKrg7x1lyii7kdyycw98d45vep5 unique (code);
+
+alter table class_students add constraint FKi67hsuppqm0qnfgn2x8d7v2lj foreign key (student_id) references users (id);
+alter table class_students add constraint FKjuh9br5vimkw71ko8qyswp3ci foreign key (class_id) references classes (id);
+alter table class_subject_teacher add constraint FK65lahvjencneb2f9bf8tq9aqd foreign key (class_id) references classes (id);
+alter table class_subject_teacher add constraint FKq9oj0n3q5qtnn4rdrm7i681l3 foreign key (subject_id) references subjects (id);
+alter table class_subject_teacher add constraint FKp4gabj2qmedqmirmfxeh2bi7 foreign key (teacher_id) references users (id);
+alter table classes add constraint FK1svte3uasd0gy1rugtpmdxkjp foreign key (class_teacher_id) references users (id);
+alter table fee_heads add constraint FKhdl3y9sodn1dbhrp06cff8jnd foreign key (school_id) references schools (id);
+alter table fee_invoice_items add constraint FK88679u8ef2lvyf0yy2n6v5aap foreign key (fee_head_id) references fee_heads (id);
+alter table fee_invoice_items add constraint FK2da2o7haqdatsxpfxos32c052 foreign key (invoice_id) references fee_invoices (id);
+alter table fee_invoices add constraint FKob2ok78utgfb62a9nk47o8igy foreign key (school_id) references schools (id);
+alter table fee_invoices add constraint FKmk5uiuks8jocbyy088octb2kg foreign key (student_id) references users (id);
+alter table payments add constraint FK7dw3agu8fd68ckojuup27jrjq foreign key (invoice_id) references fee_invoices (id);
+alter table teacher_classes add constraint FK3fdju9wytitbkyphm15b0uqw2 foreign key (class_id) references classes (id);
+alter table teacher_classes add constraint FKqdrvu498064jj90ucv6v3uafr foreign key (teacher_id) references users (id);
+alter table teacher_subjects add constraint FKdweqkwxroox2u7pbmksehx04i foreign key (subject_id) references subjects (id);
+alter table teacher_subjects add constraint FKq4e6w8v6kqcd1ua0eaui9jho foreign key (teacher_id) references users (id);
@@ -0,0 +1,22 @@
+-- Fee invoices, items and payments take pooled ids from sequences so inserts can be batched.
+-- MySQL has no sequences, so Hibernate keeps each in a single-row table. They start one
+-- allocation (50) past the ids AUTO_INCREMENT has issued, so new ids never collide with them.
+-- The id columns keep AUTO_INCREMENT, which Hibernate no longer uses; removing it would
+-- rebuild the tables.
+create table fee_invoices_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into fee_invoices_seq select coalesce(max(id), 0) + 51 from fee_invoices;
+
+create table fee_invoice_items_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into fee_invoice_items_seq select coalesce(max(id), 0) + 51 from fee_invoice_items;
+
+create table payments_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into payments_seq select coalesce(max(id), 0) + 51 from payments;
@@ -0,0 +1,3 @@
+-- Client keys for payment retries (see PaymentService); unique, so a retried payment is posted once.
+alter table payments add column idempotency_key varchar(100);
+alter table payments add constraint UKj4pdqn1207fuhx2gybp1ue799 unique (idempotency_key);
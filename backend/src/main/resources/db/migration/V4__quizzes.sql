@@ -0,0 +1,54 @@
+-- Question bank and quiz attempts (see QuizService). An answer is recorded once per question.
+create table topics (
+    id bigint not null auto_increment,
+    subject_id bigint not null,
+    name varchar(100) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table questions (
+    id bigint not null auto_increment,
+    topic_id bigint not null,
+    class_grade integer,
+    difficulty enum ('EASY','HARD','MEDIUM') not null,
+    question_text text not null,
+    option_a text not null,
+    option_b text not null,
+    option_c text not null,
+    option_d text not null,
+    correct_option varchar(255),
+    created_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table quiz_sessions (
+    id bigint not null auto_increment,
+    student_id bigint not null,
+    subject_id bigint not null,
+    topic_id bigint not null,
+    difficulty enum ('EASY','HARD','MEDIUM') not null,
+    start_time datetime(6),
+    end_time datetime(6),
+    score integer,
+    primary key (id)
+) engine=InnoDB;
+
+create table quiz_attempt_details (
+    id bigint not null auto_increment,
+    session_id bigint not null,
+    question_id bigint not null,
+    student_answer varchar(255),
+    is_correct bit,
+    answered_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+alter table quiz_attempt_details add constraint uk_attempt_session_question unique (session_id, question_id);
+
+alter table questions add constraint FKdb5p6ukb0v76he4pq87cbymhg foreign key (topic_id) references topics (id);
+alter table quiz_attempt_details add constraint FK7c17twmyt02tlf3vtl4c3jvj9 foreign key (question_id) references questions (id);
+alter table quiz_attempt_details add constraint FKm7yeob8xqippbs10j7m6gxe6j foreign key (session_id) references quiz_sessions (id);
+alter table quiz_sessions add constraint FKe9464vcq03okrxalgrt65f6ib foreign key (student_id) references users (id);
+alter table quiz_sessions add constraint FK93j0wr2jdddxk217l93skge8v foreign key (subject_id) references subjects (id);
+alter table quiz_sessions add constraint FK55k97xi8ox83lrkq7w78khpwk foreign key (topic_id) references topics (id);
+alter table topics add constraint FK957k7bkcrurt9uen2242medmq foreign key (subject_id) references subjects (id);
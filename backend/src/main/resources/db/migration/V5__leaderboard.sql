@@ -0,0 +1,15 @@
+-- Running quiz totals per student (see LeaderboardService).
+create table leaderboard (
+    id bigint not null auto_increment,
+    student_id bigint not null,
+    school_id bigint,
+    class_grade integer,
+    total_score integer,
+    last_updated datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+alter table leaderboard add constraint UKso5va9mit20te0wkx4hbkwrey unique (student_id);
+
+alter table leaderboard add constraint FKs25t6wuknn3eq5gw2kgyru5dx foreign key (school_id) references schools (id);
+alter table leaderboard add constraint FK8h9sec22ksevf3puts6kd6ud5 foreign key (student_id) references users (id);
@@ -0,0 +1,14 @@
+-- Rows owned by a school carry its id, so requests can be filtered to the caller's school (see
+-- TenantContext). Subject codes become unique per school instead of across schools.
+alter table users add column school_id bigint after id;
+alter table classes add column school_id bigint after id;
+alter table subjects add column school_id bigint after id;
+alter table class_subject_teacher add column school_id bigint after id;
+
+alter table subjects drop index UKrg7x1lyii7kdyycw98d45vep5;
+alter table subjects add constraint uk_subjects_school_code unique (school_id, code);
+
+create index idx_users_school_role on users (school_id, role, is_active, created_at);
+create index idx_users_school_created on users (school_id, is_active, created_at);
+create index idx_classes_school_name on classes (school_id, name, grade, section);
+create index idx_cst_school_class on class_subject_teacher (school_id, class_id);
@@ -0,0 +1,18 @@
+-- Indexes for the repository finders on request paths; the loadtest module's PlanCheck fails
+-- when one of them is planned as a full table scan.
+
+-- Recent users and the teacher listing when not scoped to a school (seek on created_at, id).
+create index idx_users_active_created on users (is_active, created_at);
+create index idx_users_role_active_created on users (role, is_active, created_at);
+
+-- Class lookup by name when not scoped to a school; scoped lookups use idx_classes_school_name.
+create index idx_classes_name on classes (name, grade, section);
+
+-- Subject code checks across schools; codes are unique per school only.
+create index idx_subjects_code on subjects (code);
+
+-- Collections over a date range; also serves fee_invoices.school_id lookups and its foreign key.
+create index idx_fee_invoices_school_created on fee_invoices (school_id, created_at);
+
+-- Answer keys of a topic and difficulty; also serves the topic_id foreign key.
+create index idx_questions_topic_difficulty on questions (topic_id, difficulty);
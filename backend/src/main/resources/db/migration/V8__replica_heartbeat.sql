@@ -0,0 +1,10 @@
+-- Heartbeat for read replica lag: while replicas are configured the primary sets beat_ms to the
+-- current time (epoch milliseconds) several times a second, and a replica's copy shows how far
+-- it has replayed.
+create table replica_heartbeat (
+    id integer not null,
+    beat_ms bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+insert into replica_heartbeat values (1, 0);
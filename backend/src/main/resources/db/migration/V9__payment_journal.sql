@@ -0,0 +1,7 @@
+-- Posting position of each local payment journal (see PaymentJournalService): the last record
+-- applied, committed together with the payments it produced so a replay never posts twice.
+create table payment_journal (
+    journal_id varchar(36) not null,
+    applied_seq bigint not null,
+    primary key (journal_id)
+) engine=InnoDB;
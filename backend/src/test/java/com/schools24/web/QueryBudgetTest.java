@@ -0,0 +1,341 @@
+package com.schools24.web;
+
+import com.schools24.auth.TokenService;
+import com.schools24.domain.ClassSubjectTeacher;
+import com.schools24.domain.Difficulty;
+import com.schools24.domain.FeeHead;
+import com.schools24.domain.FeeInvoice;
+import com.schools24.domain.Question;
+import com.schools24.domain.School;
+import com.schools24.domain.SchoolClass;
+import com.schools24.domain.Subject;
+import com.schools24.domain.Topic;
+import com.schools24.domain.User;
+import com.schools24.metrics.QueryBudget;
+import com.schools24.metrics.QueryBudgetExceededException;
+import com.schools24.metrics.QueryCounter;
+import com.schools24.repository.SchoolRepository;
+import com.schools24.service.AdminReadService;
+import com.schools24.service.BulkInvoiceService;
+import com.schools24.service.DashboardStats;
+import com.schools24.service.LeaderboardService;
+import com.schools24.service.QuestionBank;
+import com.schools24.service.SearchIndexService;
+import com.schools24.tenant.TenantConfig;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Calls every {@link QueryBudget} endpoint with budgets enforced, against a school with several
+ * classes, teachers, students, subjects and invoices, so a handler that starts loading rows one
+ * by one (N+1) fails the build instead of only logging a warning.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryBudgetTest {
+    private static final int CLASSES = 3;
+    private static final int STUDENTS_PER_CLASS = 4;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private TokenService tokenService;
+    @Autowired
+    private SchoolRepository schoolRepository;
+    @Autowired
+    private AdminReadService adminReadService;
+
+    private long schoolId;
+    private long teacherId;
+    private long subjectId;
+    private long classId;
+    private long studentId;
+    private long topicId;
+    private long questionId;
+    private long invoiceId;
+    private long headId;
+    private String token;
+    private String teacherToken;
+    private String studentToken;
+    private String platformToken;
+    private String otherSchoolToken;
+
+    @BeforeAll
+    void seed(@Autowired QuestionBank questionBank, @Autowired SearchIndexService searchIndex,
+              @Autowired DashboardStats dashboardStats, @Autowired LeaderboardService leaderboard) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            School school = school("QB1");
+            // A second school's rows must not show up in, or add queries to, the first one's requests.
+            School other = school("QB2");
+            User admin = user(school, "admin", 0);
+            List<User> teachers = new ArrayList<>();
+            List<Subject> subjects = new ArrayList<>();
+            for (int i = 0; i < CLASSES; i++) {
+                teachers.add(user(school, "teacher", i));
+                Subject s = new Subject();
+                s.setName("Subject " + i);
+                s.setCode("S" + i);
+                s.setSchoolId(school.getId());
+                em.persist(s);
+                subjects.add(s);
+            }
+            user(other, "teacher", 100);
+            User otherAdmin = user(other, "admin", 100);
+            List<FeeHead> heads = new ArrayList<>();
+            for (String name : new String[]{"Tuition", "Transport", "Library"}) {
+                FeeHead h = new FeeHead();
+                h.setName(name);
+                h.setAmount(1_000);
+                h.setSchool(school);
+                em.persist(h);
+                heads.add(h);
+            }
+            for (int c = 0; c < CLASSES; c++) {
+                SchoolClass sc = new SchoolClass();
+                sc.setName("Class " + c);
+                sc.setGrade(String.valueOf(c + 1));
+                sc.setSection("A");
+                sc.setSchoolId(school.getId());
+                sc.setClassTeacher(teachers.get(c));
+                for (int k = 0; k < STUDENTS_PER_CLASS; k++) {
+                    User student = user(school, "student", c * STUDENTS_PER_CLASS + k);
+                    sc.getStudents().add(student);
+                    FeeInvoice inv = BulkInvoiceService.buildInvoice(school, student, heads);
+                    em.persist(inv);
+                    invoiceId = inv.getId();
+                    studentId = student.getId();
+                }
+                em.persist(sc);
+                for (int s = 0; s < subjects.size(); s++) {
+                    ClassSubjectTeacher cst = new ClassSubjectTeacher();
+                    cst.setSchoolClass(sc);
+                    cst.setSubject(subjects.get(s));
+                    cst.setTeacher(teachers.get(s));
+                    cst.setSchoolId(school.getId());
+                    em.persist(cst);
+                }
+                classId = sc.getId();
+            }
+            Topic topic = new Topic();
+            topic.setSubject(subjects.get(0));
+            topic.setName("Fractions");
+            em.persist(topic);
+            for (int q = 0; q < 5; q++) {
+                Question question = new Question();
+                question.setTopic(topic);
+                question.setClassGrade(1);
+                question.setDifficulty(Difficulty.EASY);
+                question.setQuestionText("Question " + q);
+                question.setOptionA("a");
+                question.setOptionB("b");
+                question.setOptionC("c");
+                question.setOptionD("d");
+                question.setCorrectOption("A");
+                em.persist(question);
+                questionId = question.getId();
+            }
+            schoolId = school.getId();
+            headId = heads.get(0).getId();
+            teacherId = teachers.get(0).getId();
+            subjectId = subjects.get(0).getId();
+            topicId = topic.getId();
+            token = tokenService.issue(admin);
+            teacherToken = tokenService.issue(teachers.get(0));
+            studentToken = tokenService.issue(em.find(User.class, studentId));
+            User developer = new User();
+            developer.setName("Platform developer");
+            developer.setEmail("developer@platform.example.org");
+            developer.setPassword("unused");
+            developer.setRole(TenantConfig.PLATFORM_ROLE);
+            developer.setUserId("PLATFORM-DEV0");
+            em.persist(developer);
+            platformToken = tokenService.issue(developer);
+            otherSchoolToken = tokenService.issue(otherAdmin);
+        });
+        // The in-memory views were built at startup, before the data existed.
+        questionBank.refresh();
+        searchIndex.rebuild();
+        dashboardStats.reconcile();
+        leaderboard.place(studentId, schoolId, 1);
+    }
+
+    @Test
+    void adminEndpoints() throws Exception {
+        ok(get("/api/admin/dashboard"));
+        ok(get("/api/admin/dashboard"));
+        ok(get("/api/admin/teachers?withTotal=true"));
+        ok(get("/api/admin/classes?withTotal=true"));
+        ok(get("/api/admin/subjects?withTotal=true"));
+    }
+
+    @Test
+    void feeEndpoints() throws Exception {
+        ok(get("/api/admin/fees/heads?schoolId=" + schoolId));
+        ok(get("/api/admin/fees/collections?schoolId=" + schoolId));
+        ok(get("/api/admin/fees/collections/breakdown?schoolId=" + schoolId));
+        ok(post("/api/admin/fees/payments").header("Idempotency-Key", "qb-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"invoiceId\":" + invoiceId + ",\"amount\":250,\"method\":\"UPI\"}"));
+    }
+
+    @Test
+    void developerEndpoints() throws Exception {
+        platform(get("/api/developer/overview"));
+        platform(get("/api/developer/schools?withTotal=true"));
+        platform(get("/api/developer/schools?q=School&withTotal=true"));
+        platform(get("/api/developer/search/schools?q=sch"));
+        platform(get("/api/developer/search/users?q=stu"));
+        platform(get("/api/developer/schools/" + schoolId + "/users"));
+    }
+
+    @Test
+    void rolesAreChecked() throws Exception {
+        mvc.perform(get("/api/developer/overview")).andExpect(status().isUnauthorized());
+        mvc.perform(post("/api/developer/schools/" + schoolId + "/provision-admin")).andExpect(status().isUnauthorized());
+        mvc.perform(get("/api/developer/overview").header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+        mvc.perform(get("/api/admin/dashboard").header("Authorization", "Bearer " + platformToken))
+                .andExpect(status().isForbidden());
+        for (String t : new String[]{teacherToken, studentToken}) {
+            mvc.perform(get("/api/admin/dashboard").header("Authorization", "Bearer " + t))
+                    .andExpect(status().isForbidden());
+            mvc.perform(get("/api/admin/fees/collections?schoolId=" + schoolId).header("Authorization", "Bearer " + t))
+                    .andExpect(status().isForbidden());
+        }
+        mvc.perform(get("/api/leaderboard/schools/" + schoolId).header("Authorization", "Bearer " + studentToken))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void otherSchoolsAreRefused() throws Exception {
+        mvc.perform(post("/api/admin/fees/payments").header("Authorization", "Bearer " + otherSchoolToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"invoiceId\":" + invoiceId + ",\"amount\":1}"))
+                .andExpect(status().isNotFound());
+        MvcResult batch = mvc.perform(post("/api/admin/fees/payments/batch").header("Authorization", "Bearer " + otherSchoolToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"payments\":[{\"invoiceId\":\"" + invoiceId + "\",\"amount\":\"1\"}]}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertTrue(batch.getResponse().getContentAsString().contains("\"rejected\":1"));
+
+        MvcResult started = ok(post("/api/quiz/sessions").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"studentId\":" + studentId + ",\"subjectId\":" + subjectId + ",\"topicId\":" + topicId
+                        + ",\"difficulty\":\"EASY\"}"));
+        Matcher id = Pattern.compile("\"id\":(\\d+)").matcher(started.getResponse().getContentAsString());
+        id.find();
+        String session = "/api/quiz/sessions/" + id.group(1);
+        mvc.perform(get(session).header("Authorization", "Bearer " + otherSchoolToken))
+                .andExpect(status().isForbidden());
+        mvc.perform(post(session + "/answers").header("Authorization", "Bearer " + otherSchoolToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"questionId\":" + questionId + ",\"answer\":\"A\"}"))
+                .andExpect(status().isForbidden());
+        mvc.perform(post(session + "/finish").header("Authorization", "Bearer " + otherSchoolToken))
+                .andExpect(status().isForbidden());
+        ok(get(session));
+
+        MvcResult job = ok(post("/api/admin/fees/invoices/bulk").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"schoolId\":" + schoolId + ",\"classId\":" + classId + ",\"headIds\":[" + headId + "]}"));
+        mvc.perform(get(job.getResponse().getHeader("Location")).header("Authorization", "Bearer " + otherSchoolToken))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void assignmentAndTimetableEndpoints() throws Exception {
+        ok(get("/api/admin/assignments/teachers/" + teacherId + "?schoolId=" + schoolId));
+        ok(get("/api/admin/assignments/subjects/" + subjectId + "?schoolId=" + schoolId));
+        ok(get("/api/admin/assignments/load?schoolId=" + schoolId));
+        ok(post("/api/admin/timetable/solve").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"schoolId\":" + schoolId + ",\"periodsPerWeek\":{\"" + subjectId + "\":4},"
+                        + "\"teacherUnavailable\":{\"" + teacherId + "\":[[1,1],[2,1]]}}"));
+        ok(get("/api/admin/timetable/settings?schoolId=" + schoolId));
+        ok(get("/api/admin/timetable/classes/" + classId));
+        ok(get("/api/admin/timetable/teachers/" + teacherId));
+    }
+
+    @Test
+    void quizAndLeaderboardEndpoints() throws Exception {
+        ok(get("/api/quiz/paper?topicId=" + topicId + "&grade=1&difficulty=EASY&count=3"));
+        MvcResult started = ok(post("/api/quiz/sessions").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"studentId\":" + studentId + ",\"subjectId\":" + subjectId + ",\"topicId\":" + topicId
+                        + ",\"difficulty\":\"EASY\"}"));
+        Matcher id = Pattern.compile("\"id\":(\\d+)").matcher(started.getResponse().getContentAsString());
+        id.find();
+        ok(post("/api/quiz/sessions/" + id.group(1) + "/answers").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"questionId\":" + questionId + ",\"answer\":\"A\"}"));
+        ok(get("/api/leaderboard/schools/" + schoolId));
+        ok(get("/api/leaderboard/students/" + studentId));
+    }
+
+    @Test
+    void servicesStayWithinTheirBudgets() {
+        QueryCounter.assertAtMost(3, () -> adminReadService.teachers(null, null, 51));
+        QueryCounter.assertAtMost(2, () -> adminReadService.classes(0, 51));
+    }
+
+    @Test
+    void budgetsAreEnforced() {
+        assertThrows(QueryBudgetExceededException.class,
+                () -> QueryCounter.assertAtMost(1, () -> schoolRepository.count() + schoolRepository.count()));
+    }
+
+    private MvcResult ok(MockHttpServletRequestBuilder request) throws Exception {
+        return mvc.perform(request.header("Authorization", "Bearer " + token))
+                .andExpect(status().is2xxSuccessful())
+                .andReturn();
+    }
+
+    private void platform(MockHttpServletRequestBuilder request) throws Exception {
+        mvc.perform(request.header("Authorization", "Bearer " + platformToken)).andExpect(status().is2xxSuccessful());
+    }
+
+    private School school(String code) {
+        School s = new School();
+        s.setCode(code);
+        s.setName("School " + code);
+        em.persist(s);
+        return s;
+    }
+
+    private User user(School school, String role, int n) {
+        User u = new User();
+        u.setName(role + " " + n + " of " + school.getCode());
+        u.setEmail(role + n + "@" + school.getCode().toLowerCase() + ".example.org");
+        u.setPassword("unused");
+        u.setRole(role);
+        u.setUserId(school.getCode() + "-" + role.substring(0, 3).toUpperCase() + n);
+        u.setSchoolId(school.getId());
+        em.persist(u);
+        return u;
+    }
+}